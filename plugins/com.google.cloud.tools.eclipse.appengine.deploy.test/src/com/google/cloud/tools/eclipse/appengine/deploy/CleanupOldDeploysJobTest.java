@@ -27,6 +27,7 @@ import java.nio.file.Path;
 import java.nio.file.attribute.FileTime;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -34,6 +35,8 @@ import org.junit.Test;
 
 public class CleanupOldDeploysJobTest {
 
+  private static final long ONE_DAY = TimeUnit.DAYS.toMillis(1);
+
   @Test
   public void testRun_withNoDirectories() throws IOException {
     testRun(0, new String[0]);
@@ -50,20 +53,105 @@ public class CleanupOldDeploysJobTest {
   }
 
   @Test
-  public void testRun_withThreeDirectories() throws IOException {
-    testRun(3, new String[] {"1", "2"});
+  public void testRun_withThreeRecentDirectories() throws IOException {
+    testRun(3, new String[] {"1", "2", "3"});
+  }
+
+  @Test
+  public void testRun_deletesDirectoriesOlderThanMaxAge() throws IOException {
+    Path tempDirectory = createTempDirectory();
+    createTestDirectories(tempDirectory, 4, ONE_DAY, 0);
+
+    runJob(tempDirectory, 2 * ONE_DAY + 1000L, Long.MAX_VALUE);
+
+    assertDirectoriesKept(tempDirectory, new String[] {"1", "2"});
+  }
+
+  @Test
+  public void testRun_keepsMostRecentDirectoryEvenIfTooOld() throws IOException {
+    Path tempDirectory = createTempDirectory();
+    createTestDirectories(tempDirectory, 2, 10 * ONE_DAY, 0);
+
+    runJob(tempDirectory, ONE_DAY, Long.MAX_VALUE);
+
+    assertDirectoriesKept(tempDirectory, new String[] {"1"});
+  }
+
+  @Test
+  public void testRun_deletesLeastRecentlyUsedDirectoriesOverMaxSize() throws IOException {
+    Path tempDirectory = createTempDirectory();
+    createTestDirectories(tempDirectory, 4, 1000L, 100);
+
+    runJob(tempDirectory, Long.MAX_VALUE, 250);
+
+    assertDirectoriesKept(tempDirectory, new String[] {"1", "2"});
+  }
+
+  @Test
+  public void testRun_keepsMostRecentDirectoryEvenIfTooLarge() throws IOException {
+    Path tempDirectory = createTempDirectory();
+    createTestDirectories(tempDirectory, 2, 1000L, 100);
+
+    runJob(tempDirectory, Long.MAX_VALUE, 10);
+
+    assertDirectoriesKept(tempDirectory, new String[] {"1"});
+  }
+
+  @Test
+  public void testRun_keepsDirectoriesInUse() throws IOException {
+    Path tempDirectory = createTempDirectory();
+    createTestDirectories(tempDirectory, 4, ONE_DAY, 0);
+
+    WorkDirectoryLock lock = WorkDirectoryLock.tryAcquire(tempDirectory.resolve("4"));
+    try {
+      runJob(tempDirectory, 2 * ONE_DAY + 1000L, Long.MAX_VALUE);
+    } finally {
+      lock.release();
+    }
+
+    assertDirectoriesKept(tempDirectory, new String[] {"1", "2", "4"});
+  }
+
+  @Test
+  public void testComputeSize() throws IOException {
+    Path tempDirectory = createTempDirectory();
+    createTestDirectories(tempDirectory, 2, ONE_DAY, 10);
+
+    assertThat(CleanupOldDeploysJob.computeSize(tempDirectory), is(20L));
+  }
+
+  @Test
+  public void testComputeSize_deletedDirectory() throws IOException {
+    Path tempDirectory = createTempDirectory();
+
+    assertThat(CleanupOldDeploysJob.computeSize(tempDirectory.resolve("deleted")), is(0L));
   }
 
   private void testRun(int directoryCount, String[] expectedDirectoriesToKeep) throws IOException {
-    Path tempDirectory = Files.createTempDirectory("cleanupolddeploysjobtest");
-    tempDirectory.toFile().deleteOnExit();
-    createTestDirectories(tempDirectory, directoryCount);
+    Path tempDirectory = createTempDirectory();
+    createTestDirectories(tempDirectory, directoryCount, 1000L, 0);
 
     IPath tempDirectoryPath = new org.eclipse.core.runtime.Path(tempDirectory.toAbsolutePath().toString());
     CleanupOldDeploysJob job = new CleanupOldDeploysJob(tempDirectoryPath);
     job.run(mock(IProgressMonitor.class));
 
-    File[] directoriesKept = tempDirectoryPath.toFile().listFiles();
+    assertDirectoriesKept(tempDirectory, expectedDirectoriesToKeep);
+  }
+
+  private static Path createTempDirectory() throws IOException {
+    Path tempDirectory = Files.createTempDirectory("cleanupolddeploysjobtest");
+    tempDirectory.toFile().deleteOnExit();
+    return tempDirectory;
+  }
+
+  private static void runJob(Path tempDirectory, long maxAgeMillis, long maxTotalSize) {
+    IPath tempDirectoryPath = new org.eclipse.core.runtime.Path(tempDirectory.toAbsolutePath().toString());
+    new CleanupOldDeploysJob(tempDirectoryPath, maxAgeMillis, maxTotalSize)
+        .run(mock(IProgressMonitor.class));
+  }
+
+  private static void assertDirectoriesKept(Path tempDirectory, String[] expectedDirectoriesToKeep) {
+    File[] directoriesKept = tempDirectory.toFile().listFiles();
     Arrays.sort(directoriesKept, new Comparator<File>() {
 
       @Override
@@ -77,13 +165,15 @@ public class CleanupOldDeploysJobTest {
     }
   }
 
-  private void createTestDirectories(Path tempDirectory, int count) throws IOException {
+  private static void createTestDirectories(Path tempDirectory, int count, long interval,
+      int contentSize) throws IOException {
     long now = System.currentTimeMillis();
     // most recent directory will be "1", oldest is "<count>"
     for (int i = count; i > 0; --i) {
       Path path = tempDirectory.resolve(Integer.toString(i));
       Files.createDirectories(path);
-      Files.setLastModifiedTime(path, FileTime.fromMillis(now - i * 1000L)); // to ensure correct ordering
+      Files.write(path.resolve("content"), new byte[contentSize]);
+      Files.setLastModifiedTime(path, FileTime.fromMillis(now - i * interval)); // to ensure correct ordering
     }
   }
 
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import com.google.cloud.tools.eclipse.appengine.deploy.DeployRecord.Phase;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DeployHistoryTest {
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private Path historyFile;
+
+  @Before
+  public void setUp() {
+    historyFile = tempFolder.getRoot().toPath().resolve("history/project.csv");
+  }
+
+  @Test
+  public void testLoad_noHistory() throws IOException {
+    assertTrue(new DeployHistory(historyFile).load().isEmpty());
+  }
+
+  @Test
+  public void testAppendAndLoad() throws IOException {
+    DeployRecord record = new DeployRecord(1000L);
+    record.setResult("OK");
+    record.setCloudSdkVersion("150.0.0");
+    record.setDurationMillis(Phase.CREDENTIAL, 5);
+    record.setDurationMillis(Phase.PUBLISH, 200);
+    record.setSize(Phase.PUBLISH, 12, 3456);
+    record.setDurationMillis(Phase.STAGE, 3000);
+    record.setProcessMillis(Phase.STAGE, 2900);
+    new DeployHistory(historyFile).append(record);
+
+    List<DeployRecord> records = new DeployHistory(historyFile).load();
+    assertThat(records.size(), is(1));
+    DeployRecord loaded = records.get(0);
+    assertThat(loaded.getStartTime(), is(1000L));
+    assertThat(loaded.getResult(), is("OK"));
+    assertThat(loaded.getCloudSdkVersion(), is("150.0.0"));
+    assertThat(loaded.getDurationMillis(Phase.CREDENTIAL), is(5L));
+    assertThat(loaded.getFileCount(Phase.PUBLISH), is(12L));
+    assertThat(loaded.getByteCount(Phase.PUBLISH), is(3456L));
+    assertThat(loaded.getProcessMillis(Phase.PUBLISH), is(DeployRecord.UNKNOWN));
+    assertThat(loaded.getProcessMillis(Phase.STAGE), is(2900L));
+    assertThat(loaded.getDurationMillis(Phase.DEPLOY), is(DeployRecord.UNKNOWN));
+  }
+
+  @Test
+  public void testAppendAndLoad_unknownCloudSdkVersion() throws IOException {
+    new DeployHistory(historyFile).append(new DeployRecord(1000L));
+
+    List<DeployRecord> records = new DeployHistory(historyFile).load();
+    assertNull(records.get(0).getCloudSdkVersion());
+  }
+
+  @Test
+  public void testAppend_dropsOldestRecords() throws IOException {
+    DeployHistory history = new DeployHistory(historyFile, 2);
+    history.append(new DeployRecord(1L));
+    history.append(new DeployRecord(2L));
+    history.append(new DeployRecord(3L));
+
+    List<DeployRecord> records = history.load();
+    assertThat(records.size(), is(2));
+    assertThat(records.get(0).getStartTime(), is(2L));
+    assertThat(records.get(1).getStartTime(), is(3L));
+  }
+
+  @Test
+  public void testAppend_concurrentlyWithSeparateInstances()
+      throws InterruptedException, ExecutionException, IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Void>> appends = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        final long startTime = i;
+        appends.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws IOException {
+            // each deploy and the console create their own instance for the file
+            new DeployHistory(historyFile).append(new DeployRecord(startTime));
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> append : appends) {
+        append.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(new DeployHistory(historyFile).load().size(), is(20));
+  }
+
+  @Test
+  public void testAppend_ignoresIncompatibleHistory() throws IOException {
+    Files.createDirectories(historyFile.getParent());
+    Files.write(historyFile, "start,result\n1,OK\n".getBytes(StandardCharsets.UTF_8));
+    DeployHistory history = new DeployHistory(historyFile);
+    history.append(new DeployRecord(2L));
+
+    List<DeployRecord> records = history.load();
+    assertThat(records.size(), is(1));
+    assertThat(records.get(0).getStartTime(), is(2L));
+  }
+
+  @Test(expected = IOException.class)
+  public void testLoad_corruptLine() throws IOException {
+    Files.createDirectories(historyFile.getParent());
+    Files.write(historyFile, (DeployRecord.csvHeader() + "\ngarbage\n")
+        .getBytes(StandardCharsets.UTF_8));
+    new DeployHistory(historyFile).load();
+  }
+
+  @Test
+  public void testExportTo() throws IOException {
+    DeployHistory history = new DeployHistory(historyFile);
+    history.append(new DeployRecord(1L));
+    Path exported = tempFolder.getRoot().toPath().resolve("export.csv");
+    history.exportTo(exported);
+
+    List<String> lines = Files.readAllLines(exported, StandardCharsets.UTF_8);
+    assertThat(lines.size(), is(2));
+    assertThat(lines.get(0), is(DeployRecord.csvHeader()));
+  }
+
+  @Test
+  public void testExportTo_noHistory() throws IOException {
+    Path exported = tempFolder.getRoot().toPath().resolve("export.csv");
+    new DeployHistory(historyFile).exportTo(exported);
+
+    List<String> lines = Files.readAllLines(exported, StandardCharsets.UTF_8);
+    assertThat(lines.size(), is(1));
+  }
+
+  @Test
+  public void testSetSize_directory() throws IOException {
+    Path directory = tempFolder.newFolder("war").toPath();
+    Files.createDirectories(directory.resolve("WEB-INF"));
+    Files.write(directory.resolve("index.html"), new byte[10]);
+    Files.write(directory.resolve("WEB-INF/web.xml"), new byte[5]);
+
+    DeployRecord record = new DeployRecord(0L);
+    record.setSize(Phase.PUBLISH, directory);
+    assertThat(record.getFileCount(Phase.PUBLISH), is(2L));
+    assertThat(record.getByteCount(Phase.PUBLISH), is(15L));
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DeployManifestTest {
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private Path staging;
+
+  @Before
+  public void setUp() throws IOException {
+    staging = tempFolder.newFolder("staging").toPath();
+    Files.createDirectories(staging.resolve("WEB-INF/lib"));
+    write("app.yaml", "runtime: java7");
+    write("WEB-INF/lib/a.jar", "aaaa");
+    write("WEB-INF/lib/b.jar", "bbbbbbbb");
+  }
+
+  @Test
+  public void testPlanAgainst_emptyManifest() throws IOException {
+    DeployPlan plan = DeployManifest.compute(staging).planAgainst(loadNonExistentManifest());
+    assertThat(plan.getTotalFiles(), is(3));
+    assertThat(plan.getChangedFiles(), is(3));
+    assertThat(plan.getTotalBytes(), is(26L));
+    assertThat(plan.getChangedBytes(), is(26L));
+    assertThat(plan.getDeletedFiles(), is(0));
+  }
+
+  @Test
+  public void testPlanAgainst_unchanged() throws IOException {
+    DeployManifest previous = DeployManifest.compute(staging);
+    DeployPlan plan = DeployManifest.compute(staging).planAgainst(previous);
+    assertThat(plan.getChangedFiles(), is(0));
+    assertThat(plan.getChangedBytes(), is(0L));
+  }
+
+  @Test
+  public void testPlanAgainst_changedAddedAndDeletedFiles() throws IOException {
+    DeployManifest previous = DeployManifest.compute(staging);
+    write("WEB-INF/lib/a.jar", "AAAA");
+    write("WEB-INF/lib/c.jar", "cc");
+    Files.delete(staging.resolve("WEB-INF/lib/b.jar"));
+
+    DeployPlan plan = DeployManifest.compute(staging).planAgainst(previous);
+    assertThat(plan.getTotalFiles(), is(3));
+    assertThat(plan.getChangedFiles(), is(2));
+    assertThat(plan.getChangedBytes(), is(6L));
+    assertThat(plan.getDeletedFiles(), is(1));
+  }
+
+  @Test
+  public void testPlanAgainst_touchedFileIsNotChanged() throws IOException {
+    DeployManifest previous = DeployManifest.compute(staging);
+    write("WEB-INF/lib/a.jar", "aaaa");
+
+    DeployPlan plan = DeployManifest.compute(staging).planAgainst(previous);
+    assertThat(plan.getChangedFiles(), is(0));
+  }
+
+  @Test(expected = OperationCanceledException.class)
+  public void testCompute_canceled() throws IOException {
+    IProgressMonitor monitor = new NullProgressMonitor();
+    monitor.setCanceled(true);
+    DeployManifest.compute(staging, monitor);
+  }
+
+  @Test
+  public void testSaveAndLoad() throws IOException {
+    Path file = tempFolder.getRoot().toPath().resolve("manifests/project/app-v1.manifest");
+    DeployManifest manifest = DeployManifest.compute(staging);
+    manifest.save(file);
+
+    DeployManifest loaded = DeployManifest.load(file);
+    assertThat(loaded.getFileCount(), is(3));
+    assertThat(manifest.planAgainst(loaded).getChangedFiles(), is(0));
+  }
+
+  @Test
+  public void testSaveAndLoad_pathWithSpaces() throws IOException {
+    write("file with spaces.txt", "x");
+    Path file = tempFolder.getRoot().toPath().resolve("app.manifest");
+    DeployManifest manifest = DeployManifest.compute(staging);
+    manifest.save(file);
+
+    assertThat(manifest.planAgainst(DeployManifest.load(file)).getChangedFiles(), is(0));
+  }
+
+  @Test
+  public void testSave_replacesManifest() throws IOException {
+    Path file = tempFolder.newFolder("manifests").toPath().resolve("app.manifest");
+    DeployManifest.compute(staging).save(file);
+    write("new.txt", "x");
+    DeployManifest manifest = DeployManifest.compute(staging);
+    manifest.save(file);
+
+    assertThat(DeployManifest.load(file).getFileCount(), is(4));
+    // no temporary file is left next to the manifest
+    assertThat(file.getParent().toFile().list().length, is(1));
+  }
+
+  @Test(expected = IOException.class)
+  public void testLoad_invalidFile() throws IOException {
+    Path file = tempFolder.newFile("invalid.manifest").toPath();
+    Files.write(file, "garbage".getBytes(StandardCharsets.UTF_8));
+    DeployManifest.load(file);
+  }
+
+  private DeployManifest loadNonExistentManifest() throws IOException {
+    return DeployManifest.load(tempFolder.getRoot().toPath().resolve("nonexistent"));
+  }
+
+  private void write(String path, String content) throws IOException {
+    Files.write(staging.resolve(path), content.getBytes(StandardCharsets.UTF_8));
+  }
+}
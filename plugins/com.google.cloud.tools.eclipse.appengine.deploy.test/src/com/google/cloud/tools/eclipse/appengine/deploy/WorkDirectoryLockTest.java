@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.cloud.tools.eclipse.appengine.deploy;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.junit.Test;
+
+public class WorkDirectoryLockTest {
+
+  private final Path directory = Paths.get("/deploy/tmp/" + getClass().getName());
+
+  @Test
+  public void testTryAcquire_inUse() {
+    WorkDirectoryLock lock = WorkDirectoryLock.tryAcquire(directory);
+    assertNotNull(lock);
+    try {
+      assertNull(WorkDirectoryLock.tryAcquire(directory));
+      assertNull(WorkDirectoryLock.tryAcquire(directory.resolve("../" + directory.getFileName())));
+    } finally {
+      lock.release();
+    }
+  }
+
+  @Test
+  public void testRelease_allowsNextAcquire() {
+    WorkDirectoryLock lock = WorkDirectoryLock.acquire(directory, new NullProgressMonitor());
+    lock.release();
+    lock.release();
+
+    WorkDirectoryLock next = WorkDirectoryLock.tryAcquire(directory);
+    assertNotNull(next);
+    assertNull(WorkDirectoryLock.tryAcquire(directory));
+    next.release();
+  }
+
+  @Test
+  public void testTryAcquire_otherDirectory() {
+    WorkDirectoryLock lock = WorkDirectoryLock.tryAcquire(directory);
+    try {
+      WorkDirectoryLock other = WorkDirectoryLock.tryAcquire(directory.resolveSibling("other"));
+      assertNotNull(other);
+      other.release();
+    } finally {
+      lock.release();
+    }
+  }
+
+  @Test(expected = OperationCanceledException.class)
+  public void testAcquire_canceledWhileWaiting() {
+    WorkDirectoryLock lock = WorkDirectoryLock.tryAcquire(directory);
+    try {
+      IProgressMonitor monitor = mock(IProgressMonitor.class);
+      when(monitor.isCanceled()).thenReturn(true);
+      WorkDirectoryLock.acquire(directory, monitor);
+    } finally {
+      lock.release();
+    }
+  }
+
+  @Test
+  public void testAcquire_waitsForRelease() throws InterruptedException {
+    final WorkDirectoryLock lock = WorkDirectoryLock.tryAcquire(directory);
+    final CountDownLatch acquired = new CountDownLatch(1);
+    Thread waiter = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        WorkDirectoryLock.acquire(directory, new NullProgressMonitor()).release();
+        acquired.countDown();
+      }
+    });
+    waiter.start();
+
+    assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+    lock.release();
+    assertTrue(acquired.await(10, TimeUnit.SECONDS));
+  }
+}
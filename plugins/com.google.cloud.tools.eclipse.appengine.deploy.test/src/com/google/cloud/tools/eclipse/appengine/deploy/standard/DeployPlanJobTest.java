@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.google.cloud.tools.appengine.cloudsdk.process.ProcessOutputLineListener;
+import com.google.cloud.tools.eclipse.appengine.deploy.DeployManifest;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DeployPlanJobTest {
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final ProcessOutputLineListener outputListener = mock(ProcessOutputLineListener.class);
+  private Path staging;
+  private Path manifestFile;
+
+  @Before
+  public void setUp() throws IOException {
+    staging = tempFolder.newFolder("staging").toPath();
+    Files.write(staging.resolve("app.yaml"), "runtime: java7".getBytes(StandardCharsets.UTF_8));
+    manifestFile = tempFolder.getRoot().toPath().resolve("app.manifest");
+  }
+
+  @Test
+  public void testRun_computesPlanAgainstPreviousManifest() throws IOException {
+    DeployManifest.compute(staging).save(manifestFile);
+    Files.write(staging.resolve("index.html"), "<html/>".getBytes(StandardCharsets.UTF_8));
+
+    DeployPlanJob job = new DeployPlanJob(staging, manifestFile, outputListener);
+    IStatus result = job.run(new NullProgressMonitor());
+
+    assertThat(result.isOK(), is(true));
+    assertThat(job.getManifest().getFileCount(), is(2));
+    assertThat(job.getPlan().getChangedFiles(), is(1));
+    verify(outputListener).onOutputLine(job.getPlan().getSummary());
+  }
+
+  @Test
+  public void testRun_invalidPreviousManifest() throws IOException {
+    Files.write(manifestFile, "garbage".getBytes(StandardCharsets.UTF_8));
+
+    DeployPlanJob job = new DeployPlanJob(staging, manifestFile, outputListener);
+    IStatus result = job.run(new NullProgressMonitor());
+
+    assertThat(result.getSeverity(), is(IStatus.WARNING));
+    assertNotNull(result.getException());
+    assertNull(job.getManifest());
+    assertNull(job.getPlan());
+  }
+
+  @Test
+  public void testRun_canceled() {
+    IProgressMonitor monitor = new NullProgressMonitor();
+    monitor.setCanceled(true);
+
+    DeployPlanJob job = new DeployPlanJob(staging, manifestFile, outputListener);
+    IStatus result = job.run(monitor);
+
+    assertThat(result.getSeverity(), is(IStatus.CANCEL));
+    assertNull(job.getPlan());
+    verify(outputListener, never()).onOutputLine(anyString());
+  }
+
+  @Test
+  public void testSchedule_cancelStopsJob() throws InterruptedException, IOException {
+    for (int i = 0; i < 1000; i++) {
+      Files.write(staging.resolve("file" + i), new byte[1024]);
+    }
+    DeployPlanJob job = new DeployPlanJob(staging, manifestFile, outputListener);
+    job.schedule();
+    job.cancel();
+    job.join();
+
+    assertThat(job.getResult().getSeverity(), is(IStatus.CANCEL));
+    assertNull(job.getPlan());
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ExplodedWarFingerprintTest {
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testCompute_unchangedDirectory() throws IOException {
+    Path war = createWar();
+    assertThat(ExplodedWarFingerprint.compute(war), is(ExplodedWarFingerprint.compute(war)));
+  }
+
+  @Test
+  public void testCompute_modifiedFile() throws IOException {
+    Path war = createWar();
+    String before = ExplodedWarFingerprint.compute(war);
+
+    Path file = war.resolve("WEB-INF/web.xml");
+    Files.write(file, "<web-app/>".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file, FileTime.fromMillis(2000L));
+
+    assertThat(ExplodedWarFingerprint.compute(war), not(before));
+  }
+
+  @Test
+  public void testCompute_touchedFile() throws IOException {
+    Path war = createWar();
+    String before = ExplodedWarFingerprint.compute(war);
+
+    Files.setLastModifiedTime(war.resolve("index.html"), FileTime.fromMillis(5000L));
+
+    assertThat(ExplodedWarFingerprint.compute(war), not(before));
+  }
+
+  @Test
+  public void testCompute_addedFile() throws IOException {
+    Path war = createWar();
+    String before = ExplodedWarFingerprint.compute(war);
+
+    Files.write(war.resolve("WEB-INF/lib/new.jar"), new byte[10]);
+
+    assertThat(ExplodedWarFingerprint.compute(war), not(before));
+  }
+
+  @Test
+  public void testRead_nonExistentFile() throws IOException {
+    assertThat(ExplodedWarFingerprint.read(tempFolder.getRoot().toPath().resolve("none")),
+               nullValue());
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    Path file = tempFolder.getRoot().toPath().resolve("fingerprint");
+    ExplodedWarFingerprint.write(file, "0123abcd");
+    assertThat(ExplodedWarFingerprint.read(file), is("0123abcd"));
+  }
+
+  private Path createWar() throws IOException {
+    Path war = tempFolder.newFolder("war").toPath();
+    Files.createDirectories(war.resolve("WEB-INF/lib"));
+    Files.write(war.resolve("index.html"), "<html/>".getBytes(StandardCharsets.UTF_8));
+    Files.write(war.resolve("WEB-INF/web.xml"), "<web-app></web-app>".getBytes(StandardCharsets.UTF_8));
+    Files.write(war.resolve("WEB-INF/lib/lib.jar"), new byte[100]);
+    Files.setLastModifiedTime(war.resolve("index.html"), FileTime.fromMillis(1000L));
+    Files.setLastModifiedTime(war.resolve("WEB-INF/web.xml"), FileTime.fromMillis(1000L));
+    return war;
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.CookieManager;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LibraryWhitelistCheckTest {
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  /** Compiled into a class file that is packaged into a test jar. */
+  static class UsesCookieManager {
+    Object cookieManager = new CookieManager();
+  }
+
+  @Test
+  public void testFindViolations_noLibDirectory() throws Exception {
+    assertTrue(LibraryWhitelistCheck.findViolations(tempFolder.getRoot().toPath()).isEmpty());
+  }
+
+  @Test
+  public void testFindViolations() throws Exception {
+    Path warDirectory = tempFolder.getRoot().toPath();
+    Path libDirectory = Files.createDirectories(warDirectory.resolve("WEB-INF/lib"));
+    createJar(libDirectory.resolve("cookies.jar"), UsesCookieManager.class);
+    Files.write(libDirectory.resolve("README.txt"), new byte[0]);
+
+    List<String> warnings = LibraryWhitelistCheck.findViolations(warDirectory);
+    assertThat(warnings.size(), is(1));
+    assertThat(warnings.get(0), containsString("cookies.jar"));
+    assertThat(warnings.get(0), containsString("java.net.CookieManager"));
+  }
+
+  @Test
+  public void testFindViolations_classDefinedInWebInfClasses() throws Exception {
+    Path warDirectory = tempFolder.getRoot().toPath();
+    Path libDirectory = Files.createDirectories(warDirectory.resolve("WEB-INF/lib"));
+    createJar(libDirectory.resolve("cookies.jar"), UsesCookieManager.class);
+    Path classesDirectory =
+        Files.createDirectories(warDirectory.resolve("WEB-INF/classes/java/net"));
+    Files.write(classesDirectory.resolve("CookieManager.class"), new byte[0]);
+
+    assertTrue(LibraryWhitelistCheck.findViolations(warDirectory).isEmpty());
+  }
+
+  private static void createJar(Path jar, Class<?> clazz) throws IOException {
+    String className = clazz.getName();
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar));
+        InputStream classFile = clazz.getResourceAsStream(
+            className.substring(className.lastIndexOf('.') + 1) + ".class")) {
+      out.putNextEntry(new ZipEntry(className.replace('.', '/') + ".class"));
+      byte[] buffer = new byte[4096];
+      int read;
+      while ((read = classFile.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+    }
+  }
+}
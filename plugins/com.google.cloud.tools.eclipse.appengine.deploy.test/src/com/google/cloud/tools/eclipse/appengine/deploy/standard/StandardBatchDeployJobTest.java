@@ -0,0 +1,309 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.api.client.auth.oauth2.BearerToken;
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.cloud.tools.appengine.api.deploy.DefaultDeployConfiguration;
+import com.google.cloud.tools.appengine.cloudsdk.CloudSdk;
+import com.google.cloud.tools.eclipse.appengine.deploy.AppEngineProjectDeployer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StandardBatchDeployJobTest {
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Mock private IProject project1;
+  @Mock private IProject project2;
+  @Mock private IProject project3;
+  @Mock private ExplodedWarPublisher exporter;
+  @Mock private StandardProjectStaging staging;
+  @Mock private AppEngineProjectDeployer deployer;
+
+  private final Credential credential =
+      new Credential(BearerToken.authorizationHeaderAccessMethod());
+  private final List<StandardDeployJobConfig> configs = new ArrayList<>();
+
+  @Before
+  public void setUp() throws IOException, CoreException {
+    mockProject(project1, "project1");
+    mockProject(project2, "project2");
+    mockProject(project3, "project3");
+    // exporting creates the exploded WAR that is staged
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws IOException {
+        IPath explodedWarDirectory = (IPath) invocation.getArguments()[1];
+        Files.createDirectories(explodedWarDirectory.toFile().toPath());
+        return null;
+      }
+    }).when(exporter).publish(any(IProject.class), any(IPath.class), any(IProgressMonitor.class));
+    // staging writes the app.yaml that is deployed
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws IOException {
+        IPath stagingDirectory = (IPath) invocation.getArguments()[1];
+        Files.createDirectories(stagingDirectory.toFile().toPath());
+        Files.createFile(stagingDirectory.append("app.yaml").toFile().toPath());
+        return null;
+      }
+    }).when(staging).stage(any(IPath.class), any(IPath.class), any(CloudSdk.class),
+                           any(IProgressMonitor.class));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBuild_noConfig() {
+    new StandardBatchDeployJob.Builder().build();
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testAddConfig_null() {
+    new StandardBatchDeployJob.Builder().addConfig(null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBuild_sameProjectTwice() {
+    new StandardBatchDeployJob.Builder()
+        .addConfig(new StandardDeployJobConfig().setProject(project1))
+        .addConfig(new StandardDeployJobConfig().setProject(project1))
+        .build();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBuild_zeroParallelism() {
+    new StandardBatchDeployJob.Builder()
+        .addConfig(new StandardDeployJobConfig().setProject(project1))
+        .maxParallelism(0)
+        .build();
+  }
+
+  @Test
+  public void testBuild_twoProjects() {
+    StandardBatchDeployJob job = new StandardBatchDeployJob.Builder()
+        .addConfig(new StandardDeployJobConfig().setProject(project1))
+        .addConfig(new StandardDeployJobConfig().setProject(project2))
+        .build();
+    assertNotNull(job);
+  }
+
+  @Test
+  public void testRun_stagesProjectsConcurrently() throws CoreException {
+    // each staging waits until all projects are being staged
+    final CountDownLatch allStaging = new CountDownLatch(3);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws InterruptedException {
+        allStaging.countDown();
+        if (!allStaging.await(10, TimeUnit.SECONDS)) {
+          throw new IllegalStateException("projects are not staged concurrently");
+        }
+        return null;
+      }
+    }).when(staging).stage(any(IPath.class), any(IPath.class), any(CloudSdk.class),
+                           any(IProgressMonitor.class));
+
+    IStatus result = newJob(project1, project2, project3).runInWorkspace(new NullProgressMonitor());
+
+    assertTrue(result.isOK());
+    verify(staging, times(3)).stage(any(IPath.class), any(IPath.class), any(CloudSdk.class),
+                                    any(IProgressMonitor.class));
+  }
+
+  @Test
+  public void testRun_deploysAllAppYamlsInOneOperation() throws Exception {
+    final CloudSdk cloudSdk = mock(CloudSdk.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        // run the real deployer, with a Cloud SDK that records the command instead of running it
+        @SuppressWarnings("unchecked")
+        List<IPath> stagingDirectories = (List<IPath>) invocation.getArguments()[0];
+        new AppEngineProjectDeployer().deploy(stagingDirectories, cloudSdk,
+            (DefaultDeployConfiguration) invocation.getArguments()[2],
+            (IProgressMonitor) invocation.getArguments()[3]);
+        return null;
+      }
+    }).when(deployer).deploy(anyListOf(IPath.class), any(CloudSdk.class),
+                             any(DefaultDeployConfiguration.class), any(IProgressMonitor.class));
+
+    IStatus result = newJob(project1, project2, project3).runInWorkspace(new NullProgressMonitor());
+
+    assertTrue(result.isOK());
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<String>> command = ArgumentCaptor.forClass((Class) List.class);
+    verify(cloudSdk, times(1)).runAppCommand(command.capture());
+    assertThat(command.getValue().get(0), is("deploy"));
+    for (StandardDeployJobConfig config : configs) {
+      String appYaml = config.getWorkDirectory().append(StandardDeployJob.STAGING_DIRECTORY_NAME)
+          .append("app.yaml").toFile().toPath().toString();
+      assertTrue(appYaml, command.getValue().contains(appYaml));
+    }
+  }
+
+  @Test
+  public void testRun_oneProjectFails() throws CoreException {
+    doThrow(new CoreException(new Status(IStatus.ERROR, "test", "publish failed")))
+        .when(exporter).publish(eq(project2), any(IPath.class), any(IProgressMonitor.class));
+
+    IStatus result = newJob(project1, project2, project3).runInWorkspace(new NullProgressMonitor());
+
+    assertThat(result.getSeverity(), is(IStatus.ERROR));
+    assertThat(result.getChildren().length, is(1));
+    assertThat(result.getChildren()[0].getMessage(), is("publish failed"));
+    // the other projects are still staged, but nothing is deployed
+    verify(staging, times(2)).stage(any(IPath.class), any(IPath.class), any(CloudSdk.class),
+                                    any(IProgressMonitor.class));
+    verify(deployer, never()).deploy(anyListOf(IPath.class), any(CloudSdk.class),
+        any(DefaultDeployConfiguration.class), any(IProgressMonitor.class));
+  }
+
+  @Test
+  public void testRun_oneProjectCanceled() throws CoreException {
+    doThrow(new OperationCanceledException())
+        .when(exporter).publish(eq(project2), any(IPath.class), any(IProgressMonitor.class));
+
+    IStatus result = newJob(project1, project2, project3).runInWorkspace(new NullProgressMonitor());
+
+    assertThat(result.getSeverity(), is(IStatus.CANCEL));
+    verify(deployer, never()).deploy(anyListOf(IPath.class), any(CloudSdk.class),
+        any(DefaultDeployConfiguration.class), any(IProgressMonitor.class));
+  }
+
+  @Test
+  public void testRun_jobCanceledWhileStaging() throws CoreException {
+    final IProgressMonitor jobMonitor = new NullProgressMonitor();
+    // the first staging cancels the job, then runs until the job cancels it in turn
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws InterruptedException {
+        IProgressMonitor taskMonitor = (IProgressMonitor) invocation.getArguments()[3];
+        jobMonitor.setCanceled(true);
+        for (int i = 0; i < 1000 && !taskMonitor.isCanceled(); i++) {
+          Thread.sleep(10);
+        }
+        if (!taskMonitor.isCanceled()) {
+          throw new IllegalStateException("staging was not canceled");
+        }
+        throw new OperationCanceledException();
+      }
+    }).when(staging).stage(any(IPath.class), any(IPath.class), any(CloudSdk.class),
+                           any(IProgressMonitor.class));
+
+    IStatus result = newJob(project1, project2).runInWorkspace(jobMonitor);
+
+    assertThat(result.getSeverity(), is(IStatus.CANCEL));
+    verify(deployer, never()).deploy(anyListOf(IPath.class), any(CloudSdk.class),
+        any(DefaultDeployConfiguration.class), any(IProgressMonitor.class));
+  }
+
+  @Test
+  public void testRun_stagingCanceledIsNotCached() throws CoreException {
+    final IProgressMonitor jobMonitor = new NullProgressMonitor();
+    // the staging process is killed by the cancellation and returns without an error
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws IOException {
+        IPath stagingDirectory = (IPath) invocation.getArguments()[1];
+        IProgressMonitor taskMonitor = (IProgressMonitor) invocation.getArguments()[3];
+        Files.createDirectories(stagingDirectory.toFile().toPath());
+        jobMonitor.setCanceled(true);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!taskMonitor.isCanceled() && System.currentTimeMillis() < deadline) {
+          Thread.yield();
+        }
+        return null;
+      }
+    }).when(staging).stage(any(IPath.class), any(IPath.class), any(CloudSdk.class),
+                           any(IProgressMonitor.class));
+
+    IStatus result = newJob(project1).runInWorkspace(jobMonitor);
+
+    assertThat(result.getSeverity(), is(IStatus.CANCEL));
+    IPath workDirectory = configs.get(0).getWorkDirectory();
+    assertFalse(new StagingCache(workDirectory).isUpToDate(
+        workDirectory.append(StandardDeployJob.EXPLODED_WAR_DIRECTORY_NAME),
+        workDirectory.append(StandardDeployJob.STAGING_DIRECTORY_NAME)));
+  }
+
+  private StandardBatchDeployJob newJob(IProject... projects) {
+    StandardBatchDeployJob.Builder builder = new StandardBatchDeployJob.Builder()
+        .exporter(exporter)
+        .staging(staging)
+        .deployer(deployer)
+        .maxParallelism(projects.length);
+    for (IProject project : projects) {
+      StandardDeployJobConfig config = new StandardDeployJobConfig()
+          .setProject(project)
+          .setCredential(credential)
+          .setWorkDirectory(new Path(tempFolder.getRoot().getAbsolutePath())
+              .append(project.getName()))
+          .setDeployConfiguration(new DefaultDeployConfiguration());
+      config.getWorkDirectory().toFile().mkdirs();
+      configs.add(config);
+      builder.addConfig(config);
+    }
+    return builder.build();
+  }
+
+  private static void mockProject(IProject project, String name) {
+    when(project.getName()).thenReturn(name);
+    // a project is its own scheduling rule
+    when(project.contains(project)).thenReturn(true);
+    when(project.isConflicting(project)).thenReturn(true);
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import com.google.api.client.auth.oauth2.BearerToken;
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.cloud.tools.appengine.api.deploy.DefaultDeployConfiguration;
+import com.google.cloud.tools.appengine.cloudsdk.CloudSdk;
+import com.google.cloud.tools.appengine.cloudsdk.process.ProcessOutputLineListener;
+import com.google.cloud.tools.eclipse.appengine.deploy.AppEngineProjectDeployer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StandardDeployJobTest {
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Mock private IProject project;
+  @Mock private ExplodedWarPublisher exporter;
+  @Mock private StandardProjectStaging staging;
+  @Mock private AppEngineProjectDeployer deployer;
+  @Mock private ProcessOutputLineListener outputListener;
+
+  private StandardDeployJobConfig config;
+
+  @Before
+  public void setUp() throws IOException, CoreException {
+    when(project.getName()).thenReturn("project");
+    // a project is its own scheduling rule
+    when(project.contains(project)).thenReturn(true);
+    when(project.isConflicting(project)).thenReturn(true);
+    // exporting creates the exploded WAR that is staged
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws IOException {
+        IPath explodedWarDirectory = (IPath) invocation.getArguments()[1];
+        Files.createDirectories(explodedWarDirectory.toFile().toPath());
+        return null;
+      }
+    }).when(exporter).publish(any(IProject.class), any(IPath.class), any(IProgressMonitor.class));
+    // staging writes the app.yaml that is planned and deployed
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws IOException {
+        IPath stagingDirectory = (IPath) invocation.getArguments()[1];
+        Files.createDirectories(stagingDirectory.toFile().toPath());
+        Files.createFile(stagingDirectory.append("app.yaml").toFile().toPath());
+        return null;
+      }
+    }).when(staging).stage(any(IPath.class), any(IPath.class), any(CloudSdk.class),
+                           any(IProgressMonitor.class));
+
+    IPath workDirectory = new Path(tempFolder.newFolder("work").getAbsolutePath());
+    config = new StandardDeployJobConfig()
+        .setProject(project)
+        .setCredential(new Credential(BearerToken.authorizationHeaderAccessMethod()))
+        .setWorkDirectory(workDirectory)
+        .setStdoutLineListener(outputListener)
+        .setStderrLineListener(outputListener)
+        .setDeployConfiguration(new DefaultDeployConfiguration())
+        .setDeployManifestFile(workDirectory.append("app.manifest"));
+  }
+
+  @Test
+  public void testRun_plansBeforeDeployByDefault() throws CoreException {
+    final StandardDeployJob job = new StandardDeployJob.Builder()
+        .exporter(exporter).staging(staging).deployer(deployer).config(config)
+        .build();
+    final AtomicBoolean plannedBeforeDeploy = new AtomicBoolean();
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        plannedBeforeDeploy.set(job.getDeployPlan() != null);
+        return null;
+      }
+    }).when(deployer).deploy(any(IPath.class), any(CloudSdk.class),
+                             any(DefaultDeployConfiguration.class), any(IProgressMonitor.class));
+
+    IStatus result = job.runInWorkspace(new NullProgressMonitor());
+
+    assertTrue(result.isOK());
+    assertTrue(plannedBeforeDeploy.get());
+  }
+
+  @Test
+  public void testRun_pipelinedPlansWhileDeploying() throws CoreException {
+    final StandardDeployJob job = new StandardDeployJob.Builder()
+        .exporter(exporter).staging(staging).deployer(deployer).config(config)
+        .pipelined(true)
+        .build();
+    // the plan is reported once the deploy started, and the deploy ends once the plan is reported
+    final CountDownLatch deployStarted = new CountDownLatch(1);
+    final CountDownLatch planReported = new CountDownLatch(1);
+    final AtomicBoolean overlapped = new AtomicBoolean();
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws InterruptedException {
+        if (deployStarted.await(10, TimeUnit.SECONDS)) {
+          planReported.countDown();
+        }
+        return null;
+      }
+    }).when(outputListener).onOutputLine(anyString());
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws InterruptedException {
+        deployStarted.countDown();
+        overlapped.set(planReported.await(10, TimeUnit.SECONDS));
+        return null;
+      }
+    }).when(deployer).deploy(any(IPath.class), any(CloudSdk.class),
+                             any(DefaultDeployConfiguration.class), any(IProgressMonitor.class));
+
+    IStatus result = job.runInWorkspace(new NullProgressMonitor());
+
+    assertTrue(result.isOK());
+    assertTrue(overlapped.get());
+  }
+}
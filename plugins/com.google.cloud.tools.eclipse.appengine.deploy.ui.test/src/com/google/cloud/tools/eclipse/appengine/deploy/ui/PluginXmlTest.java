@@ -20,7 +20,6 @@ import static org.hamcrest.CoreMatchers.either;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
-import com.google.cloud.tools.eclipse.appengine.facets.AppEngineStandardFacet;
 import com.google.cloud.tools.eclipse.test.util.BasePluginXmlTest;
 import org.junit.Assert;
 import org.junit.Test;
@@ -53,8 +52,9 @@ public class PluginXmlTest extends BasePluginXmlTest {
     NodeList adaptTestNodes = adapt.getElementsByTagName("test");
     Assert.assertEquals(1, adaptTestNodes.getLength());
     Element adaptTestEntry1 = (Element) adaptTestNodes.item(0);
-    String adaptTestProperty = "org.eclipse.wst.common.project.facet.core.projectFacet";
+    String adaptTestProperty =
+        "com.google.cloud.tools.eclipse.appengine.facets.appEngineStandardProject";
     Assert.assertEquals(adaptTestProperty, adaptTestEntry1.getAttribute("property"));
-    Assert.assertEquals(AppEngineStandardFacet.ID, adaptTestEntry1.getAttribute("value"));
+    Assert.assertEquals("true", adaptTestEntry1.getAttribute("forcePluginActivation"));
   }
 }
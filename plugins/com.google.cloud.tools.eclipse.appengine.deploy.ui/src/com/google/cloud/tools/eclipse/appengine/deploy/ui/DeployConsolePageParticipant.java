@@ -16,14 +16,21 @@
 
 package com.google.cloud.tools.eclipse.appengine.deploy.ui;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+
 import org.eclipse.core.runtime.jobs.IJobChangeEvent;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.IToolBarManager;
+import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.util.IPropertyChangeListener;
 import org.eclipse.jface.util.PropertyChangeEvent;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Shell;
 import org.eclipse.ui.IActionBars;
 import org.eclipse.ui.ISharedImages;
 import org.eclipse.ui.PlatformUI;
@@ -33,6 +40,7 @@ import org.eclipse.ui.console.IConsoleConstants;
 import org.eclipse.ui.console.IConsolePageParticipant;
 import org.eclipse.ui.part.IPageBookViewPage;
 
+import com.google.cloud.tools.eclipse.appengine.deploy.DeployHistory;
 import com.google.cloud.tools.eclipse.appengine.deploy.standard.StandardDeployJob;
 import com.google.common.base.Preconditions;
 
@@ -41,6 +49,7 @@ public class DeployConsolePageParticipant implements IConsolePageParticipant {
   private DeployConsole console;
   private Action terminateAction;
   private Action closeAction;
+  private Action exportHistoryAction;
 
   @Override
   public void init(IPageBookViewPage page, IConsole console) {
@@ -74,6 +83,9 @@ public class DeployConsolePageParticipant implements IConsolePageParticipant {
 
     closeAction = createCloseAction();
     toolbarManager.appendToGroup(IConsoleConstants.LAUNCH_GROUP, closeAction);
+
+    exportHistoryAction = createExportHistoryAction();
+    toolbarManager.appendToGroup(IConsoleConstants.OUTPUT_GROUP, exportHistoryAction);
   }
 
   private void addJobChangeListener() {
@@ -98,6 +110,10 @@ public class DeployConsolePageParticipant implements IConsolePageParticipant {
       if (closeAction != null) {
         closeAction.setEnabled(job.getState() == Job.NONE);
       }
+
+      if (exportHistoryAction != null) {
+        exportHistoryAction.setEnabled(job.getDeployHistory() != null);
+      }
     }
   }
 
@@ -133,6 +149,41 @@ public class DeployConsolePageParticipant implements IConsolePageParticipant {
     return terminate;
   }
 
+  private Action createExportHistoryAction() {
+    Action export = new Action(Messages.getString("action.export.history")) {
+      @Override
+      public void run() {
+        StandardDeployJob job = console.getJob();
+        if (job != null && job.getDeployHistory() != null) {
+          exportHistory(job.getDeployHistory());
+        }
+      }
+    };
+    export.setToolTipText(Messages.getString("action.export.history.tooltip"));
+    export.setImageDescriptor(getSharedImage(ISharedImages.IMG_ETOOL_SAVEAS_EDIT));
+    export.setDisabledImageDescriptor(getSharedImage(ISharedImages.IMG_ETOOL_SAVEAS_EDIT_DISABLED));
+    export.setEnabled(false);
+    return export;
+  }
+
+  private void exportHistory(DeployHistory history) {
+    Shell shell = PlatformUI.getWorkbench().getActiveWorkbenchWindow().getShell();
+    FileDialog dialog = new FileDialog(shell, SWT.SAVE);
+    dialog.setFilterExtensions(new String[] {"*.csv"});
+    dialog.setFileName("deploy-history.csv");
+    dialog.setOverwrite(true);
+    String destination = dialog.open();
+    if (destination == null) {
+      return;
+    }
+    try {
+      history.exportTo(Paths.get(destination));
+    } catch (IOException exception) {
+      MessageDialog.openError(shell, Messages.getString("action.export.history"),
+          Messages.getString("export.history.failed", exception.getLocalizedMessage()));
+    }
+  }
+
   private ImageDescriptor getSharedImage(String image) {
     return PlatformUI.getWorkbench().getSharedImages().getImageDescriptor(image);
   }
@@ -43,6 +43,7 @@ import com.google.cloud.tools.appengine.cloudsdk.CloudSdk;
 import com.google.cloud.tools.appengine.cloudsdk.CloudSdkOutOfDateException;
 import com.google.cloud.tools.eclipse.appengine.login.IGoogleLoginService;
 import com.google.cloud.tools.eclipse.appengine.ui.AppEngineImages;
+import com.google.cloud.tools.eclipse.sdk.CloudSdkValidationCache;
 import com.google.common.base.Preconditions;
 
 public class DeployPreferencesDialog extends TitleAreaDialog {
@@ -144,8 +145,8 @@ public class DeployPreferencesDialog extends TitleAreaDialog {
   private IStatus validateAppEngineJavaComponents()  {
     try {
       CloudSdk cloudSdk = new CloudSdk.Builder().build();
-      cloudSdk.validateCloudSdk();
-      cloudSdk.validateAppEngineJavaComponents();
+      CloudSdkValidationCache.getInstance().validateCloudSdk(cloudSdk);
+      CloudSdkValidationCache.getInstance().validateAppEngineJavaComponents(cloudSdk);
       return Status.OK_STATUS;
     } catch (AppEngineJavaComponentsNotInstalledException ex) {
       String detailMessage = Messages.getString("appengine.java.component.missing");
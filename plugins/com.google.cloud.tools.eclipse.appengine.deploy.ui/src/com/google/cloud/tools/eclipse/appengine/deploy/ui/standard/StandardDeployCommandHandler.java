@@ -18,6 +18,8 @@ package com.google.cloud.tools.eclipse.appengine.deploy.ui.standard;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.text.DateFormat;
 import java.text.MessageFormat;
 import java.util.Date;
@@ -44,6 +46,7 @@ import org.eclipse.ui.handlers.HandlerUtil;
 import com.google.api.client.auth.oauth2.Credential;
 import com.google.cloud.tools.appengine.api.deploy.DefaultDeployConfiguration;
 import com.google.cloud.tools.eclipse.appengine.deploy.CleanupOldDeploysJob;
+import com.google.cloud.tools.eclipse.appengine.deploy.DeployPlan;
 import com.google.cloud.tools.eclipse.appengine.deploy.standard.StandardDeployJob;
 import com.google.cloud.tools.eclipse.appengine.deploy.standard.StandardDeployJobConfig;
 import com.google.cloud.tools.eclipse.appengine.deploy.standard.StandardDeployPreferences;
@@ -64,7 +67,7 @@ import com.google.common.annotations.VisibleForTesting;
 /**
  * Command handler to deploy a web application project to App Engine Standard.
  * <p>
- * It copies the project's exploded WAR to a staging directory and then executes
+ * It copies the project's exploded WAR to a per-project work directory and then executes
  * the staging and deploy operations provided by the App Engine Plugins Core Library.
  */
 public class StandardDeployCommandHandler extends AbstractHandler {
@@ -120,7 +123,7 @@ public class StandardDeployCommandHandler extends AbstractHandler {
     AnalyticsPingManager.getInstance().sendPing(
         AnalyticsEvents.APP_ENGINE_DEPLOY, AnalyticsEvents.APP_ENGINE_DEPLOY_STANDARD, null);
 
-    IPath workDirectory = createWorkDirectory();
+    IPath workDirectory = createWorkDirectory(project);
 
     DefaultDeployConfiguration deployConfiguration = getDeployConfiguration(project);
     DeployConsole messageConsole =
@@ -131,7 +134,10 @@ public class StandardDeployCommandHandler extends AbstractHandler {
     StandardDeployJobConfig config = getDeployJobConfig(project, credential,
         workDirectory, outputStream, deployConfiguration);
 
-    StandardDeployJob deploy = new StandardDeployJob.Builder().config(config).build();
+    final StandardDeployJob deploy = new StandardDeployJob.Builder()
+        .config(config)
+        .pipelined(true)
+        .build();
     messageConsole.setJob(deploy);
     deploy.addJobChangeListener(new JobChangeAdapter() {
 
@@ -140,6 +146,12 @@ public class StandardDeployCommandHandler extends AbstractHandler {
         super.done(event);
         AnalyticsPingManager.getInstance().sendPing(AnalyticsEvents.APP_ENGINE_DEPLOY_SUCCESS,
             AnalyticsEvents.APP_ENGINE_DEPLOY_STANDARD, null);
+        DeployPlan plan = deploy.getDeployPlan();
+        if (event.getResult().isOK() && plan != null) {
+          AnalyticsPingManager.getInstance().sendPing(AnalyticsEvents.APP_ENGINE_DEPLOY_PLAN,
+              AnalyticsEvents.APP_ENGINE_DEPLOY_CHANGED_KILOBYTES,
+              Long.toString(plan.getChangedBytes() / 1024));
+        }
         launchCleanupJob();
       }
     });
@@ -159,16 +171,36 @@ public class StandardDeployCommandHandler extends AbstractHandler {
   private StandardDeployJobConfig getDeployJobConfig(IProject project, Credential credential,
       IPath workDirectory, MessageConsoleStream outputStream,
       DefaultDeployConfiguration deployConfiguration) {
+    // a single listener keeps the order of stdout and stderr lines in its batches
+    MessageConsoleWriterOutputLineListener outputListener =
+        new MessageConsoleWriterOutputLineListener(outputStream);
     StandardDeployJobConfig config = new StandardDeployJobConfig();
     config.setProject(project)
         .setCredential(credential)
         .setWorkDirectory(workDirectory)
-        .setStdoutLineListener(new MessageConsoleWriterOutputLineListener(outputStream))
-        .setStderrLineListener(new MessageConsoleWriterOutputLineListener(outputStream))
-        .setDeployConfiguration(deployConfiguration);
+        .setStdoutLineListener(outputListener)
+        .setStderrLineListener(outputListener)
+        .setDeployConfiguration(deployConfiguration)
+        .setDeployManifestFile(getDeployManifestFile(project, deployConfiguration))
+        .setDeployHistoryFile(
+            getStateLocation().append("history").append(project.getName() + ".csv"));
     return config;
   }
 
+  /**
+   * Returns the file holding the manifest of the last successful deploy of {@code project} to the
+   * App Engine project and version set in its deploy preferences.
+   */
+  private IPath getDeployManifestFile(IProject project,
+      DefaultDeployConfiguration deployConfiguration) {
+    String version = deployConfiguration.getVersion();
+    if (version == null || version.isEmpty()) {
+      version = "default";
+    }
+    return getStateLocation().append("manifests").append(project.getName())
+        .append(deployConfiguration.getProject() + "-" + version + ".manifest");
+  }
+
   private DefaultDeployConfiguration getDeployConfiguration(IProject project)
       throws ExecutionException {
     StandardDeployPreferences deployPreferences = new StandardDeployPreferences(project);
@@ -178,10 +210,15 @@ public class StandardDeployCommandHandler extends AbstractHandler {
     return new StandardDeployPreferencesConverter(deployPreferences).toDeployConfiguration();
   }
 
-  private IPath createWorkDirectory() throws IOException {
-    String now = Long.toString(System.currentTimeMillis());
-    IPath workDirectory = getTempDir().append(now);
-    Files.createDirectories(workDirectory.toFile().toPath());
+  /**
+   * Returns the work directory of {@code project}, which is kept between deploys so that the
+   * exploded WAR and the staging results can be reused. The modification time of the directory is
+   * updated so that {@link CleanupOldDeploysJob} sees it as recently used.
+   */
+  private IPath createWorkDirectory(IProject project) throws IOException {
+    IPath workDirectory = getTempDir().append(project.getName());
+    Path directory = Files.createDirectories(workDirectory.toFile().toPath());
+    Files.setLastModifiedTime(directory, FileTime.fromMillis(System.currentTimeMillis()));
     return workDirectory;
   }
 
@@ -190,8 +227,11 @@ public class StandardDeployCommandHandler extends AbstractHandler {
   }
 
   private IPath getTempDir() {
+    return getStateLocation().append("tmp");
+  }
+
+  private static IPath getStateLocation() {
     return Platform
-        .getStateLocation(Platform.getBundle("com.google.cloud.tools.eclipse.appengine.deploy"))
-        .append("tmp");
+        .getStateLocation(Platform.getBundle("com.google.cloud.tools.eclipse.appengine.deploy"));
   }
 }
@@ -19,7 +19,10 @@ package com.google.cloud.tools.eclipse.appengine.deploy;
 import com.google.cloud.tools.appengine.api.deploy.DefaultDeployConfiguration;
 import com.google.cloud.tools.appengine.cloudsdk.CloudSdk;
 import com.google.cloud.tools.appengine.cloudsdk.CloudSdkAppEngineDeployment;
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
@@ -38,6 +41,16 @@ public class AppEngineProjectDeployer {
   public void deploy(IPath stagingDirectory, CloudSdk cloudSdk,
                      DefaultDeployConfiguration configuration,
                      IProgressMonitor monitor) {
+    deploy(Collections.singletonList(stagingDirectory), cloudSdk, configuration, monitor);
+  }
+
+  /**
+   * Deploys several staged projects, e.g. the services of an application, with a single deploy
+   * operation.
+   */
+  public void deploy(List<IPath> stagingDirectories, CloudSdk cloudSdk,
+                     DefaultDeployConfiguration configuration,
+                     IProgressMonitor monitor) {
     if (monitor.isCanceled()) {
       throw new OperationCanceledException();
     }
@@ -45,7 +58,11 @@ public class AppEngineProjectDeployer {
     SubMonitor progress = SubMonitor.convert(monitor, 1);
     progress.setTaskName(Messages.getString("task.name.deploy.project")); //$NON-NLS-1$
     try  {
-      configuration.setDeployables(Collections.singletonList(stagingDirectory.append("app.yaml").toFile())); //$NON-NLS-1$
+      List<File> deployables = new ArrayList<>();
+      for (IPath stagingDirectory : stagingDirectories) {
+        deployables.add(stagingDirectory.append("app.yaml").toFile()); //$NON-NLS-1$
+      }
+      configuration.setDeployables(deployables);
       CloudSdkAppEngineDeployment deployment = new CloudSdkAppEngineDeployment(cloudSdk);
       deployment.deploy(configuration);
     } finally {
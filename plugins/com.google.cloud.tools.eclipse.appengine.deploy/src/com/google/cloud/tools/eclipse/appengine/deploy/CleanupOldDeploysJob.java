@@ -19,12 +19,17 @@ package com.google.cloud.tools.eclipse.appengine.deploy;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -34,16 +39,34 @@ import org.eclipse.core.runtime.jobs.Job;
 
 import com.google.cloud.tools.eclipse.util.io.DeleteAllVisitor;
 import com.google.cloud.tools.eclipse.util.status.StatusUtil;
+import com.google.common.annotations.VisibleForTesting;
 
+/**
+ * Evicts per-project deploy work directories (exploded WAR and staging caches) that have not been
+ * used recently or that push the total size of the caches over a limit. The most recently used
+ * directory and the directories locked by a running deploy (see {@link WorkDirectoryLock}) are
+ * always kept.
+ */
 public class CleanupOldDeploysJob extends Job {
 
   private static String NAME = Messages.getString("cleanup.deploy.job.name"); //$NON-NLS-1$
-  private static int RECENT_DIRECTORIES_TO_KEEP = 2;
+  private static final long DEFAULT_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(14);
+  private static final long DEFAULT_MAX_TOTAL_SIZE = 2L * 1024 * 1024 * 1024; // 2 GB
+
   private IPath parentTempDir;
+  private final long maxAgeMillis;
+  private final long maxTotalSize;
 
   public CleanupOldDeploysJob(IPath parentTempDir) {
+    this(parentTempDir, DEFAULT_MAX_AGE_MILLIS, DEFAULT_MAX_TOTAL_SIZE);
+  }
+
+  @VisibleForTesting
+  CleanupOldDeploysJob(IPath parentTempDir, long maxAgeMillis, long maxTotalSize) {
     super(NAME);
     this.parentTempDir = parentTempDir;
+    this.maxAgeMillis = maxAgeMillis;
+    this.maxTotalSize = maxTotalSize;
   }
 
   @Override
@@ -58,12 +81,14 @@ public class CleanupOldDeploysJob extends Job {
   }
 
   private List<File> collectDirectories() throws IOException {
-    DirectoryStream<Path> newDirectoryStream = Files.newDirectoryStream(parentTempDir.toFile().toPath());
     List<File> directories = new ArrayList<>();
-    for (Path path : newDirectoryStream) {
-      File file = path.toFile();
-      if (file.isDirectory()) {
-        directories.add(file);
+    try (DirectoryStream<Path> newDirectoryStream =
+        Files.newDirectoryStream(parentTempDir.toFile().toPath())) {
+      for (Path path : newDirectoryStream) {
+        File file = path.toFile();
+        if (file.isDirectory()) {
+          directories.add(file);
+        }
       }
     }
     Collections.sort(directories, new ReverseLastModifiedComparator());
@@ -71,10 +96,77 @@ public class CleanupOldDeploysJob extends Job {
   }
 
   private void deleteDirectories(List<File> directories) throws IOException {
-    for (int i = RECENT_DIRECTORIES_TO_KEEP; i < directories.size(); ++i) {
-      Files.walkFileTree(directories.get(i).toPath(), new DeleteAllVisitor());
+    long oldestToKeep = System.currentTimeMillis() - maxAgeMillis;
+    long totalSize = 0;
+    // the first directory is the most recently used one, it is never deleted
+    for (int i = 0; i < directories.size(); ++i) {
+      File directory = directories.get(i);
+      long size = computeSize(directory.toPath());
+      if (i > 0 && (directory.lastModified() < oldestToKeep || totalSize + size > maxTotalSize)
+          && deleteUnlessInUse(directory.toPath())) {
+        continue;
+      }
+      totalSize += size;
+    }
+  }
+
+  /**
+   * Deletes {@code directory} unless a deploy is using it.
+   *
+   * @return true if the directory was deleted
+   */
+  private static boolean deleteUnlessInUse(Path directory) throws IOException {
+    WorkDirectoryLock lock = WorkDirectoryLock.tryAcquire(directory);
+    if (lock == null) {
+      return false;
+    }
+    try {
+      Files.walkFileTree(directory, new DeleteAllVisitor());
+      return true;
+    } catch (NoSuchFileException ex) {
+      // another cleanup job is deleting it too
+      return !Files.exists(directory);
+    } finally {
+      lock.release();
     }
   }
+
+  /**
+   * Returns the total size of the files in {@code directory}. The directory is not locked, so a
+   * deploy may replace its content meanwhile; files and directories that disappear during the walk
+   * count as empty.
+   */
+  @VisibleForTesting
+  static long computeSize(Path directory) throws IOException {
+    final long[] size = new long[1];
+    Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+        size[0] += attributes.size();
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException exception)
+          throws IOException {
+        if (exception instanceof NoSuchFileException) {
+          return FileVisitResult.CONTINUE;
+        }
+        throw exception;
+      }
+
+      @Override
+      public FileVisitResult postVisitDirectory(Path directory, IOException exception)
+          throws IOException {
+        if (exception != null && !(exception instanceof NoSuchFileException)) {
+          throw exception;
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    return size[0];
+  }
+
   /**
    * Comparator that sorts files on reversed order of last modification, i.e. the file that was modified
    * more recently will be "smaller"
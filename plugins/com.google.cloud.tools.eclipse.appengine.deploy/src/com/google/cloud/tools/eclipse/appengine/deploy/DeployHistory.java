@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Rolling history of the {@link DeployRecord}s of a project, stored as a CSV file with a header
+ * line, so that it can be exported as is and opened in a spreadsheet. Only the most recent records
+ * are kept.
+ * <p>
+ * Instances for the same file share a lock, so records appended concurrently, for example by
+ * deploys of the same project, are all kept.
+ */
+public class DeployHistory {
+
+  private static final int DEFAULT_MAX_RECORDS = 100;
+
+  // the lock of each history file, indexed by its absolute normalized path
+  private static final ConcurrentMap<Path, Object> locks = new ConcurrentHashMap<>();
+
+  private final Path file;
+  private final int maxRecords;
+  private final Object lock;
+
+  public DeployHistory(Path file) {
+    this(file, DEFAULT_MAX_RECORDS);
+  }
+
+  @VisibleForTesting
+  DeployHistory(Path file, int maxRecords) {
+    Preconditions.checkNotNull(file, "file is null");
+    Preconditions.checkArgument(maxRecords > 0, "maxRecords must be positive");
+    this.file = file;
+    this.maxRecords = maxRecords;
+    lock = getLock(file);
+  }
+
+  private static Object getLock(Path file) {
+    Path key = file.toAbsolutePath().normalize();
+    Object lock = locks.get(key);
+    if (lock == null) {
+      Object newLock = new Object();
+      lock = locks.putIfAbsent(key, newLock);
+      if (lock == null) {
+        lock = newLock;
+      }
+    }
+    return lock;
+  }
+
+  /**
+   * Adds {@code record} to the history, dropping the oldest records if there are more than the
+   * maximum number. The file is replaced atomically so that a failure leaves the previous history
+   * intact.
+   */
+  public void append(DeployRecord record) throws IOException {
+    synchronized (lock) {
+      List<String> lines = readRecordLines();
+      lines.add(record.toCsv());
+      if (lines.size() > maxRecords) {
+        lines = lines.subList(lines.size() - maxRecords, lines.size());
+      }
+
+      List<String> content = new ArrayList<>(lines.size() + 1);
+      content.add(DeployRecord.csvHeader());
+      content.addAll(lines);
+      Files.createDirectories(file.getParent());
+      Path temporaryFile =
+          Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+      try {
+        Files.write(temporaryFile, content, StandardCharsets.UTF_8);
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(temporaryFile);
+      }
+    }
+  }
+
+  /**
+   * @return the records in the history, oldest first
+   * @throws IOException if the file cannot be read or is corrupt
+   */
+  public List<DeployRecord> load() throws IOException {
+    List<String> lines;
+    synchronized (lock) {
+      lines = readRecordLines();
+    }
+    List<DeployRecord> records = new ArrayList<>();
+    for (String line : lines) {
+      records.add(DeployRecord.parseCsv(line));
+    }
+    return records;
+  }
+
+  /**
+   * Copies the history to {@code destination} as a CSV file. If there is no history yet, only the
+   * header line is written.
+   */
+  public void exportTo(Path destination) throws IOException {
+    synchronized (lock) {
+      if (Files.exists(file)) {
+        Files.copy(file, destination, StandardCopyOption.REPLACE_EXISTING);
+      } else {
+        List<String> header = new ArrayList<>();
+        header.add(DeployRecord.csvHeader());
+        Files.write(destination, header, StandardCharsets.UTF_8);
+      }
+    }
+  }
+
+  /**
+   * Returns the lines of the history file without the header. A header that does not match the
+   * current columns means the file was written by an incompatible version, so it is ignored.
+   */
+  private List<String> readRecordLines() throws IOException {
+    List<String> lines = new ArrayList<>();
+    if (!Files.exists(file)) {
+      return lines;
+    }
+    List<String> allLines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    if (allLines.isEmpty() || !allLines.get(0).equals(DeployRecord.csvHeader())) {
+      return lines;
+    }
+    for (String line : allLines.subList(1, allLines.size())) {
+      if (!line.isEmpty()) {
+        lines.add(line);
+      }
+    }
+    return lines;
+  }
+}
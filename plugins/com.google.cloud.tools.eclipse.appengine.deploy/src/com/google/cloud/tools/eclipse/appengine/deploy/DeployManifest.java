@@ -0,0 +1,178 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.hash.Hashing;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * The SHA-1 hash and size of every file of a staged App Engine application, indexed by the path of
+ * the file relative to the staging directory. Comparing the manifest of the current staging
+ * directory with the one saved after the previous successful deploy tells how much of the
+ * application has actually changed.
+ * <p>
+ * The manifest is stored as a text file with one {@code <sha1> <size> <relative path>} line per
+ * file.
+ */
+public class DeployManifest {
+
+  private final Map<String, FileEntry> files;
+
+  private DeployManifest(Map<String, FileEntry> files) {
+    this.files = Collections.unmodifiableMap(files);
+  }
+
+  /**
+   * Hashes every file under {@code directory}.
+   */
+  public static DeployManifest compute(Path directory) throws IOException {
+    return compute(directory, new NullProgressMonitor());
+  }
+
+  /**
+   * Hashes every file under {@code directory}.
+   *
+   * @throws OperationCanceledException if {@code monitor} is canceled before all files are hashed
+   */
+  public static DeployManifest compute(Path directory, final IProgressMonitor monitor)
+      throws IOException {
+    Preconditions.checkNotNull(directory, "directory is null");
+    Preconditions.checkNotNull(monitor, "monitor is null");
+
+    final Map<String, FileEntry> files = new TreeMap<>();
+    final Path root = directory;
+    Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes)
+          throws IOException {
+        if (monitor.isCanceled()) {
+          throw new OperationCanceledException();
+        }
+        String hash = com.google.common.io.Files.asByteSource(file.toFile())
+            .hash(Hashing.sha1()).toString();
+        // use '/' as separator so that manifests do not depend on the platform
+        String relativePath = root.relativize(file).toString().replace('\\', '/');
+        files.put(relativePath, new FileEntry(hash, attributes.size()));
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    return new DeployManifest(files);
+  }
+
+  /**
+   * @return the manifest stored in {@code file}, or an empty manifest if the file does not exist
+   */
+  public static DeployManifest load(Path file) throws IOException {
+    Map<String, FileEntry> files = new TreeMap<>();
+    if (Files.isRegularFile(file)) {
+      Splitter splitter = Splitter.on(' ').limit(3);
+      for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+        List<String> fields = splitter.splitToList(line);
+        if (fields.size() != 3) {
+          throw new IOException("Invalid deploy manifest line: " + line);
+        }
+        try {
+          files.put(fields.get(2), new FileEntry(fields.get(0), Long.parseLong(fields.get(1))));
+        } catch (NumberFormatException ex) {
+          throw new IOException("Invalid deploy manifest line: " + line, ex);
+        }
+      }
+    }
+    return new DeployManifest(files);
+  }
+
+  /**
+   * Replaces {@code file} atomically, so that an interrupted save leaves the previous manifest.
+   */
+  public void save(Path file) throws IOException {
+    Files.createDirectories(file.getParent());
+    Path temporaryFile =
+        Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+    try {
+      try (BufferedWriter writer =
+          Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+        for (Entry<String, FileEntry> entry : files.entrySet()) {
+          writer.write(entry.getValue().hash + ' ' + entry.getValue().size + ' ' + entry.getKey());
+          writer.newLine();
+        }
+      }
+      Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  public int getFileCount() {
+    return files.size();
+  }
+
+  /**
+   * Determines which files of this manifest are new or differ from those in {@code previous}.
+   */
+  public DeployPlan planAgainst(DeployManifest previous) {
+    Preconditions.checkNotNull(previous, "previous is null");
+
+    int changedFiles = 0;
+    long changedBytes = 0;
+    long totalBytes = 0;
+    for (Entry<String, FileEntry> entry : files.entrySet()) {
+      FileEntry current = entry.getValue();
+      totalBytes += current.size;
+      FileEntry old = previous.files.get(entry.getKey());
+      if (old == null || !old.hash.equals(current.hash)) {
+        changedFiles++;
+        changedBytes += current.size;
+      }
+    }
+    int deletedFiles = 0;
+    for (String path : previous.files.keySet()) {
+      if (!files.containsKey(path)) {
+        deletedFiles++;
+      }
+    }
+    return new DeployPlan(files.size(), totalBytes, changedFiles, changedBytes, deletedFiles);
+  }
+
+  private static class FileEntry {
+    private final String hash;
+    private final long size;
+
+    private FileEntry(String hash, long size) {
+      this.hash = hash;
+      this.size = size;
+    }
+  }
+}
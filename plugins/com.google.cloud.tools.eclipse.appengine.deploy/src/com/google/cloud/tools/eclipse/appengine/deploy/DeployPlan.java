@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy;
+
+/**
+ * Summary of the difference between the staged application and the one deployed last time, as
+ * computed by {@link DeployManifest#planAgainst(DeployManifest)}.
+ */
+public class DeployPlan {
+
+  private static final double BYTES_PER_MB = 1024 * 1024;
+
+  private final int totalFiles;
+  private final long totalBytes;
+  private final int changedFiles;
+  private final long changedBytes;
+  private final int deletedFiles;
+
+  DeployPlan(int totalFiles, long totalBytes, int changedFiles, long changedBytes,
+      int deletedFiles) {
+    this.totalFiles = totalFiles;
+    this.totalBytes = totalBytes;
+    this.changedFiles = changedFiles;
+    this.changedBytes = changedBytes;
+    this.deletedFiles = deletedFiles;
+  }
+
+  public int getTotalFiles() {
+    return totalFiles;
+  }
+
+  public long getTotalBytes() {
+    return totalBytes;
+  }
+
+  /**
+   * @return the number of files that are new or whose content changed since the last deploy
+   */
+  public int getChangedFiles() {
+    return changedFiles;
+  }
+
+  public long getChangedBytes() {
+    return changedBytes;
+  }
+
+  public int getDeletedFiles() {
+    return deletedFiles;
+  }
+
+  /**
+   * @return a one line, human readable description of the plan, e.g. for the deploy console
+   */
+  public String getSummary() {
+    return Messages.getString("deploy.plan.summary", //$NON-NLS-1$
+        changedFiles, totalFiles, changedBytes / BYTES_PER_MB, totalBytes / BYTES_PER_MB,
+        deletedFiles);
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Timings of a single deploy, broken down by {@link Phase}. For each phase it records the wall
+ * time, the number of files and bytes the phase produced (or uploaded, for {@link Phase#DEPLOY})
+ * and the wall time of the Cloud SDK process it ran, if any. Values that were not measured are
+ * {@link #UNKNOWN}. The version of the Cloud SDK is recorded too, as it affects the timings of
+ * the staging and deploy phases.
+ * <p>
+ * A record is stored as one line of a {@link DeployHistory} CSV file.
+ */
+public class DeployRecord {
+
+  public enum Phase {
+    CREDENTIAL, PUBLISH, STAGE, DEPLOY;
+
+    private String columnPrefix() {
+      return name().toLowerCase(Locale.US);
+    }
+  }
+
+  public static final long UNKNOWN = -1;
+
+  /** Recorded when the job finished without a result, e.g. because of an exception. */
+  public static final String RESULT_FAILED = "FAILED";
+
+  private static final int COLUMNS_PER_PHASE = 4;
+  private static final int COLUMN_COUNT = 3 + Phase.values().length * COLUMNS_PER_PHASE;
+
+  private final long startTime;
+  private String result = RESULT_FAILED;
+  private String cloudSdkVersion;
+  private final Map<Phase, long[]> phases = new EnumMap<>(Phase.class);
+
+  /**
+   * @param startTime the time the deploy started, in milliseconds since the epoch
+   */
+  public DeployRecord(long startTime) {
+    this.startTime = startTime;
+    for (Phase phase : Phase.values()) {
+      phases.put(phase, new long[] {UNKNOWN, UNKNOWN, UNKNOWN, UNKNOWN});
+    }
+  }
+
+  public long getStartTime() {
+    return startTime;
+  }
+
+  public String getResult() {
+    return result;
+  }
+
+  /**
+   * @param result a short description of the outcome, e.g. the severity of the job result
+   */
+  public void setResult(String result) {
+    Preconditions.checkArgument(result.indexOf(',') < 0, "result must not contain ','");
+    this.result = result;
+  }
+
+  /**
+   * @return the version of the Cloud SDK used for the deploy, or {@code null} if it is not known
+   */
+  public String getCloudSdkVersion() {
+    return cloudSdkVersion;
+  }
+
+  public void setCloudSdkVersion(String cloudSdkVersion) {
+    Preconditions.checkArgument(cloudSdkVersion == null || cloudSdkVersion.indexOf(',') < 0,
+        "cloudSdkVersion must not contain ','");
+    this.cloudSdkVersion = cloudSdkVersion;
+  }
+
+  public long getDurationMillis(Phase phase) {
+    return phases.get(phase)[0];
+  }
+
+  public void setDurationMillis(Phase phase, long durationMillis) {
+    phases.get(phase)[0] = durationMillis;
+  }
+
+  public long getFileCount(Phase phase) {
+    return phases.get(phase)[1];
+  }
+
+  public long getByteCount(Phase phase) {
+    return phases.get(phase)[2];
+  }
+
+  public void setSize(Phase phase, long fileCount, long byteCount) {
+    phases.get(phase)[1] = fileCount;
+    phases.get(phase)[2] = byteCount;
+  }
+
+  /**
+   * Sets the size recorded for {@code phase} to the number of files and total size of
+   * {@code directory}.
+   */
+  public void setSize(Phase phase, Path directory) throws IOException {
+    final long[] size = new long[2];
+    Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+        size[0]++;
+        size[1] += attributes.size();
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    setSize(phase, size[0], size[1]);
+  }
+
+  public long getProcessMillis(Phase phase) {
+    return phases.get(phase)[3];
+  }
+
+  /**
+   * @param processMillis the wall time of the Cloud SDK process executed in {@code phase}
+   */
+  public void setProcessMillis(Phase phase, long processMillis) {
+    phases.get(phase)[3] = processMillis;
+  }
+
+  static String csvHeader() {
+    List<String> columns = new ArrayList<>();
+    columns.add("start");
+    columns.add("result");
+    columns.add("sdk.version");
+    for (Phase phase : Phase.values()) {
+      String prefix = phase.columnPrefix();
+      columns.add(prefix + ".ms");
+      columns.add(prefix + ".files");
+      columns.add(prefix + ".bytes");
+      columns.add(prefix + ".process.ms");
+    }
+    return Joiner.on(',').join(columns);
+  }
+
+  /**
+   * @return the record as a line of comma separated values, where unknown values are empty
+   */
+  String toCsv() {
+    List<String> values = new ArrayList<>(COLUMN_COUNT);
+    values.add(Long.toString(startTime));
+    values.add(result);
+    values.add(Strings.nullToEmpty(cloudSdkVersion));
+    for (Phase phase : Phase.values()) {
+      for (long value : phases.get(phase)) {
+        values.add(value == UNKNOWN ? "" : Long.toString(value));
+      }
+    }
+    return Joiner.on(',').join(values);
+  }
+
+  static DeployRecord parseCsv(String line) throws IOException {
+    List<String> values = Splitter.on(',').splitToList(line);
+    if (values.size() != COLUMN_COUNT) {
+      throw new IOException("Invalid deploy history line: " + line);
+    }
+    try {
+      DeployRecord record = new DeployRecord(Long.parseLong(values.get(0)));
+      record.result = values.get(1);
+      record.cloudSdkVersion = Strings.emptyToNull(values.get(2));
+      int column = 3;
+      for (Phase phase : Phase.values()) {
+        long[] phaseValues = record.phases.get(phase);
+        for (int i = 0; i < COLUMNS_PER_PHASE; i++) {
+          String value = values.get(column++);
+          phaseValues[i] = value.isEmpty() ? UNKNOWN : Long.parseLong(value);
+        }
+      }
+      return record;
+    } catch (NumberFormatException exception) {
+      throw new IOException("Invalid deploy history line: " + line, exception);
+    }
+  }
+}
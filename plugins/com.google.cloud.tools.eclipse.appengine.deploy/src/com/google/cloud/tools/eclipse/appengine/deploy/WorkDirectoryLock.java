@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.cloud.tools.eclipse.appengine.deploy;
+
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Exclusive use of a per-project deploy work directory. A deploy holds the lock of its work
+ * directory from the export of the exploded WAR until the end of the deploy operation, so that
+ * concurrent deploys of the same project do not stage into the same directories, and
+ * {@link CleanupOldDeploysJob} skips directories that are in use.
+ * <p>
+ * The lock is not tied to a thread; it is released by calling {@link #release()}.
+ */
+public class WorkDirectoryLock {
+
+  private static final ConcurrentMap<Path, Semaphore> semaphores = new ConcurrentHashMap<>();
+
+  private final Semaphore semaphore;
+  private boolean released;
+
+  private WorkDirectoryLock(Semaphore semaphore) {
+    this.semaphore = semaphore;
+  }
+
+  /**
+   * Waits until {@code directory} is not used by another deploy and locks it.
+   *
+   * @throws OperationCanceledException if {@code monitor} is canceled while waiting
+   */
+  public static WorkDirectoryLock acquire(Path directory, IProgressMonitor monitor) {
+    Semaphore semaphore = getSemaphore(directory);
+    try {
+      if (!semaphore.tryAcquire()) {
+        monitor.subTask(Messages.getString("deploy.job.workdir.waiting")); //$NON-NLS-1$
+        while (!semaphore.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+          if (monitor.isCanceled()) {
+            throw new OperationCanceledException();
+          }
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new OperationCanceledException();
+    }
+    return new WorkDirectoryLock(semaphore);
+  }
+
+  /**
+   * @return the lock of {@code directory}, or {@code null} if it is in use
+   */
+  public static WorkDirectoryLock tryAcquire(Path directory) {
+    Semaphore semaphore = getSemaphore(directory);
+    return semaphore.tryAcquire() ? new WorkDirectoryLock(semaphore) : null;
+  }
+
+  /**
+   * Releases the lock. Calling this method more than once has no effect.
+   */
+  public synchronized void release() {
+    if (!released) {
+      released = true;
+      semaphore.release();
+    }
+  }
+
+  private static Semaphore getSemaphore(Path directory) {
+    Path key = directory.toAbsolutePath().normalize();
+    Semaphore semaphore = semaphores.get(key);
+    if (semaphore == null) {
+      Semaphore newSemaphore = new Semaphore(1);
+      semaphore = semaphores.putIfAbsent(key, newSemaphore);
+      if (semaphore == null) {
+        semaphore = newSemaphore;
+      }
+    }
+    return semaphore;
+  }
+}
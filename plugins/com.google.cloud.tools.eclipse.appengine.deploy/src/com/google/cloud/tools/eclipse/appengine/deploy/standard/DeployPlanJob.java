@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import com.google.cloud.tools.appengine.cloudsdk.process.ProcessOutputLineListener;
+import com.google.cloud.tools.eclipse.appengine.deploy.DeployManifest;
+import com.google.cloud.tools.eclipse.appengine.deploy.DeployPlan;
+import com.google.cloud.tools.eclipse.appengine.deploy.Messages;
+import com.google.cloud.tools.eclipse.util.status.StatusUtil;
+import com.google.common.base.Preconditions;
+import java.io.IOException;
+import java.nio.file.Path;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Computes the {@link DeployManifest} of a staging directory and the {@link DeployPlan} against
+ * the manifest of the last successful deploy. {@link StandardDeployJob} schedules it so that the
+ * staged files are hashed while the deploy operation uploads them, and cancels it with the deploy.
+ * <p>
+ * The job returns a warning status if the manifest cannot be computed.
+ */
+class DeployPlanJob extends Job {
+
+  private final Path stagingDirectory;
+  private final Path previousManifestFile;
+  private final ProcessOutputLineListener outputListener;
+  private volatile DeployManifest manifest;
+  private volatile DeployPlan plan;
+
+  /**
+   * @param outputListener receives the summary of the plan, may be <code>null</code>
+   */
+  DeployPlanJob(Path stagingDirectory, Path previousManifestFile,
+                ProcessOutputLineListener outputListener) {
+    super(Messages.getString("deploy.plan.job.name")); //$NON-NLS-1$
+    Preconditions.checkNotNull(stagingDirectory, "stagingDirectory is null");
+    Preconditions.checkNotNull(previousManifestFile, "previousManifestFile is null");
+    this.stagingDirectory = stagingDirectory;
+    this.previousManifestFile = previousManifestFile;
+    this.outputListener = outputListener;
+    setSystem(true);
+  }
+
+  @Override
+  protected IStatus run(IProgressMonitor monitor) {
+    try {
+      DeployManifest computed = DeployManifest.compute(stagingDirectory, monitor);
+      DeployPlan computedPlan = computed.planAgainst(DeployManifest.load(previousManifestFile));
+      manifest = computed;
+      plan = computedPlan;
+      if (outputListener != null) {
+        outputListener.onOutputLine(computedPlan.getSummary());
+      }
+      return Status.OK_STATUS;
+    } catch (OperationCanceledException exception) {
+      return Status.CANCEL_STATUS;
+    } catch (IOException exception) {
+      return StatusUtil.warn(this, Messages.getString("deploy.plan.failed"), exception); //$NON-NLS-1$
+    }
+  }
+
+  /**
+   * @return the manifest of the staging directory, or <code>null</code> if the job has not
+   *     completed successfully
+   */
+  DeployManifest getManifest() {
+    return manifest;
+  }
+
+  /**
+   * @return the plan, or <code>null</code> if the job has not completed successfully
+   */
+  DeployPlan getPlan() {
+    return plan;
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * Summarizes the state of an exploded WAR directory as a single digest computed from the relative
+ * path, size and modification time of every file. Since
+ * {@link org.eclipse.wst.server.core.util.PublishHelper#publishSmart} only rewrites files that have
+ * changed, an unchanged digest means that the result of a previous staging is still valid.
+ */
+class ExplodedWarFingerprint {
+
+  private ExplodedWarFingerprint() {
+  }
+
+  static String compute(Path explodedWarDirectory) throws IOException {
+    Preconditions.checkNotNull(explodedWarDirectory, "explodedWarDirectory is null");
+
+    // sort the entries so that the digest does not depend on the order of directory listings
+    final Map<String, BasicFileAttributes> files = new TreeMap<>();
+    final Path root = explodedWarDirectory;
+    Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+        files.put(root.relativize(file).toString(), attributes);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+
+    Hasher hasher = Hashing.sha1().newHasher();
+    for (Entry<String, BasicFileAttributes> entry : files.entrySet()) {
+      hasher.putString(entry.getKey(), StandardCharsets.UTF_8)
+          .putLong(entry.getValue().size())
+          .putLong(entry.getValue().lastModifiedTime().toMillis());
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * @return the fingerprint stored in {@code file} or {@code null} if it does not exist
+   */
+  static String read(Path file) throws IOException {
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+    return new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+  }
+
+  static void write(Path file, String fingerprint) throws IOException {
+    Files.write(file, fingerprint.getBytes(StandardCharsets.UTF_8));
+  }
+}
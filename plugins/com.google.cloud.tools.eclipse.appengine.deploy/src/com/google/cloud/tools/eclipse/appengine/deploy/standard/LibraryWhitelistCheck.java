@@ -0,0 +1,138 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import com.google.cloud.tools.appengine.cloudsdk.process.ProcessOutputLineListener;
+import com.google.cloud.tools.eclipse.appengine.deploy.Messages;
+import com.google.cloud.tools.eclipse.appengine.whitelist.AppEngineJreWhitelist;
+import com.google.cloud.tools.eclipse.appengine.whitelist.JarWhitelistScanner;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import com.google.common.collect.Iterables;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Warns on the console about the jars in {@code WEB-INF/lib} of an exploded WAR that reference JRE
+ * classes that are not on the App Engine Standard whitelist, unless the classes are defined in
+ * {@code WEB-INF/classes} or in one of the jars. Such references only fail at runtime,
+ * and often only in code paths that are never taken, so they do not stop the deploy.
+ */
+class LibraryWhitelistCheck {
+
+  private static final Logger logger = Logger.getLogger(LibraryWhitelistCheck.class.getName());
+
+  private static final int MAX_LISTED_CLASSES = 5;
+  private static final String CLASS_FILE_EXTENSION = ".class"; //$NON-NLS-1$
+
+  /** Shared so that its cache of scanned jars is reused across deploys. */
+  private static final JarWhitelistScanner scanner = new JarWhitelistScanner();
+
+  private LibraryWhitelistCheck() {
+  }
+
+  /**
+   * Reports on {@code stdoutListener} one line for each jar with references that are not on the
+   * whitelist. Failures to scan are logged and otherwise ignored.
+   */
+  static void check(Path explodedWarDirectory, ProcessOutputLineListener stdoutListener) {
+    if (stdoutListener == null) {
+      return;
+    }
+    try {
+      for (String warning : findViolations(explodedWarDirectory)) {
+        stdoutListener.onOutputLine(warning);
+      }
+    } catch (IOException exception) {
+      logger.log(Level.WARNING, "Could not check the libraries against the JRE whitelist",
+          exception);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @VisibleForTesting
+  static List<String> findViolations(Path explodedWarDirectory)
+      throws IOException, InterruptedException {
+    List<String> warnings = new ArrayList<>();
+    Path libDirectory = explodedWarDirectory.resolve("WEB-INF").resolve("lib");
+    if (!Files.isDirectory(libDirectory)) {
+      return warnings;
+    }
+    List<Path> jars = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(libDirectory, "*.jar")) {
+      for (Path jar : stream) {
+        jars.add(jar);
+      }
+    }
+
+    Set<String> definedClasses =
+        findDefinedClasses(explodedWarDirectory.resolve("WEB-INF").resolve("classes"));
+    for (Entry<Path, SortedSet<String>> entry
+        : scanner.findBlacklistedClasses(jars, definedClasses).entrySet()) {
+      SortedSet<String> classes = entry.getValue();
+      String listed = Joiner.on(", ").join(Iterables.limit(classes, MAX_LISTED_CLASSES));
+      if (classes.size() > MAX_LISTED_CLASSES) {
+        listed = Messages.getString("deploy.whitelist.more", listed, //$NON-NLS-1$
+            classes.size() - MAX_LISTED_CLASSES);
+      }
+      warnings.add(Messages.getString("deploy.whitelist.violations", //$NON-NLS-1$
+          entry.getKey().getFileName(), listed));
+    }
+    return warnings;
+  }
+
+  /**
+   * @return the binary names of the classes in {@code classesDirectory} that would be blacklisted,
+   *     as the jars may use them in place of the JRE's
+   */
+  private static Set<String> findDefinedClasses(final Path classesDirectory) throws IOException {
+    final Set<String> definedClasses = new HashSet<>();
+    if (!Files.isDirectory(classesDirectory)) {
+      return definedClasses;
+    }
+    Files.walkFileTree(classesDirectory, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+        String name = classesDirectory.relativize(file).toString();
+        if (name.endsWith(CLASS_FILE_EXTENSION)) {
+          String className = name.substring(0, name.length() - CLASS_FILE_EXTENSION.length())
+              .replace(File.separatorChar, '.');
+          if (!AppEngineJreWhitelist.contains(className)) {
+            definedClasses.add(className);
+          }
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    return definedClasses;
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import com.google.cloud.tools.eclipse.util.io.DeleteAllVisitor;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Tracks whether the staging directory in a deploy work directory still holds the staging result
+ * of the exploded WAR, using the {@link ExplodedWarFingerprint} recorded after the last successful
+ * staging.
+ * <p>
+ * Usage: if {@link #isUpToDate} returns <code>false</code>, call {@link #invalidate}, stage, and
+ * call {@link #commit} if the staging succeeded.
+ */
+class StagingCache {
+
+  private static final String STAGING_FINGERPRINT_FILENAME = "staging.fingerprint";
+
+  private static final Logger logger = Logger.getLogger(StagingCache.class.getName());
+
+  private final Path fingerprintFile;
+  private String fingerprint;
+
+  StagingCache(IPath workDirectory) {
+    fingerprintFile = workDirectory.append(STAGING_FINGERPRINT_FILENAME).toFile().toPath();
+  }
+
+  boolean isUpToDate(IPath explodedWarDirectory, IPath stagingDirectory) {
+    try {
+      fingerprint = ExplodedWarFingerprint.compute(explodedWarDirectory.toFile().toPath());
+      return fingerprint.equals(ExplodedWarFingerprint.read(fingerprintFile))
+          && stagingDirectory.toFile().isDirectory();
+    } catch (IOException exception) {
+      logger.log(Level.WARNING, "Could not compute exploded WAR fingerprint", exception);
+      fingerprint = null;
+      return false;
+    }
+  }
+
+  /**
+   * Forgets the last staging and deletes {@code stagingDirectory}, as the staging operation
+   * expects an empty staging directory.
+   */
+  void invalidate(IPath stagingDirectory) throws IOException {
+    Files.deleteIfExists(fingerprintFile);
+    if (stagingDirectory.toFile().exists()) {
+      Files.walkFileTree(stagingDirectory.toFile().toPath(), new DeleteAllVisitor());
+    }
+  }
+
+  /**
+   * Records that the staging directory holds the staging result of the exploded WAR passed to the
+   * last call of {@link #isUpToDate}.
+   */
+  void commit() {
+    if (fingerprint == null) {
+      return;
+    }
+    try {
+      ExplodedWarFingerprint.write(fingerprintFile, fingerprint);
+    } catch (IOException exception) {
+      logger.log(Level.WARNING, "Could not save exploded WAR fingerprint", exception);
+    }
+  }
+}
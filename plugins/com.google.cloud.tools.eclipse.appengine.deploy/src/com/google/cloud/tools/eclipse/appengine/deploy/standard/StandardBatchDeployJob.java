@@ -0,0 +1,436 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.deploy.standard;
+
+import com.google.cloud.tools.appengine.cloudsdk.CloudSdk;
+import com.google.cloud.tools.appengine.cloudsdk.process.ProcessExitListener;
+import com.google.cloud.tools.appengine.cloudsdk.process.ProcessStartListener;
+import com.google.cloud.tools.eclipse.appengine.deploy.AppEngineProjectDeployer;
+import com.google.cloud.tools.eclipse.appengine.deploy.Messages;
+import com.google.cloud.tools.eclipse.appengine.deploy.WorkDirectoryLock;
+import com.google.cloud.tools.eclipse.util.CloudToolsInfo;
+import com.google.cloud.tools.eclipse.util.status.StatusUtil;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * Executes a job that deploys several projects, e.g. the services of one application, to App
+ * Engine Standard with a single deploy operation.
+ * <p>
+ * The projects are exported and staged concurrently, each one holding only its own project
+ * scheduling rule, on a bounded pool of threads. Then the <code>app.yaml</code> of every staging
+ * directory is deployed at once. Each project uses the work directory set in its
+ * {@link StandardDeployJobConfig} the same way as {@link StandardDeployJob}, and all of them stay
+ * locked until the deploy operation completes. The credential, the
+ * output listeners and the deploy configuration are taken from the first configuration.
+ */
+public class StandardBatchDeployJob extends WorkspaceJob {
+
+  private static final int DEFAULT_MAX_PARALLELISM = 4;
+
+  private static final Logger logger = Logger.getLogger(StandardBatchDeployJob.class.getName());
+
+  private final ExplodedWarPublisher exporter;
+  private final StandardProjectStaging staging;
+  private final AppEngineProjectDeployer deployer;
+  private final List<StandardDeployJobConfig> configs;
+  private final int maxParallelism;
+
+  private final List<PublishAndStageTask> tasks = new ArrayList<>();
+  private final Set<Process> processes = Collections.synchronizedSet(new HashSet<Process>());
+
+  //temporary way of error handling, after #439 is fixed, it'll be cleaner
+  private volatile IStatus deployProcessStatus = Status.OK_STATUS;
+  private volatile boolean canceled;
+
+  StandardBatchDeployJob(ExplodedWarPublisher exporter,
+                         StandardProjectStaging staging,
+                         AppEngineProjectDeployer deployer,
+                         List<StandardDeployJobConfig> configs,
+                         int maxParallelism) {
+    super(Messages.getString("deploy.standard.batch.runnable.name")); //$NON-NLS-1$
+
+    Preconditions.checkNotNull(deployer, "deployer is null");
+    Preconditions.checkNotNull(exporter, "exporter is null");
+    Preconditions.checkNotNull(staging, "staging is null");
+    Preconditions.checkNotNull(configs, "configs is null");
+    Preconditions.checkArgument(!configs.isEmpty(), "configs is empty");
+    Preconditions.checkArgument(maxParallelism > 0, "maxParallelism must be positive");
+
+    this.exporter = exporter;
+    this.staging = staging;
+    this.deployer = deployer;
+    this.configs = new ArrayList<>(configs);
+    this.maxParallelism = maxParallelism;
+  }
+
+  @Override
+  public IStatus runInWorkspace(IProgressMonitor monitor) throws CoreException {
+    SubMonitor progress = SubMonitor.convert(monitor, 100);
+    StandardDeployJobConfig mainConfig = configs.get(0);
+    Path credentialFile = null;
+    List<WorkDirectoryLock> locks = new ArrayList<>();
+    try {
+      lockWorkDirectories(locks, progress);
+      credentialFile =
+          mainConfig.getWorkDirectory().append(StandardDeployJob.CREDENTIAL_FILENAME).toFile().toPath();
+      StandardDeployJob.saveCredential(credentialFile, mainConfig.getCredential());
+
+      List<IPath> stagingDirectories = new ArrayList<>();
+      for (StandardDeployJobConfig config : configs) {
+        tasks.add(new PublishAndStageTask(config, credentialFile));
+        stagingDirectories.add(
+            config.getWorkDirectory().append(StandardDeployJob.STAGING_DIRECTORY_NAME));
+      }
+
+      IStatus stagingStatus = publishAndStage(progress.newChild(30));
+      if (!stagingStatus.isOK()) {
+        return stagingStatus;
+      }
+
+      CloudSdk cloudSdk = getCloudSdk(mainConfig, credentialFile, new RecordDeployProcessError());
+      deployer.deploy(stagingDirectories, cloudSdk, mainConfig.getDeployConfiguration(),
+                      progress.newChild(70));
+      if (canceled) {
+        return Status.CANCEL_STATUS;
+      }
+      if (!deployProcessStatus.isOK()) {
+        // temporary way of error handling, after #439 is fixed, it'll be cleaner
+        return StatusUtil.error(getClass(), "Deploy failed, check the error message in the Console View");
+      }
+      return Status.OK_STATUS;
+    } catch (IOException exception) {
+      throw new CoreException(StatusUtil.error(getClass(),
+                                               Messages.getString("save.credential.failed"),
+                                               exception));
+    } catch (OperationCanceledException exception) {
+      return Status.CANCEL_STATUS;
+    } finally {
+      if (credentialFile != null) {
+        try {
+          Files.deleteIfExists(credentialFile);
+        } catch (IOException exception) {
+          logger.log(Level.WARNING, "Could not delete credential file after deploy", exception);
+        }
+      }
+      for (WorkDirectoryLock lock : locks) {
+        lock.release();
+      }
+      monitor.done();
+    }
+  }
+
+  /**
+   * Locks the work directories of all projects for the whole batch, as the deploy operation reads
+   * the staging directories. The directories are locked in a fixed order so that two batches
+   * sharing projects cannot deadlock.
+   */
+  private void lockWorkDirectories(List<WorkDirectoryLock> locks, IProgressMonitor monitor) {
+    List<Path> directories = new ArrayList<>();
+    for (StandardDeployJobConfig config : configs) {
+      directories.add(config.getWorkDirectory().toFile().toPath().toAbsolutePath().normalize());
+    }
+    Collections.sort(directories);
+    for (Path directory : directories) {
+      locks.add(WorkDirectoryLock.acquire(directory, monitor));
+    }
+  }
+
+  /**
+   * Runs the {@link PublishAndStageTask}s on a bounded pool and reports progress as each of them
+   * completes. The monitor is only used from the job thread.
+   */
+  private IStatus publishAndStage(IProgressMonitor monitor) {
+    SubMonitor progress = SubMonitor.convert(monitor,
+        Messages.getString("task.name.stage.projects", tasks.size()), tasks.size()); //$NON-NLS-1$
+
+    int threads = Math.min(maxParallelism, tasks.size());
+    ExecutorService executor = Executors.newFixedThreadPool(threads,
+        new ThreadFactoryBuilder().setNameFormat("standard-batch-deploy-%d").setDaemon(true).build());
+    try {
+      CompletionService<IStatus> completionService = new ExecutorCompletionService<>(executor);
+      Map<Future<IStatus>, PublishAndStageTask> submitted = new HashMap<>();
+      for (PublishAndStageTask task : tasks) {
+        submitted.put(completionService.submit(task), task);
+      }
+
+      MultiStatus result =
+          StatusUtil.multi(this, Messages.getString("deploy.batch.staging.failed")); //$NON-NLS-1$
+      for (int completed = 0; completed < tasks.size(); ) {
+        if (monitor.isCanceled()) {
+          cancelTasks();
+          return Status.CANCEL_STATUS;
+        }
+        Future<IStatus> future = completionService.poll(100, TimeUnit.MILLISECONDS);
+        if (future != null) {
+          completed++;
+          IStatus status = getResult(future);
+          if (status.getSeverity() == IStatus.CANCEL) {
+            cancelTasks();
+            return Status.CANCEL_STATUS;
+          }
+          if (!status.isOK()) {
+            result.add(status);
+          }
+          progress.subTask(Messages.getString("task.name.staged.project", //$NON-NLS-1$
+              submitted.get(future).config.getProject().getName()));
+          progress.worked(1);
+        }
+      }
+      return result.getSeverity() == IStatus.ERROR ? result : Status.OK_STATUS;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      cancelTasks();
+      return Status.CANCEL_STATUS;
+    } finally {
+      executor.shutdownNow();
+      awaitTermination(executor);
+    }
+  }
+
+  /**
+   * Waits for the canceled tasks to end, as the work directories they write to are unlocked once
+   * the job returns. Their processes are destroyed, so they end shortly.
+   */
+  private static void awaitTermination(ExecutorService executor) {
+    try {
+      if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+        logger.log(Level.WARNING, "Staging tasks still running after cancellation");
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private IStatus getResult(Future<IStatus> future) throws InterruptedException {
+    try {
+      return future.get();
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof OperationCanceledException) {
+        return Status.CANCEL_STATUS;
+      } else if (cause instanceof CoreException) {
+        return ((CoreException) cause).getStatus();
+      }
+      return StatusUtil.error(this, String.valueOf(cause.getMessage()), cause);
+    }
+  }
+
+  @Override
+  protected void canceling() {
+    cancelTasks();
+    super.canceling();
+  }
+
+  private void cancelTasks() {
+    canceled = true;
+    for (PublishAndStageTask task : tasks) {
+      task.monitor.setCanceled(true);
+    }
+    synchronized (processes) {
+      for (Process process : processes) {
+        process.destroy();
+      }
+    }
+  }
+
+  private CloudSdk getCloudSdk(StandardDeployJobConfig config, Path credentialFile,
+                               ProcessExitListener exitListener) {
+    return new CloudSdk.Builder()
+        .addStdOutLineListener(config.getStdoutLineListener())
+        .addStdErrLineListener(config.getStderrLineListener())
+        .appCommandCredentialFile(credentialFile.toFile())
+        .startListener(new StoreProcessObjectListener())
+        .exitListener(exitListener)
+        .appCommandMetricsEnvironment(CloudToolsInfo.METRICS_NAME)
+        .appCommandMetricsEnvironmentVersion(CloudToolsInfo.getToolsVersion())
+        .build();
+  }
+
+  /**
+   * Exports and stages one project, reusing the previous staging result if the exploded WAR did
+   * not change.
+   */
+  private final class PublishAndStageTask implements Callable<IStatus>, ProcessExitListener {
+    private final StandardDeployJobConfig config;
+    private final Path credentialFile;
+    private final IProgressMonitor monitor = new NullProgressMonitor();
+    private volatile IStatus processStatus = Status.OK_STATUS;
+
+    private PublishAndStageTask(StandardDeployJobConfig config, Path credentialFile) {
+      this.config = config;
+      this.credentialFile = credentialFile;
+    }
+
+    @Override
+    public IStatus call() throws CoreException, IOException {
+      IProject project = config.getProject();
+      IPath explodedWarDirectory =
+          config.getWorkDirectory().append(StandardDeployJob.EXPLODED_WAR_DIRECTORY_NAME);
+      IPath stagingDirectory =
+          config.getWorkDirectory().append(StandardDeployJob.STAGING_DIRECTORY_NAME);
+
+      try {
+        getJobManager().beginRule(project, monitor);
+        exporter.publish(project, explodedWarDirectory, monitor);
+        LibraryWhitelistCheck.check(explodedWarDirectory.toFile().toPath(),
+                                    config.getStdoutLineListener());
+
+        StagingCache stagingCache = new StagingCache(config.getWorkDirectory());
+        if (!stagingCache.isUpToDate(explodedWarDirectory, stagingDirectory)) {
+          stagingCache.invalidate(stagingDirectory);
+          staging.stage(explodedWarDirectory, stagingDirectory,
+                        getCloudSdk(config, credentialFile, this), monitor);
+          // a canceled staging process exits without an error, but leaves the staging incomplete
+          if (processStatus.isOK() && !monitor.isCanceled()) {
+            stagingCache.commit();
+          }
+        }
+      } finally {
+        getJobManager().endRule(project);
+      }
+      if (monitor.isCanceled()) {
+        return Status.CANCEL_STATUS;
+      }
+      return processStatus.isOK() ? Status.OK_STATUS : processStatus;
+    }
+
+    @Override
+    public void onExit(int exitCode) {
+      if (exitCode != 0 && !monitor.isCanceled()) {
+        processStatus = StatusUtil.error(this, Messages.getString("cloudsdk.process.failed", exitCode)
+            + " (" + config.getProject().getName() + ")");
+      }
+    }
+  }
+
+  private final class StoreProcessObjectListener implements ProcessStartListener {
+    @Override
+    public void onStart(Process process) {
+      processes.add(process);
+      // a process started after cancellation must not be left running
+      if (canceled) {
+        process.destroy();
+      }
+    }
+  }
+
+  private final class RecordDeployProcessError implements ProcessExitListener {
+    // temporary way of error handling, after #439 is fixed, it'll be cleaner
+    @Override
+    public void onExit(int exitCode) {
+      if (!canceled && exitCode != 0) {
+        deployProcessStatus = StatusUtil.error(this, Messages.getString("cloudsdk.process.failed", exitCode));
+      }
+    }
+  }
+
+  public static class Builder {
+    private ExplodedWarPublisher exporter;
+    private StandardProjectStaging staging;
+    private AppEngineProjectDeployer deployer;
+    private List<StandardDeployJobConfig> configs = new ArrayList<>();
+    private int maxParallelism = DEFAULT_MAX_PARALLELISM;
+
+    public Builder exporter(ExplodedWarPublisher exporter) {
+      this.exporter = exporter;
+      return this;
+    }
+
+    public Builder staging(StandardProjectStaging staging) {
+      this.staging = staging;
+      return this;
+    }
+
+    public Builder deployer(AppEngineProjectDeployer deployer) {
+      this.deployer = deployer;
+      return this;
+    }
+
+    /**
+     * Adds a project to deploy. The first configuration added also provides the credential, the
+     * output listeners and the deploy configuration of the whole batch.
+     */
+    public Builder addConfig(StandardDeployJobConfig config) {
+      Preconditions.checkNotNull(config, "config is null");
+      configs.add(config);
+      return this;
+    }
+
+    /**
+     * @param maxParallelism the maximum number of projects exported and staged at the same time
+     */
+    public Builder maxParallelism(int maxParallelism) {
+      this.maxParallelism = maxParallelism;
+      return this;
+    }
+
+    public StandardBatchDeployJob build() {
+      Preconditions.checkArgument(!configs.isEmpty(), "no config added");
+      Set<IProject> projects = new HashSet<>();
+      for (StandardDeployJobConfig config : configs) {
+        Preconditions.checkArgument(projects.add(config.getProject()),
+            "project added more than once: %s", config.getProject());
+      }
+
+      if (exporter == null) {
+        exporter = new ExplodedWarPublisher();
+      }
+
+      if (staging == null) {
+        staging = new StandardProjectStaging();
+      }
+
+      if (deployer == null) {
+        deployer = new AppEngineProjectDeployer();
+      }
+
+      return new StandardBatchDeployJob(exporter, staging, deployer, configs, maxParallelism);
+    }
+  }
+}
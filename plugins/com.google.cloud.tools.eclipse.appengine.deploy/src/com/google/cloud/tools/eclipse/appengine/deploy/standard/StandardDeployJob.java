@@ -21,15 +21,23 @@ import com.google.cloud.tools.appengine.cloudsdk.CloudSdk;
 import com.google.cloud.tools.appengine.cloudsdk.process.ProcessExitListener;
 import com.google.cloud.tools.appengine.cloudsdk.process.ProcessStartListener;
 import com.google.cloud.tools.eclipse.appengine.deploy.AppEngineProjectDeployer;
+import com.google.cloud.tools.eclipse.appengine.deploy.DeployHistory;
+import com.google.cloud.tools.eclipse.appengine.deploy.DeployPlan;
+import com.google.cloud.tools.eclipse.appengine.deploy.DeployRecord;
+import com.google.cloud.tools.eclipse.appengine.deploy.DeployRecord.Phase;
 import com.google.cloud.tools.eclipse.appengine.deploy.Messages;
+import com.google.cloud.tools.eclipse.appengine.deploy.WorkDirectoryLock;
 import com.google.cloud.tools.eclipse.appengine.login.CredentialHelper;
 import com.google.cloud.tools.eclipse.util.CloudToolsInfo;
 import com.google.cloud.tools.eclipse.util.status.StatusUtil;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.eclipse.core.resources.WorkspaceJob;
@@ -37,8 +45,12 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 
 /**
  * Executes a job that deploys a project to App Engine Standard.
@@ -46,17 +58,26 @@ import org.eclipse.core.runtime.SubMonitor;
  * Deploy steps:
  * <ol>
  *  <li>export exploded WAR</li>
+ *  <li>warn about libraries that use classes outside the App Engine JRE whitelist</li>
  *  <li>stage project for deploy</li>
+ *  <li>compare the staged project with the last successful deploy in a {@link DeployPlanJob} (in
+ *  pipelined mode, while the next step is running)</li>
  *  <li>deploy staged project</li>
  * </ol>
  * It uses a work directory where it will create separate directories for the exploded WAR and the
- * staging results.
+ * staging results. The work directory is expected to be reused across deploys of the same project:
+ * the exploded WAR is then updated incrementally and staging is skipped if the exploded WAR has not
+ * changed since the last successful staging. The job holds the {@link WorkDirectoryLock} of the
+ * work directory while it runs, so a concurrent deploy of the same project waits for it.
+ * <p>
+ * The duration of each step is recorded in a {@link DeployRecord}, which is added to the project's
+ * {@link DeployHistory} if {@link StandardDeployJobConfig#getDeployHistoryFile()} is set.
  */
 public class StandardDeployJob extends WorkspaceJob {
 
-  private static final String STAGING_DIRECTORY_NAME = "staging";
-  private static final String EXPLODED_WAR_DIRECTORY_NAME = "exploded-war";
-  private static final String CREDENTIAL_FILENAME = "gcloud-credentials.json";
+  static final String STAGING_DIRECTORY_NAME = "staging";
+  static final String EXPLODED_WAR_DIRECTORY_NAME = "exploded-war";
+  static final String CREDENTIAL_FILENAME = "gcloud-credentials.json";
 
   private static final Logger logger = Logger.getLogger(StandardDeployJob.class.getName());
 
@@ -69,11 +90,18 @@ public class StandardDeployJob extends WorkspaceJob {
   private Process process;
 
   private StandardDeployJobConfig config;
+  private final boolean pipelined;
+  private volatile DeployPlanJob planJob;
+  private volatile DeployRecord record;
+  // wall time of the Cloud SDK process executed in the current phase
+  private final Stopwatch processStopwatch = Stopwatch.createUnstarted();
+  private volatile long processMillis = DeployRecord.UNKNOWN;
 
   StandardDeployJob(ExplodedWarPublisher exporter,
                            StandardProjectStaging staging,
                            AppEngineProjectDeployer deployer,
-                           StandardDeployJobConfig config) {
+                           StandardDeployJobConfig config,
+                           boolean pipelined) {
     super(Messages.getString("deploy.standard.runnable.name")); //$NON-NLS-1$
 
     Preconditions.checkNotNull(deployer, "deployer is null");
@@ -85,24 +113,52 @@ public class StandardDeployJob extends WorkspaceJob {
     this.staging = staging;
     this.deployer = deployer;
     this.config = config;
+    this.pipelined = pipelined;
   }
 
   @Override
   public IStatus runInWorkspace(IProgressMonitor monitor) throws CoreException {
+    WorkDirectoryLock lock;
+    try {
+      lock = WorkDirectoryLock.acquire(config.getWorkDirectory().toFile().toPath(), monitor);
+    } catch (OperationCanceledException ex) {
+      monitor.done();
+      return Status.CANCEL_STATUS;
+    }
+    record = new DeployRecord(System.currentTimeMillis());
+    IStatus result = null;
+    try {
+      result = deploy(monitor);
+      return result;
+    } finally {
+      saveDeployRecord(result);
+      lock.release();
+    }
+  }
+
+  private IStatus deploy(IProgressMonitor monitor) throws CoreException {
     SubMonitor progress = SubMonitor.convert(monitor, 100);
     Path credentialFile = null;
     try {
       IPath workDirectory = config.getWorkDirectory();
       IPath explodedWarDirectory = workDirectory.append(EXPLODED_WAR_DIRECTORY_NAME);
       IPath stagingDirectory = workDirectory.append(STAGING_DIRECTORY_NAME);
+      Stopwatch stopwatch = Stopwatch.createStarted();
       credentialFile = workDirectory.append(CREDENTIAL_FILENAME).toFile().toPath();
       saveCredential(credentialFile, config.getCredential());
       CloudSdk cloudSdk = getCloudSdk(credentialFile);
+      recordCloudSdkVersion(cloudSdk);
+      endPhase(Phase.CREDENTIAL, stopwatch);
 
       try {
         getJobManager().beginRule(config.getProject(), progress);
         exporter.publish(config.getProject(), explodedWarDirectory, progress.newChild(10));
-        staging.stage(explodedWarDirectory, stagingDirectory, cloudSdk, progress.newChild(20));
+        endPhase(Phase.PUBLISH, stopwatch);
+        LibraryWhitelistCheck.check(explodedWarDirectory.toFile().toPath(),
+                                    config.getStdoutLineListener());
+        logPhaseDuration("whitelist check", stopwatch);
+        stageIfChanged(explodedWarDirectory, stagingDirectory, cloudSdk, progress.newChild(20));
+        endPhase(Phase.STAGE, stopwatch);
       } finally {
         getJobManager().endRule(config.getProject());
       }
@@ -114,10 +170,20 @@ public class StandardDeployJob extends WorkspaceJob {
         // temporary way of error handling, after #439 is fixed, it'll be cleaner
         return StatusUtil.error(getClass(), "Staging failed, check the error message in the Console View");
       }
-      deployer.deploy(stagingDirectory, cloudSdk, config.getDeployConfiguration(), progress.newChild(70));
-      if (!cloudSdkProcessStatus.isOK() && cloudSdkProcessStatus != Status.CANCEL_STATUS) {
-        // temporary way of error handling, after #439 is fixed, it'll be cleaner
-        return StatusUtil.error(getClass(), "Deploy failed, check the error message in the Console View");
+      startPlanDeploy(stagingDirectory);
+      stopwatch.reset().start();
+      try {
+        deployer.deploy(stagingDirectory, cloudSdk, config.getDeployConfiguration(), progress.newChild(70));
+        endPhase(Phase.DEPLOY, stopwatch);
+        if (!cloudSdkProcessStatus.isOK() && cloudSdkProcessStatus != Status.CANCEL_STATUS) {
+          // temporary way of error handling, after #439 is fixed, it'll be cleaner
+          return StatusUtil.error(getClass(), "Deploy failed, check the error message in the Console View");
+        }
+        if (cloudSdkProcessStatus.isOK()) {
+          return finishPlanDeploy();
+        }
+      } finally {
+        stopPlanDeploy();
       }
 
       return cloudSdkProcessStatus;
@@ -143,10 +209,209 @@ public class StandardDeployJob extends WorkspaceJob {
     if (process != null) {
       process.destroy();
     }
+    Job plan = planJob;
+    if (plan != null) {
+      plan.cancel();
+    }
     super.canceling();
   }
 
-  private void saveCredential(Path destination, Credential credential) throws IOException {
+  /**
+   * @return the plan computed before the deploy operation, or <code>null</code> if the job has not
+   *     reached the deploy operation or the plan could not be computed
+   */
+  public DeployPlan getDeployPlan() {
+    DeployPlanJob plan = planJob;
+    return plan == null ? null : plan.getPlan();
+  }
+
+  /**
+   * @return the timings of the last run of the job, or <code>null</code> if the job has not run
+   */
+  public DeployRecord getDeployRecord() {
+    return record;
+  }
+
+  /**
+   * @return the history of the deploys of the project, or <code>null</code> if the job does not
+   *     keep a history
+   */
+  public DeployHistory getDeployHistory() {
+    if (config.getDeployHistoryFile() == null) {
+      return null;
+    }
+    return new DeployHistory(config.getDeployHistoryFile().toFile().toPath());
+  }
+
+  /**
+   * Schedules a {@link DeployPlanJob} that computes the manifest of the staging directory and
+   * reports on the console how much of it differs from the last successful deploy. In pipelined
+   * mode the plan is computed while the deploy operation is already running, as the deploy
+   * operation does not depend on it; otherwise this waits for the plan to complete.
+   */
+  private void startPlanDeploy(IPath stagingDirectory) {
+    if (config.getDeployManifestFile() == null) {
+      return;
+    }
+    DeployPlanJob plan = new DeployPlanJob(stagingDirectory.toFile().toPath(),
+        config.getDeployManifestFile().toFile().toPath(), config.getStdoutLineListener());
+    final Stopwatch stopwatch = Stopwatch.createStarted();
+    final String phase = pipelined ? "plan (concurrent with deploy)" : "plan";
+    plan.addJobChangeListener(new JobChangeAdapter() {
+      @Override
+      public void done(IJobChangeEvent event) {
+        logPhaseDuration(phase, stopwatch);
+      }
+    });
+    planJob = plan;
+    plan.schedule();
+    if (!pipelined) {
+      join(plan);
+    }
+  }
+
+  /**
+   * Waits for the {@link DeployPlanJob} after a successful deploy operation and saves the manifest
+   * for the next deploy.
+   *
+   * @return OK, or the status of the plan if it could not be computed
+   */
+  private IStatus finishPlanDeploy() {
+    DeployPlanJob plan = planJob;
+    if (plan == null || !join(plan)) {
+      return Status.OK_STATUS;
+    }
+    IStatus result = plan.getResult();
+    if (result.getSeverity() == IStatus.CANCEL) {
+      return Status.OK_STATUS;
+    } else if (!result.isOK()) {
+      return result;
+    }
+    try {
+      plan.getManifest().save(config.getDeployManifestFile().toFile().toPath());
+    } catch (IOException exception) {
+      logger.log(Level.WARNING, "Could not save deploy manifest", exception);
+    }
+    return Status.OK_STATUS;
+  }
+
+  /**
+   * Cancels the {@link DeployPlanJob} if it is still running and waits for it, so that it never
+   * outlives the deploy.
+   */
+  private void stopPlanDeploy() {
+    DeployPlanJob plan = planJob;
+    if (plan != null) {
+      plan.cancel();
+      join(plan);
+    }
+  }
+
+  /**
+   * @return true if {@code job} completed, false if the current thread was interrupted
+   */
+  private static boolean join(Job job) {
+    try {
+      job.join();
+      return true;
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Records the time elapsed on {@code stopwatch} and the wall time of the Cloud SDK process run
+   * since the previous phase, if any, as the timings of {@code phase}.
+   */
+  private void recordCloudSdkVersion(CloudSdk cloudSdk) {
+    try {
+      record.setCloudSdkVersion(cloudSdk.getVersion().toString());
+    } catch (RuntimeException ex) {
+      logger.log(Level.FINE, "Cannot determine Cloud SDK version", ex);
+    }
+  }
+
+  private void endPhase(Phase phase, Stopwatch stopwatch) {
+    record.setDurationMillis(phase, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+    record.setProcessMillis(phase, processMillis);
+    processMillis = DeployRecord.UNKNOWN;
+    logPhaseDuration(phase.name().toLowerCase(Locale.US), stopwatch);
+  }
+
+  /**
+   * Completes the record of this run with the sizes of the exploded WAR, the staging result and
+   * the upload, and appends it to the deploy history.
+   */
+  private void saveDeployRecord(IStatus result) {
+    record.setResult(result == null ? DeployRecord.RESULT_FAILED : severityName(result));
+    DeployHistory history = getDeployHistory();
+    if (history == null) {
+      return;
+    }
+    try {
+      setSize(Phase.PUBLISH, config.getWorkDirectory().append(EXPLODED_WAR_DIRECTORY_NAME));
+      setSize(Phase.STAGE, config.getWorkDirectory().append(STAGING_DIRECTORY_NAME));
+      DeployPlan plan = getDeployPlan();
+      if (plan != null) {
+        record.setSize(Phase.DEPLOY, plan.getChangedFiles(), plan.getChangedBytes());
+      }
+      history.append(record);
+    } catch (IOException exception) {
+      logger.log(Level.WARNING, "Could not save deploy history", exception);
+    }
+  }
+
+  private void setSize(Phase phase, IPath directory) throws IOException {
+    if (directory.toFile().isDirectory()) {
+      record.setSize(phase, directory.toFile().toPath());
+    }
+  }
+
+  private static String severityName(IStatus status) {
+    switch (status.getSeverity()) {
+      case IStatus.OK:
+        return "OK";
+      case IStatus.CANCEL:
+        return "CANCEL";
+      case IStatus.INFO:
+        return "INFO";
+      case IStatus.WARNING:
+        return "WARNING";
+      default:
+        return "ERROR";
+    }
+  }
+
+  private void logPhaseDuration(String phase, Stopwatch stopwatch) {
+    logger.log(Level.INFO, "Deploy of {0}: {1} took {2} ms", new Object[] {
+        config.getProject().getName(), phase, stopwatch.elapsed(TimeUnit.MILLISECONDS)});
+    stopwatch.reset().start();
+  }
+
+  private void stageIfChanged(IPath explodedWarDirectory, IPath stagingDirectory,
+      CloudSdk cloudSdk, IProgressMonitor monitor) throws CoreException {
+    StagingCache stagingCache = new StagingCache(config.getWorkDirectory());
+    if (stagingCache.isUpToDate(explodedWarDirectory, stagingDirectory)) {
+      logger.log(Level.FINE, "Exploded WAR is unchanged, reusing " + stagingDirectory);
+      return;
+    }
+
+    try {
+      stagingCache.invalidate(stagingDirectory);
+    } catch (IOException exception) {
+      throw new CoreException(StatusUtil.error(getClass(),
+          Messages.getString("deploy.job.stagingdir.create.failed"), exception)); //$NON-NLS-1$
+    }
+
+    staging.stage(explodedWarDirectory, stagingDirectory, cloudSdk, monitor);
+
+    if (cloudSdkProcessStatus.isOK()) {
+      stagingCache.commit();
+    }
+  }
+
+  static void saveCredential(Path destination, Credential credential) throws IOException {
     String jsonCredential = new CredentialHelper().toJson(credential);
     Files.write(destination, jsonCredential.getBytes(StandardCharsets.UTF_8));
   }
@@ -168,6 +433,7 @@ public class StandardDeployJob extends WorkspaceJob {
     @Override
     public void onStart(Process proces) {
       process = proces;
+      processStopwatch.reset().start();
     }
   }
 
@@ -175,6 +441,9 @@ public class StandardDeployJob extends WorkspaceJob {
     // temporary way of error handling, after #439 is fixed, it'll be cleaner
     @Override
     public void onExit(int exitCode) {
+      if (processStopwatch.isRunning()) {
+        processMillis = processStopwatch.stop().elapsed(TimeUnit.MILLISECONDS);
+      }
       // if it's cancelled we don't need to record the exit code from the process, it would be the exit code
       // that corresponds to the process.destroy()
       if (cloudSdkProcessStatus != Status.CANCEL_STATUS && exitCode != 0) {
@@ -188,6 +457,7 @@ public class StandardDeployJob extends WorkspaceJob {
     private StandardProjectStaging staging;
     private AppEngineProjectDeployer deployer;
     private StandardDeployJobConfig config;
+    private boolean pipelined;
 
     public Builder exporter(ExplodedWarPublisher exporter) {
       this.exporter = exporter;
@@ -209,6 +479,17 @@ public class StandardDeployJob extends WorkspaceJob {
       return this;
     }
 
+    /**
+     * @param pipelined if <code>true</code>, the deploy plan is computed while the staged project
+     *     is uploaded instead of before, which shortens the deploy by the time it takes to hash the
+     *     staged files. Publishing and staging remain sequential, as the Cloud SDK stages the
+     *     complete exploded WAR. <code>false</code> by default.
+     */
+    public Builder pipelined(boolean pipelined) {
+      this.pipelined = pipelined;
+      return this;
+    }
+
     public StandardDeployJob build() {
       Preconditions.checkNotNull(config, "config is null");
 
@@ -224,7 +505,7 @@ public class StandardDeployJob extends WorkspaceJob {
         deployer = new AppEngineProjectDeployer();
       }
 
-      return new StandardDeployJob(exporter, staging, deployer, config);
+      return new StandardDeployJob(exporter, staging, deployer, config, pipelined);
     }
 
   }
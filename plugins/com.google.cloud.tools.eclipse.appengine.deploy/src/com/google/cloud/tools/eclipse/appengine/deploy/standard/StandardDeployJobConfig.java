@@ -31,6 +31,8 @@ public class StandardDeployJobConfig {
   private ProcessOutputLineListener stdoutLineListener;
   private ProcessOutputLineListener stderrLineListener;
   private DefaultDeployConfiguration deployConfiguration;
+  private IPath deployManifestFile;
+  private IPath deployHistoryFile;
 
   public IPath getWorkDirectory() {
     return workDirectory;
@@ -85,4 +87,32 @@ public class StandardDeployJobConfig {
     this.deployConfiguration = deployConfiguration;
     return this;
   }
+
+  public IPath getDeployManifestFile() {
+    return deployManifestFile;
+  }
+
+  /**
+   * @param deployManifestFile where the
+   *     {@link com.google.cloud.tools.eclipse.appengine.deploy.DeployManifest DeployManifest} of
+   *     the last successful deploy is stored, may be <code>null</code>
+   */
+  public StandardDeployJobConfig setDeployManifestFile(IPath deployManifestFile) {
+    this.deployManifestFile = deployManifestFile;
+    return this;
+  }
+
+  public IPath getDeployHistoryFile() {
+    return deployHistoryFile;
+  }
+
+  /**
+   * @param deployHistoryFile where the
+   *     {@link com.google.cloud.tools.eclipse.appengine.deploy.DeployHistory DeployHistory} of the
+   *     project is stored, may be <code>null</code>
+   */
+  public StandardDeployJobConfig setDeployHistoryFile(IPath deployHistoryFile) {
+    this.deployHistoryFile = deployHistoryFile;
+    return this;
+  }
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.cloud.tools.eclipse.appengine.facets;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.eclipse.test.util.project.TestProjectCreator;
+import java.util.Arrays;
+import java.util.List;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jst.common.project.facet.core.JavaFacet;
+import org.eclipse.jst.j2ee.web.project.facet.WebFacetUtils;
+import org.eclipse.wst.common.project.facet.core.IFacetedProject;
+import org.eclipse.wst.common.project.facet.core.IProjectFacetVersion;
+import org.eclipse.wst.common.project.facet.core.ProjectFacetsManager;
+import org.eclipse.wst.server.core.IModule;
+import org.eclipse.wst.server.core.IRuntime;
+import org.eclipse.wst.server.core.IServer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class AppEngineProjectIndexTest {
+
+  private static final IProjectFacetVersion APPENGINE_STANDARD_FACET_VERSION_1 =
+      ProjectFacetsManager.getProjectFacet(AppEngineStandardFacet.ID).getVersion("1");
+
+  @Rule
+  public TestProjectCreator appEngineProject = new TestProjectCreator().withFacetVersions(
+      Arrays.asList(JavaFacet.VERSION_1_7, WebFacetUtils.WEB_25,
+          APPENGINE_STANDARD_FACET_VERSION_1));
+  @Rule
+  public TestProjectCreator webProject = new TestProjectCreator().withFacetVersions(
+      Arrays.asList(JavaFacet.VERSION_1_7, WebFacetUtils.WEB_25));
+
+  private final AppEngineProjectIndex index = AppEngineProjectIndex.getInstance();
+
+  @Test
+  public void testIsAppEngineStandardProject() {
+    assertTrue(index.isAppEngineStandardProject(appEngineProject.getProject()));
+    assertFalse(index.isAppEngineStandardProject(webProject.getProject()));
+  }
+
+  @Test
+  public void testIsAppEngineStandardProject_facetInstalled() throws CoreException {
+    assertFalse(index.isAppEngineStandardProject(webProject.getProject()));
+
+    IFacetedProject facetedProject = ProjectFacetsManager.create(webProject.getProject());
+    AppEngineStandardFacet.installAppEngineFacet(facetedProject, false, null);
+    assertTrue(index.isAppEngineStandardProject(webProject.getProject()));
+  }
+
+  @Test
+  public void testIsAppEngineStandardProject_projectClosed() throws CoreException {
+    assertTrue(index.isAppEngineStandardProject(appEngineProject.getProject()));
+
+    appEngineProject.getProject().close(null);
+    assertFalse(index.isAppEngineStandardProject(appEngineProject.getProject()));
+    appEngineProject.getProject().open(null);
+    assertTrue(index.isAppEngineStandardProject(appEngineProject.getProject()));
+  }
+
+  @Test
+  public void testGetServiceId_descriptorChanged() throws CoreException {
+    appEngineProject.setAppEngineServiceId("foo");
+    assertThat(index.getServiceId(appEngineProject.getProject()), is("foo"));
+
+    appEngineProject.setAppEngineServiceId("bar");
+    assertThat(index.getServiceId(appEngineProject.getProject()), is("bar"));
+  }
+
+  @Test
+  public void testGetServiceId_noDescriptor() {
+    assertThat(index.getServiceId(webProject.getProject()),
+        is(AppEngineProjectIndex.DEFAULT_SERVICE_ID));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testGetServiceId_null() {
+    index.getServiceId(null);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testGetServers_null() {
+    index.getServers(null);
+  }
+
+  @Test
+  public void testGetServers() {
+    AppEngineProjectIndex newIndex = new AppEngineProjectIndex();
+    IModule module1 = mock(IModule.class);
+    IModule module2 = mock(IModule.class);
+    IServer server = mock(IServer.class);
+    when(server.getModules()).thenReturn(new IModule[] {module1});
+
+    assertTrue(newIndex.getServers(module1).isEmpty());
+    newIndex.serverAdded(server);
+    assertThat(newIndex.getServers(module1), is(Arrays.asList(server)));
+    assertTrue(newIndex.getServers(module2).isEmpty());
+
+    when(server.getModules()).thenReturn(new IModule[] {module2});
+    newIndex.serverChanged(server);
+    assertTrue(newIndex.getServers(module1).isEmpty());
+    assertThat(newIndex.getServers(module2), is(Arrays.asList(server)));
+
+    newIndex.serverRemoved(server);
+    assertTrue(newIndex.getServers(module2).isEmpty());
+  }
+
+  @Test
+  public void testGetAppEngineRuntimes_reloadedAfterChange() {
+    AppEngineProjectIndex newIndex = new AppEngineProjectIndex();
+    List<IRuntime> runtimes = newIndex.getAppEngineRuntimes();
+    assertThat(newIndex.getAppEngineRuntimes(), sameInstance(runtimes));
+
+    newIndex.runtimeAdded(mock(IRuntime.class));
+    assertThat(newIndex.getAppEngineRuntimes(), not(sameInstance(runtimes)));
+  }
+
+  @Test
+  public void testIsRelevant_projectRemoved() {
+    IResourceDelta delta = mock(IResourceDelta.class);
+    when(delta.getKind()).thenReturn(IResourceDelta.REMOVED);
+    assertTrue(AppEngineProjectIndex.isRelevant(delta));
+  }
+
+  @Test
+  public void testIsRelevant_projectOpened() {
+    IResourceDelta delta = mock(IResourceDelta.class);
+    when(delta.getKind()).thenReturn(IResourceDelta.CHANGED);
+    when(delta.getFlags()).thenReturn(IResourceDelta.OPEN);
+    assertTrue(AppEngineProjectIndex.isRelevant(delta));
+  }
+
+  @Test
+  public void testIsRelevant_descriptorChanged() throws CoreException {
+    assertTrue(AppEngineProjectIndex.isRelevant(mockProjectDelta("war/WEB-INF/appengine-web.xml")));
+  }
+
+  @Test
+  public void testIsRelevant_settingsChanged() throws CoreException {
+    assertTrue(AppEngineProjectIndex.isRelevant(
+        mockProjectDelta(".settings/org.eclipse.wst.common.project.facet.core.xml")));
+  }
+
+  @Test
+  public void testIsRelevant_sourceChanged() throws CoreException {
+    assertFalse(AppEngineProjectIndex.isRelevant(mockProjectDelta("src/Foo.java")));
+  }
+
+  /**
+   * Returns a delta for a changed project whose visitor sees a changed file at {@code path}.
+   */
+  private static IResourceDelta mockProjectDelta(String path) throws CoreException {
+    final IResourceDelta fileDelta = mock(IResourceDelta.class);
+    IResource file = mock(IResource.class);
+    when(file.getType()).thenReturn(IResource.FILE);
+    when(file.getName()).thenReturn(new Path(path).lastSegment());
+    when(file.getProjectRelativePath()).thenReturn(new Path(path));
+    when(fileDelta.getResource()).thenReturn(file);
+
+    IResourceDelta projectDelta = mock(IResourceDelta.class);
+    when(projectDelta.getKind()).thenReturn(IResourceDelta.CHANGED);
+    when(projectDelta.getFlags()).thenReturn(IResourceDelta.CONTENT);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws CoreException {
+        ((IResourceDeltaVisitor) invocation.getArguments()[0]).visit(fileDelta);
+        return null;
+      }
+    }).when(projectDelta).accept(any(IResourceDeltaVisitor.class));
+    return projectDelta;
+  }
+}
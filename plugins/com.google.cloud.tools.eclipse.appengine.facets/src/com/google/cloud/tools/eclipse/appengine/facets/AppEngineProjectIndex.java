@@ -0,0 +1,414 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.cloud.tools.eclipse.appengine.facets;
+
+import com.google.cloud.tools.eclipse.util.AppEngineDescriptorCache;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.wst.common.project.facet.core.FacetedProjectFramework;
+import org.eclipse.wst.common.project.facet.core.IFacetedProject;
+import org.eclipse.wst.common.project.facet.core.ProjectFacetsManager;
+import org.eclipse.wst.common.project.facet.core.events.IFacetedProjectEvent;
+import org.eclipse.wst.common.project.facet.core.events.IFacetedProjectListener;
+import org.eclipse.wst.server.core.IModule;
+import org.eclipse.wst.server.core.IRuntime;
+import org.eclipse.wst.server.core.IRuntimeLifecycleListener;
+import org.eclipse.wst.server.core.IServer;
+import org.eclipse.wst.server.core.IServerLifecycleListener;
+import org.eclipse.wst.server.core.ServerCore;
+
+/**
+ * Index of what menu enablement, module validation and launches need to know about App Engine
+ * projects: whether a project has the App Engine standard facet, its targeted runtimes, its
+ * service ID and the servers that contain each module, as well as the App Engine runtimes of the
+ * workspace.
+ * <p>
+ * Project information is computed on first use and dropped when resource or facet events show
+ * that it changed. The server and runtime information is loaded once and then kept up to date
+ * from the server and runtime lifecycle events.
+ */
+public class AppEngineProjectIndex implements IResourceChangeListener, IFacetedProjectListener,
+    IServerLifecycleListener, IRuntimeLifecycleListener {
+
+  private static final Logger logger = Logger.getLogger(AppEngineProjectIndex.class.getName());
+
+  public static final String DEFAULT_SERVICE_ID = "default"; //$NON-NLS-1$
+
+  private static final String DESCRIPTOR_FILE_NAME = "appengine-web.xml"; //$NON-NLS-1$
+  /** Holds the facet and component metadata, which defines the location of WEB-INF. */
+  private static final IPath SETTINGS_PATH = new Path(".settings"); //$NON-NLS-1$
+
+  private static AppEngineProjectIndex instance;
+
+  private final ConcurrentMap<IProject, ProjectEntry> projects = new ConcurrentHashMap<>();
+
+  // guarded by this; null until the servers are first looked up
+  private Map<IServer, List<IModule>> serverModules;
+  private Map<IModule, Set<IServer>> moduleServers;
+  private long serverEventCount;
+
+  // guarded by this; null until first looked up or after a runtime changed
+  private List<IRuntime> appEngineRuntimes;
+  private long runtimeEventCount;
+
+  /**
+   * Values are computed when first asked for. An entry is replaced, rather than updated, when its
+   * project changes, so that a computation that raced with the change cannot leave a stale value
+   * behind.
+   */
+  private static class ProjectEntry {
+    private volatile FacetInfo facetInfo;
+    private volatile String serviceId;
+  }
+
+  private static class FacetInfo {
+    private static final FacetInfo NOT_FACETED = new FacetInfo(false,
+        Collections.<org.eclipse.wst.common.project.facet.core.runtime.IRuntime>emptySet());
+
+    private final boolean appEngineStandard;
+    private final Set<org.eclipse.wst.common.project.facet.core.runtime.IRuntime> targetedRuntimes;
+
+    private FacetInfo(boolean appEngineStandard,
+        Set<org.eclipse.wst.common.project.facet.core.runtime.IRuntime> targetedRuntimes) {
+      this.appEngineStandard = appEngineStandard;
+      this.targetedRuntimes = targetedRuntimes;
+    }
+  }
+
+  /**
+   * Returns the shared index, which listens to workspace, facet, server and runtime changes from
+   * its first use on.
+   */
+  public static synchronized AppEngineProjectIndex getInstance() {
+    if (instance == null) {
+      instance = new AppEngineProjectIndex();
+      ResourcesPlugin.getWorkspace().addResourceChangeListener(instance,
+          IResourceChangeEvent.POST_CHANGE);
+      FacetedProjectFramework.addListener(instance, IFacetedProjectEvent.Type.POST_INSTALL,
+          IFacetedProjectEvent.Type.POST_UNINSTALL, IFacetedProjectEvent.Type.POST_VERSION_CHANGE,
+          IFacetedProjectEvent.Type.TARGETED_RUNTIMES_CHANGED,
+          IFacetedProjectEvent.Type.PRIMARY_RUNTIME_CHANGED);
+      ServerCore.addServerLifecycleListener(instance);
+      ServerCore.addRuntimeLifecycleListener(instance);
+    }
+    return instance;
+  }
+
+  @VisibleForTesting
+  AppEngineProjectIndex() {
+  }
+
+  /**
+   * @return true if {@code project} is open and has the App Engine standard facet
+   */
+  public boolean isAppEngineStandardProject(IProject project) {
+    return getFacetInfo(project).appEngineStandard;
+  }
+
+  /**
+   * @return the facet runtimes targeted by {@code project}, empty if it is not a faceted project
+   */
+  public Set<org.eclipse.wst.common.project.facet.core.runtime.IRuntime> getTargetedRuntimes(
+      IProject project) {
+    return getFacetInfo(project).targetedRuntimes;
+  }
+
+  /**
+   * Returns the &lt;service&gt; or &lt;module&gt; identifier from the <tt>appengine-web.xml</tt>
+   * of {@code project}, or {@link #DEFAULT_SERVICE_ID} if there is none or it cannot be read.
+   */
+  public String getServiceId(IProject project) {
+    ProjectEntry entry = getEntry(project);
+    String serviceId = entry.serviceId;
+    if (serviceId == null) {
+      serviceId = readServiceId(project);
+      entry.serviceId = serviceId;
+    }
+    return serviceId;
+  }
+
+  /**
+   * @return the servers of any type that contain {@code module}
+   */
+  public List<IServer> getServers(IModule module) {
+    Preconditions.checkNotNull(module, "module is null");
+    loadServers();
+    synchronized (this) {
+      Set<IServer> servers = moduleServers.get(module);
+      return servers == null ? Collections.<IServer>emptyList() : ImmutableList.copyOf(servers);
+    }
+  }
+
+  /**
+   * @return the App Engine standard server runtimes defined in the workspace
+   */
+  public List<IRuntime> getAppEngineRuntimes() {
+    long eventCount;
+    synchronized (this) {
+      if (appEngineRuntimes != null) {
+        return appEngineRuntimes;
+      }
+      eventCount = runtimeEventCount;
+    }
+    List<IRuntime> runtimes = new ArrayList<>();
+    for (IRuntime runtime : ServerCore.getRuntimes()) {
+      if (AppEngineStandardFacet.isAppEngineStandardRuntime(runtime)) {
+        runtimes.add(runtime);
+      }
+    }
+    runtimes = Collections.unmodifiableList(runtimes);
+    synchronized (this) {
+      if (eventCount == runtimeEventCount) {
+        appEngineRuntimes = runtimes;
+      }
+    }
+    return runtimes;
+  }
+
+  @Override
+  public void resourceChanged(IResourceChangeEvent event) {
+    IResourceDelta delta = event.getDelta();
+    if (delta == null) {
+      return;
+    }
+    for (IResourceDelta projectDelta : delta.getAffectedChildren()) {
+      IResource project = projectDelta.getResource();
+      if (project instanceof IProject && projects.containsKey(project)
+          && isRelevant(projectDelta)) {
+        projects.remove(project);
+      }
+    }
+  }
+
+  @Override
+  public void handleEvent(IFacetedProjectEvent event) {
+    projects.remove(event.getProject().getProject());
+  }
+
+  @Override
+  public void serverAdded(IServer server) {
+    serverChanged(server);
+  }
+
+  @Override
+  public void serverChanged(IServer server) {
+    List<IModule> modules = Arrays.asList(server.getModules());
+    synchronized (this) {
+      serverEventCount++;
+      if (serverModules != null) {
+        removeServer(server);
+        addServer(server, modules);
+      }
+    }
+  }
+
+  @Override
+  public synchronized void serverRemoved(IServer server) {
+    serverEventCount++;
+    if (serverModules != null) {
+      removeServer(server);
+    }
+  }
+
+  @Override
+  public void runtimeAdded(IRuntime runtime) {
+    runtimeChanged(runtime);
+  }
+
+  @Override
+  public synchronized void runtimeChanged(IRuntime runtime) {
+    runtimeEventCount++;
+    appEngineRuntimes = null;
+  }
+
+  @Override
+  public void runtimeRemoved(IRuntime runtime) {
+    runtimeChanged(runtime);
+  }
+
+  private ProjectEntry getEntry(IProject project) {
+    Preconditions.checkNotNull(project, "project is null");
+    ProjectEntry entry = projects.get(project);
+    if (entry == null) {
+      ProjectEntry newEntry = new ProjectEntry();
+      entry = projects.putIfAbsent(project, newEntry);
+      if (entry == null) {
+        entry = newEntry;
+      }
+    }
+    return entry;
+  }
+
+  private FacetInfo getFacetInfo(IProject project) {
+    ProjectEntry entry = getEntry(project);
+    FacetInfo facetInfo = entry.facetInfo;
+    if (facetInfo == null) {
+      facetInfo = readFacetInfo(project);
+      entry.facetInfo = facetInfo;
+    }
+    return facetInfo;
+  }
+
+  private static FacetInfo readFacetInfo(IProject project) {
+    if (!project.isAccessible()) {
+      return FacetInfo.NOT_FACETED;
+    }
+    try {
+      IFacetedProject facetedProject = ProjectFacetsManager.create(project);
+      if (facetedProject == null) {
+        return FacetInfo.NOT_FACETED;
+      }
+      return new FacetInfo(AppEngineStandardFacet.hasAppEngineFacet(facetedProject),
+          ImmutableSet.copyOf(facetedProject.getTargetedRuntimes()));
+    } catch (CoreException ex) {
+      logger.log(Level.WARNING, "Unable to read the facets of " + project.getName(), ex);
+      return FacetInfo.NOT_FACETED;
+    }
+  }
+
+  private static String readServiceId(IProject project) {
+    IFile descriptorFile = WebProjectUtil.findInWebInf(project, new Path(DESCRIPTOR_FILE_NAME));
+    if (descriptorFile == null) {
+      return DEFAULT_SERVICE_ID;
+    }
+    try {
+      String serviceId =
+          AppEngineDescriptorCache.getInstance().getDescriptor(descriptorFile).getServiceId();
+      return serviceId != null ? serviceId : DEFAULT_SERVICE_ID;
+    } catch (CoreException ex) {
+      logger.log(Level.WARNING, "Unable to read " + descriptorFile.getFullPath(), ex);
+      return DEFAULT_SERVICE_ID;
+    }
+  }
+
+  /**
+   * Returns true if the project was added, removed, opened or closed, or if its descriptor or its
+   * settings changed.
+   */
+  @VisibleForTesting
+  static boolean isRelevant(IResourceDelta projectDelta) {
+    if (projectDelta.getKind() != IResourceDelta.CHANGED
+        || (projectDelta.getFlags() & (IResourceDelta.OPEN | IResourceDelta.DESCRIPTION)) != 0) {
+      return true;
+    }
+    final boolean[] relevant = new boolean[1];
+    try {
+      projectDelta.accept(new IResourceDeltaVisitor() {
+        @Override
+        public boolean visit(IResourceDelta delta) {
+          if (relevant[0]) {
+            return false;
+          }
+          IResource resource = delta.getResource();
+          if (resource.getType() == IResource.FILE) {
+            relevant[0] = DESCRIPTOR_FILE_NAME.equals(resource.getName())
+                || SETTINGS_PATH.isPrefixOf(resource.getProjectRelativePath());
+            return false;
+          }
+          // build output cannot contain the files we are looking for
+          return !resource.isDerived();
+        }
+      });
+    } catch (CoreException ex) {
+      return true;
+    }
+    return relevant[0];
+  }
+
+  private void loadServers() {
+    while (true) {
+      long eventCount;
+      synchronized (this) {
+        if (serverModules != null) {
+          return;
+        }
+        eventCount = serverEventCount;
+      }
+      // read outside the lock, as the server framework may call the listener methods
+      Map<IServer, List<IModule>> servers = new HashMap<>();
+      for (IServer server : ServerCore.getServers()) {
+        servers.put(server, Arrays.asList(server.getModules()));
+      }
+      synchronized (this) {
+        if (serverModules != null) {
+          return;
+        }
+        if (eventCount == serverEventCount) {
+          serverModules = new HashMap<>();
+          moduleServers = new HashMap<>();
+          for (Map.Entry<IServer, List<IModule>> entry : servers.entrySet()) {
+            addServer(entry.getKey(), entry.getValue());
+          }
+          return;
+        }
+      }
+    }
+  }
+
+  private void addServer(IServer server, List<IModule> modules) {
+    serverModules.put(server, modules);
+    for (IModule module : modules) {
+      Set<IServer> servers = moduleServers.get(module);
+      if (servers == null) {
+        servers = new LinkedHashSet<>();
+        moduleServers.put(module, servers);
+      }
+      servers.add(server);
+    }
+  }
+
+  private void removeServer(IServer server) {
+    List<IModule> modules = serverModules.remove(server);
+    if (modules != null) {
+      for (IModule module : modules) {
+        Set<IServer> servers = moduleServers.get(module);
+        if (servers != null) {
+          servers.remove(server);
+          if (servers.isEmpty()) {
+            moduleServers.remove(module);
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.cloud.tools.eclipse.appengine.facets;
+
+import com.google.cloud.tools.eclipse.util.AdapterUtil;
+import org.eclipse.core.expressions.PropertyTester;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+
+/**
+ * Tests the project of a resource against the {@link AppEngineProjectIndex}, which is cheaper
+ * than reading the facets of the project each time a menu is shown.
+ * <p>
+ * Supports {@code appEngineStandardProject}, which is true for resources in App Engine standard
+ * projects.
+ */
+public class AppEngineProjectPropertyTester extends PropertyTester {
+
+  static final String APP_ENGINE_STANDARD_PROJECT = "appEngineStandardProject"; //$NON-NLS-1$
+
+  @Override
+  public boolean test(Object receiver, String property, Object[] args, Object expectedValue) {
+    if (!APP_ENGINE_STANDARD_PROJECT.equals(property)) {
+      return false;
+    }
+    IResource resource = AdapterUtil.adapt(receiver, IResource.class);
+    IProject project = resource == null ? null : resource.getProject();
+    boolean result = project != null
+        && AppEngineProjectIndex.getInstance().isAppEngineStandardProject(project);
+    return expectedValue == null ? result : expectedValue.equals(result);
+  }
+}
@@ -239,15 +239,8 @@ public class AppEngineStandardFacet {
   }
 
   private static org.eclipse.wst.server.core.IRuntime[] getAppEngineRuntimes() {
-    org.eclipse.wst.server.core.IRuntime[] allRuntimes = ServerCore.getRuntimes();
-    List<org.eclipse.wst.server.core.IRuntime> appEngineRuntimes = new ArrayList<>();
-
-    for (int i = 0; i < allRuntimes.length; i++) {
-      if (isAppEngineStandardRuntime(allRuntimes[i])) {
-        appEngineRuntimes.add(allRuntimes[i]);
-      }
-    }
-
+    List<org.eclipse.wst.server.core.IRuntime> appEngineRuntimes =
+        AppEngineProjectIndex.getInstance().getAppEngineRuntimes();
     org.eclipse.wst.server.core.IRuntime[] appEngineRuntimesArray =
         new org.eclipse.wst.server.core.IRuntime[appEngineRuntimes.size()];
     return appEngineRuntimes.toArray(appEngineRuntimesArray);
@@ -21,16 +21,10 @@ import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.eq;
-import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
-import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
-import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFactory;
-import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFactoryException;
-import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFile;
-import com.google.cloud.tools.eclipse.appengine.libraries.model.MavenCoordinates;
 import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer;
 import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer.ArtifactBaseLocationProvider;
 import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer.LibraryContainerStateLocationProvider;
@@ -38,11 +32,16 @@ import com.google.cloud.tools.eclipse.appengine.libraries.repository.ILibraryRep
 import com.google.cloud.tools.eclipse.test.util.project.TestProjectCreator;
 import java.io.File;
 import java.io.IOException;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.List;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.IJobChangeListener;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
@@ -63,8 +62,6 @@ public class AppEngineLibraryContainerInitializerTest {
   private static final String TEST_CONTAINER_PATH = "test.appengine.libraries";
   private static final String TEST_LIBRARY_PATH = TEST_CONTAINER_PATH + "/" + TEST_LIBRARY_ID;
 
-  @Mock private LibraryFactory libraryFactory;
-  @Mock private IConfigurationElement configurationElement;
   @Mock private LibraryContainerStateLocationProvider containerStateProvider;
   @Mock private ArtifactBaseLocationProvider binaryBaseLocationProvider;
   @Mock private ArtifactBaseLocationProvider sourceBaseLocationProvider;
@@ -75,13 +72,14 @@ public class AppEngineLibraryContainerInitializerTest {
   @Rule
   public TestProjectCreator testProject = new TestProjectCreator().withClasspathContainerPath(TEST_LIBRARY_PATH);
   @Rule
+  public TestProjectCreator otherProject = new TestProjectCreator().withClasspathContainerPath(TEST_LIBRARY_PATH);
+  @Rule
   public TemporaryFolder stateLocationFolder = new TemporaryFolder();
 
   @Before
   public void setUp() throws Exception {
     when(repositoryService.rebuildClasspathEntry(any(IClasspathEntry.class)))
       .thenAnswer(fakeClasspathEntry());
-    setupLibraryFactory();
     setupSerializer();
   }
 
@@ -97,14 +95,13 @@ public class AppEngineLibraryContainerInitializerTest {
    * in the host project's plugin.xml and it is not possible to remove/override it.
    */
   @Test
-  public void testInitialize_resolvesContainerToJar() throws CoreException {
+  public void testInitialize_resolvesContainerToJar() throws Exception {
     AppEngineLibraryContainerInitializer containerInitializer =
-        new AppEngineLibraryContainerInitializer(new IConfigurationElement[]{ configurationElement },
-                                                 libraryFactory,
-                                                 TEST_CONTAINER_PATH,
+        new AppEngineLibraryContainerInitializer(TEST_CONTAINER_PATH,
                                                  serializer,
                                                  repositoryService);
     containerInitializer.initialize(new Path(TEST_LIBRARY_PATH), testProject.getJavaProject());
+    waitForLoadJobs();
 
     IClasspathEntry[] resolvedClasspath = testProject.getJavaProject().getResolvedClasspath(false);
     assertThat(resolvedClasspath.length, is(2));
@@ -116,20 +113,14 @@ public class AppEngineLibraryContainerInitializerTest {
   @Test(expected = CoreException.class)
   public void testInitialize_containerPathConsistsOfOneSegment() throws Exception {
     AppEngineLibraryContainerInitializer containerInitializer =
-        new AppEngineLibraryContainerInitializer(new IConfigurationElement[]{ configurationElement },
-                                                 libraryFactory,
-                                                 TEST_CONTAINER_PATH,
-                                                 serializer);
+        new AppEngineLibraryContainerInitializer(TEST_CONTAINER_PATH, serializer);
     containerInitializer.initialize(new Path("single.segment.id"), testProject.getJavaProject());
   }
 
   @Test(expected = CoreException.class)
   public void testInitialize_containerPathConsistsOfThreeSegments() throws Exception {
     AppEngineLibraryContainerInitializer containerInitializer =
-        new AppEngineLibraryContainerInitializer(new IConfigurationElement[]{ configurationElement },
-                                                 libraryFactory,
-                                                 TEST_CONTAINER_PATH,
-                                                 serializer);
+        new AppEngineLibraryContainerInitializer(TEST_CONTAINER_PATH, serializer);
     containerInitializer.initialize(new Path("first.segment/second.segment/third.segment"),
                                     testProject.getJavaProject());
   }
@@ -137,69 +128,101 @@ public class AppEngineLibraryContainerInitializerTest {
   @Test(expected = CoreException.class)
   public void testInitialize_containerPathHasWrongFirstSegment() throws Exception {
     AppEngineLibraryContainerInitializer containerInitializer =
-        new AppEngineLibraryContainerInitializer(new IConfigurationElement[]{ configurationElement },
-                                                 libraryFactory,
-                                                 TEST_CONTAINER_PATH,
-                                                 serializer);
+        new AppEngineLibraryContainerInitializer(TEST_CONTAINER_PATH, serializer);
     containerInitializer.initialize(new Path("first.segment/second.segment"), testProject.getJavaProject());
   }
 
   @Test
-  public void testInitialize_containerPathHasWrongLibraryId() throws Exception {
+  public void testInitialize_initializesContainersOfOtherProjects() throws Exception {
     AppEngineLibraryContainerInitializer containerInitializer =
-        new AppEngineLibraryContainerInitializer(new IConfigurationElement[]{ configurationElement },
-                                                 libraryFactory,
-                                                 TEST_CONTAINER_PATH,
+        new AppEngineLibraryContainerInitializer(TEST_CONTAINER_PATH,
                                                  serializer,
                                                  repositoryService);
-    containerInitializer.initialize(new Path(TEST_CONTAINER_PATH + "/second.segment"), testProject.getJavaProject());
-    IClasspathEntry[] resolvedClasspath = testProject.getJavaProject().getResolvedClasspath(false);
-    assertThat(resolvedClasspath.length, is(1));
+    containerInitializer.initialize(new Path(TEST_LIBRARY_PATH), testProject.getJavaProject());
+    waitForLoadJobs();
+
+    IClasspathEntry[] resolvedClasspath = otherProject.getJavaProject().getResolvedClasspath(false);
+    assertThat(resolvedClasspath.length, is(2));
+    assertThat(resolvedClasspath[1].getPath().toOSString(), is("/test/path/artifactId.jar"));
   }
 
   @Test
-  public void testInitialize_libraryFactoryErrorDoesNotPreventOtherLibraries() throws Exception {
-    Library library = new Library(TEST_LIBRARY_ID);
-    library.setLibraryFiles(Collections.singletonList(new LibraryFile(new MavenCoordinates("groupId",
-                                                                                           "artifactId"))));
-    // this will override what is set in setupLibraryFactory() when setUp() is executed
-    doThrow(LibraryFactoryException.class)
-      .doReturn(library)
-      .when(libraryFactory).create(any(IConfigurationElement.class));
+  public void testInitialize_doesNotReplaceContainersSetAlready() throws Exception {
+    AppEngineLibraryContainerInitializer containerInitializer =
+        new AppEngineLibraryContainerInitializer(TEST_CONTAINER_PATH,
+                                                 serializer,
+                                                 repositoryService);
+    // as done by the resolver job when it sets the container
+    AppEngineLibraryContainerInitializer.containerSet(otherProject.getJavaProject(),
+                                                      new Path(TEST_LIBRARY_PATH));
+    containerInitializer.initialize(new Path(TEST_LIBRARY_PATH), testProject.getJavaProject());
+    waitForLoadJobs();
+
+    assertThat(testProject.getJavaProject().getResolvedClasspath(false).length, is(2));
+    // left to the test initializer, which does not set it
+    assertThat(otherProject.getJavaProject().getResolvedClasspath(false).length, is(1));
+  }
 
+  @Test
+  public void testInitialize_initializesReopenedProjects() throws Exception {
     AppEngineLibraryContainerInitializer containerInitializer =
-        new AppEngineLibraryContainerInitializer(new IConfigurationElement[]{ configurationElement,
-                                                                              configurationElement },
-                                                 libraryFactory,
-                                                 TEST_CONTAINER_PATH,
+        new AppEngineLibraryContainerInitializer(TEST_CONTAINER_PATH,
                                                  serializer,
                                                  repositoryService);
+    AppEngineLibraryContainerInitializer.containerSet(otherProject.getJavaProject(),
+                                                      new Path(TEST_LIBRARY_PATH));
+    otherProject.getProject().close(null);
+    otherProject.getProject().open(null);
     containerInitializer.initialize(new Path(TEST_LIBRARY_PATH), testProject.getJavaProject());
+    waitForLoadJobs();
+
+    assertThat(otherProject.getJavaProject().getResolvedClasspath(false).length, is(2));
+  }
 
+  @Test
+  public void testInitialize_containerPathHasWrongLibraryId() throws Exception {
+    AppEngineLibraryContainerInitializer containerInitializer =
+        new AppEngineLibraryContainerInitializer(TEST_CONTAINER_PATH,
+                                                 serializer,
+                                                 repositoryService);
+    containerInitializer.initialize(new Path(TEST_CONTAINER_PATH + "/second.segment"), testProject.getJavaProject());
+    waitForLoadJobs();
     IClasspathEntry[] resolvedClasspath = testProject.getJavaProject().getResolvedClasspath(false);
-    assertThat(resolvedClasspath.length, is(2));
-    IClasspathEntry libJar = resolvedClasspath[1];
-    assertThat(libJar.getPath().toOSString(), is("/test/path/artifactId.jar"));
-    assertThat(libJar.getSourceAttachmentPath().toOSString(), is("/test/path/artifactId-sources.jar"));
+    assertThat(resolvedClasspath.length, is(1));
   }
 
-  @Test(expected = CoreException.class)
+  @Test
   public void testInitialize_deserializingContainerThrowsError() throws Exception {
     LibraryClasspathContainerSerializer mockSerializer = mock(LibraryClasspathContainerSerializer.class);
     doThrow(new IOException("test exception"))
       .when(mockSerializer).loadContainer(any(IJavaProject.class), any(IPath.class));
     AppEngineLibraryContainerInitializer containerInitializer =
-        new AppEngineLibraryContainerInitializer(new IConfigurationElement[]{ configurationElement },
-                                                 libraryFactory,
-                                                 TEST_CONTAINER_PATH,
-                                                 mockSerializer);
-    containerInitializer.initialize(new Path(TEST_LIBRARY_PATH), testProject.getJavaProject());
+        new AppEngineLibraryContainerInitializer(TEST_CONTAINER_PATH, mockSerializer);
+    final List<IStatus> results = new ArrayList<>();
+    IJobChangeListener listener = new JobChangeAdapter() {
+      @Override
+      public void done(IJobChangeEvent event) {
+        if (event.getJob().belongsTo(AppEngineLibraryContainerInitializer.LOAD_JOB_FAMILY)) {
+          results.add(event.getResult());
+        }
+      }
+    };
+    Job.getJobManager().addJobChangeListener(listener);
+    try {
+      containerInitializer.initialize(new Path(TEST_LIBRARY_PATH), testProject.getJavaProject());
+      waitForLoadJobs();
+    } finally {
+      Job.getJobManager().removeJobChangeListener(listener);
+    }
+
+    assertThat(results.size(), is(1));
+    assertThat(results.get(0).getSeverity(), is(IStatus.ERROR));
+    // the placeholder is left
+    assertThat(testProject.getJavaProject().getResolvedClasspath(false).length, is(1));
   }
 
-  private void setupLibraryFactory() throws LibraryFactoryException {
-    Library library = new Library(TEST_LIBRARY_ID);
-    library.setLibraryFiles(Collections.singletonList(new LibraryFile(new MavenCoordinates("groupId", "artifactId"))));
-    doReturn(library).when(libraryFactory).create(any(IConfigurationElement.class));
+  private static void waitForLoadJobs() throws InterruptedException {
+    Job.getJobManager().join(AppEngineLibraryContainerInitializer.LOAD_JOB_FAMILY, null);
   }
 
   private void setupSerializer() throws IOException, CoreException {
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFile;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.MavenCoordinates;
+import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer;
+import com.google.cloud.tools.eclipse.appengine.libraries.repository.ILibraryRepositoryService;
+import com.google.cloud.tools.eclipse.appengine.libraries.repository.LibraryRepositoryServiceException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AppEngineLibraryContainerResolverJobTest {
+
+  private static final String LIBRARY_ID = "libraryId";
+
+  @Mock private LibraryClasspathContainerSerializer serializer;
+  @Mock private ILibraryRegistryService libraryRegistry;
+  @Mock private ILibraryRepositoryService repositoryService;
+  @Mock private IJavaProject javaProject;
+
+  private final List<LibraryFile> libraryFiles = new ArrayList<>();
+  private AppEngineLibraryContainerResolverJob job;
+
+  @Before
+  public void setUp() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      libraryFiles.add(new LibraryFile(new MavenCoordinates("groupId", "artifact" + i)));
+    }
+    Library library = new Library(LIBRARY_ID);
+    library.setLibraryFiles(libraryFiles);
+    when(libraryRegistry.getLibrary(LIBRARY_ID)).thenReturn(library);
+
+    IClasspathEntry containerEntry = mock(IClasspathEntry.class);
+    when(containerEntry.getPath())
+        .thenReturn(new Path(Library.CONTAINER_PATH_PREFIX).append(LIBRARY_ID));
+    when(javaProject.getRawClasspath()).thenReturn(new IClasspathEntry[] {containerEntry});
+
+    job = new AppEngineLibraryContainerResolverJob(serializer, libraryRegistry, repositoryService,
+                                                   javaProject);
+  }
+
+  @Test
+  public void testRun_resolvesLibraryFilesConcurrently() throws Exception {
+    BlockingResolution resolution = new BlockingResolution();
+    when(repositoryService.getLibraryClasspathEntry(any(LibraryFile.class)))
+        .thenAnswer(resolution);
+
+    job.schedule();
+    // all files of the library are being resolved at the same time
+    assertTrue(resolution.started.await(10, TimeUnit.SECONDS));
+    job.cancel();
+    job.join();
+  }
+
+  @Test
+  public void testRun_canceledWhileResolving() throws Exception {
+    BlockingResolution resolution = new BlockingResolution();
+    when(repositoryService.getLibraryClasspathEntry(any(LibraryFile.class)))
+        .thenAnswer(resolution);
+
+    job.schedule();
+    assertTrue(resolution.started.await(10, TimeUnit.SECONDS));
+    job.cancel();
+    job.join();
+
+    assertThat(job.getResult().getSeverity(), is(IStatus.CANCEL));
+    // the outstanding resolutions are interrupted
+    assertTrue(resolution.interrupted.await(10, TimeUnit.SECONDS));
+    verify(serializer, never()).saveContainer(any(IJavaProject.class),
+                                              any(LibraryClasspathContainer.class));
+  }
+
+  @Test
+  public void testRun_oneLibraryFileFails() throws Exception {
+    LibraryRepositoryServiceException failure =
+        new LibraryRepositoryServiceException("resolution failed");
+    when(repositoryService.getLibraryClasspathEntry(any(LibraryFile.class)))
+        .thenReturn(mock(IClasspathEntry.class));
+    when(repositoryService.getLibraryClasspathEntry(eq(libraryFiles.get(1)))).thenThrow(failure);
+
+    IStatus result = job.run(new NullProgressMonitor());
+
+    assertThat(result.getSeverity(), is(IStatus.ERROR));
+    assertThat(result.getException(), instanceOf(LibraryRepositoryServiceException.class));
+    verify(serializer, never()).saveContainer(any(IJavaProject.class),
+                                              any(LibraryClasspathContainer.class));
+  }
+
+  /**
+   * Blocks every resolution until it is interrupted.
+   */
+  private class BlockingResolution implements Answer<IClasspathEntry> {
+    private final CountDownLatch started = new CountDownLatch(libraryFiles.size());
+    private final CountDownLatch interrupted = new CountDownLatch(libraryFiles.size());
+
+    @Override
+    public IClasspathEntry answer(InvocationOnMock invocation) {
+      started.countDown();
+      try {
+        new CountDownLatch(1).await();
+      } catch (InterruptedException ex) {
+        interrupted.countDown();
+      }
+      return null;
+    }
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFactory;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFactoryException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LibraryRegistryServiceTest {
+
+  @Mock private IExtensionRegistry extensionRegistry;
+  @Mock private LibraryFactory libraryFactory;
+  @Mock private IConfigurationElement configurationElement;
+
+  private LibraryRegistryService registry;
+
+  @Before
+  public void setUp() throws LibraryFactoryException {
+    when(extensionRegistry.getConfigurationElementsFor(
+        AppEngineLibraryContainerInitializer.LIBRARIES_EXTENSION_POINT))
+        .thenReturn(new IConfigurationElement[] {configurationElement, configurationElement});
+    doReturn(new Library("first")).doReturn(new Library("second"))
+        .when(libraryFactory).create(any(IConfigurationElement.class));
+
+    registry = new LibraryRegistryService(libraryFactory);
+    registry.setExtensionRegistry(extensionRegistry);
+  }
+
+  @Test
+  public void testActivate_parsesLibraries() throws LibraryFactoryException {
+    registry.activate();
+    verify(extensionRegistry).addListener(registry,
+        AppEngineLibraryContainerInitializer.LIBRARIES_EXTENSION_POINT);
+    verify(libraryFactory, times(2)).create(configurationElement);
+  }
+
+  @Test
+  public void testGetLibrary() {
+    registry.activate();
+    assertThat(registry.getLibrary("first").getId(), is("first"));
+    assertThat(registry.getLibrary("second").getId(), is("second"));
+    assertNull(registry.getLibrary("unknown"));
+  }
+
+  @Test
+  public void testGetLibraries_parsesOnce() throws LibraryFactoryException {
+    registry.activate();
+    assertSame(registry.getLibraries(), registry.getLibraries());
+    registry.getLibrary("first");
+    verify(libraryFactory, times(2)).create(configurationElement);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testGetLibraries_unmodifiable() {
+    registry.getLibraries().remove("first");
+  }
+
+  @Test
+  public void testGetLibraries_factoryErrorDoesNotPreventOtherLibraries()
+      throws LibraryFactoryException {
+    doThrow(LibraryFactoryException.class).doReturn(new Library("second"))
+        .when(libraryFactory).create(any(IConfigurationElement.class));
+    assertThat(registry.getLibraries().size(), is(1));
+    assertThat(registry.getLibrary("second").getId(), is("second"));
+  }
+
+  @Test
+  public void testAddedExtensions_parsesAgain() throws LibraryFactoryException {
+    registry.activate();
+    registry.added(new IExtension[0]);
+    registry.getLibraries();
+    verify(libraryFactory, times(4)).create(configurationElement);
+  }
+
+  @Test
+  public void testRemovedExtensions_parsesAgain() throws LibraryFactoryException {
+    registry.activate();
+    registry.removed(new IExtension[0]);
+    registry.getLibraries();
+    verify(libraryFactory, times(4)).create(configurationElement);
+  }
+
+  @Test
+  public void testAddedExtensionsWhileParsing_parsesAgain() throws Exception {
+    when(extensionRegistry.getConfigurationElementsFor(
+        AppEngineLibraryContainerInitializer.LIBRARIES_EXTENSION_POINT))
+        .thenReturn(new IConfigurationElement[] {configurationElement});
+    final CountDownLatch parsing = new CountDownLatch(1);
+    final CountDownLatch extensionsAdded = new CountDownLatch(1);
+    doAnswer(new Answer<Library>() {
+      @Override
+      public Library answer(InvocationOnMock invocation) throws InterruptedException {
+        parsing.countDown();
+        extensionsAdded.await();
+        return new Library("stale");
+      }
+    }).doReturn(new Library("fresh")).when(libraryFactory).create(configurationElement);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Map<String, Library>> libraries = executor.submit(
+          new Callable<Map<String, Library>>() {
+            @Override
+            public Map<String, Library> call() {
+              return registry.getLibraries();
+            }
+          });
+      assertTrue(parsing.await(10, TimeUnit.SECONDS));
+      registry.added(new IExtension[0]);
+      extensionsAdded.countDown();
+
+      assertThat(libraries.get(10, TimeUnit.SECONDS).keySet(), is(Collections.singleton("fresh")));
+      assertNull(registry.getLibrary("stale"));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testDeactivate_removesListener() {
+    registry.activate();
+    registry.deactivate();
+    verify(extensionRegistry).removeListener(registry);
+  }
+}
@@ -17,6 +17,8 @@
 package com.google.cloud.tools.eclipse.appengine.libraries.model;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 
@@ -143,4 +145,29 @@ public class MavenCoordinatesTest {
     mavenCoordinates.setClassifier("");
     assertThat(mavenCoordinates.getClassifier(), is(""));
   }
+
+  @Test
+  public void testEquals() {
+    MavenCoordinates mavenCoordinates = new MavenCoordinates("groupId", "artifactId");
+    mavenCoordinates.setClassifier("sources");
+    MavenCoordinates copy = new MavenCoordinates(mavenCoordinates);
+    assertEquals(mavenCoordinates, copy);
+    assertEquals(mavenCoordinates.hashCode(), copy.hashCode());
+  }
+
+  @Test
+  public void testEquals_differentClassifier() {
+    MavenCoordinates mavenCoordinates = new MavenCoordinates("groupId", "artifactId");
+    MavenCoordinates sources = new MavenCoordinates(mavenCoordinates);
+    sources.setClassifier("sources");
+    assertNotEquals(mavenCoordinates, sources);
+  }
+
+  @Test
+  public void testEquals_differentRepository() {
+    MavenCoordinates mavenCoordinates = new MavenCoordinates("groupId", "artifactId");
+    MavenCoordinates other = new MavenCoordinates(mavenCoordinates);
+    other.setRepository("http://example.com");
+    assertNotEquals(mavenCoordinates, other);
+  }
 }
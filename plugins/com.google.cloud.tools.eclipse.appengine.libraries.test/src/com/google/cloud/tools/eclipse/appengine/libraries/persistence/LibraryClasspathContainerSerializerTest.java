@@ -17,7 +17,9 @@
 package com.google.cloud.tools.eclipse.appengine.libraries.persistence;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Mockito.when;
@@ -25,6 +27,7 @@ import static org.mockito.Mockito.when;
 import com.google.cloud.tools.eclipse.appengine.libraries.LibraryClasspathContainer;
 import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer.ArtifactBaseLocationProvider;
 import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer.LibraryContainerStateLocationProvider;
+import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -141,8 +144,58 @@ public class LibraryClasspathContainerSerializerTest {
     serializer.saveContainer(javaProject, container);
     byte[] data = Files.readAllBytes(stateFilePath.toFile().toPath());
     String actual = new String(data, StandardCharsets.UTF_8);
+    JsonObject actualJson = new JsonParser().parse(actual).getAsJsonObject();
+    assertEquals(SerializableLibraryClasspathContainer.FORMAT_VERSION,
+        actualJson.remove(SerializableLibraryClasspathContainer.VERSION_PROPERTY).getAsInt());
     // use JsonObject.equals()
-    assertEquals(new JsonParser().parse(SERIALIZED_CONTAINER), new JsonParser().parse(actual));
+    assertEquals(new JsonParser().parse(SERIALIZED_CONTAINER), actualJson);
+  }
+
+  @Test
+  public void testSaveContainer_prettyPrinted() throws CoreException, IOException {
+    String actual = saveContainer(container);
+    assertTrue(actual.startsWith("{\n  \"version\": "));
+    assertTrue(actual.contains("\n  \"description\": \"Test container description\",\n"));
+  }
+
+  @Test
+  public void testSaveContainer_omitsNullProperties() throws CoreException, IOException {
+    IClasspathEntry entry = getClasspathEntry(IClasspathEntry.CPE_LIBRARY, "/test/path/to/jar",
+        "/test/path/to/src", new IClasspathAttribute[] {getAttribute("attrName", null)},
+        new IAccessRule[0], true);
+    LibraryClasspathContainer noAttributeValue = new LibraryClasspathContainer(
+        new Path(CONTAINER_PATH), CONTAINER_DESCRIPTION, new IClasspathEntry[] {entry});
+    String actual = saveContainer(noAttributeValue);
+    assertFalse(actual.contains("\"value\""));
+    assertFalse(actual.contains("null"));
+    compare(noAttributeValue, loadContainer(actual));
+  }
+
+  @Test
+  public void testLoadContainer_ignoresUnknownProperties() throws IOException, CoreException {
+    String serialized = SERIALIZED_CONTAINER.replaceFirst("\\{",
+        "{ \"unknown\": { \"nested\": [1, 2] }, ");
+    compare(container, loadContainer(serialized));
+  }
+
+  @Test(expected = IOException.class)
+  public void testLoadContainer_newerVersion() throws IOException, CoreException {
+    loadContainer(SERIALIZED_CONTAINER.replaceFirst("\\{", "{ \"version\": 1000, "));
+  }
+
+  @Test(expected = IOException.class)
+  public void testLoadContainer_emptyFile() throws IOException, CoreException {
+    loadContainer("");
+  }
+
+  @Test(expected = IOException.class)
+  public void testLoadContainer_missingEntries() throws IOException, CoreException {
+    loadContainer("{ \"description\": \"desc\", \"path\": \"container/path\" }");
+  }
+
+  @Test(expected = IOException.class)
+  public void testLoadContainer_unexpectedType() throws IOException, CoreException {
+    loadContainer("{ \"path\": \"container/path\", \"entries\": \"not an array\" }");
   }
 
   @Test
@@ -159,6 +212,30 @@ public class LibraryClasspathContainerSerializerTest {
     assertNull(serializer.loadContainer(javaProject, new Path(CONTAINER_PATH)));
   }
 
+  private LibraryClasspathContainer loadContainer(String serialized)
+      throws IOException, CoreException {
+    Path stateFilePath = new Path(stateFolder.newFile().getAbsolutePath());
+    when(stateLocationProvider.getContainerStateFile(any(IJavaProject.class), any(IPath.class),
+        anyBoolean())).thenReturn(stateFilePath);
+    Files.write(stateFilePath.toFile().toPath(), serialized.getBytes(StandardCharsets.UTF_8),
+        StandardOpenOption.TRUNCATE_EXISTING);
+    LibraryClasspathContainerSerializer serializer = new LibraryClasspathContainerSerializer(
+        stateLocationProvider, binaryBaseLocationProvider, sourceBaseLocationProvider);
+    return serializer.loadContainer(javaProject, new Path(CONTAINER_PATH));
+  }
+
+  private String saveContainer(LibraryClasspathContainer container)
+      throws IOException, CoreException {
+    Path stateFilePath = new Path(stateFolder.newFile().getAbsolutePath());
+    when(stateLocationProvider.getContainerStateFile(any(IJavaProject.class), any(IPath.class),
+        anyBoolean())).thenReturn(stateFilePath);
+    LibraryClasspathContainerSerializer serializer = new LibraryClasspathContainerSerializer(
+        stateLocationProvider, binaryBaseLocationProvider, sourceBaseLocationProvider);
+    serializer.saveContainer(javaProject, container);
+    return new String(Files.readAllBytes(stateFilePath.toFile().toPath()),
+        StandardCharsets.UTF_8);
+  }
+
   private void compare(LibraryClasspathContainer container,
       LibraryClasspathContainer otherContainer) {
     assertEquals(container.getPath(), otherContainer.getPath());
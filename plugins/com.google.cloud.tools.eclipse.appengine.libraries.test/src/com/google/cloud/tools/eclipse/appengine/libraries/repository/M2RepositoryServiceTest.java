@@ -22,9 +22,12 @@ import static org.hamcrest.beans.HasPropertyWithValue.hasProperty;
 import static org.hamcrest.collection.IsArrayContaining.hasItemInArray;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFile;
@@ -32,6 +35,7 @@ import com.google.cloud.tools.eclipse.appengine.libraries.model.MavenCoordinates
 import com.google.cloud.tools.eclipse.appengine.libraries.repository.M2RepositoryService.MavenHelper;
 import com.google.cloud.tools.eclipse.util.status.StatusUtil;
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.repository.ArtifactRepository;
@@ -41,7 +45,9 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.jdt.core.IClasspathAttribute;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
@@ -51,6 +57,8 @@ public class M2RepositoryServiceTest {
 
   private static final String FAKE_PATH = "/fake/path";
 
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
   @Mock private MavenHelper mavenHelper;
   @Mock private MavenCoordinatesClasspathAttributesTransformer transformer;
 
@@ -141,6 +149,54 @@ public class M2RepositoryServiceTest {
     assertEquals(new Path(FAKE_PATH), sourcePath);
   }
 
+  @Test
+  public void getLibraryClasspathEntry_reusesResolvedArtifact() throws Exception {
+    Artifact artifact = getMockArtifactWithExistingFile();
+    when(mavenHelper.resolveArtifact(any(IProgressMonitor.class),
+                                     any(MavenCoordinates.class),
+                                     anyListOf(ArtifactRepository.class))).thenReturn(artifact);
+    MavenCoordinates mavenCoordinates = new MavenCoordinates("groupId", "artifactId");
+    m2RepositoryService.getLibraryClasspathEntry(new LibraryFile(mavenCoordinates));
+    m2RepositoryService.getLibraryClasspathEntry(new LibraryFile(mavenCoordinates));
+
+    // once for the binary and once for the sources jar
+    verify(mavenHelper, times(2)).resolveArtifact(any(IProgressMonitor.class),
+                                                   any(MavenCoordinates.class),
+                                                   anyListOf(ArtifactRepository.class));
+  }
+
+  @Test
+  public void getLibraryClasspathEntry_resolvesAgainIfFileWasDeleted() throws Exception {
+    Artifact artifact = getMockArtifactWithExistingFile();
+    when(mavenHelper.resolveArtifact(any(IProgressMonitor.class),
+                                     any(MavenCoordinates.class),
+                                     anyListOf(ArtifactRepository.class))).thenReturn(artifact);
+    MavenCoordinates mavenCoordinates = new MavenCoordinates("groupId", "artifactId");
+    m2RepositoryService.getLibraryClasspathEntry(new LibraryFile(mavenCoordinates));
+    assertTrue(artifact.getFile().delete());
+    m2RepositoryService.getLibraryClasspathEntry(new LibraryFile(mavenCoordinates));
+
+    verify(mavenHelper, times(4)).resolveArtifact(any(IProgressMonitor.class),
+                                                   any(MavenCoordinates.class),
+                                                   anyListOf(ArtifactRepository.class));
+  }
+
+  @Test
+  public void getLibraryClasspathEntry_differentVersionIsResolved() throws Exception {
+    Artifact artifact = getMockArtifactWithExistingFile();
+    when(mavenHelper.resolveArtifact(any(IProgressMonitor.class),
+                                     any(MavenCoordinates.class),
+                                     anyListOf(ArtifactRepository.class))).thenReturn(artifact);
+    MavenCoordinates mavenCoordinates = new MavenCoordinates("groupId", "artifactId");
+    m2RepositoryService.getLibraryClasspathEntry(new LibraryFile(mavenCoordinates));
+    mavenCoordinates.setVersion("1.0");
+    m2RepositoryService.getLibraryClasspathEntry(new LibraryFile(mavenCoordinates));
+
+    verify(mavenHelper, times(4)).resolveArtifact(any(IProgressMonitor.class),
+                                                   any(MavenCoordinates.class),
+                                                   anyListOf(ArtifactRepository.class));
+  }
+
   @Test(expected = IllegalStateException.class)
   public void testMavenHelperMustBeSet() throws LibraryRepositoryServiceException {
     new M2RepositoryService().getLibraryClasspathEntry(new LibraryFile(new MavenCoordinates("groupId", "artifactId")));
@@ -163,6 +219,13 @@ public class M2RepositoryServiceTest {
     return artifact;
   }
 
+  private Artifact getMockArtifactWithExistingFile() throws IOException {
+    Artifact artifact = mock(Artifact.class);
+    File file = tempFolder.newFile();
+    when(artifact.getFile()).thenReturn(file);
+    return artifact;
+  }
+
   private CoreException testCoreException() {
     return new CoreException(StatusUtil.error(this, "Test exception"));
   }
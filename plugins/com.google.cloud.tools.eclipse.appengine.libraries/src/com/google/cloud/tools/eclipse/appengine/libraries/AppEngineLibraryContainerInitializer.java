@@ -17,28 +17,48 @@
 package com.google.cloud.tools.eclipse.appengine.libraries;
 
 import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
-import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFactory;
-import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFactoryException;
 import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer;
 import com.google.cloud.tools.eclipse.appengine.libraries.repository.ILibraryRepositoryService;
 import com.google.cloud.tools.eclipse.appengine.libraries.repository.LibraryRepositoryServiceException;
 import com.google.cloud.tools.eclipse.util.status.StatusUtil;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.inject.Inject;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IConfigurationElement;
-import org.eclipse.core.runtime.IExtensionRegistry;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.ClasspathContainerInitializer;
 import org.eclipse.jdt.core.IClasspathContainer;
 import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.osgi.util.NLS;
 
 /**
@@ -46,54 +66,69 @@ import org.eclipse.osgi.util.NLS;
  * <p>
  * The container path is expected to be in the form of
  * &lt;value of {@link Library#CONTAINER_PATH_PREFIX}&gt;/&lt;library ID&gt;
+ * <p>
+ * JDT initializes containers one project and one path at a time. To avoid reading the persisted
+ * containers one by one when a workspace is opened, the first request for a container path also
+ * loads the containers with the same path of all other projects that have not been set yet, in
+ * parallel, and sets them with a single {@link JavaCore#setClasspathContainer} call.
+ * <p>
+ * Loading a container may rebuild its entries through m2e, so {@link #initialize} does not wait
+ * for it: the requested container is set to an empty placeholder, and the persisted containers are
+ * loaded and set by a background job.
  */
 public class AppEngineLibraryContainerInitializer extends ClasspathContainerInitializer {
 
+  private static final Logger logger =
+      Logger.getLogger(AppEngineLibraryContainerInitializer.class.getName());
+
   public static final String LIBRARIES_EXTENSION_POINT = "com.google.cloud.tools.eclipse.appengine.libraries"; //$NON-NLS-1$
 
-  private static final Logger logger = Logger.getLogger(AppEngineLibraryContainerInitializer.class.getName());
+  private static final int MAX_CONCURRENT_LOADS = 4;
+
+  /** The family of the jobs loading the persisted containers. */
+  @VisibleForTesting
+  static final Object LOAD_JOB_FAMILY = new Object();
+
+  /**
+   * Projects and container paths, as {@link #key} strings, whose container has been set by an
+   * initializer or by {@link AppEngineLibraryContainerResolverJob}. The entries of a project are
+   * removed when it is closed or deleted, as it is initialized again when it is reopened or
+   * recreated with the same name.
+   */
+  private static final Set<String> initializedContainers =
+      Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+  private static boolean listeningToProjects;
+
+  /** Loads the persisted containers of all initialize calls. */
+  private static final ExecutorService loaderExecutor = createLoaderExecutor();
 
   private String containerPath = Library.CONTAINER_PATH_PREFIX;
-  private Map<String, Library> libraries;
 
   @Inject
   private LibraryClasspathContainerSerializer serializer;
   @Inject
   private ILibraryRepositoryService repositoryService;
-  @Inject
-  private IExtensionRegistry extensionRegistry;
 
   public AppEngineLibraryContainerInitializer() {
   }
 
   @VisibleForTesting
-  AppEngineLibraryContainerInitializer(IConfigurationElement[] configurationElements,
-                                       LibraryFactory libraryFactory,
-                                       String containerPath,
+  AppEngineLibraryContainerInitializer(String containerPath,
                                        LibraryClasspathContainerSerializer serializer) {
-    this(configurationElements, libraryFactory, containerPath, serializer, null);
+    this(containerPath, serializer, null);
   }
 
   @VisibleForTesting
-  AppEngineLibraryContainerInitializer(IConfigurationElement[] configurationElements,
-                                       LibraryFactory libraryFactory,
-                                       String containerPath,
+  AppEngineLibraryContainerInitializer(String containerPath,
                                        LibraryClasspathContainerSerializer serializer,
                                        ILibraryRepositoryService repositoryService) {
     this.containerPath = containerPath;
     this.serializer = serializer;
     this.repositoryService = repositoryService;
-    initializeLibraries(configurationElements, libraryFactory);
   }
 
   @Override
   public void initialize(IPath containerPath, IJavaProject project) throws CoreException {
-    if (libraries == null) {
-      // in tests libraries will be initialized via the test constructor, this would override mocks/stubs.
-      IConfigurationElement[] configurationElements =
-          extensionRegistry.getConfigurationElementsFor(LIBRARIES_EXTENSION_POINT);
-      initializeLibraries(configurationElements, new LibraryFactory());
-    }
     if (containerPath.segmentCount() == 2) {
       if (!containerPath.segment(0).equals(this.containerPath)) {
         throw new CoreException(StatusUtil.error(this,
@@ -101,22 +136,170 @@ public class AppEngineLibraryContainerInitializer extends ClasspathContainerInit
                                                           this.containerPath,
                                                           containerPath.segment(0))));
       }
-      try {
-        LibraryClasspathContainer container = serializer.loadContainer(project, containerPath);
-        if (container != null) {
-          validateJarPaths(container);
-          JavaCore.setClasspathContainer(containerPath, new IJavaProject[] {project},
-                                         new IClasspathContainer[] {container}, null);
-        }
-      } catch (IOException | LibraryRepositoryServiceException ex) {
-        throw new CoreException(StatusUtil.error(this, Messages.LoadContainerFailed, ex));
-      }
+      listenToProjects();
+      String key = key(project, containerPath);
+      // JDT asks again only if the container is no longer set
+      initializedContainers.remove(key);
+      LibraryClasspathContainer placeholder =
+          new LibraryClasspathContainer(containerPath,
+                                        NLS.bind(Messages.ContainerLoading,
+                                                 containerPath.lastSegment()),
+                                        new IClasspathEntry[0]);
+      JavaCore.setClasspathContainer(containerPath, new IJavaProject[] {project},
+                                     new IClasspathContainer[] {placeholder}, null);
+
+      Map<String, ContainerLoader> loaders = new LinkedHashMap<>();
+      ContainerLoader requested = new ContainerLoader(project, containerPath);
+      loaders.put(key, requested);
+      addUninitializedContainers(containerPath, loaders);
+      new LoadContainersJob(new ArrayList<>(loaders.values()), requested).schedule();
     } else {
       throw new CoreException(StatusUtil.error(this, NLS.bind(Messages.ContainerPathNotTwoSegments,
                                                               containerPath.toString())));
     }
   }
 
+  /**
+   * Records that the container at {@code containerPath} of {@code project} has been set, so that it
+   * is not replaced by its persisted version when the container of another project is initialized.
+   */
+  static void containerSet(IJavaProject project, IPath containerPath) {
+    listenToProjects();
+    initializedContainers.add(key(project, containerPath));
+  }
+
+  private static synchronized void listenToProjects() {
+    if (listeningToProjects) {
+      return;
+    }
+    ResourcesPlugin.getWorkspace().addResourceChangeListener(new IResourceChangeListener() {
+      @Override
+      public void resourceChanged(IResourceChangeEvent event) {
+        if (event.getResource() instanceof IProject) {
+          String prefix = event.getResource().getName() + ":"; //$NON-NLS-1$
+          Iterator<String> keys = initializedContainers.iterator();
+          while (keys.hasNext()) {
+            if (keys.next().startsWith(prefix)) {
+              keys.remove();
+            }
+          }
+        }
+      }
+    }, IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
+    listeningToProjects = true;
+  }
+
+  /**
+   * Adds a loader for each container at {@code containerPath} referenced from the raw classpath of
+   * an open Java project in the workspace, unless it has been set already.
+   */
+  private void addUninitializedContainers(IPath containerPath,
+                                          Map<String, ContainerLoader> loaders) {
+    try {
+      IJavaProject[] javaProjects =
+          JavaCore.create(ResourcesPlugin.getWorkspace().getRoot()).getJavaProjects();
+      for (IJavaProject javaProject : javaProjects) {
+        for (IClasspathEntry entry : getRawClasspath(javaProject)) {
+          IPath path = entry.getPath();
+          String key = key(javaProject, path);
+          if (entry.getEntryKind() == IClasspathEntry.CPE_CONTAINER
+              && path.equals(containerPath)
+              && !initializedContainers.contains(key)
+              && !loaders.containsKey(key)) {
+            loaders.put(key, new ContainerLoader(javaProject, path));
+          }
+        }
+      }
+    } catch (JavaModelException ex) {
+      logger.log(Level.WARNING, "Could not list the Java projects of the workspace", ex);
+    }
+  }
+
+  private static IClasspathEntry[] getRawClasspath(IJavaProject javaProject) {
+    try {
+      return javaProject.getRawClasspath();
+    } catch (JavaModelException ex) {
+      logger.log(Level.WARNING, "Could not read the classpath of " + javaProject.getElementName(),
+                 ex);
+      return new IClasspathEntry[0];
+    }
+  }
+
+  private static void loadAll(List<ContainerLoader> loaders) {
+    if (loaders.size() == 1) {
+      loaders.get(0).loadInCallingThread();
+      return;
+    }
+    for (ContainerLoader loader : loaders) {
+      loader.submitTo(loaderExecutor);
+    }
+  }
+
+  private static ExecutorService createLoaderExecutor() {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        MAX_CONCURRENT_LOADS, MAX_CONCURRENT_LOADS, 30, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(),
+        new ThreadFactoryBuilder()
+            .setNameFormat("appengine-container-loader-%d") //$NON-NLS-1$
+            .setDaemon(true)
+            .build());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * Sets the containers that were loaded successfully in one call. Containers of other projects
+   * that could not be loaded are logged and left to a later {@link #initialize} call, those that
+   * were set in the meantime are skipped.
+   *
+   * @return an error status if the requested container could not be loaded, in which case its
+   *     placeholder is left
+   */
+  private IStatus setContainers(List<ContainerLoader> loaders, ContainerLoader requested)
+      throws JavaModelException {
+    IStatus status = Status.OK_STATUS;
+    List<IJavaProject> projects = new ArrayList<>();
+    List<IClasspathContainer> containers = new ArrayList<>();
+    for (ContainerLoader loader : loaders) {
+      try {
+        LibraryClasspathContainer container = loader.getContainer();
+        // claim the container so that a concurrent initialize call does not set it again
+        if (container != null
+            && initializedContainers.add(key(loader.project, loader.containerPath))) {
+          projects.add(loader.project);
+          containers.add(container);
+        }
+      } catch (ExecutionException ex) {
+        if (loader == requested) {
+          status = StatusUtil.error(this, Messages.LoadContainerFailed, ex.getCause());
+        } else {
+          logger.log(Level.WARNING, "Could not load " + key(loader.project, loader.containerPath),
+                     ex.getCause());
+        }
+      }
+    }
+    if (!projects.isEmpty()) {
+      JavaCore.setClasspathContainer(requested.containerPath,
+                                     projects.toArray(new IJavaProject[projects.size()]),
+                                     containers.toArray(new IClasspathContainer[containers.size()]),
+                                     null);
+    }
+    return status;
+  }
+
+  private static String key(IJavaProject project, IPath containerPath) {
+    return project.getElementName() + ":" + containerPath; //$NON-NLS-1$
+  }
+
+  private LibraryClasspathContainer loadContainer(IJavaProject project, IPath containerPath)
+      throws IOException, CoreException, LibraryRepositoryServiceException {
+    LibraryClasspathContainer container = serializer.loadContainer(project, containerPath);
+    if (container != null) {
+      validateJarPaths(container);
+    }
+    return container;
+  }
+
   private void validateJarPaths(LibraryClasspathContainer container) throws LibraryRepositoryServiceException {
     IClasspathEntry[] classpathEntries = container.getClasspathEntries();
     for (int i = 0; i < classpathEntries.length; i++) {
@@ -129,16 +312,87 @@ public class AppEngineLibraryContainerInitializer extends ClasspathContainerInit
     }
   }
 
-  // TODO parse library definition in ILibraryConfigService (or similar) started when the plugin/bundle starts
-  // https://github.com/GoogleCloudPlatform/google-cloud-eclipse/issues/856
-  private void initializeLibraries(IConfigurationElement[] configurationElements, LibraryFactory libraryFactory) {
-    libraries = new HashMap<>(configurationElements.length);
-    for (IConfigurationElement configurationElement : configurationElements) {
+  /**
+   * Loads the persisted containers of an {@link #initialize} call and sets them.
+   */
+  private class LoadContainersJob extends Job {
+
+    private final List<ContainerLoader> loaders;
+    private final ContainerLoader requested;
+
+    private LoadContainersJob(List<ContainerLoader> loaders, ContainerLoader requested) {
+      super(Messages.LoadContainersJobName);
+      this.loaders = loaders;
+      this.requested = requested;
+      setSystem(true);
+    }
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      loadAll(loaders);
       try {
-        Library library = libraryFactory.create(configurationElement);
-        libraries.put(library.getId(), library);
-      } catch (LibraryFactoryException exception) {
-        logger.log(Level.SEVERE, "Failed to initialize libraries", exception); //$NON-NLS-1$
+        return setContainers(loaders, requested);
+      } catch (JavaModelException ex) {
+        return StatusUtil.error(this, Messages.LoadContainerFailed, ex);
+      }
+    }
+
+    @Override
+    public boolean belongsTo(Object family) {
+      return family == LOAD_JOB_FAMILY;
+    }
+  }
+
+  /**
+   * Loads and validates the persisted container of a single project and container path.
+   */
+  private class ContainerLoader implements Callable<LibraryClasspathContainer> {
+
+    private final IJavaProject project;
+    private final IPath containerPath;
+    private Future<LibraryClasspathContainer> future;
+
+    private ContainerLoader(IJavaProject project, IPath containerPath) {
+      this.project = project;
+      this.containerPath = containerPath;
+    }
+
+    @Override
+    public LibraryClasspathContainer call() throws Exception {
+      return loadContainer(project, containerPath);
+    }
+
+    private void submitTo(ExecutorService executor) {
+      future = executor.submit(this);
+    }
+
+    private void loadInCallingThread() {
+      FutureTask<LibraryClasspathContainer> task = new FutureTask<>(this);
+      task.run();
+      future = task;
+    }
+
+    /**
+     * Waits for the container to be loaded.
+     *
+     * @return the container, or {@code null} if there is no persisted container
+     * @throws ExecutionException if the container could not be loaded
+     */
+    private LibraryClasspathContainer getContainer() throws ExecutionException {
+      boolean interrupted = false;
+      try {
+        while (true) {
+          try {
+            return future.get();
+          } catch (InterruptedException ex) {
+            // finish loading first, so that the containers of other projects can be set
+            interrupted = true;
+          }
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
       }
     }
   }
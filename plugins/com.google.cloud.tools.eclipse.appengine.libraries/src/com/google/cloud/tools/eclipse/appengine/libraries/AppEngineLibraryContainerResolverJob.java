@@ -17,8 +17,6 @@
 package com.google.cloud.tools.eclipse.appengine.libraries;
 
 import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
-import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFactory;
-import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFactoryException;
 import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFile;
 import com.google.cloud.tools.eclipse.appengine.libraries.persistence.LibraryClasspathContainerSerializer;
 import com.google.cloud.tools.eclipse.appengine.libraries.repository.ILibraryRepositoryService;
@@ -27,20 +25,26 @@ import com.google.cloud.tools.eclipse.util.status.StatusUtil;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.RegistryFactory;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.core.runtime.jobs.Job;
@@ -51,16 +55,20 @@ import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.osgi.util.NLS;
 
 public class AppEngineLibraryContainerResolverJob extends Job {
-  //TODO duplicate of com.google.cloud.tools.eclipse.appengine.libraries.AppEngineLibraryContainerInitializer.LIBRARIES_EXTENSION_POINT
-  public static final String LIBRARIES_EXTENSION_POINT = "com.google.cloud.tools.eclipse.appengine.libraries"; //$NON-NLS-1$
+  private static final int MAX_CONCURRENT_RESOLUTIONS = 4;
+  private static final long CANCELLATION_CHECK_INTERVAL_MS = 100;
 
-  private static final Logger logger = Logger.getLogger(AppEngineLibraryContainerResolverJob.class.getName());
-
-  private Map<String, Library> libraries;
+  /**
+   * Resolves the library files of all jobs, so that the number of concurrent Maven resolutions and
+   * downloads stays bounded when several projects are initialized at the same time.
+   */
+  private static final ExecutorService resolverExecutor = createResolverExecutor();
 
   @Inject
   private IJavaProject javaProject;
   @Inject
+  private ILibraryRegistryService libraryRegistry;
+  @Inject
   private ILibraryRepositoryService repositoryService;
   @Inject
   private LibraryClasspathContainerSerializer serializer;
@@ -71,10 +79,19 @@ public class AppEngineLibraryContainerResolverJob extends Job {
   }
 
   @VisibleForTesting
-  AppEngineLibraryContainerResolverJob(LibraryClasspathContainerSerializer serializer) {
+  AppEngineLibraryContainerResolverJob(LibraryClasspathContainerSerializer serializer,
+                                       ILibraryRegistryService libraryRegistry,
+                                       ILibraryRepositoryService repositoryService,
+                                       IJavaProject javaProject) {
     super(Messages.AppEngineLibraryContainerResolverJobName);
     Preconditions.checkNotNull(serializer);
+    Preconditions.checkNotNull(libraryRegistry);
+    Preconditions.checkNotNull(repositoryService);
+    Preconditions.checkNotNull(javaProject);
     this.serializer = serializer;
+    this.libraryRegistry = libraryRegistry;
+    this.repositoryService = repositoryService;
+    this.javaProject = javaProject;
     setUser(true);
   }
 
@@ -85,66 +102,114 @@ public class AppEngineLibraryContainerResolverJob extends Job {
 
   @Override
   protected IStatus run(IProgressMonitor monitor) {
-    // TODO parse library definition in ILibraryConfigService (or similar) started when the plugin/bundle starts
-    // https://github.com/GoogleCloudPlatform/google-cloud-eclipse/issues/856
+    List<PendingContainer> pendingContainers = new ArrayList<>();
     try {
-      if (libraries == null) {
-        // in tests libraries will be initialized via the test constructor, this would override mocks/stubs.
-        IConfigurationElement[] configurationElements =
-            RegistryFactory.getRegistry().getConfigurationElementsFor(LIBRARIES_EXTENSION_POINT);
-        initializeLibraries(configurationElements, new LibraryFactory());
-      }
-      IClasspathEntry[] rawClasspath = javaProject.getRawClasspath();
-      SubMonitor subMonitor = SubMonitor.convert(monitor,
-                                                 Messages.TaskResolveLibraries,
-                                                 getTotalwork(rawClasspath));
-      for (int i = 0; i < rawClasspath.length; i++) {
-        IClasspathEntry classpathEntry = rawClasspath[i];
-        String libraryId = classpathEntry.getPath().segment(1);
-        Library library = libraries.get(libraryId);
-        if (library != null) {
-          LibraryClasspathContainer container = resolveLibraryFiles(classpathEntry, library, subMonitor.newChild(1));
-          JavaCore.setClasspathContainer(classpathEntry.getPath(), new IJavaProject[] {javaProject},
-                                         new IClasspathContainer[] {container}, null);
-          serializer.saveContainer(javaProject, container);
+      // start resolving the files of all containers before waiting for any of them, so that the
+      // downloads of all libraries overlap
+      int totalWork = 0;
+      for (IClasspathEntry classpathEntry : javaProject.getRawClasspath()) {
+        if (isLibraryClasspathEntry(classpathEntry.getPath())) {
+          Library library = libraryRegistry.getLibrary(classpathEntry.getPath().segment(1));
+          if (library != null) {
+            pendingContainers.add(new PendingContainer(classpathEntry, library));
+            totalWork += library.getLibraryFiles().size();
+          }
         }
       }
+      SubMonitor subMonitor = SubMonitor.convert(monitor, Messages.TaskResolveLibraries, totalWork);
+      for (PendingContainer pendingContainer : pendingContainers) {
+        LibraryClasspathContainer container = pendingContainer.waitForContainer(subMonitor);
+        AppEngineLibraryContainerInitializer.containerSet(javaProject,
+                                                          pendingContainer.classpathEntry.getPath());
+        JavaCore.setClasspathContainer(pendingContainer.classpathEntry.getPath(),
+                                       new IJavaProject[] {javaProject},
+                                       new IClasspathContainer[] {container}, null);
+        serializer.saveContainer(javaProject, container);
+      }
     } catch (LibraryRepositoryServiceException | CoreException | IOException ex) {
       return StatusUtil.error(this, Messages.TaskResolveLibrariesError, ex);
+    } catch (OperationCanceledException ex) {
+      return Status.CANCEL_STATUS;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return Status.CANCEL_STATUS;
+    } finally {
+      for (PendingContainer pendingContainer : pendingContainers) {
+        pendingContainer.cancel();
+      }
     }
     return Status.OK_STATUS;
   }
 
-  private LibraryClasspathContainer resolveLibraryFiles(IClasspathEntry classpathEntry,
-                                                        Library library,
-                                                        IProgressMonitor monitor)
-                                                            throws LibraryRepositoryServiceException {
-    List<LibraryFile> libraryFiles = library.getLibraryFiles();
-    SubMonitor subMonitor = SubMonitor.convert(monitor, libraryFiles.size());
-    subMonitor.subTask(NLS.bind(Messages.TaskResolveArtifacts, getLibraryDescription(library)));
-    SubMonitor child = subMonitor.newChild(libraryFiles.size());
-
-    IClasspathEntry[] entries = new IClasspathEntry[libraryFiles.size()];
-    int idx = 0;
-    for (LibraryFile libraryFile : libraryFiles) {
-      entries[idx++] = repositoryService.getLibraryClasspathEntry(libraryFile);
-      child.worked(1);
+  /**
+   * The classpath entries of a library being resolved on {@link #resolverExecutor}. The container
+   * is created only when all of its entries are resolved, so that it is updated in one step.
+   */
+  private class PendingContainer {
+    private final IClasspathEntry classpathEntry;
+    private final Library library;
+    private final List<Future<IClasspathEntry>> entries = new ArrayList<>();
+
+    private PendingContainer(IClasspathEntry classpathEntry, Library library) {
+      this.classpathEntry = classpathEntry;
+      this.library = library;
+      for (final LibraryFile libraryFile : library.getLibraryFiles()) {
+        entries.add(resolverExecutor.submit(new Callable<IClasspathEntry>() {
+          @Override
+          public IClasspathEntry call() throws LibraryRepositoryServiceException {
+            return repositoryService.getLibraryClasspathEntry(libraryFile);
+          }
+        }));
+      }
+    }
+
+    private LibraryClasspathContainer waitForContainer(SubMonitor monitor)
+        throws LibraryRepositoryServiceException, InterruptedException {
+      monitor.subTask(NLS.bind(Messages.TaskResolveArtifacts, getLibraryDescription(library)));
+      IClasspathEntry[] resolvedEntries = new IClasspathEntry[entries.size()];
+      for (int i = 0; i < resolvedEntries.length; i++) {
+        resolvedEntries[i] = waitFor(entries.get(i), monitor);
+        monitor.worked(1);
+      }
+      return new LibraryClasspathContainer(classpathEntry.getPath(),
+                                           getLibraryDescription(library),
+                                           resolvedEntries);
+    }
+
+    private void cancel() {
+      for (Future<IClasspathEntry> entry : entries) {
+        entry.cancel(true);
+      }
     }
-    monitor.done();
-    LibraryClasspathContainer container = new LibraryClasspathContainer(classpathEntry.getPath(),
-                                                                        getLibraryDescription(library),
-                                                                        entries);
-    return container;
   }
 
-  private static int getTotalwork(IClasspathEntry[] rawClasspath) {
-    int sum = 0;
-    for (IClasspathEntry element : rawClasspath) {
-      if (isLibraryClasspathEntry(element.getPath())) {
-        ++sum;
+  private static IClasspathEntry waitFor(Future<IClasspathEntry> entry, IProgressMonitor monitor)
+      throws LibraryRepositoryServiceException, InterruptedException {
+    while (true) {
+      if (monitor.isCanceled()) {
+        throw new OperationCanceledException();
+      }
+      try {
+        return entry.get(CANCELLATION_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException ex) {
+        // check for cancellation again
+      } catch (ExecutionException ex) {
+        Throwables.propagateIfPossible(ex.getCause(), LibraryRepositoryServiceException.class);
+        throw new LibraryRepositoryServiceException(Messages.TaskResolveLibrariesError, ex.getCause());
       }
     }
-    return sum;
+  }
+
+  private static ExecutorService createResolverExecutor() {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        MAX_CONCURRENT_RESOLUTIONS, MAX_CONCURRENT_RESOLUTIONS, 30, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(),
+        new ThreadFactoryBuilder()
+            .setNameFormat("appengine-library-resolver-%d") //$NON-NLS-1$
+            .setDaemon(true)
+            .build());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
   }
 
   private static boolean isLibraryClasspathEntry(IPath path) {
@@ -158,16 +223,4 @@ public class AppEngineLibraryContainerResolverJob extends Job {
       return library.getId();
     }
   }
-
-  private void initializeLibraries(IConfigurationElement[] configurationElements, LibraryFactory libraryFactory) {
-    libraries = new HashMap<>(configurationElements.length);
-    for (IConfigurationElement configurationElement : configurationElements) {
-      try {
-        Library library = libraryFactory.create(configurationElement);
-        libraries.put(library.getId(), library);
-      } catch (LibraryFactoryException exception) {
-        logger.log(Level.SEVERE, "Failed to initialize libraries", exception); //$NON-NLS-1$
-      }
-    }
-  }
 }
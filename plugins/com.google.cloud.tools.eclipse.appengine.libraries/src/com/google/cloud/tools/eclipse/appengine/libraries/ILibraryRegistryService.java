@@ -0,0 +1,38 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
+import java.util.Map;
+
+/**
+ * Service that provides the {@link Library} definitions contributed to the
+ * {@value AppEngineLibraryContainerInitializer#LIBRARIES_EXTENSION_POINT} extension point.
+ */
+public interface ILibraryRegistryService {
+
+  /**
+   * @return the library with the ID <code>libraryId</code>, or <code>null</code> if there is no
+   *     such library
+   */
+  Library getLibrary(String libraryId);
+
+  /**
+   * @return an unmodifiable map of all libraries keyed by their IDs
+   */
+  Map<String, Library> getLibraries();
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.libraries;
+
+import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFactory;
+import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFactoryException;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.IRegistryEventListener;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+
+/**
+ * Implementation of {@link ILibraryRegistryService} that parses the
+ * {@value AppEngineLibraryContainerInitializer#LIBRARIES_EXTENSION_POINT} extension point once and
+ * parses it again only after extensions were added to or removed from it.
+ */
+@Component
+public class LibraryRegistryService implements ILibraryRegistryService, IRegistryEventListener {
+
+  private static final Logger logger = Logger.getLogger(LibraryRegistryService.class.getName());
+
+  private final LibraryFactory libraryFactory;
+  private IExtensionRegistry extensionRegistry;
+  // serializes parsing, so that the extension point is parsed once when the libraries are needed
+  private final Object parseLock = new Object();
+  // guarded by this, incremented when extensions change so that the result of a parse that
+  // started before the change is not published
+  private long generation;
+  // null if the extension point must be parsed
+  private volatile Map<String, Library> libraries;
+
+  public LibraryRegistryService() {
+    this(new LibraryFactory());
+  }
+
+  @VisibleForTesting
+  LibraryRegistryService(LibraryFactory libraryFactory) {
+    this.libraryFactory = libraryFactory;
+  }
+
+  @Override
+  public Library getLibrary(String libraryId) {
+    return getLibraries().get(libraryId);
+  }
+
+  @Override
+  public Map<String, Library> getLibraries() {
+    Map<String, Library> result = libraries;
+    if (result == null) {
+      synchronized (parseLock) {
+        result = libraries;
+        while (result == null) {
+          long parsedGeneration = getGeneration();
+          result = publish(parseLibraries(), parsedGeneration);
+        }
+      }
+    }
+    return result;
+  }
+
+  private synchronized long getGeneration() {
+    return generation;
+  }
+
+  /**
+   * @return {@code parsedLibraries} if they were published, or <code>null</code> if extensions
+   *     were added or removed since {@code parsedGeneration} and the libraries must be parsed again
+   */
+  private synchronized Map<String, Library> publish(Map<String, Library> parsedLibraries,
+                                                    long parsedGeneration) {
+    if (generation != parsedGeneration) {
+      return null;
+    }
+    libraries = parsedLibraries;
+    return parsedLibraries;
+  }
+
+  private synchronized void invalidate() {
+    generation++;
+    libraries = null;
+  }
+
+  private Map<String, Library> parseLibraries() {
+    Preconditions.checkState(extensionRegistry != null, "extensionRegistry is null"); //$NON-NLS-1$
+    IConfigurationElement[] configurationElements = extensionRegistry
+        .getConfigurationElementsFor(AppEngineLibraryContainerInitializer.LIBRARIES_EXTENSION_POINT);
+    Map<String, Library> parsedLibraries = new HashMap<>(configurationElements.length);
+    for (IConfigurationElement configurationElement : configurationElements) {
+      try {
+        Library library = libraryFactory.create(configurationElement);
+        parsedLibraries.put(library.getId(), library);
+      } catch (LibraryFactoryException exception) {
+        logger.log(Level.SEVERE, "Failed to initialize libraries", exception); //$NON-NLS-1$
+      }
+    }
+    return ImmutableMap.copyOf(parsedLibraries);
+  }
+
+  @Override
+  public void added(IExtension[] extensions) {
+    invalidate();
+  }
+
+  @Override
+  public void removed(IExtension[] extensions) {
+    invalidate();
+  }
+
+  @Override
+  public void added(IExtensionPoint[] extensionPoints) {
+    // the listener is registered for the libraries extension point only, its extensions matter
+  }
+
+  @Override
+  public void removed(IExtensionPoint[] extensionPoints) {
+    // the listener is registered for the libraries extension point only, its extensions matter
+  }
+
+  @Reference
+  void setExtensionRegistry(IExtensionRegistry extensionRegistry) {
+    this.extensionRegistry = extensionRegistry;
+  }
+
+  @Activate
+  protected void activate() {
+    extensionRegistry.addListener(this,
+        AppEngineLibraryContainerInitializer.LIBRARIES_EXTENSION_POINT);
+    // parse the libraries right away instead of in the first caller, typically a classpath
+    // container initializer running during workspace startup
+    getLibraries();
+  }
+
+  @Deactivate
+  protected void deactivate() {
+    extensionRegistry.removeListener(this);
+    invalidate();
+  }
+}
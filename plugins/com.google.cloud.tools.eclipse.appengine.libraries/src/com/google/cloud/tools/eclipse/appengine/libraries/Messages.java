@@ -22,9 +22,11 @@ public class Messages extends NLS {
   private static final String BUNDLE_NAME = "com.google.cloud.tools.eclipse.appengine.libraries.messages"; //$NON-NLS-1$
   public static String AppEngineLibraryContainerResolverJobName;
   public static String ContainerPathInvalidFirstSegment;
+  public static String ContainerLoading;
   public static String ContainerPathNotTwoSegments;
   public static String CreateLibraryError;
   public static String LoadContainerFailed;
+  public static String LoadContainersJobName;
   public static String RepositoryCannotBeLocated;
   public static String RepositoryUriInvalid;
   public static String RepositoryUriNotAbsolute;
@@ -16,6 +16,7 @@
 
 package com.google.cloud.tools.eclipse.appengine.libraries.model;
 
+import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import java.text.MessageFormat;
 
@@ -143,6 +144,28 @@ public class MavenCoordinates {
     return artifactId;
   }
 
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof MavenCoordinates)) {
+      return false;
+    }
+    MavenCoordinates other = (MavenCoordinates) obj;
+    return Objects.equal(repository, other.repository)
+        && Objects.equal(groupId, other.groupId)
+        && Objects.equal(artifactId, other.artifactId)
+        && Objects.equal(version, other.version)
+        && Objects.equal(type, other.type)
+        && Objects.equal(classifier, other.classifier);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(repository, groupId, artifactId, version, type, classifier);
+  }
+
   @Override
   public String toString() {
     return MessageFormat.format("MavenCoordinates [repository={0}, {1}:{2}:{3}:{4}:{5}]",
@@ -19,8 +19,10 @@ package com.google.cloud.tools.eclipse.appengine.libraries.persistence;
 import com.google.cloud.tools.eclipse.appengine.libraries.LibraryClasspathContainer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -28,7 +30,6 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
-import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.util.logging.Logger;
 import org.eclipse.core.resources.IFile;
@@ -105,12 +106,14 @@ public class LibraryClasspathContainerSerializer {
       logger.warning("Container state file cannot be created, save failed");
       return;
     }
-    try (OutputStreamWriter out =
-        new OutputStreamWriter(new FileOutputStream(stateFile), StandardCharsets.UTF_8)) {
-      Gson gson = new GsonBuilder().setPrettyPrinting().create();
-      out.write(gson.toJson(new SerializableLibraryClasspathContainer(container,
+    try (JsonWriter writer = new JsonWriter(new BufferedWriter(
+        new OutputStreamWriter(new FileOutputStream(stateFile), StandardCharsets.UTF_8)))) {
+      // same layout as Gson's pretty printing: the files are often checked in and diffed
+      writer.setIndent("  ");
+      writer.setSerializeNulls(false);
+      new SerializableLibraryClasspathContainer(container,
           binaryArtifactBaseLocationProvider.getBaseLocation(),
-          sourceBaseLocationProvider.getBaseLocation())));
+          sourceBaseLocationProvider.getBaseLocation()).write(writer);
     }
   }
 
@@ -120,13 +123,16 @@ public class LibraryClasspathContainerSerializer {
     if (stateFile == null) {
       return null;
     }
-    try (Reader reader = new InputStreamReader(new FileInputStream(stateFile), StandardCharsets.UTF_8)) {
-      Gson gson = new GsonBuilder().create();
+    try (JsonReader reader = new JsonReader(new BufferedReader(
+        new InputStreamReader(new FileInputStream(stateFile), StandardCharsets.UTF_8)))) {
       SerializableLibraryClasspathContainer fromJson =
-          gson.fromJson(reader, SerializableLibraryClasspathContainer.class);
+          SerializableLibraryClasspathContainer.read(reader);
       return fromJson.toLibraryClasspathContainer(
           binaryArtifactBaseLocationProvider.getBaseLocation(),
           sourceBaseLocationProvider.getBaseLocation());
+    } catch (IllegalStateException | NumberFormatException ex) {
+      // thrown by JsonReader when a value has an unexpected type
+      throw new IOException("Invalid container descriptor: " + stateFile, ex);
     }
   }
 
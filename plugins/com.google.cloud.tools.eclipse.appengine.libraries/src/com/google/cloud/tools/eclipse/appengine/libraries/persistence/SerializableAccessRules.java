@@ -16,6 +16,9 @@
 
 package com.google.cloud.tools.eclipse.appengine.libraries.persistence;
 
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.jdt.core.IAccessRule;
 import org.eclipse.jdt.core.JavaCore;
@@ -33,10 +36,46 @@ public class SerializableAccessRules {
     pattern = rule.getPattern().toString();
   }
 
+  private SerializableAccessRules() {
+  }
+
   public IAccessRule toAccessRule() {
     return JavaCore.newAccessRule(new Path(pattern), ruleKind.kind);
   }
 
+  void write(JsonWriter writer) throws IOException {
+    writer.beginObject();
+    writer.name("ruleKind").value(ruleKind.name());
+    writer.name("pattern").value(pattern);
+    writer.endObject();
+  }
+
+  static SerializableAccessRules read(JsonReader reader) throws IOException {
+    SerializableAccessRules rule = new SerializableAccessRules();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "ruleKind":
+          String ruleKind = reader.nextString();
+          try {
+            rule.ruleKind = AccessRuleKind.valueOf(ruleKind);
+          } catch (IllegalArgumentException ex) {
+            throw new IOException("Invalid access rule kind: " + ruleKind, ex);
+          }
+          break;
+        case "pattern":
+          rule.pattern = JsonStreams.nextNullableString(reader);
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+    JsonStreams.checkRequired(rule.ruleKind, "ruleKind");
+    JsonStreams.checkRequired(rule.pattern, "pattern");
+    return rule;
+  }
+
   private static enum AccessRuleKind {
     ACCESSIBLE(IAccessRule.K_ACCESSIBLE), 
     DISCOURAGED(IAccessRule.K_DISCOURAGED), 
@@ -16,6 +16,9 @@
 
 package com.google.cloud.tools.eclipse.appengine.libraries.persistence;
 
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
 import org.eclipse.jdt.core.IClasspathAttribute;
 import org.eclipse.jdt.core.JavaCore;
 
@@ -32,7 +35,37 @@ public class SerializableAttribute {
     value = attribute.getValue();
   }
 
+  private SerializableAttribute() {
+  }
+
   public IClasspathAttribute toClasspathAttribute() {
     return JavaCore.newClasspathAttribute(name, value);
   }
+
+  void write(JsonWriter writer) throws IOException {
+    writer.beginObject();
+    writer.name("name").value(name);
+    writer.name("value").value(value);
+    writer.endObject();
+  }
+
+  static SerializableAttribute read(JsonReader reader) throws IOException {
+    SerializableAttribute attribute = new SerializableAttribute();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "name":
+          attribute.name = JsonStreams.nextNullableString(reader);
+          break;
+        case "value":
+          attribute.value = JsonStreams.nextNullableString(reader);
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+    JsonStreams.checkRequired(attribute.name, "name");
+    return attribute;
+  }
 }
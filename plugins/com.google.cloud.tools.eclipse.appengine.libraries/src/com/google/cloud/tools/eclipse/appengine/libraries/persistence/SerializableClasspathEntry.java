@@ -17,6 +17,11 @@
 package com.google.cloud.tools.eclipse.appengine.libraries.persistence;
 
 import com.google.cloud.tools.eclipse.util.io.PathUtil;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.jdt.core.IAccessRule;
@@ -44,6 +49,9 @@ public class SerializableClasspathEntry {
     setPath(PathUtil.relativizePath(entry.getPath(), baseDirectory).toString());
   }
 
+  private SerializableClasspathEntry() {
+  }
+
   /**
    * Relativizes the source attachment path with respect to the base directories used to store source and binary
    * artifacts.
@@ -142,4 +150,62 @@ public class SerializableClasspathEntry {
     }
     return rules;
   }
+
+  void write(JsonWriter writer) throws IOException {
+    writer.beginObject();
+    writer.name("accessRules").beginArray();
+    for (SerializableAccessRules rule : accessRules) {
+      rule.write(writer);
+    }
+    writer.endArray();
+    writer.name("sourceAttachmentPath").value(sourceAttachmentPath);
+    writer.name("path").value(path);
+    writer.name("attributes").beginArray();
+    for (SerializableAttribute attribute : attributes) {
+      attribute.write(writer);
+    }
+    writer.endArray();
+    writer.endObject();
+  }
+
+  static SerializableClasspathEntry read(JsonReader reader) throws IOException {
+    SerializableClasspathEntry entry = new SerializableClasspathEntry();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "accessRules":
+          List<SerializableAccessRules> rules = new ArrayList<>();
+          reader.beginArray();
+          while (reader.hasNext()) {
+            rules.add(SerializableAccessRules.read(reader));
+          }
+          reader.endArray();
+          entry.accessRules = rules.toArray(new SerializableAccessRules[rules.size()]);
+          break;
+        case "sourceAttachmentPath":
+          String sourceAttachmentPath = JsonStreams.nextNullableString(reader);
+          entry.sourceAttachmentPath = sourceAttachmentPath == null ? "" : sourceAttachmentPath;
+          break;
+        case "path":
+          entry.path = JsonStreams.nextNullableString(reader);
+          break;
+        case "attributes":
+          List<SerializableAttribute> attributes = new ArrayList<>();
+          reader.beginArray();
+          while (reader.hasNext()) {
+            attributes.add(SerializableAttribute.read(reader));
+          }
+          reader.endArray();
+          entry.attributes = attributes.toArray(new SerializableAttribute[attributes.size()]);
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+    JsonStreams.checkRequired(entry.path, "path");
+    JsonStreams.checkRequired(entry.accessRules, "accessRules");
+    JsonStreams.checkRequired(entry.attributes, "attributes");
+    return entry;
+  }
 }
@@ -17,15 +17,27 @@
 package com.google.cloud.tools.eclipse.appengine.libraries.persistence;
 
 import com.google.cloud.tools.eclipse.appengine.libraries.LibraryClasspathContainer;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.jdt.core.IClasspathEntry;
 
 /**
  * Represents a {@link LibraryClasspathContainer} in such a way that it can be easily transformed into JSON.
+ * <p>
+ * The JSON is written and read with the Gson streaming API rather than by reflection. The
+ * {@value #VERSION_PROPERTY} property was added in format version 1; files without it were written
+ * by earlier versions with the same properties and are read the same way.
  */
 public class SerializableLibraryClasspathContainer {
 
+  static final String VERSION_PROPERTY = "version";
+  static final int FORMAT_VERSION = 1;
+
   private String description;
   private String path;
   private SerializableClasspathEntry[] entries;
@@ -40,6 +52,9 @@ public class SerializableLibraryClasspathContainer {
     }
   }
 
+  private SerializableLibraryClasspathContainer() {
+  }
+
   public LibraryClasspathContainer toLibraryClasspathContainer(IPath baseDirectory, IPath sourceBaseDirectory) {
     IClasspathEntry[] classpathEntries = new IClasspathEntry[entries.length];
     for (int i = 0; i < entries.length; i++) {
@@ -47,4 +62,57 @@ public class SerializableLibraryClasspathContainer {
     }
     return new LibraryClasspathContainer(new Path(path), description, classpathEntries);
   }
+
+  void write(JsonWriter writer) throws IOException {
+    writer.beginObject();
+    writer.name(VERSION_PROPERTY).value(FORMAT_VERSION);
+    writer.name("description").value(description);
+    writer.name("path").value(path);
+    writer.name("entries").beginArray();
+    for (SerializableClasspathEntry entry : entries) {
+      entry.write(writer);
+    }
+    writer.endArray();
+    writer.endObject();
+  }
+
+  /**
+   * @throws IOException if the JSON is malformed, is missing required properties, or was written in
+   *     a newer format version
+   */
+  static SerializableLibraryClasspathContainer read(JsonReader reader) throws IOException {
+    SerializableLibraryClasspathContainer container = new SerializableLibraryClasspathContainer();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case VERSION_PROPERTY:
+          int version = reader.nextInt();
+          if (version > FORMAT_VERSION) {
+            throw new IOException("Unsupported container format version: " + version);
+          }
+          break;
+        case "description":
+          container.description = JsonStreams.nextNullableString(reader);
+          break;
+        case "path":
+          container.path = JsonStreams.nextNullableString(reader);
+          break;
+        case "entries":
+          List<SerializableClasspathEntry> entries = new ArrayList<>();
+          reader.beginArray();
+          while (reader.hasNext()) {
+            entries.add(SerializableClasspathEntry.read(reader));
+          }
+          reader.endArray();
+          container.entries = entries.toArray(new SerializableClasspathEntry[entries.size()]);
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+    JsonStreams.checkRequired(container.path, "path");
+    JsonStreams.checkRequired(container.entries, "entries");
+    return container;
+  }
 }
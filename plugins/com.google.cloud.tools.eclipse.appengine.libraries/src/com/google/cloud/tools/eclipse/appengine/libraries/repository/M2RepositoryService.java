@@ -24,6 +24,8 @@ import com.google.cloud.tools.eclipse.util.MavenUtils;
 import com.google.cloud.tools.eclipse.util.io.FileDownloader;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
@@ -32,6 +34,7 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.eclipse.core.runtime.CoreException;
@@ -52,6 +55,9 @@ import org.osgi.service.component.annotations.Component;
 /**
  * Implementation of {@link ILibraryRepositoryService} that relies on M2Eclipse to download the artifacts and store
  * them in the local Maven repository pointed to by M2Eclipse's M2_REPO variable.
+ * <p>
+ * Resolved artifacts are cached in memory for a limited time, as the same artifacts are resolved
+ * repeatedly, e.g. by the servlet classpath provider whenever the Project Explorer is expanded.
  */
 @Component
 public class M2RepositoryService implements ILibraryRepositoryService {
@@ -59,8 +65,16 @@ public class M2RepositoryService implements ILibraryRepositoryService {
   private static final String CLASSPATH_ATTRIBUTE_SOURCE_URL =
       "com.google.cloud.tools.eclipse.appengine.libraries.sourceUrl";
 
+  // the version of LATEST artifacts may change, so resolutions are only reused for a while
+  private static final long RESOLVED_ARTIFACTS_EXPIRATION_MINUTES = 30;
+  private static final long RESOLVED_ARTIFACTS_MAXIMUM_SIZE = 500;
+
   private MavenHelper mavenHelper;
   private MavenCoordinatesClasspathAttributesTransformer transformer;
+  private final Cache<MavenCoordinates, Artifact> resolvedArtifacts = CacheBuilder.newBuilder()
+      .expireAfterWrite(RESOLVED_ARTIFACTS_EXPIRATION_MINUTES, TimeUnit.MINUTES)
+      .maximumSize(RESOLVED_ARTIFACTS_MAXIMUM_SIZE)
+      .build();
 
   @Override
   public IClasspathEntry getLibraryClasspathEntry(LibraryFile libraryFile) throws LibraryRepositoryServiceException {
@@ -115,12 +129,27 @@ public class M2RepositoryService implements ILibraryRepositoryService {
     return null;
   }
 
+  /**
+   * Resolves the artifact, unless it was resolved recently and its file still exists, in which case
+   * the artifact found by the previous resolution is returned.
+   */
   private Artifact resolveArtifact(MavenCoordinates mavenCoordinates) throws LibraryRepositoryServiceException {
     Preconditions.checkState(mavenHelper != null, "mavenHelper is null"); //$NON-NLS-1$
+    // MavenCoordinates is mutable, the key must not change while it is in the cache
+    MavenCoordinates key = new MavenCoordinates(mavenCoordinates);
+    Artifact cachedArtifact = resolvedArtifacts.getIfPresent(key);
+    if (cachedArtifact != null) {
+      if (cachedArtifact.getFile() != null && cachedArtifact.getFile().exists()) {
+        return cachedArtifact;
+      }
+      resolvedArtifacts.invalidate(key);
+    }
     try {
       List<ArtifactRepository> repository = getRepository(mavenCoordinates);
 
-      return mavenHelper.resolveArtifact(null, mavenCoordinates, repository);
+      Artifact artifact = mavenHelper.resolveArtifact(null, mavenCoordinates, repository);
+      resolvedArtifacts.put(key, artifact);
+      return artifact;
     } catch (CoreException ex) {
       throw new LibraryRepositoryServiceException(NLS.bind(Messages.ResolveArtifactError, mavenCoordinates), ex);
     }
@@ -168,7 +197,8 @@ public class M2RepositoryService implements ILibraryRepositoryService {
     
     try {
       IPath downloadFolder = getDownloadedFilesFolder(mavenCoordinates);
-      IPath path = new FileDownloader(downloadFolder).download(sourceUrl);
+      // source jars are served by Maven repositories along with their SHA-1 checksums
+      IPath path = new FileDownloader(downloadFolder).setVerifyChecksum(true).download(sourceUrl);
       return path;
     } catch (IOException e) {
       // source file is failed to download, this is not an error
@@ -258,6 +288,7 @@ public class M2RepositoryService implements ILibraryRepositoryService {
   @VisibleForTesting
   void setMavenHelper(MavenHelper mavenHelper) {
     this.mavenHelper = mavenHelper;
+    resolvedArtifacts.invalidateAll();
   }
 
   @VisibleForTesting
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.localserver.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.eclipse.jst.server.core.BasePublishOperation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.wst.server.core.IModule;
+import org.eclipse.wst.server.core.IServer;
+import org.eclipse.wst.server.core.model.IModuleFile;
+import org.eclipse.wst.server.core.model.IModuleFolder;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.eclipse.wst.server.core.model.IModuleResourceDelta;
+import org.eclipse.wst.server.core.model.ServerBehaviourDelegate;
+import org.eclipse.wst.server.core.util.PublishHelper;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/** Verify how {@link BasePublishOperation} publishes the changed resources of a module. */
+public class BasePublishOperationTest {
+
+  private final IProgressMonitor monitor = mock(IProgressMonitor.class);
+  private final List<IModuleResourceDelta> published =
+      Collections.synchronizedList(new ArrayList<IModuleResourceDelta>());
+  private final List<PublishHelper> helpers =
+      Collections.synchronizedList(new ArrayList<PublishHelper>());
+  private final List<IStatus> helperStatuses = new ArrayList<IStatus>();
+  private TestPublishOperation operation;
+
+  @Before
+  public void setUp() {
+    operation = new TestPublishOperation();
+  }
+
+  @Test
+  public void testExecute_removalsBeforeUpdates() throws CoreException {
+    IModuleResourceDelta added = delta(IModuleResourceDelta.ADDED, file("a.txt"));
+    IModuleResourceDelta removed = delta(IModuleResourceDelta.REMOVED, file("b.txt"));
+    IModuleResourceDelta childRemoved = delta(IModuleResourceDelta.REMOVED, file("c.txt"));
+    IModuleResourceDelta childChanged = delta(IModuleResourceDelta.CHANGED, file("d.txt"));
+    IModuleResourceDelta folderChanged = delta(IModuleResourceDelta.CHANGED, folder("e"),
+        childRemoved, childChanged);
+    operation.deltas = new IModuleResourceDelta[] {added, folderChanged, removed};
+
+    operation.execute(monitor, null);
+
+    assertEquals(4, published.size());
+    assertEquals(Arrays.asList(childRemoved, removed), published.subList(0, 2));
+    assertEquals(new HashSet<IModuleResourceDelta>(Arrays.asList(added, childChanged)),
+        new HashSet<IModuleResourceDelta>(published.subList(2, 4)));
+    assertEquals(Integer.valueOf(IServer.PUBLISH_STATE_NONE), operation.publishState);
+  }
+
+  @Test
+  public void testExecute_mergesStatusesInDeltaOrder() {
+    List<IModuleResourceDelta> deltas = new ArrayList<IModuleResourceDelta>();
+    for (int i = 0; i < 10; i++) {
+      deltas.add(delta(IModuleResourceDelta.ADDED, file("file" + i)));
+      helperStatuses.add(new Status(IStatus.ERROR, "test", "error " + i));
+    }
+    operation.deltas = deltas.toArray(new IModuleResourceDelta[deltas.size()]);
+
+    try {
+      operation.execute(monitor, null);
+      fail("errors not reported");
+    } catch (CoreException ex) {
+      IStatus[] children = ex.getStatus().getChildren();
+      assertEquals(helperStatuses, Arrays.asList(children));
+    }
+    assertNull("publish state must not be reset", operation.publishState);
+  }
+
+  @Test
+  public void testExecute_canceled() throws CoreException {
+    when(monitor.isCanceled()).thenReturn(true);
+    operation.deltas = new IModuleResourceDelta[] {
+        delta(IModuleResourceDelta.ADDED, file("a.txt")),
+        delta(IModuleResourceDelta.CHANGED, file("b.txt"))};
+
+    try {
+      operation.execute(monitor, null);
+      fail("cancellation not reported");
+    } catch (OperationCanceledException ex) {
+      // expected
+    }
+    assertTrue(published.isEmpty());
+    assertNull("publish state must not be reset", operation.publishState);
+  }
+
+  @Test
+  public void testExecute_helperPerTask() throws CoreException {
+    operation.deltas = new IModuleResourceDelta[] {
+        delta(IModuleResourceDelta.ADDED, file("a.txt")),
+        delta(IModuleResourceDelta.ADDED, file("b.txt")),
+        delta(IModuleResourceDelta.ADDED, file("c.txt"))};
+
+    operation.execute(monitor, null);
+
+    assertEquals(3, published.size());
+    // one for the operation, and one for each copied file
+    assertEquals(4, helpers.size());
+    assertEquals(4, new HashSet<PublishHelper>(helpers).size());
+  }
+
+  private static IModuleResourceDelta delta(int kind, IModuleResource resource,
+      IModuleResourceDelta... children) {
+    IModuleResourceDelta delta = mock(IModuleResourceDelta.class);
+    when(delta.getKind()).thenReturn(kind);
+    when(delta.getModuleResource()).thenReturn(resource);
+    when(delta.getAffectedChildren()).thenReturn(children);
+    return delta;
+  }
+
+  private static IModuleFile file(String name) {
+    IModuleFile file = mock(IModuleFile.class);
+    when(file.getName()).thenReturn(name);
+    return file;
+  }
+
+  private static IModuleFolder folder(String name) {
+    IModuleFolder folder = mock(IModuleFolder.class);
+    when(folder.getName()).thenReturn(name);
+    return folder;
+  }
+
+  private class TestPublishOperation extends BasePublishOperation {
+    private final IPath deployDirectory = new Path("/nonexistent/module");
+    private IModuleResourceDelta[] deltas;
+    private Integer publishState;
+
+    private TestPublishOperation() {
+      super("test", "test", IServer.PUBLISH_INCREMENTAL, new IModule[] {mock(IModule.class)},
+          ServerBehaviourDelegate.CHANGED);
+    }
+
+    @Override
+    protected PublishHelper createPublishHelper() {
+      PublishHelper helper = mock(PublishHelper.class);
+      doAnswer(new Answer<IStatus[]>() {
+        @Override
+        public IStatus[] answer(InvocationOnMock invocation) throws InterruptedException {
+          IModuleResourceDelta delta = (IModuleResourceDelta) invocation.getArguments()[0];
+          published.add(delta);
+          int index = Arrays.asList(deltas).indexOf(delta);
+          if (index < 0 || index >= helperStatuses.size()) {
+            return new IStatus[0];
+          }
+          // let later files finish first
+          Thread.sleep(10 * (helperStatuses.size() - index));
+          return new IStatus[] {helperStatuses.get(index)};
+        }
+      }).when(helper).publishDelta(any(IModuleResourceDelta.class), any(IPath.class),
+          any(IProgressMonitor.class));
+      helpers.add(helper);
+      return helper;
+    }
+
+    @Override
+    protected IPath getRuntimeBaseDirectory() {
+      return deployDirectory.removeLastSegments(1);
+    }
+
+    @Override
+    protected IPath getModuleDeployDirectory(IModule module) {
+      return deployDirectory;
+    }
+
+    @Override
+    protected void setModulePublishState(IModule[] module, int publishState) {
+      this.publishState = publishState;
+    }
+
+    @Override
+    protected IModuleResourceDelta[] getPublishedResourceDelta(IModule[] module) {
+      return deltas;
+    }
+
+    @Override
+    protected IModuleResource[] getResources(IModule[] module) {
+      return new IModuleResource[0];
+    }
+
+    @Override
+    protected boolean isServeModulesWithoutPublish() {
+      return false;
+    }
+  }
+}
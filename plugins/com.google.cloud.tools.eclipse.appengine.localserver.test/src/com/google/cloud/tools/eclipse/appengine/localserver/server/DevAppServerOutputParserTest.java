@@ -0,0 +1,176 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.cloud.tools.eclipse.appengine.localserver.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DevAppServerOutputParserTest {
+
+  private static final String[] startOutput = new String[] {
+      "INFO     2016-11-03 21:11:21,956 api_server.py:205] Starting API server at: http://localhost:52892",
+      "INFO     2016-11-03 21:11:21,959 dispatcher.py:197] Starting module \"default\" running at: http://localhost:8080",
+      "INFO     2016-11-03 21:11:21,959 dispatcher.py:197] Starting module \"second\" running at: http://localhost:8081",
+      "INFO     2016-11-03 21:11:21,959 admin_server.py:116] Starting admin server at: http://localhost:8000",
+      "Nov 03, 2016 9:11:23 PM com.google.appengine.tools.development.SystemPropertiesManager setSystemProperties",
+      "INFO: Dev App Server is now running"
+  };
+
+  private final DevAppServerOutputParser parser = new DevAppServerOutputParser();
+  @Mock private DevAppServerOutputParser.Listener listener;
+
+  @Before
+  public void setUp() {
+    parser.addListener(listener);
+  }
+
+  private void parse(String... lines) {
+    for (String line : lines) {
+      parser.onOutputLine(line);
+    }
+  }
+
+  @Test
+  public void testStartEvents() {
+    parse(startOutput);
+
+    InOrder inOrder = inOrder(listener);
+    inOrder.verify(listener).moduleStarted("default", 8080);
+    inOrder.verify(listener).moduleStarted("second", 8081);
+    inOrder.verify(listener).adminServerStarted(8000);
+    inOrder.verify(listener).serverStarted();
+  }
+
+  @Test
+  public void testFlexibleStarted() {
+    parse("[INFO] org.eclipse.jetty.server.Server:main: Started");
+    verify(listener).serverStarted();
+  }
+
+  @Test
+  public void testRequestLogged() {
+    parse(startOutput);
+    parse("INFO     2016-11-03 21:11:25,101 module.py:788] default: \"GET /index.html?a=b HTTP/1.1\" 200 1234");
+    verify(listener).requestLogged("default", "GET", "/index.html?a=b", 200, 1234L);
+  }
+
+  @Test
+  public void testRequestLogged_noResponseSize() {
+    parse(startOutput);
+    parse("INFO     2016-11-03 21:11:25,101 module.py:788] second: \"POST /form HTTP/1.1\" 302 -");
+    verify(listener).requestLogged("second", "POST", "/form", 302, -1L);
+  }
+
+  @Test
+  public void testRequestLogged_ignoredWhileStarting() {
+    parse("INFO     2016-11-03 21:11:25,101 module.py:788] default: \"GET / HTTP/1.1\" 200 1");
+    verify(listener, never()).requestLogged(anyString(), anyString(), anyString(), anyInt(),
+        anyLong());
+  }
+
+  @Test
+  public void testModuleStarted_ignoredWhileRunning() {
+    parse(startOutput);
+    parse(startOutput[1]);
+    verify(listener).moduleStarted("default", 8080);
+  }
+
+  @Test
+  public void testOtherLogLinesIgnored() {
+    parse(startOutput);
+    parse("INFO     2016-11-03 21:11:25,101 module.py:388] Detected file changes: \"x\" 1",
+        "WARNING  2016-11-03 21:11:25,101 module.py:788] default has no handlers");
+    verify(listener, never()).requestLogged(anyString(), anyString(), anyString(), anyInt(),
+        anyLong());
+  }
+
+  @Test
+  public void testTraceback() {
+    parse("Traceback (most recent call last):",
+        "  File \"dev_appserver.py\", line 101, in <module>",
+        "    _run_file(__file__, globals())",
+        "ValueError: bad port",
+        startOutput[1]);
+
+    verify(listener).serverFailed(Arrays.asList("Traceback (most recent call last):",
+        "  File \"dev_appserver.py\", line 101, in <module>",
+        "    _run_file(__file__, globals())",
+        "ValueError: bad port"));
+    // parsing resumes in the state before the traceback
+    verify(listener).moduleStarted("default", 8080);
+  }
+
+  @Test
+  public void testTraceback_notReportedUntilComplete() {
+    parse("Traceback (most recent call last):",
+        "  File \"dev_appserver.py\", line 101, in <module>");
+    verify(listener, never()).serverFailed(anyListOf(String.class));
+  }
+
+  @Test
+  public void testReset() {
+    parse(startOutput);
+    parser.reset();
+    parse(startOutput[1]);
+    verify(listener, times(2)).moduleStarted("default", 8080);
+  }
+
+  @Test
+  public void testExtractPort_hostName() {
+    assertEquals(567, DevAppServerOutputParser.extractPort("http://localhost:567"));
+    assertEquals(1234, DevAppServerOutputParser.extractPort("http://my-machine:1234"));
+    assertEquals(80, DevAppServerOutputParser.extractPort("http://www.a-b.c.com:80"));
+  }
+
+  @Test
+  public void testExtractPort_ipv4Address() {
+    assertEquals(5678, DevAppServerOutputParser.extractPort("http://0.0.0.0:5678"));
+    assertEquals(1234, DevAppServerOutputParser.extractPort("http://192.168.1.4:1234"));
+  }
+
+  @Test
+  public void testExtractPort_path() {
+    assertEquals(8080, DevAppServerOutputParser.extractPort("at: http://localhost:8080/_ah/admin"));
+  }
+
+  @Test
+  public void testExtractPort_noPortUrl() {
+    assertEquals(-1, DevAppServerOutputParser.extractPort("http://localhost"));
+  }
+
+  @Test
+  public void testExtractPort_noMatch() {
+    assertEquals(-1, DevAppServerOutputParser.extractPort("arbitrary string"));
+  }
+}
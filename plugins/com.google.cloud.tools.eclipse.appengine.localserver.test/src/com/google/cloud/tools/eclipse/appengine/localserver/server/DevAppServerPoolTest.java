@@ -0,0 +1,140 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.localserver.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import com.google.cloud.tools.appengine.cloudsdk.process.ProcessExitListener;
+import com.google.cloud.tools.appengine.cloudsdk.process.ProcessOutputLineListener;
+import com.google.cloud.tools.appengine.cloudsdk.process.ProcessStartListener;
+import com.google.cloud.tools.eclipse.appengine.localserver.server.DevAppServerPool.Key;
+import com.google.cloud.tools.eclipse.appengine.localserver.server.DevAppServerPool.PrestartedDevServer;
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DevAppServerPoolTest {
+
+  @Mock private Process process;
+  @Mock private ProcessOutputLineListener outputListener;
+  @Mock private ProcessStartListener startListener;
+  @Mock private ProcessExitListener exitListener;
+
+  private final DevAppServerPool pool = new DevAppServerPool();
+
+  private static Key newKey(String module, int port) {
+    return new Key(Paths.get("/sdk"), "150.0.0",
+        Collections.singletonList(new File(module)), "localhost", port, 8000);
+  }
+
+  @Test
+  public void testKey_equals() {
+    assertEquals(newKey("default", 8080), newKey("default", 8080));
+    assertEquals(newKey("default", 8080).hashCode(), newKey("default", 8080).hashCode());
+    assertNotEquals(newKey("default", 8080), newKey("default", 8081));
+    assertNotEquals(newKey("default", 8080), newKey("other", 8080));
+    assertNotEquals(newKey("default", 8080), new Key(Paths.get("/sdk"), "151.0.0",
+        Collections.singletonList(new File("default")), "localhost", 8080, 8000));
+  }
+
+  @Test
+  public void testTake_nothingPrestarted() {
+    assertNull(pool.take("server", newKey("default", 8080)));
+  }
+
+  @Test
+  public void testAdopt_replaysBufferedOutput() {
+    PrestartedDevServer server = pool.new PrestartedDevServer(newKey("default", 8080), 8080, 8000);
+    server.onStart(process);
+    server.onOutputLine("line 1");
+    server.onOutputLine("line 2");
+
+    server.adopt(Arrays.asList(outputListener), startListener, exitListener);
+    server.onOutputLine("line 3");
+
+    verify(startListener).onStart(process);
+    InOrder inOrder = inOrder(outputListener);
+    inOrder.verify(outputListener).onOutputLine("line 1");
+    inOrder.verify(outputListener).onOutputLine("line 2");
+    inOrder.verify(outputListener).onOutputLine("line 3");
+    verifyNoMoreInteractions(exitListener);
+  }
+
+  @Test
+  public void testAdopt_keepsStartLinesAndLastLines() {
+    String moduleStarted = "INFO 2016-11-03 21:11:25,101 dispatcher.py:197] "
+        + "Starting module \"default\" running at: http://localhost:8080";
+    String serverStarted = "INFO: Dev App Server is now running";
+    PrestartedDevServer server = pool.new PrestartedDevServer(newKey("default", 8080), 8080, 8000);
+    server.onOutputLine(moduleStarted);
+    server.onOutputLine(serverStarted);
+    for (int i = 0; i < 2000; i++) {
+      server.onOutputLine("line " + i);
+    }
+
+    server.adopt(Arrays.asList(outputListener), startListener, exitListener);
+
+    InOrder inOrder = inOrder(outputListener);
+    inOrder.verify(outputListener).onOutputLine(moduleStarted);
+    inOrder.verify(outputListener).onOutputLine(serverStarted);
+    inOrder.verify(outputListener).onOutputLine("line 1000");
+    inOrder.verify(outputListener).onOutputLine("line 1999");
+    verify(outputListener, never()).onOutputLine("line 999");
+  }
+
+  @Test
+  public void testAdopt_forwardsStartAndExit() {
+    PrestartedDevServer server = pool.new PrestartedDevServer(newKey("default", 8080), 8080, 8000);
+    server.adopt(Arrays.asList(outputListener), startListener, exitListener);
+    server.onStart(process);
+    server.onExit(0);
+
+    verify(startListener).onStart(process);
+    verify(exitListener).onExit(0);
+  }
+
+  @Test
+  public void testAdopt_exitedBeforeAdoption() {
+    PrestartedDevServer server = pool.new PrestartedDevServer(newKey("default", 8080), 8080, 8000);
+    server.onStart(process);
+    server.onExit(1);
+
+    server.adopt(Arrays.asList(outputListener), startListener, exitListener);
+    verify(exitListener).onExit(1);
+  }
+
+  @Test
+  public void testGetPorts() {
+    PrestartedDevServer server = pool.new PrestartedDevServer(newKey("default", 0), 43210, 43211);
+    assertEquals(43210, server.getPort());
+    assertEquals(43211, server.getAdminPort());
+    assertNull(server.getDevServer());
+  }
+}
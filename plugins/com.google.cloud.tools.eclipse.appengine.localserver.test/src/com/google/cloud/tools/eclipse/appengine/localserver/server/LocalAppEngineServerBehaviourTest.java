@@ -17,14 +17,19 @@
 package com.google.cloud.tools.eclipse.appengine.localserver.server;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import com.google.cloud.tools.eclipse.appengine.localserver.server.LocalAppEngineServerBehaviour.PortProber;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.debug.core.ILaunch;
+import org.eclipse.debug.core.model.IDebugTarget;
 import org.eclipse.wst.server.core.IServer;
 import org.junit.Before;
 import org.junit.Test;
@@ -168,39 +173,6 @@ public class LocalAppEngineServerBehaviourTest {
     }
   }
 
-  @Test
-  public void testExtractPortFromServerUrlOutput_hostName() {
-    int port = LocalAppEngineServerBehaviour.extractPortFromServerUrlOutput("http://localhost:567");
-    assertEquals(567, port);
-
-    port = LocalAppEngineServerBehaviour.extractPortFromServerUrlOutput("http://my-machine:1234");
-    assertEquals(1234, port);
-
-    port = LocalAppEngineServerBehaviour.extractPortFromServerUrlOutput("http://www.a-b.c.com:80");
-    assertEquals(80, port);
-  }
-
-  @Test
-  public void testExtractPortFromServerUrlOutput_ipv4Address() {
-    int port = LocalAppEngineServerBehaviour.extractPortFromServerUrlOutput("http://0.0.0.0:5678");
-    assertEquals(5678, port);
-
-    port = LocalAppEngineServerBehaviour.extractPortFromServerUrlOutput("http://192.168.1.4:1234");
-    assertEquals(1234, port);
-  }
-
-  @Test
-  public void testExtractPortFromServerUrlOutput_noPortUrl() {
-    int port = LocalAppEngineServerBehaviour.extractPortFromServerUrlOutput("http://localhost");
-    assertEquals(-1, port);
-  }
-
-  @Test
-  public void testExtractPortFromDevServerUrlOutput_noMatch() {
-    int port = LocalAppEngineServerBehaviour.extractPortFromServerUrlOutput("arbitrary string");
-    assertEquals(-1, port);
-  }
-
   private static final String[] serverOutputWithDefaultModule1 = new String[] {
       "WARNING  2016-11-03 21:11:21,930 devappserver2.py:785] DEFAULT_VERSION_HOSTNAME will not be set correctly with --port=0",
       "INFO     2016-11-03 21:11:21,956 api_server.py:205] Starting API server at: http://localhost:52892",
@@ -277,11 +249,53 @@ public class LocalAppEngineServerBehaviourTest {
     assertEquals(43679, serverBehavior.adminPort);
   }
 
+  @Test
+  public void testRequiresRestart_staticChange() {
+    assertFalse(LocalAppEngineServerBehaviour.requiresRestart(ModuleChange.NONE, "run"));
+    assertFalse(LocalAppEngineServerBehaviour.requiresRestart(ModuleChange.STATIC, "run"));
+    assertFalse(LocalAppEngineServerBehaviour.requiresRestart(ModuleChange.STATIC, "debug"));
+  }
+
+  @Test
+  public void testRequiresRestart_classChange() {
+    assertTrue(LocalAppEngineServerBehaviour.requiresRestart(ModuleChange.CLASSES, "run"));
+    assertFalse(LocalAppEngineServerBehaviour.requiresRestart(ModuleChange.CLASSES, "debug"));
+  }
+
+  @Test
+  public void testRequiresRestart_structuralChange() {
+    assertTrue(LocalAppEngineServerBehaviour.requiresRestart(ModuleChange.STRUCTURAL, "run"));
+    assertTrue(LocalAppEngineServerBehaviour.requiresRestart(ModuleChange.STRUCTURAL, "debug"));
+  }
+
+  @Test
+  public void testIsServerTarget() {
+    ILaunch launch = mock(ILaunch.class);
+    IDebugTarget target = mock(IDebugTarget.class);
+    when(target.getLaunch()).thenReturn(launch);
+    when(server.getLaunch()).thenReturn(launch);
+    assertTrue(LocalAppEngineServerBehaviour.isServerTarget(target, server));
+  }
+
+  @Test
+  public void testIsServerTarget_otherLaunch() {
+    IDebugTarget target = mock(IDebugTarget.class);
+    when(target.getLaunch()).thenReturn(mock(ILaunch.class));
+    when(server.getLaunch()).thenReturn(mock(ILaunch.class));
+    assertFalse(LocalAppEngineServerBehaviour.isServerTarget(target, server));
+  }
+
+  @Test
+  public void testIsServerTarget_serverNotLaunched() {
+    IDebugTarget target = mock(IDebugTarget.class);
+    assertFalse(LocalAppEngineServerBehaviour.isServerTarget(target, server));
+  }
+
   private void simulateOutputParsing(String[] output) {
-    LocalAppEngineServerBehaviour.DevAppServerOutputListener outputListener =
-        serverBehavior.new DevAppServerOutputListener();
+    DevAppServerOutputParser outputParser = new DevAppServerOutputParser();
+    outputParser.addListener(serverBehavior.new DevAppServerOutputListener());
     for (String line : output) {
-      outputListener.onOutputLine(line);
+      outputParser.onOutputLine(line);
     }
   }
 }
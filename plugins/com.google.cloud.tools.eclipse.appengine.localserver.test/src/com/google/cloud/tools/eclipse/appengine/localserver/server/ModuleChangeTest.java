@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.localserver.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.wst.server.core.model.IModuleFile;
+import org.eclipse.wst.server.core.model.IModuleFolder;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.eclipse.wst.server.core.model.IModuleResourceDelta;
+import org.junit.Test;
+
+public class ModuleChangeTest {
+
+  @Test
+  public void testOf_staticFile() {
+    assertEquals(ModuleChange.STATIC, ModuleChange.of(new Path("index.html"), false));
+    assertEquals(ModuleChange.STATIC, ModuleChange.of(new Path("css/style.css"), false));
+  }
+
+  @Test
+  public void testOf_jsp() {
+    assertEquals(ModuleChange.STATIC, ModuleChange.of(new Path("index.jsp"), false));
+    assertEquals(ModuleChange.STATIC, ModuleChange.of(new Path("WEB-INF/views/list.jsp"), false));
+  }
+
+  @Test
+  public void testOf_classFile() {
+    assertEquals(ModuleChange.CLASSES,
+        ModuleChange.of(new Path("WEB-INF/classes/com/example/Servlet.class"), false));
+    assertEquals(ModuleChange.CLASSES,
+        ModuleChange.of(new Path("WEB-INF/classes/com/example"), true));
+  }
+
+  @Test
+  public void testOf_deploymentDescriptor() {
+    assertEquals(ModuleChange.STRUCTURAL, ModuleChange.of(new Path("WEB-INF/web.xml"), false));
+    assertEquals(ModuleChange.STRUCTURAL,
+        ModuleChange.of(new Path("WEB-INF/appengine-web.xml"), false));
+  }
+
+  @Test
+  public void testOf_library() {
+    assertEquals(ModuleChange.STRUCTURAL,
+        ModuleChange.of(new Path("WEB-INF/lib/guava.jar"), false));
+  }
+
+  @Test
+  public void testOf_classPathResource() {
+    assertEquals(ModuleChange.STRUCTURAL,
+        ModuleChange.of(new Path("WEB-INF/classes/logging.properties"), false));
+  }
+
+  @Test
+  public void testOf_noDeltas() {
+    assertEquals(ModuleChange.NONE, ModuleChange.of((IModuleResourceDelta[]) null));
+    assertEquals(ModuleChange.NONE, ModuleChange.of(new IModuleResourceDelta[0]));
+  }
+
+  @Test
+  public void testOf_deltasUseMostSevereChange() {
+    IModuleResourceDelta html = newDelta(mockFile(Path.EMPTY, "index.html"));
+    IModuleResourceDelta servlet =
+        newDelta(mockFile(new Path("WEB-INF/classes/com/example"), "Servlet.class"));
+    IModuleResourceDelta webXml = newDelta(mockFile(new Path("WEB-INF"), "web.xml"));
+
+    assertEquals(ModuleChange.STATIC, ModuleChange.of(new IModuleResourceDelta[] {html}));
+    assertEquals(ModuleChange.CLASSES,
+        ModuleChange.of(new IModuleResourceDelta[] {html, servlet}));
+    assertEquals(ModuleChange.STRUCTURAL,
+        ModuleChange.of(new IModuleResourceDelta[] {webXml, html, servlet}));
+  }
+
+  @Test
+  public void testOf_nestedDeltas() {
+    IModuleResourceDelta servlet =
+        newDelta(mockFile(new Path("WEB-INF/classes/com/example"), "Servlet.class"));
+    IModuleFolder folder = mock(IModuleFolder.class);
+    when(folder.getModuleRelativePath()).thenReturn(new Path("WEB-INF/classes/com"));
+    when(folder.getName()).thenReturn("example");
+    IModuleResourceDelta parent = newDelta(folder, servlet);
+
+    assertEquals(ModuleChange.CLASSES, ModuleChange.of(new IModuleResourceDelta[] {parent}));
+  }
+
+  @Test
+  public void testOf_unchangedDelta() {
+    IModuleResourceDelta delta = newDelta(mockFile(new Path("WEB-INF"), "web.xml"));
+    when(delta.getKind()).thenReturn(IModuleResourceDelta.NO_CHANGE);
+
+    assertEquals(ModuleChange.NONE, ModuleChange.of(new IModuleResourceDelta[] {delta}));
+  }
+
+  private static IModuleFile mockFile(IPath parent, String name) {
+    IModuleFile file = mock(IModuleFile.class);
+    when(file.getModuleRelativePath()).thenReturn(parent);
+    when(file.getName()).thenReturn(name);
+    return file;
+  }
+
+  private static IModuleResourceDelta newDelta(IModuleResource resource,
+      IModuleResourceDelta... children) {
+    IModuleResourceDelta delta = mock(IModuleResourceDelta.class);
+    when(delta.getKind()).thenReturn(IModuleResourceDelta.CHANGED);
+    when(delta.getModuleResource()).thenReturn(resource);
+    when(delta.getAffectedChildren()).thenReturn(children);
+    return delta;
+  }
+}
@@ -16,6 +16,8 @@
 
 package com.google.cloud.tools.eclipse.appengine.localserver.server;
 
+import com.google.cloud.tools.eclipse.appengine.facets.AppEngineProjectIndex;
+
 import java.io.InputStream;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -40,7 +42,7 @@ public class ModuleUtilsTest {
 
   @Before
   public void turnOffLogging() {
-    Logger logger = Logger.getLogger(ModuleUtils.class.getName());
+    Logger logger = Logger.getLogger(AppEngineProjectIndex.class.getName());
     logger.setLevel(Level.OFF);
   }
   
@@ -16,6 +16,7 @@
 
 package com.google.cloud.tools.eclipse.appengine.localserver;
 
+import com.google.cloud.tools.eclipse.appengine.localserver.server.DevAppServerPool;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.jface.dialogs.MessageDialog;
@@ -49,6 +50,7 @@ public class Activator extends AbstractUIPlugin {
 
   @Override
   public void stop(BundleContext context) throws Exception {
+    DevAppServerPool.getInstance().shutdown();
     plugin = null;
     super.stop(context);
   }
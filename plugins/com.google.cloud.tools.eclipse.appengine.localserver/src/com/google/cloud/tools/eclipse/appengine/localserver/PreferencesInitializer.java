@@ -22,9 +22,13 @@ import org.eclipse.core.runtime.preferences.DefaultScope;
 public class PreferencesInitializer extends AbstractPreferenceInitializer {
 
   public static final String LAUNCH_BROWSER = "launchBrowser";
+  public static final String FAST_RELOAD = "fastReload";
+  public static final String PRESTART_DEV_SERVER = "prestartDevServer";
 
   @Override
   public void initializeDefaultPreferences() {
     DefaultScope.INSTANCE.getNode(Activator.PLUGIN_ID).putBoolean(LAUNCH_BROWSER, true);
+    DefaultScope.INSTANCE.getNode(Activator.PLUGIN_ID).putBoolean(FAST_RELOAD, false);
+    DefaultScope.INSTANCE.getNode(Activator.PLUGIN_ID).putBoolean(PRESTART_DEV_SERVER, false);
   }
 }
@@ -16,24 +16,16 @@
 
 package com.google.cloud.tools.eclipse.appengine.localserver;
 
-import com.google.cloud.tools.eclipse.appengine.libraries.model.Library;
-import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFactory;
-import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFactoryException;
+import com.google.cloud.tools.eclipse.appengine.libraries.ILibraryRegistryService;
 import com.google.cloud.tools.eclipse.appengine.libraries.model.LibraryFile;
 import com.google.cloud.tools.eclipse.appengine.libraries.repository.ILibraryRepositoryService;
 import com.google.cloud.tools.eclipse.appengine.libraries.repository.LibraryRepositoryServiceException;
 import com.google.cloud.tools.eclipse.util.MavenUtils;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 import javax.inject.Inject;
 import org.eclipse.core.resources.IProject;
-import org.eclipse.core.runtime.IConfigurationElement;
-import org.eclipse.core.runtime.IExtensionRegistry;
 import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jst.server.core.RuntimeClasspathProviderDelegate;
 import org.eclipse.wst.server.core.IRuntime;
@@ -46,21 +38,18 @@ import org.eclipse.wst.server.core.IRuntime;
  */
 public class ServletClasspathProvider extends RuntimeClasspathProviderDelegate {
 
-  private static final Logger logger = Logger.getLogger(ServletClasspathProvider.class.getName());
-
-  private Map<String, Library> libraries;
-
   @Inject
   private ILibraryRepositoryService service;
   @Inject
-  private IExtensionRegistry extensionRegistry;
+  private ILibraryRegistryService libraryRegistry;
 
   public ServletClasspathProvider() {
   }
 
   @VisibleForTesting
-  ServletClasspathProvider(Map<String, Library> libraries, ILibraryRepositoryService repositoryService) {
-    this.libraries = libraries;
+  ServletClasspathProvider(ILibraryRegistryService libraryRegistry,
+                           ILibraryRepositoryService repositoryService) {
+    this.libraryRegistry = libraryRegistry;
     service = repositoryService;
   }
 
@@ -83,16 +72,15 @@ public class ServletClasspathProvider extends RuntimeClasspathProviderDelegate {
   @Override
   public IClasspathEntry[] resolveClasspathContainer(IRuntime runtime) {
     try {
-      initializeLibraries(new LibraryFactory());
-
       // servlet api is assumed to be a single file
-      List<LibraryFile> servletApiLibraryFiles = libraries.get("servlet-api").getLibraryFiles();
+      List<LibraryFile> servletApiLibraryFiles =
+          libraryRegistry.getLibrary("servlet-api").getLibraryFiles();
       Preconditions.checkState(servletApiLibraryFiles.size() == 1);
       LibraryFile servletApi = servletApiLibraryFiles.get(0);
       IClasspathEntry servletApiEntry = service.getLibraryClasspathEntry(servletApi);
 
       // jsp api is assumed to be a single file
-      List<LibraryFile> jspApiLibraryFiles = libraries.get("jsp-api").getLibraryFiles();
+      List<LibraryFile> jspApiLibraryFiles = libraryRegistry.getLibrary("jsp-api").getLibraryFiles();
       Preconditions.checkState(jspApiLibraryFiles.size() == 1);
       LibraryFile jspApi = jspApiLibraryFiles.get(0);
       IClasspathEntry jspApiEntry = service.getLibraryClasspathEntry(jspApi);
@@ -102,22 +90,4 @@ public class ServletClasspathProvider extends RuntimeClasspathProviderDelegate {
       return null;
     }
   }
-
-  // TODO parse library definition in ILibraryConfigService (or similar) started when the plugin/bundle starts
-  // https://github.com/GoogleCloudPlatform/google-cloud-eclipse/issues/856
-  private void initializeLibraries(LibraryFactory libraryFactory) {
-    if (libraries == null) {
-      IConfigurationElement[] configurationElements =
-          extensionRegistry.getConfigurationElementsFor("com.google.cloud.tools.eclipse.appengine.libraries");
-      libraries = new HashMap<>(configurationElements.length);
-      for (IConfigurationElement configurationElement : configurationElements) {
-        try {
-          Library library = libraryFactory.create(configurationElement);
-          libraries.put(library.getId(), library);
-        } catch (LibraryFactoryException exception) {
-          logger.log(Level.SEVERE, "Failed to initialize libraries", exception); //$NON-NLS-1$
-        }
-      }
-    }
-  }
 }
@@ -16,6 +16,7 @@
 
 package com.google.cloud.tools.eclipse.appengine.localserver.launching;
 
+import com.google.cloud.tools.eclipse.appengine.facets.AppEngineProjectIndex;
 import com.google.cloud.tools.eclipse.appengine.localserver.Messages;
 import com.google.cloud.tools.eclipse.appengine.localserver.server.LocalAppEngineServerDelegate;
 import com.google.cloud.tools.eclipse.util.AdapterUtil;
@@ -27,6 +28,7 @@ import com.google.common.collect.Sets;
 import com.google.common.collect.Sets.SetView;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -98,10 +100,12 @@ public class LaunchHelper {
     }
     Set<IModule> myModules = ImmutableSet.copyOf(modules);
     List<IServer> matches = new ArrayList<>();
-    // Look for servers that contain these modules
+    // Look for servers that contain these modules; only those that contain the first one can.
     // Could prioritize servers that have *exactly* these modules,
     // or that have the smallest overlap
-    for (IServer server : ServerCore.getServers()) {
+    Collection<IServer> candidates = modules.length == 0 ? Arrays.asList(ServerCore.getServers())
+        : AppEngineProjectIndex.getInstance().getServers(modules[0]);
+    for (IServer server : candidates) {
       if (!LocalAppEngineServerDelegate.SERVER_TYPE_ID.equals(server.getServerType().getId())) {
         continue;
       }
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.cloud.tools.eclipse.appengine.localserver.server;
+
+import com.google.cloud.tools.appengine.cloudsdk.process.ProcessOutputLineListener;
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Recognizes the well-known lines of dev_appserver output and reports them as typed events to its
+ * {@link Listener}s. Each line is examined once, and only for the messages expected in the current
+ * state: the module and admin server URLs and the start markers while the server is starting, the
+ * request log once it runs, and the lines of a Python traceback until the exception that ends it.
+ * Strings are only extracted from lines that match.
+ */
+public class DevAppServerOutputParser implements ProcessOutputLineListener {
+
+  private static final Logger logger = Logger.getLogger(DevAppServerOutputParser.class.getName());
+
+  /** Receives the events recognized in the output. Called on the thread reading the output. */
+  public interface Listener {
+    /** A module started serving on {@code port}. */
+    void moduleStarted(String module, int port);
+
+    /** The admin server started on {@code port}, after all the modules. */
+    void adminServerStarted(int port);
+
+    /** The server is ready to handle requests. */
+    void serverStarted();
+
+    /** The server failed with a Python traceback, which ends with the exception line. */
+    void serverFailed(List<String> traceback);
+
+    /**
+     * A module handled a request.
+     *
+     * @param responseSize the size of the response body in bytes, or -1 if it is not known
+     */
+    void requestLogged(String module, String method, String path, int status, long responseSize);
+  }
+
+  /** A {@link Listener} that ignores all events, to subclass for the events of interest. */
+  public static class Adapter implements Listener {
+    @Override
+    public void moduleStarted(String module, int port) {}
+
+    @Override
+    public void adminServerStarted(int port) {}
+
+    @Override
+    public void serverStarted() {}
+
+    @Override
+    public void serverFailed(List<String> traceback) {}
+
+    @Override
+    public void requestLogged(String module, String method, String path, int status,
+        long responseSize) {}
+  }
+
+  private enum State { STARTING, RUNNING, TRACEBACK }
+
+  private static final String STANDARD_STARTED = "Dev App Server is now running"; //$NON-NLS-1$
+  private static final String FLEXIBLE_STARTED = ".Server:main: Started"; //$NON-NLS-1$
+  private static final String TRACEBACK = "Traceback (most recent call last):"; //$NON-NLS-1$
+  private static final String STARTING_MODULE = "Starting module \""; //$NON-NLS-1$
+  private static final String RUNNING_AT = "\" running at: "; //$NON-NLS-1$
+  private static final String STARTING_ADMIN_SERVER = "Starting admin server at: "; //$NON-NLS-1$
+  private static final String HTTP = "http://"; //$NON-NLS-1$
+
+  /** Traceback lines kept, so that a runaway traceback does not grow without bound. */
+  private static final int MAX_TRACEBACK_LINES = 200;
+
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+  private State state = State.STARTING;
+  private State stateAfterTraceback;
+  private List<String> traceback;
+
+  public void addListener(Listener listener) {
+    Preconditions.checkNotNull(listener);
+    listeners.add(listener);
+  }
+
+  public void removeListener(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  /** Expects the output of a new dev_appserver process. */
+  public synchronized void reset() {
+    state = State.STARTING;
+    stateAfterTraceback = null;
+    traceback = null;
+  }
+
+  @Override
+  public synchronized void onOutputLine(String line) {
+    switch (state) {
+      case STARTING:
+        parseStartingLine(line);
+        break;
+      case RUNNING:
+        parseRunningLine(line);
+        break;
+      case TRACEBACK:
+        parseTracebackLine(line);
+        break;
+      default:
+        throw new IllegalStateException(state.name());
+    }
+  }
+
+  private void parseStartingLine(String line) {
+    if (line.endsWith(STANDARD_STARTED) || line.endsWith(FLEXIBLE_STARTED)) {
+      // App Engine Standard (v1) or Flexible (v2)
+      state = State.RUNNING;
+      for (Listener listener : listeners) {
+        listener.serverStarted();
+      }
+      return;
+    }
+    if (startTraceback(line)) {
+      return;
+    }
+    int message = messageStart(line);
+    if (message < 0) {
+      return;
+    }
+    if (line.startsWith(STARTING_MODULE, message)) {
+      int nameBegin = message + STARTING_MODULE.length();
+      int nameEnd = line.indexOf(RUNNING_AT, nameBegin);
+      if (nameEnd < 0) {
+        return;
+      }
+      int port = extractPort(line, nameEnd + RUNNING_AT.length());
+      String module = line.substring(nameBegin, nameEnd);
+      for (Listener listener : listeners) {
+        listener.moduleStarted(module, port);
+      }
+    } else if (line.startsWith(STARTING_ADMIN_SERVER, message)) {
+      int port = extractPort(line, message + STARTING_ADMIN_SERVER.length());
+      for (Listener listener : listeners) {
+        listener.adminServerStarted(port);
+      }
+    }
+  }
+
+  /**
+   * Parses the request log of dev_appserver, e.g.
+   * {@code INFO 2016-11-03 21:11:25,101 module.py:788] default: "GET / HTTP/1.1" 200 1234}.
+   */
+  private void parseRunningLine(String line) {
+    if (startTraceback(line)) {
+      return;
+    }
+    int message = messageStart(line);
+    if (message < 0) {
+      return;
+    }
+    int moduleEnd = line.indexOf(": \"", message); //$NON-NLS-1$
+    if (moduleEnd <= message || line.lastIndexOf(' ', moduleEnd) >= message) {
+      return;
+    }
+    int methodBegin = moduleEnd + 3;
+    int methodEnd = line.indexOf(' ', methodBegin);
+    int requestEnd = line.indexOf("\" ", methodBegin); //$NON-NLS-1$
+    if (methodEnd < 0 || requestEnd < methodEnd) {
+      return;
+    }
+    // the request line ends with the protocol, which is not reported
+    int pathEnd = line.lastIndexOf(' ', requestEnd);
+    if (pathEnd <= methodEnd) {
+      pathEnd = requestEnd;
+    }
+    int statusBegin = requestEnd + 2;
+    int statusEnd = skipDigits(line, statusBegin);
+    if (statusEnd == statusBegin || statusEnd - statusBegin > 3) {
+      return;
+    }
+    int status = Integer.parseInt(line.substring(statusBegin, statusEnd));
+    long responseSize = -1;
+    if (statusEnd < line.length() && line.charAt(statusEnd) == ' ') {
+      int sizeEnd = skipDigits(line, statusEnd + 1);
+      if (sizeEnd > statusEnd + 1 && sizeEnd - statusEnd <= 18) {
+        responseSize = Long.parseLong(line.substring(statusEnd + 1, sizeEnd));
+      }
+    }
+
+    String module = line.substring(message, moduleEnd);
+    String method = line.substring(methodBegin, methodEnd);
+    String path = line.substring(methodEnd + 1, pathEnd);
+    for (Listener listener : listeners) {
+      listener.requestLogged(module, method, path, status, responseSize);
+    }
+  }
+
+  private boolean startTraceback(String line) {
+    if (!line.equals(TRACEBACK)) {
+      return false;
+    }
+    stateAfterTraceback = state;
+    state = State.TRACEBACK;
+    traceback = new ArrayList<>();
+    traceback.add(line);
+    return true;
+  }
+
+  /**
+   * Collects the indented frames of a traceback. The first line that is not indented is the
+   * exception, which ends it.
+   */
+  private void parseTracebackLine(String line) {
+    if (traceback.size() < MAX_TRACEBACK_LINES) {
+      traceback.add(line);
+    }
+    if (line.isEmpty() || line.charAt(0) == ' ' || line.charAt(0) == '\t') {
+      return;
+    }
+    List<String> lines = Collections.unmodifiableList(traceback);
+    state = stateAfterTraceback;
+    stateAfterTraceback = null;
+    traceback = null;
+    for (Listener listener : listeners) {
+      listener.serverFailed(lines);
+    }
+  }
+
+  /**
+   * Returns the start of the message in a line logged by dev_appserver, which follows the level,
+   * the time and the location of the log statement, e.g.
+   * {@code INFO 2016-11-03 21:11:21,959 dispatcher.py:197] message}.
+   *
+   * @return the index of the message, or -1 if the line is not a dev_appserver log line
+   */
+  private static int messageStart(String line) {
+    int end = line.indexOf("] "); //$NON-NLS-1$
+    if (end < 0 || line.isEmpty() || !Character.isUpperCase(line.charAt(0))) {
+      return -1;
+    }
+    return end + 2;
+  }
+
+  private static int skipDigits(String line, int index) {
+    while (index < line.length() && Character.isDigit(line.charAt(index))) {
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * Extracts the port of the last {@code http://} URL in {@code line}.
+   *
+   * @return the port, or -1 if there is no URL with a port
+   */
+  static int extractPort(String line) {
+    return extractPort(line, 0);
+  }
+
+  private static int extractPort(String line, int from) {
+    int urlBegin = line.lastIndexOf(HTTP);
+    if (urlBegin >= from) {
+      int authorityBegin = urlBegin + HTTP.length();
+      int authorityEnd = line.indexOf('/', authorityBegin);
+      if (authorityEnd < 0) {
+        authorityEnd = line.length();
+      }
+      int portBegin = line.lastIndexOf(':', authorityEnd - 1) + 1;
+      if (portBegin > authorityBegin && portBegin < authorityEnd && authorityEnd - portBegin <= 5
+          && skipDigits(line, portBegin) == authorityEnd) {
+        return Integer.parseInt(line.substring(portBegin, authorityEnd));
+      }
+    }
+    logger.log(Level.WARNING, "Cannot extract port from server output: " + line); //$NON-NLS-1$
+    return -1;
+  }
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.localserver.server;
+
+import com.google.cloud.tools.appengine.api.AppEngineException;
+import com.google.cloud.tools.appengine.api.devserver.AppEngineDevServer;
+import com.google.cloud.tools.appengine.api.devserver.DefaultStopConfiguration;
+import com.google.cloud.tools.appengine.cloudsdk.CloudSdk;
+import com.google.cloud.tools.appengine.cloudsdk.CloudSdkAppEngineDevServer;
+import com.google.cloud.tools.appengine.cloudsdk.process.ProcessExitListener;
+import com.google.cloud.tools.appengine.cloudsdk.process.ProcessOutputLineListener;
+import com.google.cloud.tools.appengine.cloudsdk.process.ProcessStartListener;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps a dev_appserver process started ahead of time for each server, so that launching the
+ * server adopts a running process instead of waiting for a cold start. The process is started when
+ * the server stops after a run mode launch and is used only if the next launch has the same Cloud
+ * SDK, modules, host and ports. The last lines of its output, and the lines that report its start,
+ * are buffered until it is adopted.
+ */
+public class DevAppServerPool {
+
+  private static final Logger logger = Logger.getLogger(DevAppServerPool.class.getName());
+
+  /** Output lines kept from a process that was not adopted yet, besides its start messages. */
+  private static final int MAX_BUFFERED_LINES = 1000;
+
+  private static final DevAppServerPool instance = new DevAppServerPool();
+
+  private final Map<String, PrestartedDevServer> servers = new HashMap<>();
+  private boolean shutdown;
+
+  public static DevAppServerPool getInstance() {
+    return instance;
+  }
+
+  @VisibleForTesting
+  DevAppServerPool() {
+  }
+
+  /**
+   * Starts a dev_appserver for the server {@code serverId} in the background, replacing the one
+   * previously started for it.
+   *
+   * @param port the port to run the server on, as resolved for the last launch
+   * @param adminPort the admin port, as resolved for the last launch
+   */
+  void prestart(String serverId, Key key, int port, int adminPort) {
+    discard(serverId);
+    PrestartedDevServer server = new PrestartedDevServer(key, port, adminPort);
+    CloudSdk cloudSdk = new CloudSdk.Builder()
+        .sdkPath(key.sdkPath)
+        .addStdOutLineListener(server)
+        .addStdErrLineListener(server)
+        .startListener(server)
+        .exitListener(server)
+        .async(true)
+        .build();
+    server.devServer = new CloudSdkAppEngineDevServer(cloudSdk);
+    synchronized (this) {
+      if (shutdown) {
+        return;
+      }
+      servers.put(serverId, server);
+    }
+    try {
+      server.devServer.run(LocalAppEngineServerBehaviour.newRunConfiguration(
+          key.runnables, key.host, port, adminPort));
+    } catch (AppEngineException ex) {
+      logger.log(Level.WARNING, "Cannot prestart dev_appserver", ex); //$NON-NLS-1$
+      discard(serverId);
+    }
+  }
+
+  /**
+   * Returns the dev_appserver started ahead of time for the server {@code serverId} if it was
+   * started for the same configuration and is still running. A server started for another
+   * configuration is stopped.
+   *
+   * @return the server, which is no longer part of this pool, or {@code null}
+   */
+  PrestartedDevServer take(String serverId, Key key) {
+    PrestartedDevServer server;
+    synchronized (this) {
+      server = servers.remove(serverId);
+    }
+    if (server == null) {
+      return null;
+    }
+    if (!server.key.equals(key) || server.hasExited()) {
+      server.destroy();
+      return null;
+    }
+    return server;
+  }
+
+  /**
+   * Stops the dev_appserver started ahead of time for the server {@code serverId}, if any, and
+   * waits until it exits so that its ports are free again.
+   */
+  void discard(String serverId) {
+    PrestartedDevServer server;
+    synchronized (this) {
+      server = servers.remove(serverId);
+    }
+    if (server != null) {
+      server.destroy();
+    }
+  }
+
+  private synchronized void remove(PrestartedDevServer server) {
+    servers.values().remove(server);
+  }
+
+  /**
+   * Stops all the dev_appservers started ahead of time and rejects any further ones.
+   */
+  public void shutdown() {
+    List<PrestartedDevServer> stopped;
+    synchronized (this) {
+      shutdown = true;
+      stopped = new ArrayList<>(servers.values());
+      servers.clear();
+    }
+    for (PrestartedDevServer server : stopped) {
+      server.destroy();
+    }
+  }
+
+  /**
+   * Creates the key identifying the dev_appserver configuration of a launch.
+   *
+   * @param port the configured server port, before checking whether it is in use
+   * @param adminPort the configured admin port, before checking whether it is in use
+   */
+  static Key newKey(List<File> runnables, String host, int port, int adminPort) {
+    CloudSdk cloudSdk = new CloudSdk.Builder().build();
+    String sdkVersion = null;
+    try {
+      sdkVersion = cloudSdk.getVersion().toString();
+    } catch (RuntimeException ex) {
+      logger.log(Level.FINE, "Cannot determine Cloud SDK version", ex); //$NON-NLS-1$
+    }
+    return new Key(cloudSdk.getSdkPath(), sdkVersion, runnables, host, port, adminPort);
+  }
+
+  /**
+   * Identifies the Cloud SDK and the dev_appserver arguments a process was started with.
+   */
+  @VisibleForTesting
+  static final class Key {
+    private final Path sdkPath;
+    private final String sdkVersion;
+    private final List<File> runnables;
+    private final String host;
+    private final int port;
+    private final int adminPort;
+
+    @VisibleForTesting
+    Key(Path sdkPath, String sdkVersion, List<File> runnables, String host, int port,
+        int adminPort) {
+      this.sdkPath = sdkPath;
+      this.sdkVersion = sdkVersion;
+      this.runnables = new ArrayList<>(runnables);
+      this.host = host;
+      this.port = port;
+      this.adminPort = adminPort;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return port == key.port && adminPort == key.adminPort
+          && Objects.equal(sdkPath, key.sdkPath) && Objects.equal(sdkVersion, key.sdkVersion)
+          && runnables.equals(key.runnables) && Objects.equal(host, key.host);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(sdkPath, sdkVersion, runnables, host, port, adminPort);
+    }
+  }
+
+  /**
+   * A dev_appserver process started ahead of time. Its output is buffered, and its listener
+   * callbacks are forwarded once it is adopted by a server.
+   */
+  @VisibleForTesting
+  class PrestartedDevServer
+      implements ProcessStartListener, ProcessOutputLineListener, ProcessExitListener {
+
+    private final Key key;
+    private final int port;
+    private final int adminPort;
+    private AppEngineDevServer devServer;
+
+    private Process process;
+    private boolean exited;
+    private int exitCode;
+    private final Deque<String> bufferedOutput = new ArrayDeque<>();
+    /** The start messages among the lines dropped from the buffered output, replayed first. */
+    private final List<String> droppedStartLines = new ArrayList<>();
+    /** Parses the dropped lines only, to recognize the start messages among them. */
+    private final DevAppServerOutputParser droppedOutputParser = new DevAppServerOutputParser();
+    private boolean startLine;
+
+    private List<ProcessOutputLineListener> outputListeners;
+    private ProcessStartListener startListener;
+    private ProcessExitListener exitListener;
+
+    @VisibleForTesting
+    PrestartedDevServer(Key key, int port, int adminPort) {
+      this.key = key;
+      this.port = port;
+      this.adminPort = adminPort;
+      droppedOutputParser.addListener(new DevAppServerOutputParser.Adapter() {
+        @Override
+        public void moduleStarted(String module, int port) {
+          startLine = true;
+        }
+
+        @Override
+        public void adminServerStarted(int port) {
+          startLine = true;
+        }
+
+        @Override
+        public void serverStarted() {
+          startLine = true;
+        }
+      });
+    }
+
+    AppEngineDevServer getDevServer() {
+      return devServer;
+    }
+
+    int getPort() {
+      return port;
+    }
+
+    int getAdminPort() {
+      return adminPort;
+    }
+
+    private synchronized boolean hasExited() {
+      return exited;
+    }
+
+    /**
+     * Forwards the process callbacks to the given listeners from now on, after replaying the ones
+     * received so far.
+     */
+    synchronized void adopt(List<ProcessOutputLineListener> outputListeners,
+        ProcessStartListener startListener, ProcessExitListener exitListener) {
+      this.outputListeners = outputListeners;
+      this.startListener = startListener;
+      this.exitListener = exitListener;
+      if (process != null) {
+        startListener.onStart(process);
+      }
+      // the adopting server waits for the start messages, which may be older than the buffer
+      for (String line : droppedStartLines) {
+        for (ProcessOutputLineListener listener : outputListeners) {
+          listener.onOutputLine(line);
+        }
+      }
+      droppedStartLines.clear();
+      for (String line : bufferedOutput) {
+        for (ProcessOutputLineListener listener : outputListeners) {
+          listener.onOutputLine(line);
+        }
+      }
+      bufferedOutput.clear();
+      if (exited) {
+        exitListener.onExit(exitCode);
+      }
+    }
+
+    @Override
+    public synchronized void onStart(Process process) {
+      this.process = process;
+      if (startListener != null) {
+        startListener.onStart(process);
+      }
+    }
+
+    @Override
+    public synchronized void onOutputLine(String line) {
+      if (outputListeners != null) {
+        for (ProcessOutputLineListener listener : outputListeners) {
+          listener.onOutputLine(line);
+        }
+      } else {
+        if (bufferedOutput.size() == MAX_BUFFERED_LINES) {
+          keepIfStartLine(bufferedOutput.removeFirst());
+        }
+        bufferedOutput.addLast(line);
+      }
+    }
+
+    private void keepIfStartLine(String line) {
+      startLine = false;
+      droppedOutputParser.onOutputLine(line);
+      if (startLine) {
+        droppedStartLines.add(line);
+      }
+    }
+
+    @Override
+    public void onExit(int exitCode) {
+      ProcessExitListener listener;
+      synchronized (this) {
+        exited = true;
+        this.exitCode = exitCode;
+        listener = exitListener;
+      }
+      if (listener != null) {
+        listener.onExit(exitCode);
+      } else {
+        logger.log(Level.FINE, "Prestarted dev_appserver exited: code=" + exitCode); //$NON-NLS-1$
+        remove(this);
+      }
+    }
+
+    private void destroy() {
+      if (hasExited()) {
+        return;
+      }
+      DefaultStopConfiguration stopConfig = new DefaultStopConfiguration();
+      stopConfig.setAdminPort(adminPort);
+      try {
+        devServer.stop(stopConfig);
+      } catch (AppEngineException ex) {
+        logger.log(Level.FINE, "Cannot stop prestarted dev_appserver", ex); //$NON-NLS-1$
+      }
+      Process toDestroy;
+      synchronized (this) {
+        toDestroy = process;
+      }
+      if (toDestroy != null) {
+        toDestroy.destroy();
+        try {
+          toDestroy.waitFor();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+}
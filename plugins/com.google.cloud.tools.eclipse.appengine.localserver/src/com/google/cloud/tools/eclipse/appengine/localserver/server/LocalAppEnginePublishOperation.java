@@ -17,10 +17,17 @@
 package com.google.cloud.tools.eclipse.appengine.localserver.server;
 
 import com.google.cloud.tools.eclipse.jst.server.core.BasePublishOperation;
+import java.util.List;
+import java.util.Properties;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.wst.server.core.IModule;
+import org.eclipse.wst.server.core.IServer;
 import org.eclipse.wst.server.core.model.IModuleResource;
 import org.eclipse.wst.server.core.model.IModuleResourceDelta;
+import org.eclipse.wst.server.core.model.ServerBehaviourDelegate;
 
 /**
  * Handles the publishing operations for the App Engine development server.
@@ -40,6 +47,40 @@ public class LocalAppEnginePublishOperation extends BasePublishOperation {
     this.server = server;
   }
 
+  /**
+   * Publishes the module and reports to the server how the published changes can be applied, so
+   * that a running server is restarted only when it cannot pick them up itself.
+   */
+  @Override
+  protected void publishDir(IModule module2, List<IStatus> statuses, IProgressMonitor monitor)
+      throws CoreException {
+    ModuleChange change = getModuleChange();
+    super.publishDir(module2, statuses, monitor);
+    server.modulePublished(module, change);
+  }
+
+  @Override
+  protected void publishChildModule(Properties properties, List<IStatus> statuses,
+      IProgressMonitor monitor) throws CoreException {
+    ModuleChange change = getModuleChange();
+    super.publishChildModule(properties, statuses, monitor);
+    server.modulePublished(module, change);
+  }
+
+  private ModuleChange getModuleChange() {
+    if (kind == IServer.PUBLISH_CLEAN || kind == IServer.PUBLISH_FULL
+        || deltaKind == ServerBehaviourDelegate.ADDED
+        || deltaKind == ServerBehaviourDelegate.REMOVED) {
+      return ModuleChange.STRUCTURAL;
+    }
+    IModuleResourceDelta[] delta = getPublishedResourceDelta(module);
+    if (module.length > 1) {
+      // a child module is published as a jar in WEB-INF/lib
+      return delta == null || delta.length == 0 ? ModuleChange.NONE : ModuleChange.STRUCTURAL;
+    }
+    return ModuleChange.of(delta);
+  }
+
   @Override
   protected IPath getRuntimeBaseDirectory() {
     return server.getRuntimeBaseDirectory();
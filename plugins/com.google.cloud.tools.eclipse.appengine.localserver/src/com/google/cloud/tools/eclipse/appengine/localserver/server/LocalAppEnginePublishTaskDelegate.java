@@ -23,6 +23,7 @@ import org.eclipse.wst.server.core.IServer;
 import org.eclipse.wst.server.core.model.PublishOperation;
 import org.eclipse.wst.server.core.model.PublishTaskDelegate;
 
+import com.google.cloud.tools.eclipse.jst.server.core.ChildModulesPublishOperation;
 import com.google.common.collect.Lists;
 
 public class LocalAppEnginePublishTaskDelegate extends PublishTaskDelegate {
@@ -38,9 +39,21 @@ public class LocalAppEnginePublishTaskDelegate extends PublishTaskDelegate {
         (LocalAppEngineServerBehaviour) server.loadAdapter(LocalAppEngineServerBehaviour.class, null);
 
     List<PublishOperation> tasks = Lists.newArrayList();
+    List<LocalAppEnginePublishOperation> childTasks = Lists.newArrayList();
     for (int i = 0; i < modules.size(); i++) {
       IModule[] module = (IModule[]) modules.get(i);
-      tasks.add(new LocalAppEnginePublishOperation(gaeServer, kind, module, (Integer) kindList.get(i)));
+      LocalAppEnginePublishOperation task =
+          new LocalAppEnginePublishOperation(gaeServer, kind, module, (Integer) kindList.get(i));
+      if (module.length > 1) {
+        childTasks.add(task);
+      } else {
+        tasks.add(task);
+      }
+    }
+    // child modules are published concurrently once their parent modules are published
+    if (!childTasks.isEmpty()) {
+      tasks.add(new ChildModulesPublishOperation("Publish to server",
+          "Publish child modules to App Engine Development Server", childTasks));
     }
 
     return tasks.toArray(new PublishOperation[tasks.size()]);
@@ -27,13 +27,13 @@ import com.google.cloud.tools.appengine.cloudsdk.process.ProcessOutputLineListen
 import com.google.cloud.tools.appengine.cloudsdk.process.ProcessStartListener;
 import com.google.cloud.tools.eclipse.appengine.localserver.Activator;
 import com.google.cloud.tools.eclipse.appengine.localserver.Messages;
+import com.google.cloud.tools.eclipse.appengine.localserver.PreferencesInitializer;
 import com.google.cloud.tools.eclipse.sdk.ui.MessageConsoleWriterOutputLineListener;
 import com.google.cloud.tools.eclipse.util.status.StatusUtil;
 import com.google.common.annotations.VisibleForTesting;
 import java.io.File;
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.logging.Level;
@@ -44,8 +44,16 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.debug.core.DebugException;
+import org.eclipse.debug.core.ILaunch;
 import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
+import org.eclipse.debug.core.ILaunchManager;
+import org.eclipse.debug.core.model.IDebugTarget;
+import org.eclipse.jdt.debug.core.IJavaDebugTarget;
+import org.eclipse.jdt.debug.core.IJavaHotCodeReplaceListener;
+import org.eclipse.jdt.debug.core.JDIDebugModel;
 import org.eclipse.ui.console.MessageConsoleStream;
 import org.eclipse.wst.server.core.IModule;
 import org.eclipse.wst.server.core.IServer;
@@ -79,12 +87,17 @@ public class LocalAppEngineServerBehaviour extends ServerBehaviourDelegate
   private int serverPort = -1;
   @VisibleForTesting int adminPort = -1;
 
-  private DevAppServerOutputListener serverOutputListener;
+  private final DevAppServerOutputParser outputParser = new DevAppServerOutputParser();
+  private final IJavaHotCodeReplaceListener hotCodeReplaceListener = new HotCodeReplaceListener();
+
+  /** The modules of the last run mode launch, if a dev_appserver is prestarted when it stops. */
+  private List<File> prestartRunnables;
+  private volatile boolean started;
 
   public LocalAppEngineServerBehaviour () {
     localAppEngineStartListener = new LocalAppEngineStartListener();
     localAppEngineExitListener = new LocalAppEngineExitListener();
-    serverOutputListener = new DevAppServerOutputListener();
+    outputParser.addListener(new DevAppServerOutputListener());
   }
 
   @Override
@@ -112,6 +125,7 @@ public class LocalAppEngineServerBehaviour extends ServerBehaviourDelegate
         devProcess = null;
       }
       devServer = null;
+      JDIDebugModel.removeHotCodeReplaceListener(hotCodeReplaceListener);
       setServerState(IServer.STATE_STOPPED);
     }
   }
@@ -163,6 +177,95 @@ public class LocalAppEngineServerBehaviour extends ServerBehaviourDelegate
     setModulePublishState(module, state);
   }
 
+  /**
+   * Records the changes published for {@code module} while the server is running. Static files and
+   * JSPs are served from the deploy directory right away and, in debug mode, the Java debugger
+   * replaces changed classes through HotSwap; any other change leaves the server needing a restart.
+   */
+  void modulePublished(IModule[] module, ModuleChange change) {
+    IServer server = getServer();
+    if (server.getServerState() == IServer.STATE_STARTED
+        && requiresRestart(change, server.getMode())) {
+      logger.log(Level.FINE, "Module " + module[module.length - 1].getName() //$NON-NLS-1$
+          + " requires restart after " + change + " change"); //$NON-NLS-1$ //$NON-NLS-2$
+      setServerRestartState(true);
+    } else if (server.getServerState() == IServer.STATE_STOPPED
+        && requiresRestart(change, ILaunchManager.RUN_MODE)) {
+      // the prestarted dev_appserver has loaded the previous classes and configuration
+      DevAppServerPool.getInstance().discard(server.getId());
+    }
+  }
+
+  @VisibleForTesting
+  static boolean requiresRestart(ModuleChange change, String launchMode) {
+    switch (change) {
+      case STRUCTURAL:
+        return true;
+      case CLASSES:
+        return !ILaunchManager.DEBUG_MODE.equals(launchMode);
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Restarts the server once all modules are published if the published changes cannot be applied
+   * to the running server and the user enabled fast reload.
+   */
+  @Override
+  protected void publishFinish(IProgressMonitor monitor) throws CoreException {
+    super.publishFinish(monitor);
+    restartIfFastReload();
+  }
+
+  /**
+   * Called when the debugger could not replace the changed classes of the running server, e.g.
+   * because a method was added, which HotSwap does not support.
+   */
+  @VisibleForTesting
+  void hotCodeReplaceFailed() {
+    IServer server = getServer();
+    if (server.getServerState() == IServer.STATE_STARTED) {
+      logger.log(Level.FINE, "Hot code replace failed, server requires restart"); //$NON-NLS-1$
+      setServerRestartState(true);
+      restartIfFastReload();
+    }
+  }
+
+  private void restartIfFastReload() {
+    IServer server = getServer();
+    if (server.getServerState() == IServer.STATE_STARTED && server.getServerRestartState()
+        && isFastReloadEnabled()) {
+      server.restart(server.getMode(), (IServer.IOperationListener) null);
+    }
+  }
+
+  private static boolean isFastReloadEnabled() {
+    return Platform.getPreferencesService().getBoolean(Activator.PLUGIN_ID,
+        PreferencesInitializer.FAST_RELOAD, false, null);
+  }
+
+  private static boolean isPrestartEnabled() {
+    return Platform.getPreferencesService().getBoolean(Activator.PLUGIN_ID,
+        PreferencesInitializer.PRESTART_DEV_SERVER, false, null);
+  }
+
+  @Override
+  public void dispose() {
+    JDIDebugModel.removeHotCodeReplaceListener(hotCodeReplaceListener);
+    DevAppServerPool.getInstance().discard(getServer().getId());
+    super.dispose();
+  }
+
+  /**
+   * @return true if {@code target} debugs the dev_appserver launched for {@code server}
+   */
+  @VisibleForTesting
+  static boolean isServerTarget(IDebugTarget target, IServer server) {
+    ILaunch launch = server.getLaunch();
+    return launch != null && launch == target.getLaunch();
+  }
+
   private static IStatus newErrorStatus(String message) {
     return new Status(IStatus.ERROR, Activator.PLUGIN_ID, message);
   }
@@ -250,19 +353,21 @@ public class LocalAppEngineServerBehaviour extends ServerBehaviourDelegate
    * @param console the stream (Eclipse console) to send development server process output to
    */
   void startDevServer(List<File> runnables, MessageConsoleStream console) throws CoreException {
+    if (adoptPrestartedDevServer(runnables, console)) {
+      return;
+    }
     checkAndSetPorts();  // Must be called before setting the STARTING state.
     setServerState(IServer.STATE_STARTING);
+    setServerRestartState(false);
+    started = false;
+    outputParser.reset();
 
     // Create dev app server instance
     initializeDevServer(console);
 
     // Create run configuration
-    DefaultRunConfiguration devServerRunConfiguration = new DefaultRunConfiguration();
-    devServerRunConfiguration.setAutomaticRestart(false);
-    devServerRunConfiguration.setAppYamls(runnables);
-    devServerRunConfiguration.setHost(getServer().getHost());
-    devServerRunConfiguration.setPort(serverPort);
-    devServerRunConfiguration.setAdminPort(adminPort);
+    DefaultRunConfiguration devServerRunConfiguration =
+        newRunConfiguration(runnables, getServer().getHost(), serverPort, adminPort);
 
     // Run server
     try {
@@ -282,19 +387,22 @@ public class LocalAppEngineServerBehaviour extends ServerBehaviourDelegate
    */
   void startDebugDevServer(List<File> runnables, MessageConsoleStream console, int debugPort)
       throws CoreException {
+    // the debugger must attach when the JVM starts, so debug launches are never prestarted
+    prestartRunnables = null;
+    DevAppServerPool.getInstance().discard(getServer().getId());
     checkAndSetPorts();  // Must be called before setting the STARTING state.
     setServerState(IServer.STATE_STARTING);
+    setServerRestartState(false);
+    started = false;
+    outputParser.reset();
+    JDIDebugModel.addHotCodeReplaceListener(hotCodeReplaceListener);
 
     // Create dev app server instance
     initializeDevServer(console);
 
     // Create run configuration
-    DefaultRunConfiguration devServerRunConfiguration = new DefaultRunConfiguration();
-    devServerRunConfiguration.setAutomaticRestart(false);
-    devServerRunConfiguration.setAppYamls(runnables);
-    devServerRunConfiguration.setHost(getServer().getHost());
-    devServerRunConfiguration.setPort(serverPort);
-    devServerRunConfiguration.setAdminPort(adminPort);
+    DefaultRunConfiguration devServerRunConfiguration =
+        newRunConfiguration(runnables, getServer().getHost(), serverPort, adminPort);
 
     // todo: make this a configurable option, but default to
     // 1 instance to simplify debugging
@@ -319,6 +427,78 @@ public class LocalAppEngineServerBehaviour extends ServerBehaviourDelegate
     }
   }
 
+  static DefaultRunConfiguration newRunConfiguration(List<File> runnables, String host,
+      int serverPort, int adminPort) {
+    DefaultRunConfiguration devServerRunConfiguration = new DefaultRunConfiguration();
+    devServerRunConfiguration.setAutomaticRestart(false);
+    devServerRunConfiguration.setAppYamls(runnables);
+    devServerRunConfiguration.setHost(host);
+    devServerRunConfiguration.setPort(serverPort);
+    devServerRunConfiguration.setAdminPort(adminPort);
+    return devServerRunConfiguration;
+  }
+
+  /**
+   * Adopts the dev_appserver prestarted for this server if it runs the same configuration, which
+   * saves the startup time of the server.
+   *
+   * @return {@code true} if the prestarted dev_appserver was adopted
+   */
+  private boolean adoptPrestartedDevServer(List<File> runnables, MessageConsoleStream console) {
+    IServer server = getServer();
+    DevAppServerPool pool = DevAppServerPool.getInstance();
+    if (!isPrestartEnabled()) {
+      prestartRunnables = null;
+      pool.discard(server.getId());
+      return false;
+    }
+    prestartRunnables = runnables;
+    DevAppServerPool.PrestartedDevServer prestarted =
+        pool.take(server.getId(), newPrestartKey(runnables));
+    if (prestarted == null) {
+      return false;
+    }
+
+    logger.log(Level.FINE, "Adopting prestarted dev_appserver"); //$NON-NLS-1$
+    // The ports are in use by the prestarted server, so they are not checked
+    serverPort = prestarted.getPort();
+    adminPort = prestarted.getAdminPort();
+    setServerState(IServer.STATE_STARTING);
+    setServerRestartState(false);
+    started = false;
+    outputParser.reset();
+    devServer = prestarted.getDevServer();
+    ProcessOutputLineListener outputListener =
+        new MessageConsoleWriterOutputLineListener(console);
+    prestarted.adopt(Arrays.asList(outputListener, outputParser),
+        localAppEngineStartListener, localAppEngineExitListener);
+    return true;
+  }
+
+  private DevAppServerPool.Key newPrestartKey(List<File> runnables) {
+    IServer server = getServer();
+    return DevAppServerPool.newKey(runnables, server.getHost(),
+        server.getAttribute(SERVER_PORT_ATTRIBUTE_NAME, DEFAULT_SERVER_PORT),
+        server.getAttribute(ADMIN_PORT_ATTRIBUTE_NAME, DEFAULT_ADMIN_PORT));
+  }
+
+  /**
+   * Starts a dev_appserver in the background for the next launch, if the server stopped after a
+   * successful run mode launch.
+   */
+  private void prestartDevServer() {
+    List<File> runnables = prestartRunnables;
+    if (runnables == null || !started || !isPrestartEnabled()) {
+      return;
+    }
+    try {
+      DevAppServerPool.getInstance().prestart(getServer().getId(), newPrestartKey(runnables),
+          serverPort, adminPort);
+    } catch (RuntimeException ex) {
+      logger.log(Level.WARNING, "Cannot prestart dev_appserver", ex); //$NON-NLS-1$
+    }
+  }
+
   private void initializeDevServer(MessageConsoleStream console) {
     MessageConsoleWriterOutputLineListener outputListener =
         new MessageConsoleWriterOutputLineListener(console);
@@ -327,7 +507,7 @@ public class LocalAppEngineServerBehaviour extends ServerBehaviourDelegate
     CloudSdk cloudSdk = new CloudSdk.Builder()
         .addStdOutLineListener(outputListener)
         .addStdErrLineListener(outputListener)
-        .addStdErrLineListener(serverOutputListener)
+        .addStdErrLineListener(outputParser)
         .startListener(localAppEngineStartListener)
         .exitListener(localAppEngineExitListener)
         .async(true)
@@ -345,7 +525,9 @@ public class LocalAppEngineServerBehaviour extends ServerBehaviourDelegate
       logger.log(Level.FINE, "Process exit: code=" + exitCode); //$NON-NLS-1$
       devServer = null;
       devProcess = null;
+      JDIDebugModel.removeHotCodeReplaceListener(hotCodeReplaceListener);
       setServerState(IServer.STATE_STOPPED);
+      prestartDevServer();
     }
   }
 
@@ -360,53 +542,75 @@ public class LocalAppEngineServerBehaviour extends ServerBehaviourDelegate
     }
   }
 
-  @VisibleForTesting
-  static int extractPortFromServerUrlOutput(String line) {
-    try {
-      int urlBegin = line.lastIndexOf("http://"); //$NON-NLS-1$
-      if (urlBegin != -1) {
-        return new URI(line.substring(urlBegin)).getPort();
+  /**
+   * Subscribes {@code listener} to the events recognized in the output of the dev_appserver
+   * processes of this server, such as the ports of the modules and the requests they handle.
+   */
+  /**
+   * Marks the server as needing a restart when the debugger of its launch fails to replace the
+   * changed classes.
+   */
+  private class HotCodeReplaceListener implements IJavaHotCodeReplaceListener {
+    @Override
+    public void hotCodeReplaceSucceeded(IJavaDebugTarget target) {
+    }
+
+    @Override
+    public void hotCodeReplaceFailed(IJavaDebugTarget target, DebugException exception) {
+      if (isServerTarget(target, getServer())) {
+        LocalAppEngineServerBehaviour.this.hotCodeReplaceFailed();
       }
-    } catch (URISyntaxException ex) {}
+    }
+
+    @Override
+    public void obsoleteMethods(IJavaDebugTarget target) {
+      // the classes were replaced; only frames already running the old code are affected
+    }
+  }
+
+  public void addDevAppServerListener(DevAppServerOutputParser.Listener listener) {
+    outputParser.addListener(listener);
+  }
 
-    logger.log(Level.WARNING, "Cannot extract port from server output: " + line); //$NON-NLS-1$
-    return -1;
+  public void removeDevAppServerListener(DevAppServerOutputParser.Listener listener) {
+    outputParser.removeListener(listener);
   }
 
   /**
-   * An output listener that monitors for well-known key dev_appserver output and affects server
-   * state changes.
+   * Tracks the ports and the state of the server from the dev_appserver output.
    */
-  public class DevAppServerOutputListener implements ProcessOutputLineListener {
+  public class DevAppServerOutputListener extends DevAppServerOutputParser.Adapter {
 
     private int serverPortCandidate = 0;
 
     @Override
-    public void onOutputLine(String line) {
-      if (line.endsWith("Dev App Server is now running")) { //$NON-NLS-1$
-        // App Engine Standard (v1)
-        setServerState(IServer.STATE_STARTED);
-      } else if (line.endsWith(".Server:main: Started")) { //$NON-NLS-1$
-        // App Engine Flexible (v2)
-        setServerState(IServer.STATE_STARTED);
-      } else if (line.equals("Traceback (most recent call last):")) { //$NON-NLS-1$
-        // An error occurred
-        setServerState(IServer.STATE_STOPPED);
-
-      } else if (line.contains("Starting module") && line.contains("running at: http://")) { //$NON-NLS-1$ //$NON-NLS-2$
-        if (serverPortCandidate == 0 || line.contains("Starting module \"default\"")) { //$NON-NLS-1$
-          serverPortCandidate = extractPortFromServerUrlOutput(line);
-        }
-
-      } else if (line.contains("Starting admin server at: http://")) { //$NON-NLS-1$
-        if (serverPort == 0) {  // We assume we will no longer see URLs for modules from now on.
-          serverPort = serverPortCandidate;
-        }
-        if (adminPort == 0) {
-          adminPort = extractPortFromServerUrlOutput(line);
-        }
+    public void moduleStarted(String module, int port) {
+      if (serverPortCandidate == 0 || "default".equals(module)) { //$NON-NLS-1$
+        serverPortCandidate = port;
       }
     }
+
+    @Override
+    public void adminServerStarted(int port) {
+      if (serverPort == 0) {  // We assume we will no longer see URLs for modules from now on.
+        serverPort = serverPortCandidate;
+      }
+      if (adminPort == 0) {
+        adminPort = port;
+      }
+      serverPortCandidate = 0;
+    }
+
+    @Override
+    public void serverStarted() {
+      started = true;
+      setServerState(IServer.STATE_STARTED);
+    }
+
+    @Override
+    public void serverFailed(List<String> traceback) {
+      setServerState(IServer.STATE_STOPPED);
+    }
   }
 
   @Override
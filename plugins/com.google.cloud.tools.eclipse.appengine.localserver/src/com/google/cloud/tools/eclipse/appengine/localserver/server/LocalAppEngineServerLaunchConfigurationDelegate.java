@@ -23,6 +23,7 @@ import com.google.cloud.tools.eclipse.appengine.localserver.Activator;
 import com.google.cloud.tools.eclipse.appengine.localserver.Messages;
 import com.google.cloud.tools.eclipse.appengine.localserver.PreferencesInitializer;
 import com.google.cloud.tools.eclipse.appengine.localserver.ui.LocalAppEngineConsole;
+import com.google.cloud.tools.eclipse.sdk.CloudSdkValidationCache;
 import com.google.cloud.tools.eclipse.ui.util.MessageConsoleUtilities;
 import com.google.cloud.tools.eclipse.usagetracker.AnalyticsEvents;
 import com.google.cloud.tools.eclipse.usagetracker.AnalyticsPingManager;
@@ -80,7 +81,7 @@ public class LocalAppEngineServerLaunchConfigurationDelegate
   private static void validateCloudSdk() throws CoreException  {
     try {
       CloudSdk cloudSdk = new CloudSdk.Builder().build();
-      cloudSdk.validateCloudSdk();
+      CloudSdkValidationCache.getInstance().validateCloudSdk(cloudSdk);
     } catch (CloudSdkOutOfDateException ex) {
         String detailMessage = Messages.getString("cloudsdk.out.of.date");
         Status status = new Status(IStatus.ERROR,
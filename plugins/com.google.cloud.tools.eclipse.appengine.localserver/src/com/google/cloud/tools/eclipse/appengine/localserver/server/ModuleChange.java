@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.cloud.tools.eclipse.appengine.localserver.server;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.wst.server.core.model.IModuleFolder;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.eclipse.wst.server.core.model.IModuleResourceDelta;
+
+/**
+ * Classifies the changes published to a running development server by how they can be applied.
+ */
+enum ModuleChange {
+  /** Nothing was published. */
+  NONE,
+  /**
+   * Static files and JSPs, which the server picks up from the deploy directory as soon as they are
+   * copied.
+   */
+  STATIC,
+  /**
+   * Class files under {@code WEB-INF/classes}, which can be replaced through JDWP HotSwap when
+   * the server runs in debug mode.
+   */
+  CLASSES,
+  /**
+   * Deployment descriptors, libraries and anything else under {@code WEB-INF} that is read only
+   * when the module starts.
+   */
+  STRUCTURAL;
+
+  private ModuleChange combine(ModuleChange other) {
+    return other.ordinal() > ordinal() ? other : this;
+  }
+
+  /**
+   * @return the most severe change in {@code deltas}
+   */
+  static ModuleChange of(IModuleResourceDelta[] deltas) {
+    ModuleChange change = NONE;
+    if (deltas != null) {
+      for (IModuleResourceDelta delta : deltas) {
+        change = change.combine(of(delta));
+        if (change == STRUCTURAL) {
+          break;
+        }
+      }
+    }
+    return change;
+  }
+
+  private static ModuleChange of(IModuleResourceDelta delta) {
+    if (delta.getKind() == IModuleResourceDelta.NO_CHANGE) {
+      return NONE;
+    }
+    IModuleResourceDelta[] children = delta.getAffectedChildren();
+    if (children != null && children.length > 0) {
+      return of(children);
+    }
+    IModuleResource resource = delta.getModuleResource();
+    return of(resource.getModuleRelativePath().append(resource.getName()),
+        resource instanceof IModuleFolder);
+  }
+
+  /**
+   * @param path the module relative path of a published file or folder
+   */
+  static ModuleChange of(IPath path, boolean folder) {
+    if (path.segmentCount() == 0) {
+      return STRUCTURAL;
+    }
+    String name = path.lastSegment();
+    if (name.endsWith(".jsp") || name.endsWith(".jspx")) { //$NON-NLS-1$ //$NON-NLS-2$
+      return STATIC;
+    }
+    if (!"WEB-INF".equals(path.segment(0))) { //$NON-NLS-1$
+      return folder ? NONE : STATIC;
+    }
+    if (path.segmentCount() > 1 && "classes".equals(path.segment(1)) //$NON-NLS-1$
+        && (folder || name.endsWith(".class"))) { //$NON-NLS-1$
+      return CLASSES;
+    }
+    return STRUCTURAL;
+  }
+}
@@ -18,8 +18,10 @@ package com.google.cloud.tools.eclipse.appengine.login;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -37,12 +39,22 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 @RunWith(MockitoJUnitRunner.class)
 public class GoogleLoginServiceTest {
@@ -147,6 +159,101 @@ public class GoogleLoginServiceTest {
     assertTrue(loginService.getAccounts().isEmpty());
   }
 
+  @Test
+  public void testGetAccounts_immutable() {
+    GoogleLoginService loginService = newLoginServiceWithMockLoginState(true);
+    loginService.logIn(null);
+    try {
+      loginService.getAccounts().add(account2);
+      fail();
+    } catch (UnsupportedOperationException ex) {
+      assertEquals(1, loginService.getAccounts().size());
+    }
+  }
+
+  @Test
+  public void testReadersNotBlockedDuringLogIn() throws Exception {
+    when(loginState.listAccounts())
+        .thenReturn(new HashSet<>(Arrays.asList(account1)))
+        .thenReturn(new HashSet<>(Arrays.asList(account1, account2)));
+    final GoogleLoginService loginService =
+        new GoogleLoginService(loginState, dataStore, uiFacade, loggerFacade);
+
+    // The login blocks, as if the user was still looking at the browser, until released.
+    final CountDownLatch loginStarted = new CountDownLatch(1);
+    final CountDownLatch finishLogin = new CountDownLatch(1);
+    when(loginState.logInWithLocalServer(anyString())).thenAnswer(new Answer<Account>() {
+      @Override
+      public Account answer(InvocationOnMock invocation) throws InterruptedException {
+        loginStarted.countDown();
+        finishLogin.await();
+        return account2;
+      }
+    });
+
+    ExecutorService executor = Executors.newFixedThreadPool(READER_COUNT + 1);
+    try {
+      Future<Account> login = executor.submit(new Callable<Account>() {
+        @Override
+        public Account call() {
+          return loginService.logIn(null);
+        }
+      });
+      assertTrue(loginStarted.await(10, TimeUnit.SECONDS));
+
+      List<Future<?>> readers = new ArrayList<>();
+      for (int i = 0; i < READER_COUNT; i++) {
+        readers.add(executor.submit(newReader(loginService, 1)));
+      }
+      // All readers complete while the login is still in progress.
+      for (Future<?> reader : readers) {
+        reader.get(10, TimeUnit.SECONDS);
+      }
+      assertFalse(login.isDone());
+
+      // Readers racing with the end of the login see either snapshot, never a partial one.
+      readers.clear();
+      for (int i = 0; i < READER_COUNT; i++) {
+        readers.add(executor.submit(newReader(loginService, 1, 2)));
+      }
+      finishLogin.countDown();
+      assertEquals(account2, login.get(10, TimeUnit.SECONDS));
+      for (Future<?> reader : readers) {
+        reader.get(10, TimeUnit.SECONDS);
+      }
+      assertEquals(2, loginService.getAccounts().size());
+    } finally {
+      finishLogin.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  private static final int READER_COUNT = 8;
+  private static final int READS_PER_READER = 10000;
+
+  /**
+   * Returns a task that reads the accounts repeatedly and checks that every snapshot has one of
+   * the {@code expectedSizes}.
+   */
+  private static Callable<Void> newReader(final GoogleLoginService loginService,
+      final Integer... expectedSizes) {
+    return new Callable<Void>() {
+      @Override
+      public Void call() {
+        List<Integer> sizes = Arrays.asList(expectedSizes);
+        for (int i = 0; i < READS_PER_READER; i++) {
+          assertTrue(loginService.hasAccounts());
+          Set<Account> accounts = loginService.getAccounts();
+          assertTrue(sizes.contains(accounts.size()));
+          for (Account account : accounts) {
+            assertNotNull(account);
+          }
+        }
+        return null;
+      }
+    };
+  }
+
   @Test
   public void testGoogleLoginService_removeSavedCredentialIfNullRefreshToken() {
     when(savedOAuthData.getEmail()).thenReturn("my-email@example.com");
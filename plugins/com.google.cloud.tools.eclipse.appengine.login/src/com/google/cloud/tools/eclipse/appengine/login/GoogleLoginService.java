@@ -24,6 +24,7 @@ import com.google.cloud.tools.ide.login.JavaPreferenceOAuthDataStore;
 import com.google.cloud.tools.ide.login.LoggerFacade;
 import com.google.cloud.tools.ide.login.OAuthDataStore;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
 
 import org.eclipse.jface.window.IShellProvider;
 import org.eclipse.swt.widgets.Shell;
@@ -34,6 +35,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -64,11 +66,11 @@ public class GoogleLoginService implements IGoogleLoginService {
         GoogleLoginService.OAUTH_SCOPES).toString();
   }
 
-  // We expose the reference 'accounts' to callers as-is. That is, we simply transfer references
-  // coming from 'GoogleLoginState' to callers. Therefore, 'GoogleLoginService' must not modify
-  // the states of the objects pointed to by the reference (as opposed to updating the reference
-  // itself, e.g., as in 'logOutAll()').
-  private Set<Account> accounts = new HashSet<>();
+  // Immutable snapshot of the accounts in 'loginState', replaced as a whole whenever the accounts
+  // change. Readers never take the 'loginState' lock, which 'logIn()' holds for the whole login
+  // flow, so that enablement checks on the UI thread don't block while a login dialog is open.
+  private final AtomicReference<Set<Account>> accounts =
+      new AtomicReference<Set<Account>>(ImmutableSet.<Account>of());
   private GoogleLoginState loginState;
 
   private LoginServiceUi loginServiceUi;
@@ -92,7 +94,7 @@ public class GoogleLoginService implements IGoogleLoginService {
         Constants.getOAuthClientId(), Constants.getOAuthClientSecret(), OAUTH_SCOPES,
         new JavaPreferenceOAuthDataStore(PREFERENCE_PATH_OAUTH_DATA_STORE, logger),
         loginServiceUi, logger);
-    accounts = loginState.listAccounts();
+    updateAccounts();
   }
 
   /**
@@ -113,18 +115,19 @@ public class GoogleLoginService implements IGoogleLoginService {
       OAuthDataStore dataStore, LoginServiceUi uiFacade, LoggerFacade loggerFacade) {
     loginServiceUi = uiFacade;
     this.loginState = loginState;
-    accounts = loginState.listAccounts();
+    updateAccounts();
   }
 
   @Override
   public Account logIn(String dialogMessage) {
     // TODO: holding a lock for a long period of time (especially when waiting for UI events)
     // should be avoided. Make the login library thread-safe, and don't lock during UI events.
-    // (https://github.com/GoogleCloudPlatform/ide-login/issues/21)
+    // (https://github.com/GoogleCloudPlatform/ide-login/issues/21) Readers of the accounts are
+    // not affected, as they use the snapshot in 'accounts'; only 'logOutAll()' waits.
     synchronized (loginState) {
       Account account = loginState.logInWithLocalServer(dialogMessage);
       if (account != null) {
-        accounts = loginState.listAccounts();
+        updateAccounts();
       }
       return account;
     }
@@ -134,25 +137,30 @@ public class GoogleLoginService implements IGoogleLoginService {
   public void logOutAll() {
     synchronized (loginState) {
       loginState.logOutAll(false /* Don't prompt for logout. */);
-      accounts = new HashSet<>();
+      accounts.set(ImmutableSet.<Account>of());
     }
   }
 
   @Override
   public boolean hasAccounts() {
-    synchronized (loginState) {
-      return !accounts.isEmpty();
-    }
+    return !accounts.get().isEmpty();
   }
 
+  /**
+   * Returns an immutable snapshot of the accounts; never blocks, even during a login.
+   */
   @Override
   public Set<Account> getAccounts() {
-    synchronized (loginState) {
-      // 'accounts' is a reference to a copy of Accounts maintained in 'loginState'.
-      // ('loginState.listAccounts()' returns a copy.) We intend to return this
-      // reference to callers, while never modifying the set itself.
-      return accounts;
-    }
+    return accounts.get();
+  }
+
+  /**
+   * Publishes a new snapshot of the accounts in {@code loginState}. Callers must hold the
+   * {@code loginState} lock (except during construction), since {@link GoogleLoginState} is not
+   * thread-safe.
+   */
+  private void updateAccounts() {
+    accounts.set(ImmutableSet.copyOf(loginState.listAccounts()));
   }
 
   private static final Logger logger = Logger.getLogger(GoogleLoginService.class.getName());
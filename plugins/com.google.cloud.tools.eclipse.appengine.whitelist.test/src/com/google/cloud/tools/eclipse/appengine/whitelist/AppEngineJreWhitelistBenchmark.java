@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compares {@link AppEngineJreWhitelist#isBundledInJre} with the prefix tests it replaced, on a
+ * stream of class names where application classes outnumber JRE classes, as in the references of
+ * a typical project. Run as a Java application; it is not part of the test suite, as its timings
+ * depend on the machine.
+ */
+public class AppEngineJreWhitelistBenchmark {
+
+  private static final int ROUNDS = 10;
+  private static final int LOOKUPS_PER_ROUND = 10000000;
+
+  static final List<String> CLASS_NAMES = Arrays.asList(
+      "com.google.common.collect.ImmutableList",
+      "com.google.appengine.api.datastore.Entity",
+      "com.example.guestbook.Greeting",
+      "com.fasterxml.jackson.databind.ObjectMapper",
+      "com.sun.jersey.api.client.Client",
+      "org.apache.commons.lang3.StringUtils",
+      "org.slf4j.LoggerFactory",
+      "org.joda.time.DateTime",
+      "javax.servlet.http.HttpServletRequest",
+      "javax.inject.Inject",
+      "Main",
+      "java.lang.String",
+      "java.util.Locale$Builder",
+      "java.net.CookieManager",
+      "javax.swing.JFrame",
+      "javax.annotation.Nullable",
+      "com.sun.org.apache.xerces.internal.parsers.SAXParser",
+      "org.w3c.dom.Document",
+      "sun.util.calendar.ZoneInfo");
+
+  private static final String[] JRE_PREFIXES = {
+      "java.", "sun.util.", "org.xml.sax.", "org.w3c.dom.", "org.omg.", "org.ietf.jgss.",
+      "com.sun.jmx.", "com.sun.jndi.", "com.sun.media.", "com.sun.management.", "com.sun.beans.",
+      "com.sun.corba.", "com.sun.awt.", "com.sun.swing.", "com.sun.rmi.", "com.sun.xml.",
+      "com.sun.java.", "com.sun.org.", "com.sun.rowset.", "com.oracle.net.", "com.oracle.nio.",
+      "com.oracle.util."
+  };
+
+  private static final String[] JAVAX_JRE_PREFIXES = {
+      "javax.accessibility.", "javax.activation.", "javax.activity.", "javax.annotation.",
+      "javax.crypto.", "javax.imageio.", "javax.jws.", "javax.lang.model.", "javax.management.",
+      "javax.naming.", "javax.net.", "javax.print.", "javax.rmi.", "javax.script.",
+      "javax.security.", "javax.sound.", "javax.sql.", "javax.swing.", "javax.tools.",
+      "javax.transaction.", "javax.xml."
+  };
+
+  /** The package test of {@link AppEngineJreWhitelist#contains} before the trie. */
+  static boolean isBundledInJreByPrefix(String className) {
+    String[] prefixes = className.startsWith("javax.") ? JAVAX_JRE_PREFIXES : JRE_PREFIXES;
+    for (String prefix : prefixes) {
+      if (className.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public static void main(String[] args) {
+    // distinct instances, so that no comparison is short-circuited by identity
+    List<String> names = new ArrayList<>();
+    for (String name : CLASS_NAMES) {
+      names.add(new String(name));
+    }
+    String[] stream = new String[LOOKUPS_PER_ROUND];
+    for (int i = 0; i < stream.length; i++) {
+      stream[i] = names.get(i % names.size());
+    }
+
+    for (int round = 0; round < ROUNDS; round++) {
+      long start = System.nanoTime();
+      int trieCount = 0;
+      for (String name : stream) {
+        if (AppEngineJreWhitelist.isBundledInJre(name)) {
+          trieCount++;
+        }
+      }
+      long trieNanos = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      int prefixCount = 0;
+      for (String name : stream) {
+        if (isBundledInJreByPrefix(name)) {
+          prefixCount++;
+        }
+      }
+      long prefixNanos = System.nanoTime() - start;
+
+      if (trieCount != prefixCount) {
+        throw new AssertionError("trie: " + trieCount + ", prefixes: " + prefixCount);
+      }
+      System.out.println(String.format(Locale.ROOT, "round %d: trie %.1f ns, prefixes %.1f ns",
+          round, (double) trieNanos / stream.length, (double) prefixNanos / stream.length));
+    }
+  }
+}
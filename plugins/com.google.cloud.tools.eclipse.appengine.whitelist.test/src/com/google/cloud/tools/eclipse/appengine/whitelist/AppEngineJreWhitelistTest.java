@@ -56,5 +56,44 @@ public class AppEngineJreWhitelistTest {
     Assert.assertFalse(AppEngineJreWhitelist.contains("javax.swing.JFrame"));
   }
   
-}
+  @Test
+  public void testWhitelisted_defaultPackage() {
+    Assert.assertTrue(AppEngineJreWhitelist.contains("Foo"));
+  }
+
+  @Test
+  public void testWhitelisted_prefixIsNotWholeSegment() {
+    Assert.assertTrue(AppEngineJreWhitelist.contains("javaxx.swing.JFrame"));
+    Assert.assertTrue(AppEngineJreWhitelist.contains("com.sun.jmxtools.Foo"));
+  }
+
+  @Test
+  public void testWhitelisted_jrePackageSubpackage() {
+    Assert.assertFalse(AppEngineJreWhitelist.contains("com.sun.org.apache.xerces.Foo"));
+  }
+
+  @Test
+  public void testWhitelisted_nonJreComSunClass() {
+    Assert.assertTrue(AppEngineJreWhitelist.contains("com.sun.jersey.api.Foo"));
+  }
+
+  @Test
+  public void testWhitelisted_nestedClass() {
+    Assert.assertTrue(AppEngineJreWhitelist.contains("java.util.Locale$Builder"));
+  }
 
+  @Test
+  public void testNotWhitelisted_classInRootJrePackage() {
+    Assert.assertFalse(AppEngineJreWhitelist.contains("java.Foo"));
+  }
+
+  @Test
+  public void testIsBundledInJre_sameAsPrefixes() {
+    for (String className : AppEngineJreWhitelistBenchmark.CLASS_NAMES) {
+      Assert.assertEquals(className,
+          AppEngineJreWhitelistBenchmark.isBundledInJreByPrefix(className),
+          AppEngineJreWhitelist.isBundledInJre(className));
+    }
+  }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.CookieManager;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+
+public class ClassFileScannerTest {
+
+  /** Compiled into a class file that the tests read back. */
+  static class UsesCookieManager {
+    Object cookieManager = new CookieManager();
+    Map.Entry<?, ?>[] entries;
+    long[] longs = {1L, 2L};
+    double value = 1.5;
+  }
+
+  @Test
+  public void testGetReferencedClasses() throws IOException {
+    try (InputStream classFile = getClassFile(UsesCookieManager.class)) {
+      Set<String> classNames = ClassFileScanner.getReferencedClasses(classFile);
+      assertTrue(classNames.contains("java.net.CookieManager"));
+      assertTrue(classNames.contains("java.lang.Object"));
+      assertTrue(classNames.contains(UsesCookieManager.class.getName()));
+    }
+  }
+
+  @Test
+  public void testGetReferencedClasses_arrayElementType() throws IOException {
+    try (InputStream classFile = getClassFile(UsesCookieManager.class)) {
+      Set<String> classNames = ClassFileScanner.getReferencedClasses(classFile);
+      for (String className : classNames) {
+        assertFalse(className, className.startsWith("["));
+      }
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testGetReferencedClasses_notAClassFile() throws IOException {
+    ClassFileScanner.getReferencedClasses(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5}));
+  }
+
+  @Test(expected = IOException.class)
+  public void testGetReferencedClasses_truncated() throws IOException {
+    ClassFileScanner.getReferencedClasses(new ByteArrayInputStream(
+        new byte[] {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0, 0, 51, 0, 10}));
+  }
+
+  static InputStream getClassFile(Class<?> clazz) {
+    String name = clazz.getName();
+    return clazz.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class");
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.cloud.tools.eclipse.appengine.whitelist.ClassReferenceScanner.ClassReference;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class ClassReferenceScannerTest {
+
+  private final ClassReferenceScanner scanner = new ClassReferenceScanner("1.7");
+
+  @Test
+  public void testScan_imports() {
+    String source = "package com.example;\n"
+        + "import java.net.CookieManager;\n"
+        + "import static java.lang.Math.max;\n"
+        + "import java.util.*;\n"
+        + "class Foo {}\n";
+    List<String> classNames = classNames(scanner.scan(source.toCharArray()));
+    assertEquals(2, classNames.size());
+    assertEquals("java.net.CookieManager", classNames.get(0));
+    assertEquals("java.lang.Math", classNames.get(1));
+  }
+
+  @Test
+  public void testScan_qualifiedReferences() {
+    String source = "class Foo {\n"
+        + "  java.util.List<java.lang.ProcessBuilder> builders;\n"
+        + "  Object o = new javax.swing.JFrame();\n"
+        + "}\n";
+    List<String> classNames = classNames(scanner.scan(source.toCharArray()));
+    assertEquals(3, classNames.size());
+    assertEquals("java.util.List", classNames.get(0));
+    assertEquals("java.lang.ProcessBuilder", classNames.get(1));
+    assertEquals("javax.swing.JFrame", classNames.get(2));
+  }
+
+  @Test
+  public void testScan_nestedClass() {
+    String source = "class Foo { java.util.Locale.Builder builder; }";
+    List<String> classNames = classNames(scanner.scan(source.toCharArray()));
+    assertEquals(1, classNames.size());
+    assertEquals("java.util.Locale$Builder", classNames.get(0));
+  }
+
+  @Test
+  public void testScan_staticConstantImports() {
+    String source = "import static java.util.concurrent.TimeUnit.SECONDS;\n"
+        + "import static java.lang.Integer.MAX_VALUE;\n"
+        + "import static java.util.Locale.Category.FORMAT;\n"
+        + "class Foo {}\n";
+    List<String> classNames = classNames(scanner.scan(source.toCharArray()));
+    assertEquals(3, classNames.size());
+    assertEquals("java.util.concurrent.TimeUnit", classNames.get(0));
+    assertEquals("java.lang.Integer", classNames.get(1));
+    assertEquals("java.util.Locale$Category", classNames.get(2));
+  }
+
+  @Test
+  public void testScan_qualifiedConstantsAndMethods() {
+    String source = "class Foo {\n"
+        + "  int max = java.lang.Integer.MAX_VALUE;\n"
+        + "  Object list = java.util.Collections.emptyList();\n"
+        + "  Object state = java.lang.Thread.State.NEW;\n"
+        + "}\n";
+    List<String> classNames = classNames(scanner.scan(source.toCharArray()));
+    assertEquals(3, classNames.size());
+    assertEquals("java.lang.Integer", classNames.get(0));
+    assertEquals("java.util.Collections", classNames.get(1));
+    assertEquals("java.lang.Thread$State", classNames.get(2));
+  }
+
+  @Test
+  public void testScan_qualifiedConstantPosition() {
+    String source = "class Foo { int max = java.lang.Integer.MAX_VALUE; }";
+    List<ClassReference> references = scanner.scan(source.toCharArray());
+    assertEquals(1, references.size());
+    assertEquals(source.indexOf(".MAX_VALUE") - 1, references.get(0).getSourceEnd());
+  }
+
+  @Test
+  public void testScan_unknownNestedClass() {
+    String source = "class Foo { Object o = java.lang.Math.Unknown; }";
+    List<String> classNames = classNames(scanner.scan(source.toCharArray()));
+    assertEquals(1, classNames.size());
+    assertEquals("java.lang.Math", classNames.get(0));
+  }
+
+  @Test
+  public void testScan_ignoresCommentsStringsAndMemberAccess() {
+    String source = "class Foo {\n"
+        + "  // java.net.CookieManager\n"
+        + "  String s = \"java.net.CookieManager\";\n"
+        + "  Object o = this.java.net.CookieManager;\n"
+        + "}\n";
+    assertTrue(scanner.scan(source.toCharArray()).isEmpty());
+  }
+
+  @Test
+  public void testScan_ignoresVariableChains() {
+    String source = "class Foo {\n"
+        + "  int i = foo.Bar.baz;\n"
+        + "  Object o = foo.bar.Baz;\n"
+        + "  Object p = com.example.Foo.BAR;\n"
+        + "}\n";
+    assertTrue(scanner.scan(source.toCharArray()).isEmpty());
+  }
+
+  @Test
+  public void testScan_ignoresPackageDeclaration() {
+    String source = "package com.Example;\nclass Foo {}";
+    assertTrue(scanner.scan(source.toCharArray()).isEmpty());
+  }
+
+  @Test
+  public void testScan_position() {
+    String source = "class Foo {\n  java.net.CookieManager manager;\n}";
+    List<ClassReference> references = scanner.scan(source.toCharArray());
+    assertEquals(1, references.size());
+    ClassReference reference = references.get(0);
+    assertEquals(source.indexOf("java"), reference.getSourceStart());
+    assertEquals(source.indexOf(" manager") - 1, reference.getSourceEnd());
+    assertEquals(2, reference.getLineNumber());
+  }
+
+  @Test
+  public void testScan_invalidInput() {
+    String source = "class Foo { java.net.CookieManager m; String s = \"unterminated }";
+    List<String> classNames = classNames(scanner.scan(source.toCharArray()));
+    assertEquals(1, classNames.size());
+  }
+
+  private static List<String> classNames(List<ClassReference> references) {
+    List<String> classNames = new ArrayList<>();
+    for (ClassReference reference : references) {
+      classNames.add(reference.getClassName());
+    }
+    return classNames;
+  }
+}
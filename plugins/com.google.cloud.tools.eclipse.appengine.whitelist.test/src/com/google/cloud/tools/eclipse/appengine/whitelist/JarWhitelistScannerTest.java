@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.cloud.tools.eclipse.appengine.whitelist.ClassFileScannerTest.UsesCookieManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JarWhitelistScannerTest {
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final JarWhitelistScanner scanner = new JarWhitelistScanner();
+
+  static class UsesWhitelistedClasses {
+    String name = Integer.toString(42);
+  }
+
+  @Test
+  public void testFindBlacklistedClasses() throws Exception {
+    Path jar = createJar("lib.jar", UsesCookieManager.class);
+    Map<Path, SortedSet<String>> results =
+        scanner.findBlacklistedClasses(Collections.singletonList(jar));
+    assertEquals(1, results.size());
+    assertEquals(Collections.singleton("java.net.CookieManager"), results.get(jar));
+  }
+
+  @Test
+  public void testFindBlacklistedClasses_noViolations() throws Exception {
+    Path jar = createJar("clean.jar", UsesWhitelistedClasses.class);
+    assertTrue(scanner.findBlacklistedClasses(Collections.singletonList(jar)).isEmpty());
+  }
+
+  @Test
+  public void testFindBlacklistedClasses_noJars() throws Exception {
+    assertTrue(scanner.findBlacklistedClasses(Collections.<Path>emptyList()).isEmpty());
+  }
+
+  @Test
+  public void testFindBlacklistedClasses_cachedBySha1() throws Exception {
+    Path jar = createJar("lib.jar", UsesCookieManager.class);
+    Path copy = tempFolder.getRoot().toPath().resolve("copy.jar");
+    Files.copy(jar, copy);
+    Map<Path, SortedSet<String>> results = scanner.findBlacklistedClasses(Arrays.asList(jar));
+    Map<Path, SortedSet<String>> copyResults =
+        scanner.findBlacklistedClasses(Arrays.asList(copy));
+    assertEquals(1, scanner.getScannedJarCount());
+    assertEquals(results.get(jar), copyResults.get(copy));
+  }
+
+  @Test
+  public void testFindBlacklistedClasses_definedInOtherJar() throws Exception {
+    Path jar = createJar("lib.jar", UsesCookieManager.class);
+    // e.g. the JSR-305 annotations that Guava uses
+    Path definingJar =
+        createJar("api.jar", "java/net/CookieManager.class", UsesWhitelistedClasses.class);
+    assertTrue(scanner.findBlacklistedClasses(Arrays.asList(jar, definingJar)).isEmpty());
+    assertEquals(1, scanner.findBlacklistedClasses(Arrays.asList(jar)).size());
+  }
+
+  @Test
+  public void testFindBlacklistedClasses_definedOutsideJars() throws Exception {
+    Path jar = createJar("lib.jar", UsesCookieManager.class);
+    assertTrue(scanner.findBlacklistedClasses(Arrays.asList(jar),
+        Collections.singleton("java.net.CookieManager")).isEmpty());
+  }
+
+  @Test(expected = IOException.class)
+  public void testFindBlacklistedClasses_invalidClassFile() throws Exception {
+    Path jar = tempFolder.getRoot().toPath().resolve("invalid.jar");
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+      out.putNextEntry(new ZipEntry("com/example/Invalid.class"));
+      out.write(new byte[] {1, 2, 3, 4});
+    }
+    scanner.findBlacklistedClasses(Collections.singletonList(jar));
+  }
+
+  private Path createJar(String name, Class<?> clazz) throws IOException {
+    return createJar(name, clazz.getName().replace('.', '/') + ".class", clazz);
+  }
+
+  private Path createJar(String name, String entryName, Class<?> clazz) throws IOException {
+    Path jar = tempFolder.getRoot().toPath().resolve(name);
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar));
+        InputStream classFile = ClassFileScannerTest.getClassFile(clazz)) {
+      out.putNextEntry(new ZipEntry(entryName));
+      copy(classFile, out);
+    }
+    return jar;
+  }
+
+  private static void copy(InputStream in, OutputStream out) throws IOException {
+    byte[] buffer = new byte[4096];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+  }
+}
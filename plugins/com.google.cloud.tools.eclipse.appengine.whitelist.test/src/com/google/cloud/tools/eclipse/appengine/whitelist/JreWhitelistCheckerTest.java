@@ -16,11 +16,22 @@
 
 package com.google.cloud.tools.eclipse.appengine.whitelist;
 
+import com.google.cloud.tools.eclipse.test.util.project.TestProjectCreator;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.compiler.CategorizedProblem;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
 
 public class JreWhitelistCheckerTest {
 
+  @Rule public TestProjectCreator projectCreator = new TestProjectCreator()
+      .withClasspathContainerPath("org.eclipse.jdt.launching.JRE_CONTAINER");
+
   private JreWhitelistChecker checker = new JreWhitelistChecker();
 
   @Test
@@ -28,4 +39,62 @@ public class JreWhitelistCheckerTest {
     Assert.assertFalse(checker.isActive(null));
   }
 
+  @Test
+  public void testCheckReferences() {
+    String source = "import java.net.CookieManager;\n"
+        + "import java.util.List;\n"
+        + "class Foo { javax.swing.JFrame frame; }\n";
+    List<CategorizedProblem> problems = JreWhitelistChecker.checkReferences(
+        new ClassReferenceScanner("1.7"), source.toCharArray(), "/test/Foo.java".toCharArray());
+    Assert.assertEquals(2, problems.size());
+    Assert.assertEquals("java.net.CookieManager", problems.get(0).getArguments()[0]);
+    Assert.assertEquals(1, problems.get(0).getSourceLineNumber());
+    Assert.assertEquals("javax.swing.JFrame", problems.get(1).getArguments()[0]);
+    Assert.assertEquals(BlacklistedClassProblem.MARKER_TYPE, problems.get(1).getMarkerType());
+    Assert.assertTrue(problems.get(1).isError());
+  }
+
+  @Test
+  public void testCheckReferences_staticConstants() {
+    String source = "import static java.util.concurrent.TimeUnit.SECONDS;\n"
+        + "class Foo { int max = java.lang.Integer.MAX_VALUE; }\n";
+    List<CategorizedProblem> problems = JreWhitelistChecker.checkReferences(
+        new ClassReferenceScanner("1.7"), source.toCharArray(), "/test/Foo.java".toCharArray());
+    Assert.assertTrue(problems.isEmpty());
+  }
+
+  @Test
+  public void testCheckReferences_nestedClassMessage() {
+    String source = "class Foo { java.awt.geom.Point2D.Double point; }";
+    List<CategorizedProblem> problems = JreWhitelistChecker.checkReferences(
+        new ClassReferenceScanner("1.7"), source.toCharArray(), "/test/Foo.java".toCharArray());
+    Assert.assertEquals(1, problems.size());
+    Assert.assertTrue(problems.get(0).getMessage().startsWith("java.awt.geom.Point2D.Double "));
+  }
+
+  @Test
+  public void testCheckReferences_jsr305OnClasspath() throws CoreException {
+    // the JSR-305 annotations add classes to the javax.annotation package of the JRE
+    IFolder javax = projectCreator.getProject().getFolder("javax");
+    javax.create(true, true, null);
+    IFolder annotation = javax.getFolder("annotation");
+    annotation.create(true, true, null);
+    for (String name : new String[] {"CheckForNull", "Nullable"}) {
+      String content = "package javax.annotation;\npublic @interface " + name + " {}\n";
+      annotation.getFile(name + ".java").create(
+          new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), true, null);
+    }
+
+    String source = "import javax.annotation.CheckForNull;\n"
+        + "import javax.annotation.Nullable;\n"
+        + "class Foo {\n"
+        + "  @javax.annotation.Nullable java.awt.geom.Point2D.Double point;\n"
+        + "}\n";
+    List<CategorizedProblem> problems = JreWhitelistChecker.checkReferences(
+        new ClassReferenceScanner("1.7", projectCreator.getJavaProject()), source.toCharArray(),
+        "/test/Foo.java".toCharArray());
+    Assert.assertEquals(1, problems.size());
+    Assert.assertEquals("java.awt.geom.Point2D$Double", problems.get(0).getArguments()[0]);
+    Assert.assertEquals(4, problems.get(0).getSourceLineNumber());
+  }
 }
@@ -17,6 +17,7 @@
 package com.google.cloud.tools.eclipse.appengine.whitelist;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -32,7 +33,7 @@ import java.util.Set;
  */
 public class AppEngineJreWhitelist {
 
-  private static Set<String> WHITELIST =
+  private static final Set<String> WHITELIST = Collections.unmodifiableSet(
       new HashSet<String>(
           Arrays.asList(
               "java.beans.Transient",
@@ -1924,72 +1925,135 @@ public class AppEngineJreWhitelist {
               "javax.naming.directory.Attributes",
               "javax.naming.ldap.LdapName",
               "javax.naming.ldap.Rdn"
-              ));
-  
-  
+              )));
+
+  /**
+   * Packages whose classes, including those of subpackages, are bundled in the JRE and therefore
+   * must be on the {@link #WHITELIST}. Other {@code javax} packages, such as
+   * {@code javax.servlet}, are not part of the JRE.
+   */
+  private static final String[] JRE_PACKAGES = {
+      "java",
+      "sun.util",
+      "org.xml.sax",
+      "org.w3c.dom",
+      "org.omg",
+      "org.ietf.jgss",
+      // com.sun and com.oracle packages are tricky. Some are in the JRE. Some aren't.
+      "com.sun.jmx",
+      "com.sun.jndi",
+      "com.sun.media",
+      "com.sun.management",
+      "com.sun.beans",
+      "com.sun.corba",
+      "com.sun.awt",
+      "com.sun.swing",
+      "com.sun.rmi",
+      "com.sun.xml",
+      "com.sun.java",
+      "com.sun.org",
+      "com.sun.rowset",
+      "com.oracle.net",
+      "com.oracle.nio",
+      "com.oracle.util",
+      // javax packages are tricky. Some are in the JRE. Some aren't.
+      "javax.accessibility",
+      "javax.activation",
+      "javax.activity",
+      "javax.annotation",
+      "javax.crypto",
+      "javax.imageio",
+      "javax.jws",
+      "javax.lang.model",
+      "javax.management",
+      "javax.naming",
+      "javax.net",
+      "javax.print",
+      "javax.rmi",
+      "javax.script",
+      "javax.security",
+      "javax.sound",
+      "javax.sql",
+      "javax.swing",
+      "javax.tools",
+      "javax.transaction",
+      "javax.xml"
+  };
+
+  /** Trie of the package segments of {@link #JRE_PACKAGES}. */
+  private static final PackageNode JRE_PACKAGE_TRIE = PackageNode.of(JRE_PACKAGES);
+
   /**
    * @param className fully package qualified class name
    * @return true if this class is allowed in Java 7 on App Engine Standard, false otherwise
    */
   public static boolean contains(String className) {
-    if (className.startsWith("javax.") ){
-      return !isBundledInJre(className) || WHITELIST.contains(className);
-    } else if (className.startsWith("java.") 
-        || className.startsWith("sun.util.") 
-        || className.startsWith("org.xml.sax.") 
-        || className.startsWith("org.w3c.dom.") 
-        || className.startsWith("org.omg.") 
-        || className.startsWith("org.ietf.jgss.") 
-        // com.sun and com.oracle packages are tricky. Some are in the JRE. Some aren't. 
-        || className.startsWith("com.sun.jmx.") 
-        || className.startsWith("com.sun.jndi.") 
-        || className.startsWith("com.sun.media.") 
-        || className.startsWith("com.sun.management.") 
-        || className.startsWith("com.sun.beans.") 
-        || className.startsWith("com.sun.corba.") 
-        || className.startsWith("com.sun.awt.") 
-        || className.startsWith("com.sun.swing.") 
-        || className.startsWith("com.sun.rmi.") 
-        || className.startsWith("com.sun.xml.") 
-        || className.startsWith("com.sun.java.") 
-        || className.startsWith("com.sun.org.") 
-        || className.startsWith("com.sun.rowset.") 
-        || className.startsWith("com.oracle.net.") 
-        || className.startsWith("com.oracle.nio.") 
-        || className.startsWith("com.oracle.util.")) {
-      return WHITELIST.contains(className);
-    } else { // not a JRE class
-      return true;
-    }
+    return !isBundledInJre(className) || WHITELIST.contains(className);
   }
 
-  // javax packages are tricky. Some are in the JRE. Some aren't. 
-  private static boolean isBundledInJre(String className) {
-    if (className.startsWith("javax.accessibility.")
-        || className.startsWith("javax.activation.")
-        || className.startsWith("javax.activity.")
-        || className.startsWith("javax.annotation.")
-        || className.startsWith("javax.crypto.")
-        || className.startsWith("javax.imageio.")
-        || className.startsWith("javax.jws.")
-        || className.startsWith("javax.lang.model.")
-        || className.startsWith("javax.management.")
-        || className.startsWith("javax.naming.")
-        || className.startsWith("javax.net.")
-        || className.startsWith("javax.print.")
-        || className.startsWith("javax.rmi.")
-        || className.startsWith("javax.script.")
-        || className.startsWith("javax.security.")
-        || className.startsWith("javax.sound.")
-        || className.startsWith("javax.sql.")
-        || className.startsWith("javax.swing.")
-        || className.startsWith("javax.tools.")
-        || className.startsWith("javax.transaction.")
-        || className.startsWith("javax.xml.")) {
-      return true;
+  /**
+   * Walks the package segments of {@code className} down the {@link #JRE_PACKAGE_TRIE}, which
+   * compares each character of the package name at most a few times and allocates nothing,
+   * instead of testing every prefix.
+   */
+  static boolean isBundledInJre(String className) {
+    PackageNode node = JRE_PACKAGE_TRIE;
+    int segmentStart = 0;
+    int segmentEnd;
+    while ((segmentEnd = className.indexOf('.', segmentStart)) >= 0) {
+      node = node.getChild(className, segmentStart, segmentEnd - segmentStart);
+      if (node == null) {
+        return false;
+      } else if (node.isJrePackage) {
+        return true;
+      }
+      segmentStart = segmentEnd + 1;
     }
     return false;
   }
-  
-}
 
+  /**
+   * A package segment. Nodes have at most a few dozen children, so they are kept in arrays and
+   * searched linearly, which is faster than hashing a substring of the class name.
+   */
+  private static class PackageNode {
+
+    private String[] segments = new String[0];
+    private PackageNode[] children = new PackageNode[0];
+    private boolean isJrePackage;
+
+    private PackageNode getChild(String className, int offset, int length) {
+      for (int i = 0; i < segments.length; i++) {
+        String segment = segments[i];
+        if (segment.length() == length && className.regionMatches(offset, segment, 0, length)) {
+          return children[i];
+        }
+      }
+      return null;
+    }
+
+    private PackageNode addChild(String segment) {
+      PackageNode child = getChild(segment, 0, segment.length());
+      if (child == null) {
+        child = new PackageNode();
+        segments = Arrays.copyOf(segments, segments.length + 1);
+        segments[segments.length - 1] = segment;
+        children = Arrays.copyOf(children, children.length + 1);
+        children[children.length - 1] = child;
+      }
+      return child;
+    }
+
+    private static PackageNode of(String[] packageNames) {
+      PackageNode root = new PackageNode();
+      for (String packageName : packageNames) {
+        PackageNode node = root;
+        for (String segment : packageName.split("\\.")) {
+          node = node.addChild(segment);
+        }
+        node.isJrePackage = true;
+      }
+      return root;
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import org.eclipse.jdt.core.compiler.CategorizedProblem;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Reports a reference to a JRE class that is not on the App Engine Standard whitelist.
+ */
+class BlacklistedClassProblem extends CategorizedProblem {
+
+  static final String MARKER_TYPE =
+      "com.google.cloud.tools.eclipse.appengine.whitelist.blacklistedClass"; //$NON-NLS-1$
+
+  private final String className;
+  private final char[] fileName;
+  private int sourceStart;
+  private int sourceEnd;
+  private int lineNumber;
+
+  BlacklistedClassProblem(String className, char[] fileName, int sourceStart, int sourceEnd,
+      int lineNumber) {
+    this.className = className;
+    this.fileName = fileName;
+    this.sourceStart = sourceStart;
+    this.sourceEnd = sourceEnd;
+    this.lineNumber = lineNumber;
+  }
+
+  String getClassName() {
+    return className;
+  }
+
+  @Override
+  public String getMarkerType() {
+    return MARKER_TYPE;
+  }
+
+  @Override
+  public int getCategoryID() {
+    return CAT_RESTRICTION;
+  }
+
+  @Override
+  public String[] getArguments() {
+    return new String[] {className};
+  }
+
+  @Override
+  public int getID() {
+    // not a JDT compiler problem
+    return 0;
+  }
+
+  @Override
+  public String getMessage() {
+    return NLS.bind(Messages.BlacklistedClass, className.replace('$', '.'));
+  }
+
+  @Override
+  public char[] getOriginatingFileName() {
+    return fileName;
+  }
+
+  @Override
+  public int getSourceStart() {
+    return sourceStart;
+  }
+
+  @Override
+  public int getSourceEnd() {
+    return sourceEnd;
+  }
+
+  @Override
+  public int getSourceLineNumber() {
+    return lineNumber;
+  }
+
+  @Override
+  public boolean isError() {
+    return true;
+  }
+
+  @Override
+  public boolean isWarning() {
+    return false;
+  }
+
+  @Override
+  public void setSourceEnd(int sourceEnd) {
+    this.sourceEnd = sourceEnd;
+  }
+
+  @Override
+  public void setSourceLineNumber(int lineNumber) {
+    this.lineNumber = lineNumber;
+  }
+
+  @Override
+  public void setSourceStart(int sourceStart) {
+    this.sourceStart = sourceStart;
+  }
+}
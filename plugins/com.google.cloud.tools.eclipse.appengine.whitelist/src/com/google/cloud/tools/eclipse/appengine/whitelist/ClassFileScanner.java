@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reads the classes referenced by a class file from its constant pool, without loading or
+ * verifying the class. Only the header and the constant pool are read; the fields, methods and
+ * attributes that follow are never looked at.
+ *
+ * @see <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.4">The
+ *     Constant Pool</a>
+ */
+class ClassFileScanner {
+
+  private static final int MAGIC = 0xCAFEBABE;
+
+  private static final int CONSTANT_UTF8 = 1;
+  private static final int CONSTANT_INTEGER = 3;
+  private static final int CONSTANT_FLOAT = 4;
+  private static final int CONSTANT_LONG = 5;
+  private static final int CONSTANT_DOUBLE = 6;
+  private static final int CONSTANT_CLASS = 7;
+  private static final int CONSTANT_STRING = 8;
+  private static final int CONSTANT_FIELDREF = 9;
+  private static final int CONSTANT_METHODREF = 10;
+  private static final int CONSTANT_INTERFACE_METHODREF = 11;
+  private static final int CONSTANT_NAME_AND_TYPE = 12;
+  private static final int CONSTANT_METHOD_HANDLE = 15;
+  private static final int CONSTANT_METHOD_TYPE = 16;
+  private static final int CONSTANT_DYNAMIC = 17;
+  private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+  private static final int CONSTANT_MODULE = 19;
+  private static final int CONSTANT_PACKAGE = 20;
+
+  /**
+   * @return the binary names, e.g. {@code java.util.Map$Entry}, of the classes referenced from
+   *     the constant pool of the class file, including the element types of array classes
+   * @throws IOException if {@code classFile} cannot be read or is not a class file
+   */
+  static Set<String> getReferencedClasses(InputStream classFile) throws IOException {
+    DataInputStream input = new DataInputStream(new BufferedInputStream(classFile));
+    if (input.readInt() != MAGIC) {
+      throw new IOException("Not a class file");
+    }
+    input.readUnsignedShort(); // minor version
+    input.readUnsignedShort(); // major version
+
+    int constantPoolCount = input.readUnsignedShort();
+    String[] utf8Constants = new String[constantPoolCount];
+    int[] classNameIndexes = new int[constantPoolCount];
+    int classCount = 0;
+    for (int i = 1; i < constantPoolCount; i++) {
+      int tag = input.readUnsignedByte();
+      switch (tag) {
+        case CONSTANT_UTF8:
+          utf8Constants[i] = input.readUTF();
+          break;
+        case CONSTANT_CLASS:
+          classNameIndexes[classCount++] = input.readUnsignedShort();
+          break;
+        case CONSTANT_STRING:
+        case CONSTANT_METHOD_TYPE:
+        case CONSTANT_MODULE:
+        case CONSTANT_PACKAGE:
+          skipFully(input, 2);
+          break;
+        case CONSTANT_METHOD_HANDLE:
+          skipFully(input, 3);
+          break;
+        case CONSTANT_INTEGER:
+        case CONSTANT_FLOAT:
+        case CONSTANT_FIELDREF:
+        case CONSTANT_METHODREF:
+        case CONSTANT_INTERFACE_METHODREF:
+        case CONSTANT_NAME_AND_TYPE:
+        case CONSTANT_DYNAMIC:
+        case CONSTANT_INVOKE_DYNAMIC:
+          skipFully(input, 4);
+          break;
+        case CONSTANT_LONG:
+        case CONSTANT_DOUBLE:
+          skipFully(input, 8);
+          i++; // 8-byte constants take two entries
+          break;
+        default:
+          throw new IOException("Invalid constant pool tag " + tag + " at entry " + i);
+      }
+    }
+
+    Set<String> classNames = new HashSet<>();
+    for (int i = 0; i < classCount; i++) {
+      int nameIndex = classNameIndexes[i];
+      if (nameIndex <= 0 || nameIndex >= constantPoolCount || utf8Constants[nameIndex] == null) {
+        throw new IOException("Invalid class name index " + nameIndex);
+      }
+      String className = toBinaryName(utf8Constants[nameIndex]);
+      if (className != null) {
+        classNames.add(className);
+      }
+    }
+    return classNames;
+  }
+
+  /**
+   * Converts an internal class name, e.g. {@code java/lang/String} or {@code [Ljava/lang/String;},
+   * to a binary name.
+   *
+   * @return the binary name, or {@code null} for an array of a primitive type
+   */
+  private static String toBinaryName(String internalName) {
+    String name = internalName;
+    if (name.startsWith("[")) {
+      int start = name.lastIndexOf('[') + 1;
+      if (name.charAt(start) != 'L' || !name.endsWith(";")) {
+        return null;
+      }
+      name = name.substring(start + 1, name.length() - 1);
+    }
+    return name.replace('/', '.');
+  }
+
+  private static void skipFully(DataInputStream input, int count) throws IOException {
+    input.readFully(new byte[count]);
+  }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.ToolFactory;
+import org.eclipse.jdt.core.compiler.IScanner;
+import org.eclipse.jdt.core.compiler.ITerminalSymbols;
+import org.eclipse.jdt.core.compiler.InvalidInputException;
+
+/**
+ * Finds the package-qualified names of classes bundled in the JRE in Java source, e.g. in import
+ * declarations or in fully qualified references such as {@code java.net.CookieManager}. Only the
+ * source is tokenized, nothing is parsed or resolved, so the cost is a small fraction of compiling
+ * the same file.
+ * <p>
+ * Without bindings, a simple name cannot be told apart from a class in the same package, so
+ * references through single-type imports are found at the import declaration, and simple names
+ * that refer to on-demand imports or to {@code java.lang} are not found. Likewise, a dotted name
+ * is only taken as a class name if its package is one of the JRE packages, as it could be a chain
+ * of variables and fields otherwise.
+ * <p>
+ * Libraries may add classes to JRE packages, e.g. the JSR-305 annotations in
+ * {@code javax.annotation}. So when a project is given, a name is only reported if it resolves on
+ * the project's classpath to a class of its JRE container.
+ */
+class ClassReferenceScanner {
+
+  private static final Logger logger = Logger.getLogger(ClassReferenceScanner.class.getName());
+
+  // JavaRuntime.JRE_CONTAINER, without depending on org.eclipse.jdt.launching
+  private static final String JRE_CONTAINER = "org.eclipse.jdt.launching.JRE_CONTAINER"; //$NON-NLS-1$
+
+  /** A package-qualified class name and its position in the source. */
+  static class ClassReference {
+
+    private final String className;
+    private final int sourceStart;
+    private final int sourceEnd;
+    private final int lineNumber;
+
+    ClassReference(String className, int sourceStart, int sourceEnd, int lineNumber) {
+      this.className = className;
+      this.sourceStart = sourceStart;
+      this.sourceEnd = sourceEnd;
+      this.lineNumber = lineNumber;
+    }
+
+    /**
+     * @return the binary name of the class, with {@code $} separating nested classes
+     */
+    String getClassName() {
+      return className;
+    }
+
+    int getSourceStart() {
+      return sourceStart;
+    }
+
+    /** Inclusive, as in {@link org.eclipse.jdt.core.compiler.IProblem#getSourceEnd()}. */
+    int getSourceEnd() {
+      return sourceEnd;
+    }
+
+    int getLineNumber() {
+      return lineNumber;
+    }
+  }
+
+  private final String sourceLevel;
+  private final IJavaProject javaProject;
+  // whether each class name looked up resolves to a class of the JRE container
+  private final Map<String, Boolean> jreClasses = new HashMap<>();
+
+  /**
+   * @param sourceLevel the source level of the project, e.g. {@code "1.7"}, which determines the
+   *     keywords the scanner recognizes
+   */
+  ClassReferenceScanner(String sourceLevel) {
+    this(sourceLevel, null);
+  }
+
+  /**
+   * @param sourceLevel the source level of the project, e.g. {@code "1.7"}, which determines the
+   *     keywords the scanner recognizes
+   * @param javaProject the project in which the class names are resolved, or {@code null} to take
+   *     all the names in JRE packages as JRE classes, and to look up nested classes in the running
+   *     JRE
+   */
+  ClassReferenceScanner(String sourceLevel, IJavaProject javaProject) {
+    this.sourceLevel = sourceLevel;
+    this.javaProject = javaProject;
+  }
+
+  /**
+   * Returns the package-qualified class names in {@code source}. Scanning stops at the first
+   * invalid token, which the compiler reports anyway.
+   */
+  List<ClassReference> scan(char[] source) {
+    IScanner scanner = ToolFactory.createScanner(false /* tokenizeComments */,
+        false /* tokenizeWhiteSpace */, true /* recordLineSeparator */, sourceLevel);
+    scanner.setSource(source);
+    List<ClassReference> references = new ArrayList<>();
+    try {
+      int previousToken = ITerminalSymbols.TokenNameEOF;
+      int token = scanner.getNextToken();
+      while (token != ITerminalSymbols.TokenNameEOF) {
+        if (token != ITerminalSymbols.TokenNameIdentifier
+            || previousToken == ITerminalSymbols.TokenNameDOT
+            || previousToken == ITerminalSymbols.TokenNamepackage) {
+          previousToken = token;
+          token = scanner.getNextToken();
+          continue;
+        }
+
+        // read a whole dotted name
+        int start = scanner.getCurrentTokenStartPosition();
+        List<String> segments = new ArrayList<>();
+        List<Integer> segmentEnds = new ArrayList<>();
+        segments.add(new String(scanner.getCurrentTokenSource()));
+        segmentEnds.add(scanner.getCurrentTokenEndPosition());
+        previousToken = token;
+        token = scanner.getNextToken();
+        while (token == ITerminalSymbols.TokenNameDOT) {
+          previousToken = token;
+          token = scanner.getNextToken();
+          if (token != ITerminalSymbols.TokenNameIdentifier) {
+            break;
+          }
+          segments.add(new String(scanner.getCurrentTokenSource()));
+          segmentEnds.add(scanner.getCurrentTokenEndPosition());
+          previousToken = token;
+          token = scanner.getNextToken();
+        }
+
+        ClassReference reference = toClassReference(scanner, segments, segmentEnds, start);
+        if (reference != null) {
+          references.add(reference);
+        }
+      }
+    } catch (InvalidInputException ex) {
+      // the compiler reports the syntax error
+    }
+    return references;
+  }
+
+  /**
+   * Interprets a dotted name as one or more lower case package segments followed by a class name,
+   * which is how Java code is conventionally written. The following segments are taken as nested
+   * class names as long as they name a JRE class. Anything after that, such as a static field or
+   * method, is ignored.
+   *
+   * @return the class reference, or {@code null} if the name does not look like the
+   *     package-qualified name of a class bundled in the JRE
+   */
+  private ClassReference toClassReference(IScanner scanner, List<String> segments,
+      List<Integer> segmentEnds, int start) {
+    if (segments.size() < 2 || !isPackageSegment(segments.get(0))) {
+      return null;
+    }
+    int i = 1;
+    while (i < segments.size() && isPackageSegment(segments.get(i))) {
+      i++;
+    }
+    if (i == segments.size()) {
+      return null;
+    }
+    StringBuilder className = new StringBuilder();
+    for (int j = 0; j < i; j++) {
+      className.append(segments.get(j)).append('.');
+    }
+    className.append(segments.get(i));
+    if (!AppEngineJreWhitelist.isBundledInJre(className.toString())
+        || (javaProject != null && !isJreClass(className.toString()))) {
+      return null;
+    }
+    int end = segmentEnds.get(i);
+    for (i++; i < segments.size() && Character.isUpperCase(segments.get(i).charAt(0)); i++) {
+      String nestedClassName = className + "$" + segments.get(i);
+      if (!isNestedJreClass(nestedClassName)) {
+        break;
+      }
+      className.setLength(0);
+      className.append(nestedClassName);
+      end = segmentEnds.get(i);
+    }
+    return new ClassReference(className.toString(), start, end, scanner.getLineNumber(start));
+  }
+
+  private static boolean isPackageSegment(String segment) {
+    return Character.isLowerCase(segment.charAt(0));
+  }
+
+  /**
+   * @param className the binary name of a nested class in a JRE package
+   */
+  private boolean isNestedJreClass(String className) {
+    if (javaProject != null) {
+      return isJreClass(className);
+    }
+    return AppEngineJreWhitelist.contains(className)
+        || ClassLoader.getSystemResource(className.replace('.', '/') + ".class") != null;
+  }
+
+  /**
+   * @param className the binary name of a class in a JRE package
+   * @return <code>true</code> if the class resolves on the classpath of the project to a class of
+   *     its JRE container
+   */
+  private boolean isJreClass(String className) {
+    Boolean jreClass = jreClasses.get(className);
+    if (jreClass == null) {
+      jreClass = resolvesToJreContainer(className);
+      jreClasses.put(className, jreClass);
+    }
+    return jreClass;
+  }
+
+  private boolean resolvesToJreContainer(String className) {
+    try {
+      IType type = javaProject.findType(className.replace('$', '.'));
+      if (type == null) {
+        return false;
+      }
+      IPackageFragmentRoot root =
+          (IPackageFragmentRoot) type.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+      IClasspathEntry entry = root.getRawClasspathEntry();
+      return entry != null && entry.getEntryKind() == IClasspathEntry.CPE_CONTAINER
+          && JRE_CONTAINER.equals(entry.getPath().segment(0));
+    } catch (JavaModelException ex) {
+      logger.log(Level.WARNING, "Could not resolve " + className, ex);
+      return false;
+    }
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.appengine.whitelist;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Finds the classes referenced by the class files in jars, typically those in
+ * {@code WEB-INF/lib}, that are not on the {@link AppEngineJreWhitelist}.
+ * <p>
+ * The jars are scanned in parallel and only their constant pools are read. Results are cached by
+ * the SHA-1 of the jar contents, so an unchanged dependency is hashed again but never rescanned,
+ * even if it is copied to another location.
+ * <p>
+ * A class in a JRE package that is defined by one of the jars, e.g. the JSR-305 annotations in
+ * {@code javax.annotation}, is not reported when another jar references it.
+ */
+public class JarWhitelistScanner {
+
+  private static final int MAX_CACHED_JARS = 1000;
+  private static final String CLASS_FILE_EXTENSION = ".class"; //$NON-NLS-1$
+
+  private final Map<String, JarScan> resultsBySha1 =
+      new LinkedHashMap<String, JarScan>(16, 0.75f, true /* accessOrder */) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JarScan> eldest) {
+          return size() > MAX_CACHED_JARS;
+        }
+      };
+
+  private final AtomicInteger scannedJarCount = new AtomicInteger();
+
+  /** The result of scanning one jar. */
+  private static class JarScan {
+    /** Classes defined in the jar that would be blacklisted, so that other jars may use them. */
+    private final Set<String> definedClasses;
+    /** Classes referenced but not defined by the jar that are not on the whitelist. */
+    private final SortedSet<String> blacklistedClasses;
+
+    private JarScan(Set<String> definedClasses, SortedSet<String> blacklistedClasses) {
+      this.definedClasses = definedClasses;
+      this.blacklistedClasses = blacklistedClasses;
+    }
+  }
+
+  /**
+   * @return for each jar that references classes that are not on the whitelist, the sorted
+   *     binary names of those classes, in the order of {@code jars}
+   * @throws IOException if a jar cannot be read or contains an invalid class file
+   * @throws InterruptedException if interrupted while waiting for the scans to complete, in which
+   *     case the remaining scans are cancelled
+   */
+  public Map<Path, SortedSet<String>> findBlacklistedClasses(List<Path> jars)
+      throws IOException, InterruptedException {
+    return findBlacklistedClasses(jars, Collections.<String>emptySet());
+  }
+
+  /**
+   * @param definedClasses the binary names of the classes available to the jars besides their
+   *     own, e.g. those in {@code WEB-INF/classes}
+   * @return for each jar that references classes that are not on the whitelist and not defined by
+   *     any of the jars or in {@code definedClasses}, the sorted binary names of those classes, in
+   *     the order of {@code jars}
+   * @throws IOException if a jar cannot be read or contains an invalid class file
+   * @throws InterruptedException if interrupted while waiting for the scans to complete, in which
+   *     case the remaining scans are cancelled
+   */
+  public Map<Path, SortedSet<String>> findBlacklistedClasses(List<Path> jars,
+      Set<String> definedClasses) throws IOException, InterruptedException {
+    Map<Path, SortedSet<String>> results = new LinkedHashMap<>();
+    if (jars.isEmpty()) {
+      return results;
+    }
+
+    int threadCount = Math.min(jars.size(), Runtime.getRuntime().availableProcessors());
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+      private final AtomicInteger threadNumber = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread =
+            new Thread(runnable, "jar-whitelist-scanner-" + threadNumber.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    List<Future<JarScan>> futures = new ArrayList<>(jars.size());
+    try {
+      for (final Path jar : jars) {
+        futures.add(executor.submit(new Callable<JarScan>() {
+          @Override
+          public JarScan call() throws IOException {
+            return getJarScan(jar);
+          }
+        }));
+      }
+      List<JarScan> scans = new ArrayList<>(jars.size());
+      Set<String> allDefinedClasses = new HashSet<>(definedClasses);
+      for (Future<JarScan> future : futures) {
+        JarScan scan = future.get();
+        scans.add(scan);
+        allDefinedClasses.addAll(scan.definedClasses);
+      }
+      for (int i = 0; i < jars.size(); i++) {
+        SortedSet<String> blacklisted = new TreeSet<>(scans.get(i).blacklistedClasses);
+        blacklisted.removeAll(allDefinedClasses);
+        if (!blacklisted.isEmpty()) {
+          results.put(jars.get(i), Collections.unmodifiableSortedSet(blacklisted));
+        }
+      }
+      return results;
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof IOException) {
+        throw (IOException) ex.getCause();
+      }
+      throw new IllegalStateException(ex.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private JarScan getJarScan(Path jar) throws IOException {
+    String sha1 = sha1(jar);
+    synchronized (resultsBySha1) {
+      JarScan cached = resultsBySha1.get(sha1);
+      if (cached != null) {
+        return cached;
+      }
+    }
+
+    JarScan scan = scan(jar);
+    scannedJarCount.incrementAndGet();
+    synchronized (resultsBySha1) {
+      resultsBySha1.put(sha1, scan);
+    }
+    return scan;
+  }
+
+  private static JarScan scan(Path jar) throws IOException {
+    Set<String> definedClasses = new HashSet<>();
+    Set<String> referencedClasses = new HashSet<>();
+    try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        String name = entry.getName();
+        // skip multi-release versions and module descriptors
+        if (entry.isDirectory() || !name.endsWith(CLASS_FILE_EXTENSION)
+            || name.startsWith("META-INF/") || name.endsWith("module-info.class")) {
+          continue;
+        }
+        definedClasses.add(name.substring(0, name.length() - CLASS_FILE_EXTENSION.length())
+            .replace('/', '.'));
+        try (InputStream classFile = zipFile.getInputStream(entry)) {
+          referencedClasses.addAll(ClassFileScanner.getReferencedClasses(classFile));
+        } catch (IOException ex) {
+          throw new IOException("Cannot read " + name + " in " + jar, ex);
+        }
+      }
+    }
+
+    SortedSet<String> blacklisted = new TreeSet<>();
+    for (String className : referencedClasses) {
+      // a jar may bundle its own copy of an API that is also in the JRE
+      if (!definedClasses.contains(className) && !AppEngineJreWhitelist.contains(className)) {
+        blacklisted.add(className);
+      }
+    }
+    // only the definitions that hide a blacklisted class matter to other jars
+    Set<String> definedBlacklistedClasses = new HashSet<>();
+    for (String className : definedClasses) {
+      if (!AppEngineJreWhitelist.contains(className)) {
+        definedBlacklistedClasses.add(className);
+      }
+    }
+    return new JarScan(Collections.unmodifiableSet(definedBlacklistedClasses),
+        Collections.unmodifiableSortedSet(blacklisted));
+  }
+
+  private static String sha1(Path file) throws IOException {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      try (InputStream input = new DigestInputStream(Files.newInputStream(file), digest)) {
+        byte[] buffer = new byte[64 * 1024];
+        while (input.read(buffer) != -1) {
+          // only the digest is needed
+        }
+      }
+      StringBuilder hex = new StringBuilder();
+      for (byte b : digest.digest()) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException ex) {
+      // every Java platform supports SHA-1
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /** Number of jars actually scanned, rather than answered from the cache. */
+  int getScannedJarCount() {
+    return scannedJarCount.get();
+  }
+}
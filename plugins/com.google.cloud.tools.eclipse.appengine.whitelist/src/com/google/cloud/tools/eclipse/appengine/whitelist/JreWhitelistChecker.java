@@ -16,15 +16,80 @@
 
 package com.google.cloud.tools.eclipse.appengine.whitelist;
 
+import com.google.cloud.tools.eclipse.appengine.facets.AppEngineStandardFacet;
+import com.google.cloud.tools.eclipse.appengine.whitelist.ClassReferenceScanner.ClassReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.compiler.BuildContext;
+import org.eclipse.jdt.core.compiler.CategorizedProblem;
 import org.eclipse.jdt.core.compiler.CompilationParticipant;
+import org.eclipse.wst.common.project.facet.core.IFacetedProject;
+import org.eclipse.wst.common.project.facet.core.ProjectFacetsManager;
 
-// see JavaCompilationParticipant.java in old plugin
+/**
+ * Reports references to JRE classes that are not on the {@link AppEngineJreWhitelist} in
+ * projects with the App Engine Standard facet.
+ * <p>
+ * Only the files in the {@link BuildContext}s of a build are checked. The problems are reported
+ * through {@link BuildContext#recordNewProblems}, and the marker type is declared as managed in
+ * plugin.xml, so JDT removes the markers of a file whenever it is recompiled.
+ */
 public class JreWhitelistChecker extends CompilationParticipant {
 
+  private static final Logger logger = Logger.getLogger(JreWhitelistChecker.class.getName());
+
   @Override
   public boolean isActive(IJavaProject project) {
-    return false;
+    if (project == null) {
+      return false;
+    }
+    try {
+      IFacetedProject facetedProject = ProjectFacetsManager.create(project.getProject());
+      return facetedProject != null && AppEngineStandardFacet.hasAppEngineFacet(facetedProject);
+    } catch (CoreException ex) {
+      logger.log(Level.WARNING, "Could not read the facets of " + project.getElementName(), ex);
+      return false;
+    }
+  }
+
+  @Override
+  public void buildStarting(BuildContext[] files, boolean isBatch) {
+    // the participant is shared by the builds of all projects, so the scanners are local to a call
+    Map<IProject, ClassReferenceScanner> scanners = new HashMap<>();
+    for (BuildContext file : files) {
+      IProject project = file.getFile().getProject();
+      ClassReferenceScanner scanner = scanners.get(project);
+      if (scanner == null) {
+        IJavaProject javaProject = JavaCore.create(project);
+        String sourceLevel = javaProject.getOption(JavaCore.COMPILER_SOURCE, true);
+        scanner = new ClassReferenceScanner(sourceLevel, javaProject);
+        scanners.put(project, scanner);
+      }
+      List<CategorizedProblem> problems = checkReferences(scanner, file.getContents(),
+          file.getFile().getFullPath().toString().toCharArray());
+      if (!problems.isEmpty()) {
+        file.recordNewProblems(problems.toArray(new CategorizedProblem[problems.size()]));
+      }
+    }
+  }
+
+  static List<CategorizedProblem> checkReferences(ClassReferenceScanner scanner, char[] source,
+      char[] fileName) {
+    List<CategorizedProblem> problems = new ArrayList<>();
+    for (ClassReference reference : scanner.scan(source)) {
+      if (!AppEngineJreWhitelist.contains(reference.getClassName())) {
+        problems.add(new BlacklistedClassProblem(reference.getClassName(), fileName,
+            reference.getSourceStart(), reference.getSourceEnd(), reference.getLineNumber()));
+      }
+    }
+    return problems;
   }
-  
 }
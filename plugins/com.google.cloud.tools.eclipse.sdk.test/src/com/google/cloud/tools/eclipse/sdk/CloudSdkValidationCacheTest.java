@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.tools.appengine.cloudsdk.CloudSdk;
+import com.google.cloud.tools.appengine.cloudsdk.CloudSdkOutOfDateException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CloudSdkValidationCacheTest {
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Mock private CloudSdk cloudSdk;
+
+  private final CloudSdkValidationCache cache = new CloudSdkValidationCache();
+  private Path sdkPath;
+
+  @Before
+  public void setUp() throws IOException {
+    sdkPath = tempFolder.getRoot().toPath();
+    Files.write(sdkPath.resolve("VERSION"), "150.0.0".getBytes("UTF-8"));
+    when(cloudSdk.getSdkPath()).thenReturn(sdkPath);
+  }
+
+  @Test
+  public void testValidateCloudSdk_cached() {
+    cache.validateCloudSdk(cloudSdk);
+    cache.validateCloudSdk(cloudSdk);
+
+    verify(cloudSdk, times(1)).validateCloudSdk();
+    assertEquals(1, cache.getValidationCount());
+    assertEquals(1, cache.getHitCount());
+  }
+
+  @Test
+  public void testValidateCloudSdk_failureNotCached() {
+    CloudSdkOutOfDateException failure = new CloudSdkOutOfDateException(null, null);
+    doThrow(failure).when(cloudSdk).validateCloudSdk();
+
+    for (int i = 0; i < 2; i++) {
+      try {
+        cache.validateCloudSdk(cloudSdk);
+        fail();
+      } catch (CloudSdkOutOfDateException ex) {
+        assertSame(failure, ex);
+      }
+    }
+    verify(cloudSdk, times(2)).validateCloudSdk();
+    assertEquals(0, cache.getHitCount());
+  }
+
+  @Test
+  public void testValidate_checksCachedSeparately() {
+    cache.validateCloudSdk(cloudSdk);
+    cache.validateAppEngineJavaComponents(cloudSdk);
+    cache.validateAppEngineJavaComponents(cloudSdk);
+
+    verify(cloudSdk, times(1)).validateCloudSdk();
+    verify(cloudSdk, times(1)).validateAppEngineJavaComponents();
+  }
+
+  @Test
+  public void testValidateCloudSdk_revalidatesUpdatedInstallation() throws IOException {
+    cache.validateCloudSdk(cloudSdk);
+    Files.setLastModifiedTime(sdkPath.resolve("VERSION"), FileTime.fromMillis(1000L));
+    cache.validateCloudSdk(cloudSdk);
+
+    verify(cloudSdk, times(2)).validateCloudSdk();
+  }
+
+  @Test
+  public void testValidateCloudSdk_revalidatesOtherLocation() throws IOException {
+    cache.validateCloudSdk(cloudSdk);
+    when(cloudSdk.getSdkPath()).thenReturn(tempFolder.newFolder("other").toPath());
+    cache.validateCloudSdk(cloudSdk);
+
+    verify(cloudSdk, times(2)).validateCloudSdk();
+  }
+
+  @Test
+  public void testValidateCloudSdk_notCachedWithoutInstallation() {
+    when(cloudSdk.getSdkPath()).thenReturn(sdkPath.resolve("does-not-exist"));
+    cache.validateCloudSdk(cloudSdk);
+    cache.validateCloudSdk(cloudSdk);
+
+    verify(cloudSdk, times(2)).validateCloudSdk();
+  }
+
+  @Test
+  public void testInvalidate() {
+    cache.validateCloudSdk(cloudSdk);
+    cache.invalidate();
+    cache.validateCloudSdk(cloudSdk);
+
+    verify(cloudSdk, times(2)).validateCloudSdk();
+  }
+
+  @Test
+  public void testGetInstallStamp_changesWithComponents() throws IOException {
+    long stamp = CloudSdkValidationCache.getInstallStamp(sdkPath);
+    Path install = Files.createDirectory(sdkPath.resolve(".install"));
+    Files.setLastModifiedTime(install, FileTime.fromMillis(1000L));
+    assertNotEquals(stamp, CloudSdkValidationCache.getInstallStamp(sdkPath));
+  }
+}
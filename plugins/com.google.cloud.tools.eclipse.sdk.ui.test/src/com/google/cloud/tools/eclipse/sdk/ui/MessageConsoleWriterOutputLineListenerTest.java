@@ -16,9 +16,13 @@
 
 package com.google.cloud.tools.eclipse.sdk.ui;
 
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import org.eclipse.ui.console.MessageConsoleStream;
 import org.junit.Test;
@@ -41,7 +45,49 @@ public class MessageConsoleWriterOutputLineListenerTest {
     String message = "a message";
     MessageConsoleWriterOutputLineListener listener = new MessageConsoleWriterOutputLineListener(mockConsoleStream);
     listener.onOutputLine(message);
-    verify(mockConsoleStream, times(1)).println(eq(message));
+    listener.flush();
+    verify(mockConsoleStream, times(1)).print(eq(message + "\n"));
   }
 
+  @Test
+  public void testOnOutputLine_batched() {
+    MessageConsoleWriterOutputLineListener listener = new MessageConsoleWriterOutputLineListener(mockConsoleStream);
+    listener.onOutputLine("line 1");
+    listener.onOutputLine("line 2");
+    listener.flush();
+    verify(mockConsoleStream, times(1)).print(eq("line 1\nline 2\n"));
+  }
+
+  @Test
+  public void testOnOutputLine_dropsOldestLines() {
+    MessageConsoleWriterOutputLineListener listener = new MessageConsoleWriterOutputLineListener(mockConsoleStream, 2);
+    listener.onOutputLine("line 1");
+    listener.onOutputLine("line 2");
+    listener.onOutputLine("line 3");
+    listener.flush();
+    assertEquals(1, listener.getDroppedLineCount());
+    verify(mockConsoleStream, times(1)).print(
+        eq("[1 lines of output dropped because the console did not keep up]\nline 2\nline 3\n"));
+  }
+
+  @Test
+  public void testFlush_nothingBuffered() {
+    MessageConsoleWriterOutputLineListener listener = new MessageConsoleWriterOutputLineListener(mockConsoleStream);
+    listener.flush();
+    verify(mockConsoleStream, never()).print(anyString());
+  }
+
+  @Test
+  public void testFlush_closedStream() {
+    when(mockConsoleStream.isClosed()).thenReturn(true);
+    MessageConsoleWriterOutputLineListener listener = new MessageConsoleWriterOutputLineListener(mockConsoleStream);
+    listener.onOutputLine("a message");
+    listener.flush();
+    verify(mockConsoleStream, never()).print(anyString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructor_zeroHighWaterMark() {
+    new MessageConsoleWriterOutputLineListener(mockConsoleStream, 0);
+  }
 }
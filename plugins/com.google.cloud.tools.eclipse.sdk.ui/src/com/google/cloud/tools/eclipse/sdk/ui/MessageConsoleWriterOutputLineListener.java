@@ -16,22 +16,109 @@
 
 package com.google.cloud.tools.eclipse.sdk.ui;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.osgi.util.NLS;
 import org.eclipse.ui.console.MessageConsoleStream;
 
 import com.google.cloud.tools.appengine.cloudsdk.process.ProcessOutputLineListener;
+import com.google.cloud.tools.eclipse.sdk.ui.preferences.SdkUiMessages;
+import com.google.common.base.Preconditions;
 
+/**
+ * Copies process output to a console stream. Lines are queued in a bounded buffer and written in
+ * batches by a background job, so that a process logging heavily does not make the console update
+ * for every line. When more lines arrive than the buffer holds, the oldest ones are dropped, and
+ * the number of lines dropped is reported in the console.
+ */
 public class MessageConsoleWriterOutputLineListener implements ProcessOutputLineListener {
-  private MessageConsoleStream stream;
+
+  /** Default number of lines buffered before the oldest ones are dropped. */
+  public static final int DEFAULT_HIGH_WATER_MARK = 10000;
+
+  /** Time to collect lines into a batch before writing them to the console. */
+  private static final long FLUSH_DELAY_MS = 100;
+
+  private final MessageConsoleStream stream;
+  private final int highWaterMark;
+  private final Deque<String> lines;
+  private final Job flushJob = new Job("Write process output to console") {
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      flush();
+      return Status.OK_STATUS;
+    }
+  };
+  private boolean flushScheduled;
+  private long droppedSinceFlush;
+  private long droppedLineCount;
 
   public MessageConsoleWriterOutputLineListener(MessageConsoleStream stream) {
+    this(stream, DEFAULT_HIGH_WATER_MARK);
+  }
+
+  /**
+   * @param highWaterMark the maximum number of lines waiting to be written to the console
+   */
+  public MessageConsoleWriterOutputLineListener(MessageConsoleStream stream, int highWaterMark) {
+    Preconditions.checkNotNull(stream);
+    Preconditions.checkArgument(highWaterMark > 0, "highWaterMark must be positive");
     this.stream = stream;
+    this.highWaterMark = highWaterMark;
+    lines = new ArrayDeque<>(Math.min(highWaterMark, 1024));
+    flushJob.setSystem(true);
   }
 
   @Override
   public void onOutputLine(String line) {
-    if (!stream.isClosed()) {
+    synchronized (lines) {
+      if (lines.size() == highWaterMark) {
+        lines.removeFirst();
+        droppedSinceFlush++;
+        droppedLineCount++;
+      }
+      lines.addLast(line);
+      if (flushScheduled) {
+        return;
+      }
+      flushScheduled = true;
+    }
+    flushJob.schedule(FLUSH_DELAY_MS);
+  }
+
+  /**
+   * Writes the buffered lines to the console in a single batch.
+   */
+  public void flush() {
+    StringBuilder batch = new StringBuilder();
+    synchronized (lines) {
+      flushScheduled = false;
+      if (droppedSinceFlush > 0) {
+        batch.append(NLS.bind(SdkUiMessages.OutputLinesDropped, droppedSinceFlush)).append('\n');
+        droppedSinceFlush = 0;
+      }
+      for (String line : lines) {
+        batch.append(line).append('\n');
+      }
+      lines.clear();
+    }
+    if (batch.length() > 0 && !stream.isClosed()) {
       // there's still a small chance that the stream will be closed and the error will be logged by the ConsolePlugin
-      stream.println(line);
+      stream.print(batch.toString());
+    }
+  }
+
+  /**
+   * @return the number of lines dropped because the console did not keep up with the output
+   */
+  public long getDroppedLineCount() {
+    synchronized (lines) {
+      return droppedLineCount;
     }
   }
 }
@@ -35,6 +35,7 @@ public class SdkUiMessages extends NLS {
   public static String CloudSdkPrompter_0;
   public static String CloudSdkPrompter_1;
   public static String openBrowse;
+  public static String OutputLinesDropped;
 
   static {
     // initialize resource bundle
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.cloud.tools.eclipse.sdk;
+
+import com.google.cloud.tools.appengine.api.AppEngineException;
+import com.google.cloud.tools.appengine.cloudsdk.CloudSdk;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Caches the results of {@link CloudSdk#validateCloudSdk()} and
+ * {@link CloudSdk#validateAppEngineJavaComponents()}, which run {@code gcloud} and walk the SDK
+ * installation. A successful validation is remembered for the same SDK location until the
+ * installation changes, as detected from the modification times of the installation directory,
+ * its {@code VERSION} file and its {@code .install} directory, where component installs are
+ * recorded. Failures are not cached, as the user is expected to fix them, possibly in ways that
+ * these modification times do not reflect.
+ */
+public class CloudSdkValidationCache {
+
+  private static final Logger logger = Logger.getLogger(CloudSdkValidationCache.class.getName());
+
+  private static final CloudSdkValidationCache instance = new CloudSdkValidationCache();
+
+  private enum Check {
+    CLOUD_SDK {
+      @Override
+      void run(CloudSdk cloudSdk) throws AppEngineException {
+        cloudSdk.validateCloudSdk();
+      }
+    },
+    APP_ENGINE_JAVA_COMPONENTS {
+      @Override
+      void run(CloudSdk cloudSdk) throws AppEngineException {
+        cloudSdk.validateAppEngineJavaComponents();
+      }
+    };
+
+    abstract void run(CloudSdk cloudSdk) throws AppEngineException;
+  }
+
+  private static class Success {
+    private final Path sdkPath;
+    private final long installStamp;
+
+    private Success(Path sdkPath, long installStamp) {
+      this.sdkPath = sdkPath;
+      this.installStamp = installStamp;
+    }
+  }
+
+  private final Map<Check, Success> successes = new HashMap<>();
+  private long validationCount;
+  private long hitCount;
+  private long validationMillis;
+
+  public static CloudSdkValidationCache getInstance() {
+    return instance;
+  }
+
+  @VisibleForTesting
+  CloudSdkValidationCache() {
+  }
+
+  /**
+   * Same as {@link CloudSdk#validateCloudSdk()}, but skips the check if it already succeeded for
+   * an unchanged installation.
+   */
+  public void validateCloudSdk(CloudSdk cloudSdk) throws AppEngineException {
+    validate(Check.CLOUD_SDK, cloudSdk);
+  }
+
+  /**
+   * Same as {@link CloudSdk#validateAppEngineJavaComponents()}, but skips the check if it already
+   * succeeded for an unchanged installation.
+   */
+  public void validateAppEngineJavaComponents(CloudSdk cloudSdk) throws AppEngineException {
+    validate(Check.APP_ENGINE_JAVA_COMPONENTS, cloudSdk);
+  }
+
+  /**
+   * Forgets all results, e.g., because the configured SDK location changed.
+   */
+  public synchronized void invalidate() {
+    successes.clear();
+  }
+
+  /** @return the number of validations that actually ran */
+  public synchronized long getValidationCount() {
+    return validationCount;
+  }
+
+  /** @return the number of validations answered from the cache */
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  /** @return the total time spent in the validations that actually ran, in milliseconds */
+  public synchronized long getValidationMillis() {
+    return validationMillis;
+  }
+
+  private void validate(Check check, CloudSdk cloudSdk) throws AppEngineException {
+    Path sdkPath = cloudSdk.getSdkPath();
+    long installStamp = sdkPath == null ? -1 : getInstallStamp(sdkPath);
+    synchronized (this) {
+      Success success = successes.get(check);
+      if (success != null && installStamp != -1 && success.installStamp == installStamp
+          && success.sdkPath.equals(sdkPath)) {
+        hitCount++;
+        return;
+      }
+    }
+
+    long start = System.currentTimeMillis();
+    AppEngineException failure = null;
+    try {
+      check.run(cloudSdk);
+    } catch (AppEngineException ex) {
+      failure = ex;
+    }
+    long elapsed = System.currentTimeMillis() - start;
+    logger.log(Level.FINE, check + " validation of " + sdkPath + " took " + elapsed + "ms");
+
+    synchronized (this) {
+      validationCount++;
+      validationMillis += elapsed;
+      if (failure == null && installStamp != -1) {
+        successes.put(check, new Success(sdkPath, installStamp));
+      } else {
+        successes.remove(check);
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Returns a value that changes whenever the SDK installation is updated, or -1 if it cannot be
+   * determined.
+   */
+  @VisibleForTesting
+  static long getInstallStamp(Path sdkPath) {
+    try {
+      long stamp = Files.getLastModifiedTime(sdkPath).toMillis();
+      for (String name : new String[] {"VERSION", ".install"}) {
+        Path path = sdkPath.resolve(name);
+        if (Files.exists(path)) {
+          stamp = 31 * stamp + Files.getLastModifiedTime(path).toMillis();
+        }
+      }
+      return stamp == -1 ? 0 : stamp;
+    } catch (IOException ex) {
+      return -1;
+    }
+  }
+}
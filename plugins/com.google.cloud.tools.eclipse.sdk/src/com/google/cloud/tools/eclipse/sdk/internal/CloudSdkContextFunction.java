@@ -18,6 +18,7 @@ package com.google.cloud.tools.eclipse.sdk.internal;
 
 import com.google.cloud.tools.appengine.api.AppEngineException;
 import com.google.cloud.tools.appengine.cloudsdk.CloudSdk;
+import com.google.cloud.tools.eclipse.sdk.CloudSdkValidationCache;
 import com.google.common.collect.MapMaker;
 
 import org.eclipse.e4.core.contexts.ContextFunction;
@@ -49,6 +50,7 @@ public class CloudSdkContextFunction extends ContextFunction {
 
   /** Cloud SDK location has been changed: trigger any necessary updates. */
   static void sdkPathChanged(String newPath) {
+    CloudSdkValidationCache.getInstance().invalidate();
     for (IEclipseContext context : referencedContexts) {
       context.set(PreferenceConstants.CLOUDSDK_PATH, newPath);
     }
@@ -70,8 +72,8 @@ public class CloudSdkContextFunction extends ContextFunction {
 
     try {
       CloudSdk instance = builder.build();
-      instance.validateCloudSdk();
-      instance.validateAppEngineJavaComponents();
+      CloudSdkValidationCache.getInstance().validateCloudSdk(instance);
+      CloudSdkValidationCache.getInstance().validateAppEngineJavaComponents(instance);
       return instance;
     } catch (AppEngineException ex) {
       return NOT_A_VALUE;
@@ -2,14 +2,23 @@ package com.google.cloud.tools.eclipse.test.util.http;
 
 import com.google.common.base.Preconditions;
 import java.io.File;
+import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
 import org.eclipse.jetty.server.handler.DefaultHandler;
 import org.eclipse.jetty.server.handler.HandlerList;
 import org.eclipse.jetty.server.handler.ResourceHandler;
@@ -17,7 +26,7 @@ import org.junit.rules.ExternalResource;
 import org.junit.rules.TemporaryFolder;
 
 /**
- * Simple HTTP server (wrapping an embedded Jetty server) to serve a file on a random available port.
+ * Simple HTTP server (wrapping an embedded Jetty server) to serve files on a random available port.
  * <p>
  * Use {@link #getAddress()} to obtain the server's address after it has been started via the {@link #before()} method.
  */
@@ -27,13 +36,20 @@ public class TestHttpServer extends ExternalResource {
 
   private TemporaryFolder temporaryFolder;
   private Server server;
-  private String fileName;
-  private String fileContent;
+  private Map<String, String> files;
+  private File resourceBase;
+  private volatile int errorStatus;
 
   public TestHttpServer(TemporaryFolder temporaryFolder, String fileName, String fileContent) {
+    this(temporaryFolder, Collections.singletonMap(fileName, fileContent));
+  }
+
+  /**
+   * @param files the names and contents of the files to serve
+   */
+  public TestHttpServer(TemporaryFolder temporaryFolder, Map<String, String> files) {
     this.temporaryFolder = temporaryFolder;
-    this.fileName = fileName;
-    this.fileContent = fileContent;
+    this.files = new LinkedHashMap<>(files);
   }
 
   @Override
@@ -50,13 +66,15 @@ public class TestHttpServer extends ExternalResource {
     server = new Server(new InetSocketAddress("127.0.0.1", 0));
     ResourceHandler resourceHandler = new ResourceHandler();
 
-    File resourceBase = temporaryFolder.newFolder();
-    java.nio.file.Path fileToServe = Files.createFile(resourceBase.toPath().resolve(fileName));
-    Files.write(fileToServe, fileContent.getBytes(StandardCharsets.UTF_8));
+    resourceBase = temporaryFolder.newFolder();
+    for (Map.Entry<String, String> file : files.entrySet()) {
+      java.nio.file.Path fileToServe = Files.createFile(resourceBase.toPath().resolve(file.getKey()));
+      Files.write(fileToServe, file.getValue().getBytes(StandardCharsets.UTF_8));
+    }
     resourceHandler.setResourceBase(resourceBase.getAbsolutePath());
 
     HandlerList handlers = new HandlerList();
-    handlers.setHandlers(new Handler[] { resourceHandler, new DefaultHandler() });
+    handlers.setHandlers(new Handler[] { new ErrorHandler(), resourceHandler, new DefaultHandler() });
     server.setHandler(handlers);
 
     server.dumpStdErr();
@@ -73,6 +91,26 @@ public class TestHttpServer extends ExternalResource {
     }
   }
 
+  /**
+   * Replaces the content of a served file, and makes it appear modified a minute later than before
+   * so that conditional requests see the change.
+   */
+  public void setFileContent(String fileName, String fileContent) throws IOException {
+    Preconditions.checkNotNull(resourceBase, "server isn't started yet");
+    java.nio.file.Path file = resourceBase.toPath().resolve(fileName);
+    long lastModified = Files.exists(file) ? Files.getLastModifiedTime(file).toMillis() : 0;
+    Files.write(file, fileContent.getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified + 60000));
+  }
+
+  /**
+   * Makes the server respond to all requests with the HTTP status {@code errorStatus}, or serve
+   * the files again if it is 0.
+   */
+  public void setErrorStatus(int errorStatus) {
+    this.errorStatus = errorStatus;
+  }
+
   /**
    * Returns the address that can be used to get resources from the server.
    * <p>
@@ -85,4 +123,15 @@ public class TestHttpServer extends ExternalResource {
     // assume a single server connector
     return "http://127.0.0.1:" + ((ServerConnector) server.getConnectors()[0]).getLocalPort();
   }
+
+  private class ErrorHandler extends AbstractHandler {
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request,
+        HttpServletResponse response) {
+      if (errorStatus != 0) {
+        response.setStatus(errorStatus);
+        baseRequest.setHandled(true);
+      }
+    }
+  }
 }
@@ -27,6 +27,13 @@ import org.eclipse.ui.console.MessageConsole;
  */
 public class MessageConsoleUtilities {
 
+  /**
+   * Number of characters at which the document of a console is trimmed, so that long running
+   * processes do not grow it without bound. It is trimmed to {@link #LOW_WATER_MARK} characters.
+   */
+  public static final int HIGH_WATER_MARK = 1000000;
+  public static final int LOW_WATER_MARK = 800000;
+
   /**
    * Returns a {@link MessageConsole} with the given
    * <code>consoleName</code>. If no console by that name exists then one is
@@ -67,6 +74,7 @@ public class MessageConsoleUtilities {
 
     if (messageConsole == null) {
       messageConsole = new MessageConsole(consoleName, imageDescriptor);
+      limitOutput(messageConsole);
       consoleManager.addConsoles(new IConsole[] {messageConsole});
     } else {
       messageConsole.clearConsole();
@@ -91,6 +99,7 @@ public class MessageConsoleUtilities {
     }
     // console not found, so create a new one
     C console = factory.createConsole(name);
+    limitOutput(console);
     manager.addConsoles(new IConsole[]{console});
     return console;
   }
@@ -99,10 +108,18 @@ public class MessageConsoleUtilities {
     ConsolePlugin plugin = ConsolePlugin.getDefault();
     IConsoleManager manager = plugin.getConsoleManager();
     C console = factory.createConsole(name);
+    limitOutput(console);
     manager.addConsoles(new IConsole[]{console});
     return console;
   }
 
+  /**
+   * Limits the size of the document of {@code console} to {@link #HIGH_WATER_MARK} characters.
+   */
+  public static void limitOutput(MessageConsole console) {
+    console.setWaterMarks(LOW_WATER_MARK, HIGH_WATER_MARK);
+  }
+
   public interface ConsoleFactory<C extends MessageConsole> {
     C createConsole(String name);
   }
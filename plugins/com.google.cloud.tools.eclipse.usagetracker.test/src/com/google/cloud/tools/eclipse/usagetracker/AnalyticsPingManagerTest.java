@@ -18,6 +18,8 @@ package com.google.cloud.tools.eclipse.usagetracker;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -36,6 +38,7 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.mockito.verification.VerificationMode;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -96,6 +99,7 @@ public class AnalyticsPingManagerTest {
   @Mock private IEclipsePreferences preferences;
   @Mock private Display display;
   @Mock private ConcurrentLinkedQueue<PingEvent> pingEventQueue;
+  @Mock private PingSender pingSender;
 
   @Test
   public void testGetParametersString() {
@@ -214,6 +218,54 @@ public class AnalyticsPingManagerTest {
     verifyPingQueued(times(1));
   }
 
+  @Test
+  public void testGetRetryDelayMillis() {
+    long initial = AnalyticsPingManager.INITIAL_RETRY_DELAY_MILLIS;
+    Assert.assertEquals(initial, AnalyticsPingManager.getRetryDelayMillis(1));
+    Assert.assertEquals(2 * initial, AnalyticsPingManager.getRetryDelayMillis(2));
+    Assert.assertEquals(4 * initial, AnalyticsPingManager.getRetryDelayMillis(3));
+    Assert.assertEquals(AnalyticsPingManager.MAX_RETRY_DELAY_MILLIS,
+        AnalyticsPingManager.getRetryDelayMillis(100));
+  }
+
+  @Test
+  public void testSendJournaledPings_keepsHitsOnFailure() throws IOException {
+    mockOptIn(true);
+    PingJournal journal = new PingJournal(null);
+    journal.add(System.currentTimeMillis(), "a=1");
+    when(pingSender.send(anyListOf(PingJournal.Hit.class), anyLong()))
+        .thenThrow(new IOException("proxy down"));
+
+    new AnalyticsPingManager(preferences, display, pingEventQueue, true, journal, pingSender)
+        .sendJournaledPings();
+    Assert.assertEquals(1, journal.size());
+  }
+
+  @Test
+  public void testSendJournaledPings_removesSentHits() throws IOException {
+    mockOptIn(true);
+    PingJournal journal = new PingJournal(null);
+    journal.add(System.currentTimeMillis(), "a=1");
+    journal.add(System.currentTimeMillis(), "a=2");
+    when(pingSender.send(anyListOf(PingJournal.Hit.class), anyLong())).thenReturn(2);
+
+    new AnalyticsPingManager(preferences, display, pingEventQueue, true, journal, pingSender)
+        .sendJournaledPings();
+    Assert.assertTrue(journal.isEmpty());
+  }
+
+  @Test
+  public void testSendJournaledPings_optedOutClearsJournal() throws IOException {
+    mockOptIn(false);
+    PingJournal journal = new PingJournal(null);
+    journal.add(System.currentTimeMillis(), "a=1");
+
+    new AnalyticsPingManager(preferences, display, pingEventQueue, true, journal, pingSender)
+        .sendJournaledPings();
+    Assert.assertTrue(journal.isEmpty());
+    verify(pingSender, never()).send(anyListOf(PingJournal.Hit.class), anyLong());
+  }
+
   private void verifyPingQueued(VerificationMode verificationMode) {
     when(pingEventQueue.isEmpty()).thenReturn(true);
     AnalyticsPingManager pingManager =
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.cloud.tools.eclipse.usagetracker;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PingJournalTest {
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private Path journalFile;
+
+  @Before
+  public void setUp() {
+    journalFile = tempFolder.getRoot().toPath().resolve("state/journal.txt");
+  }
+
+  @Test
+  public void testNewJournal_empty() {
+    PingJournal journal = new PingJournal(journalFile);
+    assertTrue(journal.isEmpty());
+    assertTrue(journal.peek(10).isEmpty());
+  }
+
+  @Test
+  public void testAddAndPeek() {
+    PingJournal journal = new PingJournal(journalFile);
+    journal.add(1L, "a=1");
+    journal.add(2L, "a=2");
+    journal.add(3L, "a=3");
+
+    List<PingJournal.Hit> hits = journal.peek(2);
+    assertThat(hits.size(), is(2));
+    assertThat(hits.get(0).time, is(1L));
+    assertThat(hits.get(0).parameters, is("a=1"));
+    assertThat(hits.get(1).parameters, is("a=2"));
+    assertThat(journal.size(), is(3));
+  }
+
+  @Test
+  public void testRemove() {
+    PingJournal journal = new PingJournal(journalFile);
+    journal.add(1L, "a=1");
+    journal.add(2L, "a=2");
+    journal.remove(journal.peek(1));
+
+    assertThat(journal.size(), is(1));
+    assertThat(journal.peek(10).get(0).parameters, is("a=2"));
+  }
+
+  @Test
+  public void testRemove_hitsDroppedSincePeek() {
+    PingJournal journal = new PingJournal(journalFile, 2);
+    journal.add(1L, "a=1");
+    journal.add(2L, "a=2");
+    List<PingJournal.Hit> sentHits = journal.peek(2);
+    journal.add(3L, "a=3");
+    journal.remove(sentHits);
+
+    List<PingJournal.Hit> hits = journal.peek(10);
+    assertThat(hits.size(), is(1));
+    assertThat(hits.get(0).parameters, is("a=3"));
+  }
+
+  @Test
+  public void testAdd_dropsOldestHits() {
+    PingJournal journal = new PingJournal(journalFile, 2);
+    journal.add(1L, "a=1");
+    journal.add(2L, "a=2");
+    journal.add(3L, "a=3");
+
+    List<PingJournal.Hit> hits = journal.peek(10);
+    assertThat(hits.size(), is(2));
+    assertThat(hits.get(0).parameters, is("a=2"));
+    assertThat(hits.get(1).parameters, is("a=3"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAdd_lineBreak() {
+    new PingJournal(journalFile).add(1L, "a=1\nb=2");
+  }
+
+  @Test
+  public void testHitsSurviveRestart() {
+    PingJournal journal = new PingJournal(journalFile);
+    journal.add(1L, "a=1");
+    journal.add(2L, "a=2");
+    journal.remove(journal.peek(1));
+
+    List<PingJournal.Hit> hits = new PingJournal(journalFile).peek(10);
+    assertThat(hits.size(), is(1));
+    assertThat(hits.get(0).time, is(2L));
+    assertThat(hits.get(0).parameters, is("a=2"));
+  }
+
+  @Test
+  public void testClear() {
+    PingJournal journal = new PingJournal(journalFile);
+    journal.add(1L, "a=1");
+    journal.clear();
+
+    assertTrue(journal.isEmpty());
+    assertTrue(new PingJournal(journalFile).isEmpty());
+  }
+
+  @Test
+  public void testLoad_skipsCorruptLines() throws IOException {
+    Files.createDirectories(journalFile.getParent());
+    Files.write(journalFile, "garbage\n1 a=1\nx a=2\n2 \n".getBytes(StandardCharsets.UTF_8));
+
+    List<PingJournal.Hit> hits = new PingJournal(journalFile).peek(10);
+    assertThat(hits.size(), is(1));
+    assertThat(hits.get(0).parameters, is("a=1"));
+  }
+
+  @Test
+  public void testInMemoryJournal() {
+    PingJournal journal = new PingJournal(null);
+    journal.add(1L, "a=1");
+    assertThat(journal.size(), is(1));
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.cloud.tools.eclipse.usagetracker;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PingSenderTest {
+
+  private static final long NOW = 100000000L;
+
+  private FakeCollector collector;
+  private PingSender sender;
+
+  @Before
+  public void setUp() throws IOException {
+    collector = new FakeCollector();
+    sender = new PingSender(new URL("http://localhost:" + collector.getPort() + "/batch"));
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    collector.close();
+  }
+
+  @Test
+  public void testSend_batchesHitsInOneRequest() throws IOException {
+    List<PingJournal.Hit> hits = new ArrayList<>();
+    hits.add(new PingJournal.Hit(NOW - 1000, "a=1"));
+    hits.add(new PingJournal.Hit(NOW, "a=2"));
+
+    assertThat(sender.send(hits, NOW), is(2));
+    assertThat(collector.getRequests().size(), is(1));
+    assertThat(collector.getRequests().get(0), is("a=1&qt=1000\na=2&qt=0"));
+  }
+
+  @Test
+  public void testSend_limitsHitsPerRequest() throws IOException {
+    List<PingJournal.Hit> hits = new ArrayList<>();
+    for (int i = 0; i < PingSender.MAX_HITS_PER_BATCH + 5; i++) {
+      hits.add(new PingJournal.Hit(NOW, "a=" + i));
+    }
+
+    assertThat(sender.send(hits, NOW), is(PingSender.MAX_HITS_PER_BATCH));
+    String request = collector.getRequests().get(0);
+    assertThat(request.split("\n").length, is(PingSender.MAX_HITS_PER_BATCH));
+  }
+
+  @Test
+  public void testSend_limitsRequestSize() throws IOException {
+    String parameters = "a=" + repeat('x', PingSender.MAX_HIT_BYTES - 100);
+    List<PingJournal.Hit> hits = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      hits.add(new PingJournal.Hit(NOW, parameters));
+    }
+
+    // Two hits fit in the size of a request, the third does not.
+    assertThat(sender.send(hits, NOW), is(2));
+    assertTrue(collector.getRequests().get(0).length() <= PingSender.MAX_BATCH_BYTES);
+  }
+
+  @Test
+  public void testSend_skipsExpiredAndOversizedHits() throws IOException {
+    List<PingJournal.Hit> hits = new ArrayList<>();
+    hits.add(new PingJournal.Hit(NOW - PingSender.MAX_QUEUE_TIME_MILLIS - 1, "a=old"));
+    hits.add(new PingJournal.Hit(NOW, "a=" + repeat('x', PingSender.MAX_HIT_BYTES)));
+    hits.add(new PingJournal.Hit(NOW, "a=ok"));
+
+    assertThat(sender.send(hits, NOW), is(3));
+    assertThat(collector.getRequests().size(), is(1));
+    assertThat(collector.getRequests().get(0), is("a=ok&qt=0"));
+  }
+
+  @Test
+  public void testSend_nothingToSend() throws IOException {
+    List<PingJournal.Hit> hits = Collections.singletonList(
+        new PingJournal.Hit(NOW - PingSender.MAX_QUEUE_TIME_MILLIS - 1, "a=old"));
+
+    assertThat(sender.send(hits, NOW), is(1));
+    assertTrue(collector.getRequests().isEmpty());
+  }
+
+  @Test
+  public void testSend_errorResponse() {
+    collector.responseCode = 503;
+    try {
+      sender.send(Collections.singletonList(new PingJournal.Hit(NOW, "a=1")), NOW);
+      fail();
+    } catch (IOException ex) {
+      assertThat(ex.getMessage(), is("Analytics collection failed: HTTP 503"));
+    }
+  }
+
+  @Test
+  public void testSend_reusesConnection() throws IOException {
+    for (int i = 0; i < 3; i++) {
+      sender.send(Collections.singletonList(new PingJournal.Hit(NOW, "a=" + i)), NOW);
+    }
+    assertThat(collector.getRequests().size(), is(3));
+    assertThat(collector.connectionCount.get(), is(1));
+  }
+
+  private static String repeat(char c, int count) {
+    StringBuilder builder = new StringBuilder(count);
+    for (int i = 0; i < count; i++) {
+      builder.append(c);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Minimal HTTP/1.1 server that records the body of each POST request and answers with an empty
+   * response, keeping connections alive.
+   */
+  private static class FakeCollector implements Runnable {
+
+    private final ServerSocket serverSocket = new ServerSocket(0);
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private volatile int responseCode = 200;
+
+    private FakeCollector() throws IOException {
+      Thread thread = new Thread(this, "Fake Analytics collector");
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    private int getPort() {
+      return serverSocket.getLocalPort();
+    }
+
+    private List<String> getRequests() {
+      return new ArrayList<>(requests);
+    }
+
+    private void close() throws IOException {
+      serverSocket.close();
+    }
+
+    @Override
+    public void run() {
+      while (!serverSocket.isClosed()) {
+        try {
+          final Socket socket = serverSocket.accept();
+          connectionCount.incrementAndGet();
+          Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+              serve(socket);
+            }
+          });
+          thread.setDaemon(true);
+          thread.start();
+        } catch (IOException ex) {
+          // Closed.
+        }
+      }
+    }
+
+    private void serve(Socket socket) {
+      try (Socket closeable = socket;
+          InputStream in = new BufferedInputStream(socket.getInputStream());
+          OutputStream out = socket.getOutputStream()) {
+        while (true) {
+          int contentLength = -1;
+          String line = readLine(in);
+          if (line == null) {
+            return;
+          }
+          while ((line = readLine(in)) != null && !line.isEmpty()) {
+            if (line.toLowerCase(Locale.US).startsWith("content-length:")) {
+              contentLength = Integer.parseInt(line.substring(line.indexOf(':') + 1).trim());
+            }
+          }
+          byte[] body = new byte[contentLength];
+          for (int read = 0; read < contentLength; ) {
+            read += in.read(body, read, contentLength - read);
+          }
+          requests.add(new String(body, StandardCharsets.UTF_8));
+
+          String response = "HTTP/1.1 " + responseCode + " Status\r\n"
+              + "Content-Type: image/gif\r\nContent-Length: 0\r\n\r\n";
+          out.write(response.getBytes(StandardCharsets.US_ASCII));
+          out.flush();
+        }
+      } catch (IOException ex) {
+        // Connection closed by the client.
+      }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+      ByteArrayOutputStream line = new ByteArrayOutputStream();
+      int c;
+      while ((c = in.read()) != '\n') {
+        if (c == -1) {
+          return null;
+        }
+        if (c != '\r') {
+          line.write(c);
+        }
+      }
+      return new String(line.toByteArray(), StandardCharsets.US_ASCII);
+    }
+  }
+}
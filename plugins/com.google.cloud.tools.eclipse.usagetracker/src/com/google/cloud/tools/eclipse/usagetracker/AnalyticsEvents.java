@@ -25,6 +25,7 @@ public class AnalyticsEvents {
 
   public static final String APP_ENGINE_DEPLOY = "appengine.deploy";
   public static final String APP_ENGINE_DEPLOY_SUCCESS = "appengine.deploy.success";
+  public static final String APP_ENGINE_DEPLOY_PLAN = "appengine.deploy.plan";
   public static final String APP_ENGINE_LOCAL_SERVER = "appengine.local.server";
   public static final String APP_ENGINE_NEW_PROJECT_WIZARD = "appengine.new.project.wizard";
   public static final String APP_ENGINE_NEW_PROJECT_WIZARD_COMPLETE =
@@ -34,6 +35,7 @@ public class AnalyticsEvents {
   public static final String APP_ENGINE_LOCAL_SERVER_MODE = "mode";
   public static final String APP_ENGINE_NEW_PROJECT_WIZARD_TYPE = "type";
   public static final String APP_ENGINE_DEPLOY_STANDARD = "standard";
+  public static final String APP_ENGINE_DEPLOY_CHANGED_KILOBYTES = "changed.kb";
 
   // Metadata values
   public static final String APP_ENGINE_NEW_PROJECT_WIZARD_TYPE_NATIVE = "native";
@@ -21,14 +21,14 @@ import com.google.cloud.tools.eclipse.preferences.AnalyticsPreferences;
 import com.google.cloud.tools.eclipse.util.CloudToolsInfo;
 import com.google.common.annotations.VisibleForTesting;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
-import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -46,6 +46,8 @@ import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PlatformUI;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
 import org.osgi.service.prefs.BackingStoreException;
 
 /**
@@ -57,7 +59,17 @@ public class AnalyticsPingManager {
 
   private static final String PREFERENCES_PLUGIN_ID = Activator.PLUGIN_ID;
 
-  private static final String ANALYTICS_COLLECTION_URL = "https://ssl.google-analytics.com/collect";
+  /** System property that overrides the Analytics batch endpoint, e.g. with a local collector. */
+  @VisibleForTesting
+  static final String ENDPOINT_PROPERTY = "com.google.cloud.tools.eclipse.usagetracker.endpoint";
+
+  private static final String JOURNAL_FILE_NAME = "analytics-journal.txt";
+
+  // Delays before retrying after consecutive failures to send; doubled after each failure.
+  @VisibleForTesting
+  static final long INITIAL_RETRY_DELAY_MILLIS = 10 * 1000L;
+  @VisibleForTesting
+  static final long MAX_RETRY_DELAY_MILLIS = 30 * 60 * 1000L;
 
   // Fixed-value query parameters present in every ping, and their fixed values:
   //
@@ -88,14 +100,22 @@ public class AnalyticsPingManager {
   private boolean analyticsEnabled;
 
   private ConcurrentLinkedQueue<PingEvent> pingEventQueue;
+  // Hits waiting to be sent, kept across sessions.
+  private final PingJournal journal;
+  private final PingSender sender;
+  // Only accessed from the flush job, which never runs concurrently with itself.
+  private int consecutiveFailures;
+  private long nextAttemptTime;
+
   private Job eventFlushJob = new Job("Analytics Event Submission") {
     @Override
     protected IStatus run(IProgressMonitor monitor) {
       while (!pingEventQueue.isEmpty()) {
         PingEvent event = pingEventQueue.poll();
         showOptInDialogIfNeeded(event.shell);
-        sendPingHelper(event);
+        journalPing(event);
       }
+      sendJournaledPings();
       return Status.OK_STATUS;
     }
   };
@@ -103,10 +123,20 @@ public class AnalyticsPingManager {
   @VisibleForTesting
   AnalyticsPingManager(IEclipsePreferences preferences, Display display,
       ConcurrentLinkedQueue<PingEvent> concurrentLinkedQueue, boolean analyticsEnabled) {
+    this(preferences, display, concurrentLinkedQueue, analyticsEnabled, new PingJournal(null),
+        new PingSender(toUrl(PingSender.DEFAULT_BATCH_URL)));
+  }
+
+  @VisibleForTesting
+  AnalyticsPingManager(IEclipsePreferences preferences, Display display,
+      ConcurrentLinkedQueue<PingEvent> concurrentLinkedQueue, boolean analyticsEnabled,
+      PingJournal journal, PingSender sender) {
     this.preferences = preferences;
     this.display = display;
     this.pingEventQueue = concurrentLinkedQueue;
     this.analyticsEnabled = analyticsEnabled;
+    this.journal = journal;
+    this.sender = sender;
   }
 
   public static synchronized AnalyticsPingManager getInstance() {
@@ -119,12 +149,32 @@ public class AnalyticsPingManager {
       boolean analyticsEnabled = !Platform.inDevelopmentMode() && isTrackingIdDefined();
       Display display = !analyticsEnabled ? null : PlatformUI.getWorkbench().getDisplay();
 
+      Path journalFile = null;
+      if (analyticsEnabled) {
+        Bundle bundle = FrameworkUtil.getBundle(AnalyticsPingManager.class);
+        journalFile = Platform.getStateLocation(bundle).append(JOURNAL_FILE_NAME).toFile().toPath();
+      }
+      String endpoint = System.getProperty(ENDPOINT_PROPERTY, PingSender.DEFAULT_BATCH_URL);
+
       instance = new AnalyticsPingManager(preferences, display,
-          new ConcurrentLinkedQueue<PingEvent>(), analyticsEnabled);
+          new ConcurrentLinkedQueue<PingEvent>(), analyticsEnabled,
+          new PingJournal(journalFile), new PingSender(toUrl(endpoint)));
+      if (analyticsEnabled && !instance.journal.isEmpty()) {
+        // Send what was left over from the previous session.
+        instance.eventFlushJob.schedule();
+      }
     }
     return instance;
   }
 
+  private static URL toUrl(String endpoint) {
+    try {
+      return new URL(endpoint);
+    } catch (MalformedURLException ex) {
+      throw new IllegalArgumentException("Invalid Analytics endpoint: " + endpoint, ex);
+    }
+  }
+
   private static boolean isTrackingIdDefined() {
     return Constants.ANALYTICS_TRACKING_ID != null
         && Constants.ANALYTICS_TRACKING_ID.startsWith("UA-");
@@ -198,39 +248,57 @@ public class AnalyticsPingManager {
     }
   }
 
-  private void sendPingHelper(PingEvent pingEvent) {
+  private void journalPing(PingEvent pingEvent) {
     if (analyticsEnabled && userHasOptedIn()) {
       Map<String, String> parametersMap = buildParametersMap(getAnonymizedClientId(), pingEvent);
-      sendPostRequest(getParametersString(parametersMap));
+      journal.add(System.currentTimeMillis(), getParametersString(parametersMap));
     }
   }
 
-  private void sendPostRequest(String parametersString) {
-    HttpURLConnection connection = null;
+  /**
+   * Sends the journaled hits in batches until the journal is empty or a request fails. After a
+   * failure, the hits stay in the journal and sending is retried with exponential backoff; pings
+   * sent in the meantime are only journaled.
+   */
+  @VisibleForTesting
+  void sendJournaledPings() {
+    if (!analyticsEnabled || !userHasOptedIn()) {
+      // Never send hits recorded before the user opted out.
+      journal.clear();
+      return;
+    }
 
+    long now = System.currentTimeMillis();
+    if (now < nextAttemptTime) {
+      eventFlushJob.schedule(nextAttemptTime - now);
+      return;
+    }
     try {
-      URL url = new URL(ANALYTICS_COLLECTION_URL);
-      connection = (HttpURLConnection) url.openConnection();
-      connection.setDoOutput(true);
-      connection.setRequestMethod("POST");
-      // This prevent Analytics from identifying our pings as spam.
-      connection.setRequestProperty("User-Agent", CloudToolsInfo.USER_AGENT);
-      connection.setReadTimeout(3000);  // milliseconds
-      byte[] bytesToWrite = parametersString.getBytes(StandardCharsets.UTF_8);
-      connection.setFixedLengthStreamingMode(bytesToWrite.length);
-
-      try (OutputStream out = connection.getOutputStream()) {
-        out.write(bytesToWrite);
-        out.flush();
+      while (!journal.isEmpty()) {
+        List<PingJournal.Hit> hits = journal.peek(PingSender.MAX_HITS_PER_BATCH);
+        int sent = sender.send(hits, System.currentTimeMillis());
+        journal.remove(hits.subList(0, sent));
       }
+      consecutiveFailures = 0;
+      nextAttemptTime = 0;
     } catch (IOException ex) {
-      // Don't try to recover or retry.
-      logger.log(Level.WARNING, "Failed to send a POST request", ex);
-    } finally {
-      if (connection != null) {
-        connection.disconnect();
-      }
+      long delay = getRetryDelayMillis(++consecutiveFailures);
+      nextAttemptTime = System.currentTimeMillis() + delay;
+      eventFlushJob.schedule(delay);
+      logger.log(Level.WARNING, "Failed to send Analytics pings; retrying in " + delay + " ms", ex);
+    }
+  }
+
+  /**
+   * @return the delay before the next attempt after {@code failures} consecutive failures
+   */
+  @VisibleForTesting
+  static long getRetryDelayMillis(int failures) {
+    long delay = INITIAL_RETRY_DELAY_MILLIS;
+    for (int i = 1; i < failures && delay < MAX_RETRY_DELAY_MILLIS; i++) {
+      delay *= 2;
     }
+    return Math.min(delay, MAX_RETRY_DELAY_MILLIS);
   }
 
   @VisibleForTesting
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.cloud.tools.eclipse.usagetracker;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded queue of the Analytics hits that have not been sent yet. Each hit is kept as one line
+ * of a file, holding the time the hit was recorded and its URL-encoded parameters, so that hits
+ * that could not be sent survive a restart. When the journal is full, the oldest hits are dropped.
+ * <p>
+ * The hits are held in memory as well; if the file cannot be written, the journal keeps working
+ * in memory only.
+ */
+class PingJournal {
+
+  private static final Logger logger = Logger.getLogger(PingJournal.class.getName());
+
+  @VisibleForTesting
+  static final int DEFAULT_MAX_HITS = 500;
+
+  static class Hit {
+    final long time;
+    final String parameters;
+
+    Hit(long time, String parameters) {
+      this.time = time;
+      this.parameters = parameters;
+    }
+  }
+
+  private final Path file;
+  private final int maxHits;
+  private final Deque<Hit> hits = new ArrayDeque<>();
+
+  /**
+   * @param file the file backing the journal, or {@code null} to keep the hits in memory only
+   */
+  PingJournal(Path file) {
+    this(file, DEFAULT_MAX_HITS);
+  }
+
+  @VisibleForTesting
+  PingJournal(Path file, int maxHits) {
+    if (maxHits <= 0) {
+      throw new IllegalArgumentException("maxHits must be positive");
+    }
+    this.file = file;
+    this.maxHits = maxHits;
+    load();
+  }
+
+  /**
+   * Adds a hit at the end of the journal, dropping the oldest hits if the journal is full.
+   *
+   * @param time the time the hit was recorded, in milliseconds since the epoch
+   * @param parameters the URL-encoded parameters of the hit; must not contain line breaks
+   */
+  synchronized void add(long time, String parameters) {
+    if (parameters.indexOf('\n') >= 0 || parameters.indexOf('\r') >= 0) {
+      throw new IllegalArgumentException("parameters must not contain line breaks");
+    }
+    hits.addLast(new Hit(time, parameters));
+    while (hits.size() > maxHits) {
+      hits.removeFirst();
+    }
+    save();
+  }
+
+  /**
+   * @return up to {@code count} of the oldest hits, oldest first, without removing them
+   */
+  synchronized List<Hit> peek(int count) {
+    List<Hit> result = new ArrayList<>(Math.min(count, hits.size()));
+    Iterator<Hit> iterator = hits.iterator();
+    while (iterator.hasNext() && result.size() < count) {
+      result.add(iterator.next());
+    }
+    return result;
+  }
+
+  /**
+   * Removes {@code sentHits}, typically returned by {@link #peek(int)}, after they have been sent.
+   * Hits are matched by identity, so hits that were dropped from a full journal in the meantime
+   * are ignored rather than taking newer hits with them.
+   */
+  synchronized void remove(List<Hit> sentHits) {
+    if (sentHits.isEmpty()) {
+      return;
+    }
+    Set<Hit> toRemove = Collections.newSetFromMap(new IdentityHashMap<Hit, Boolean>());
+    toRemove.addAll(sentHits);
+    boolean removed = false;
+    for (Iterator<Hit> iterator = hits.iterator(); iterator.hasNext();) {
+      if (toRemove.contains(iterator.next())) {
+        iterator.remove();
+        removed = true;
+      }
+    }
+    if (removed) {
+      save();
+    }
+  }
+
+  synchronized void clear() {
+    if (!hits.isEmpty()) {
+      hits.clear();
+      save();
+    }
+  }
+
+  synchronized int size() {
+    return hits.size();
+  }
+
+  synchronized boolean isEmpty() {
+    return hits.isEmpty();
+  }
+
+  /**
+   * Reads the hits left by a previous session. Lines that cannot be parsed are skipped, as they
+   * can only be the result of an interrupted write by an incompatible version.
+   */
+  private void load() {
+    if (file == null || !Files.exists(file)) {
+      return;
+    }
+    try {
+      for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+        Hit hit = parseLine(line);
+        if (hit != null) {
+          hits.addLast(hit);
+        }
+      }
+      while (hits.size() > maxHits) {
+        hits.removeFirst();
+      }
+    } catch (IOException ex) {
+      logger.log(Level.WARNING, "Could not read the Analytics journal " + file, ex);
+    }
+  }
+
+  private static Hit parseLine(String line) {
+    int separator = line.indexOf(' ');
+    if (separator <= 0 || separator == line.length() - 1) {
+      return null;
+    }
+    try {
+      long time = Long.parseLong(line.substring(0, separator));
+      return new Hit(time, line.substring(separator + 1));
+    } catch (NumberFormatException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Replaces the file atomically so that a failure leaves the previous journal intact.
+   */
+  private void save() {
+    if (file == null) {
+      return;
+    }
+    List<String> lines = new ArrayList<>(hits.size());
+    for (Hit hit : hits) {
+      lines.add(hit.time + " " + hit.parameters);
+    }
+    try {
+      Files.createDirectories(file.getParent());
+      Path temporaryFile =
+          Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+      try {
+        Files.write(temporaryFile, lines, StandardCharsets.UTF_8);
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(temporaryFile);
+      }
+    } catch (IOException ex) {
+      logger.log(Level.WARNING, "Could not write the Analytics journal " + file, ex);
+    }
+  }
+}
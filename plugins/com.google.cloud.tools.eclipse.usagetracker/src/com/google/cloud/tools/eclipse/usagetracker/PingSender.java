@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.cloud.tools.eclipse.usagetracker;
+
+import com.google.cloud.tools.eclipse.util.CloudToolsInfo;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Posts journaled hits to the Measurement Protocol batch endpoint, several hits per request.
+ * <p>
+ * Connections are never disconnected explicitly: the response is read to the end and the stream
+ * closed instead, which lets {@link HttpURLConnection} keep the connection alive and reuse it for
+ * the next batch.
+ *
+ * @see <a href="https://developers.google.com/analytics/devguides/collection/protocol/v1/devguide#batch">
+ *     Batching multiple hits in a single request</a>
+ */
+class PingSender {
+
+  static final String DEFAULT_BATCH_URL = "https://ssl.google-analytics.com/batch";
+
+  // Limits of the batch endpoint; hits or requests exceeding them are rejected.
+  @VisibleForTesting
+  static final int MAX_HITS_PER_BATCH = 20;
+  @VisibleForTesting
+  static final int MAX_BATCH_BYTES = 16 * 1024;
+  @VisibleForTesting
+  static final int MAX_HIT_BYTES = 8 * 1024;
+  // Hits queued for longer than this are discarded by Analytics, so there is no point sending them.
+  @VisibleForTesting
+  static final long MAX_QUEUE_TIME_MILLIS = 4 * 60 * 60 * 1000L;
+
+  private static final int TIMEOUT_MILLIS = 3000;
+
+  private final URL endpoint;
+
+  PingSender(URL endpoint) {
+    this.endpoint = endpoint;
+  }
+
+  /**
+   * Sends as many of {@code hits} as fit in one request. Each hit gets a queue time parameter
+   * ({@code qt}) relative to {@code now}. Hits that Analytics would reject, because they are too
+   * large or too old, are skipped but still counted as consumed.
+   *
+   * @param hits the hits to send, oldest first
+   * @param now the current time, in milliseconds since the epoch
+   * @return the number of hits, from the start of {@code hits}, that were sent or skipped and can
+   *     be removed from the journal
+   * @throws IOException if the request failed, in which case none of the hits are consumed
+   */
+  int send(List<PingJournal.Hit> hits, long now) throws IOException {
+    StringBuilder payload = new StringBuilder();
+    int batchBytes = 0;
+    int batchHits = 0;
+    int consumed = 0;
+    for (PingJournal.Hit hit : hits) {
+      if (batchHits == MAX_HITS_PER_BATCH) {
+        break;
+      }
+      long queueTime = Math.max(0, now - hit.time);
+      String line = hit.parameters + "&qt=" + queueTime;
+      int lineBytes = line.getBytes(StandardCharsets.UTF_8).length;
+      if (queueTime <= MAX_QUEUE_TIME_MILLIS && lineBytes <= MAX_HIT_BYTES) {
+        int separatorBytes = batchHits == 0 ? 0 : 1;
+        if (batchBytes + separatorBytes + lineBytes > MAX_BATCH_BYTES) {
+          break;
+        }
+        if (batchHits > 0) {
+          payload.append('\n');
+        }
+        payload.append(line);
+        batchBytes += separatorBytes + lineBytes;
+        batchHits++;
+      }
+      consumed++;
+    }
+
+    if (batchHits > 0) {
+      post(payload.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    return consumed;
+  }
+
+  private void post(byte[] payload) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) endpoint.openConnection();
+    connection.setDoOutput(true);
+    connection.setRequestMethod("POST");
+    // This prevent Analytics from identifying our pings as spam.
+    connection.setRequestProperty("User-Agent", CloudToolsInfo.USER_AGENT);
+    connection.setConnectTimeout(TIMEOUT_MILLIS);
+    connection.setReadTimeout(TIMEOUT_MILLIS);
+    connection.setFixedLengthStreamingMode(payload.length);
+
+    try (OutputStream out = connection.getOutputStream()) {
+      out.write(payload);
+    }
+
+    int responseCode = connection.getResponseCode();
+    InputStream response = responseCode < HttpURLConnection.HTTP_BAD_REQUEST
+        ? connection.getInputStream() : connection.getErrorStream();
+    if (response != null) {
+      try (InputStream in = response) {
+        byte[] buffer = new byte[1024];
+        while (in.read(buffer) != -1) {
+          // Drain the response so that the connection can be reused.
+        }
+      }
+    }
+    if (responseCode / 100 != 2) {
+      throw new IOException("Analytics collection failed: HTTP " + responseCode);
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.cloud.tools.eclipse.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AppEngineDescriptorCacheTest {
+
+  private static final String XML = "<appengine-web-app xmlns='http://appengine.google.com/ns/1.0'>"
+      + "<service>foo</service></appengine-web-app>";
+
+  @Mock private IFile file;
+  @Mock private IProject project;
+  @Mock private IResourceChangeEvent event;
+  @Mock private IResourceDelta delta;
+
+  private final AppEngineDescriptorCache cache = new AppEngineDescriptorCache();
+
+  @Before
+  public void setUp() throws CoreException {
+    when(file.getModificationStamp()).thenReturn(1L);
+    when(file.getFullPath()).thenReturn(new Path("/project/WEB-INF/appengine-web.xml"));
+    when(file.getProject()).thenReturn(project);
+    when(project.getFullPath()).thenReturn(new Path("/project"));
+    when(file.getContents()).thenAnswer(new Answer<ByteArrayInputStream>() {
+      @Override
+      public ByteArrayInputStream answer(InvocationOnMock invocation) {
+        return new ByteArrayInputStream(XML.getBytes(StandardCharsets.UTF_8));
+      }
+    });
+    when(event.getDelta()).thenReturn(delta);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testGetDescriptor_null() throws CoreException {
+    cache.getDescriptor(null);
+  }
+
+  @Test
+  public void testGetDescriptor() throws CoreException {
+    assertThat(cache.getDescriptor(file).getServiceId(), is("foo"));
+  }
+
+  @Test
+  public void testGetDescriptor_unchangedFileParsedOnce() throws CoreException {
+    AppEngineDescriptor descriptor = cache.getDescriptor(file);
+    assertThat(cache.getDescriptor(file), sameInstance(descriptor));
+    verify(file, times(1)).getContents();
+  }
+
+  @Test
+  public void testGetDescriptor_modifiedFileParsedAgain() throws CoreException {
+    AppEngineDescriptor descriptor = cache.getDescriptor(file);
+    when(file.getModificationStamp()).thenReturn(2L);
+    assertThat(cache.getDescriptor(file), not(sameInstance(descriptor)));
+    verify(file, times(2)).getContents();
+  }
+
+  @Test
+  public void testGetDescriptor_nonExistingFileNotCached() throws CoreException {
+    when(file.getModificationStamp()).thenReturn((long) IResource.NULL_STAMP);
+    cache.getDescriptor(file);
+    assertThat(cache.size(), is(0));
+  }
+
+  @Test
+  public void testInvalidate() throws CoreException {
+    cache.getDescriptor(file);
+    cache.invalidate();
+    assertThat(cache.size(), is(0));
+  }
+
+  @Test
+  public void testResourceChanged_contentChanged() throws CoreException {
+    cache.getDescriptor(file);
+    mockFileDelta(IResourceDelta.CHANGED, IResourceDelta.CONTENT);
+    cache.resourceChanged(event);
+    assertThat(cache.size(), is(0));
+  }
+
+  @Test
+  public void testResourceChanged_removed() throws CoreException {
+    cache.getDescriptor(file);
+    mockFileDelta(IResourceDelta.REMOVED, 0);
+    cache.resourceChanged(event);
+    assertThat(cache.size(), is(0));
+  }
+
+  @Test
+  public void testResourceChanged_markersChanged() throws CoreException {
+    cache.getDescriptor(file);
+    mockFileDelta(IResourceDelta.CHANGED, IResourceDelta.MARKERS);
+    cache.resourceChanged(event);
+    assertThat(cache.size(), is(1));
+  }
+
+  @Test
+  public void testResourceChanged_projectClosed() throws CoreException {
+    cache.getDescriptor(file);
+    IResourceDelta projectDelta = mock(IResourceDelta.class);
+    when(projectDelta.getKind()).thenReturn(IResourceDelta.CHANGED);
+    when(projectDelta.getFlags()).thenReturn(IResourceDelta.OPEN);
+    when(delta.findMember(new Path("/project"))).thenReturn(projectDelta);
+    cache.resourceChanged(event);
+    assertThat(cache.size(), is(0));
+  }
+
+  @Test
+  public void testResourceChanged_otherResource() throws CoreException {
+    cache.getDescriptor(file);
+    cache.resourceChanged(event);
+    assertThat(cache.size(), is(1));
+  }
+
+  private void mockFileDelta(int kind, int flags) {
+    IResourceDelta fileDelta = mock(IResourceDelta.class);
+    when(fileDelta.getKind()).thenReturn(kind);
+    when(fileDelta.getFlags()).thenReturn(flags);
+    when(delta.findMember(new Path("/project/WEB-INF/appengine-web.xml"))).thenReturn(fileDelta);
+  }
+}
@@ -120,6 +120,72 @@ public class AppEngineDescriptorTest {
     assertThat(descriptor.getServiceId(), is(TEST_VERSION));
   }
 
+  @Test
+  public void testParse_serviceTakesPrecedenceOverModule() throws CoreException {
+    AppEngineDescriptor descriptor =
+        parse(XML_DECLARATION + MODULE + "<service>bar</service>" + XML_END_TAG);
+
+    assertThat(descriptor.getServiceId(), is("bar"));
+  }
+
+  @Test
+  public void testParse_module() throws CoreException {
+    AppEngineDescriptor descriptor = parse(XML_DECLARATION + PROJECT_ID + MODULE + XML_END_TAG);
+
+    assertThat(descriptor.getServiceId(), is(TEST_ID));
+  }
+
+  @Test
+  public void testParse_ignoresNestedElements() throws CoreException {
+    AppEngineDescriptor descriptor = parse(XML_DECLARATION
+        + "<system-properties><property name='version' value='1'/></system-properties>"
+        + "<static-files><include path='/version'><version>nested</version></include></static-files>"
+        + VERSION + XML_END_TAG);
+
+    assertThat(descriptor.getProjectVersion(), is(TEST_VERSION));
+  }
+
+  @Test
+  public void testParse_firstValueWins() throws CoreException {
+    AppEngineDescriptor descriptor =
+        parse(XML_DECLARATION + VERSION + "<version>other</version>" + XML_END_TAG);
+
+    assertThat(descriptor.getProjectVersion(), is(TEST_VERSION));
+  }
+
+  @Test
+  public void testParse_cdata() throws CoreException {
+    AppEngineDescriptor descriptor =
+        parse(XML_DECLARATION + "<application><![CDATA[" + TEST_ID + "]]></application>"
+            + XML_END_TAG);
+
+    assertThat(descriptor.getProjectId(), is(TEST_ID));
+  }
+
+  @Test
+  public void testParse_stopsOnceAllValuesFound() throws CoreException {
+    // the unterminated element after the values would make a complete parse fail
+    AppEngineDescriptor descriptor =
+        parse(XML_DECLARATION + PROJECT_ID + VERSION + SERVICE + "<threadsafe>");
+
+    assertThat(descriptor.getProjectId(), is(TEST_ID));
+    assertThat(descriptor.getProjectVersion(), is(TEST_VERSION));
+    assertThat(descriptor.getServiceId(), is(TEST_ID));
+  }
+
+  @Test(expected = CoreException.class)
+  public void testParse_malformedXml() throws CoreException {
+    parse(XML_DECLARATION + PROJECT_ID + "<version>");
+  }
+
+  @Test(expected = CoreException.class)
+  public void testParse_externalEntitiesNotResolved() throws CoreException {
+    parse("<?xml version='1.0'?><!DOCTYPE appengine-web-app ["
+        + "<!ENTITY id SYSTEM 'file:///etc/hostname'>]>"
+        + "<appengine-web-app xmlns='http://appengine.google.com/ns/1.0'>"
+        + "<application>&id;</application>" + XML_END_TAG);
+  }
+
   private AppEngineDescriptor parse(String xmlString) throws CoreException {
     return AppEngineDescriptor
         .parse(new ByteArrayInputStream(xmlString.getBytes(StandardCharsets.UTF_8)));
@@ -16,8 +16,28 @@
 
 package com.google.cloud.tools.eclipse.util.io;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
 import java.io.IOException;
+import java.net.ServerSocket;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 import org.junit.Rule;
 import org.junit.Test;
@@ -48,4 +68,109 @@ public class FileDownloaderTest {
     FileDownloader fileDownloader = new FileDownloader(new Path("/dev/null/foo"));
     fileDownloader.download(new URL("http://google.com"));
   }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetMaxAge_negative() {
+    new FileDownloader(new Path("")).setMaxAge(-1, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testDownload_atomicReplacement() throws IOException {
+    File source = temporaryFolder.newFile("source.jar");
+    Files.write(source.toPath(), "version 1".getBytes(StandardCharsets.UTF_8));
+    File downloadFolder = temporaryFolder.newFolder();
+    FileDownloader fileDownloader = new FileDownloader(new Path(downloadFolder.getAbsolutePath()))
+        .setMaxAge(0, TimeUnit.SECONDS);
+    fileDownloader.download(source.toURI().toURL());
+
+    Files.write(source.toPath(), "version 2".getBytes(StandardCharsets.UTF_8));
+    IPath downloadPath = fileDownloader.download(source.toURI().toURL());
+    assertThat(new String(Files.readAllBytes(downloadPath.toFile().toPath()), StandardCharsets.UTF_8),
+               is("version 2"));
+    assertFalse(new File(downloadFolder, "source.jar" + FileDownloader.PARTIAL_SUFFIX).exists());
+  }
+
+  @Test
+  public void testDownload_freshFileNotDownloadedAgain() throws IOException {
+    File source = temporaryFolder.newFile("source.jar");
+    Files.write(source.toPath(), "version 1".getBytes(StandardCharsets.UTF_8));
+    FileDownloader fileDownloader = new FileDownloader(new Path(temporaryFolder.newFolder().getAbsolutePath()));
+    fileDownloader.download(source.toURI().toURL());
+
+    Files.write(source.toPath(), "version 2".getBytes(StandardCharsets.UTF_8));
+    IPath downloadPath = fileDownloader.download(source.toURI().toURL());
+    assertThat(new String(Files.readAllBytes(downloadPath.toFile().toPath()), StandardCharsets.UTF_8),
+               is("version 1"));
+  }
+
+  @Test
+  public void testDownload_failedDownloadKeepsPreviousFile() throws IOException {
+    File source = temporaryFolder.newFile("source.jar");
+    Files.write(source.toPath(), "version 1".getBytes(StandardCharsets.UTF_8));
+    FileDownloader fileDownloader = new FileDownloader(new Path(temporaryFolder.newFolder().getAbsolutePath()))
+        .setMaxAge(0, TimeUnit.SECONDS);
+    IPath downloadPath = fileDownloader.download(source.toURI().toURL());
+
+    assertTrue(source.delete());
+    try {
+      fileDownloader.download(source.toURI().toURL());
+      fail();
+    } catch (IOException ex) {
+      // expected
+    }
+    assertThat(new String(Files.readAllBytes(downloadPath.toFile().toPath()), StandardCharsets.UTF_8),
+               is("version 1"));
+  }
+
+  @Test
+  public void testDownload_unreachableServerUsesPreviousFile() throws IOException {
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    URL url = new URL("http://127.0.0.1:" + port + "/source.jar");
+    File downloadFolder = temporaryFolder.newFolder();
+    Files.write(new File(downloadFolder, "source.jar").toPath(),
+        "version 1".getBytes(StandardCharsets.UTF_8));
+    Files.write(new File(downloadFolder, "source.jar" + FileDownloader.METADATA_SUFFIX).toPath(),
+        ("url=" + url + "\nsize=9\nchecked=0\n").getBytes(StandardCharsets.ISO_8859_1));
+
+    IPath downloadPath = new FileDownloader(new Path(downloadFolder.getAbsolutePath()))
+        .download(url);
+    assertThat(new String(Files.readAllBytes(downloadPath.toFile().toPath()), StandardCharsets.UTF_8),
+               is("version 1"));
+  }
+
+  @Test
+  public void testDownload_concurrentDownloadsOfSameFile()
+      throws IOException, InterruptedException, ExecutionException {
+    File source = temporaryFolder.newFile("source.jar");
+    final byte[] content = new byte[1024 * 1024];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) i;
+    }
+    Files.write(source.toPath(), content);
+    final URL url = source.toURI().toURL();
+    final FileDownloader fileDownloader =
+        new FileDownloader(new Path(temporaryFolder.newFolder().getAbsolutePath()))
+            .setMaxAge(0, TimeUnit.SECONDS);
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<IPath>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(executor.submit(new Callable<IPath>() {
+          @Override
+          public IPath call() throws IOException {
+            return fileDownloader.download(url);
+          }
+        }));
+      }
+      for (Future<IPath> result : results) {
+        assertArrayEquals(content, Files.readAllBytes(result.get().toFile().toPath()));
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
 }
@@ -17,16 +17,25 @@
 package com.google.cloud.tools.eclipse.util.io;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import com.google.cloud.tools.eclipse.test.util.http.TestHttpServer;
 import java.io.File;
 import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 import org.junit.Rule;
@@ -41,9 +50,22 @@ public class FileDownloaderWithServerTest {
 
   private static final String FILE_TO_DOWNLOAD = "index.html";
   private static final String FILE_CONTENT = "<html><body>hello</body></html>";
+  private static final String CHECKED_FILE = "checked.jar";
+  private static final String CHECKED_CONTENT = "checked content";
+  private static final String CORRUPT_FILE = "corrupt.jar";
 
   @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
-  @Rule public TestHttpServer server = new TestHttpServer(temporaryFolder, FILE_TO_DOWNLOAD, FILE_CONTENT);
+  @Rule public TestHttpServer server = new TestHttpServer(temporaryFolder, getServedFiles());
+
+  private static Map<String, String> getServedFiles() {
+    Map<String, String> files = new HashMap<>();
+    files.put(FILE_TO_DOWNLOAD, FILE_CONTENT);
+    files.put(CHECKED_FILE, CHECKED_CONTENT);
+    files.put(CHECKED_FILE + ".sha1", "59492dc1d6e11dcdb501ec51c302909b2b07df10  checked.jar\n");
+    files.put(CORRUPT_FILE, "corrupt content");
+    files.put(CORRUPT_FILE + ".sha1", "59492dc1d6e11dcdb501ec51c302909b2b07df10\n");
+    return files;
+  }
 
   @Test
   public void testDownload_successful() throws IOException {
@@ -56,4 +78,155 @@ public class FileDownloaderWithServerTest {
     assertThat(new String(Files.readAllBytes(downloadedFile.toPath()), StandardCharsets.UTF_8),
                is(FILE_CONTENT));
   }
+
+  @Test
+  public void testDownload_reusesFreshFile() throws IOException {
+    FileDownloader fileDownloader = new FileDownloader(new Path(temporaryFolder.newFolder().getAbsolutePath()));
+    IPath downloadPath = fileDownloader.download(getUrl(FILE_TO_DOWNLOAD));
+    // same size, so only a new download would restore the content
+    String localContent = FILE_CONTENT.toUpperCase(Locale.US);
+    Files.write(downloadPath.toFile().toPath(), localContent.getBytes(StandardCharsets.UTF_8));
+
+    fileDownloader.download(getUrl(FILE_TO_DOWNLOAD));
+    assertThat(readFile(downloadPath), is(localContent));
+  }
+
+  @Test
+  public void testDownload_revalidatesUnmodifiedFile() throws IOException {
+    FileDownloader fileDownloader = new FileDownloader(new Path(temporaryFolder.newFolder().getAbsolutePath()))
+        .setMaxAge(0, TimeUnit.SECONDS);
+    IPath downloadPath = fileDownloader.download(getUrl(FILE_TO_DOWNLOAD));
+    String localContent = FILE_CONTENT.toUpperCase(Locale.US);
+    Files.write(downloadPath.toFile().toPath(), localContent.getBytes(StandardCharsets.UTF_8));
+
+    fileDownloader.download(getUrl(FILE_TO_DOWNLOAD));
+    assertThat(readFile(downloadPath), is(localContent));
+  }
+
+  @Test
+  public void testDownload_modifiedOnServer() throws IOException {
+    FileDownloader fileDownloader = new FileDownloader(new Path(temporaryFolder.newFolder().getAbsolutePath()))
+        .setMaxAge(0, TimeUnit.SECONDS);
+    IPath downloadPath = fileDownloader.download(getUrl(FILE_TO_DOWNLOAD));
+    server.setFileContent(FILE_TO_DOWNLOAD, "<html><body>bye</body></html>");
+
+    fileDownloader.download(getUrl(FILE_TO_DOWNLOAD));
+    assertThat(readFile(downloadPath), is("<html><body>bye</body></html>"));
+  }
+
+  @Test
+  public void testDownload_incompleteFileDownloadedAgain() throws IOException {
+    FileDownloader fileDownloader = new FileDownloader(new Path(temporaryFolder.newFolder().getAbsolutePath()));
+    IPath downloadPath = fileDownloader.download(getUrl(FILE_TO_DOWNLOAD));
+    Files.write(downloadPath.toFile().toPath(), "<html>".getBytes(StandardCharsets.UTF_8));
+
+    fileDownloader.download(getUrl(FILE_TO_DOWNLOAD));
+    assertThat(readFile(downloadPath), is(FILE_CONTENT));
+  }
+
+  @Test
+  public void testDownload_noPartialFileLeft() throws IOException {
+    File downloadFolder = temporaryFolder.newFolder();
+    new FileDownloader(new Path(downloadFolder.getAbsolutePath())).download(getUrl(FILE_TO_DOWNLOAD));
+    assertFalse(new File(downloadFolder, FILE_TO_DOWNLOAD + FileDownloader.PARTIAL_SUFFIX).exists());
+    assertTrue(new File(downloadFolder, FILE_TO_DOWNLOAD + FileDownloader.METADATA_SUFFIX).exists());
+    assertThat(downloadFolder.list().length, is(2));
+  }
+
+  @Test
+  public void testDownload_serverErrorUsesPreviousFile() throws IOException {
+    FileDownloader fileDownloader = new FileDownloader(new Path(temporaryFolder.newFolder().getAbsolutePath()))
+        .setMaxAge(0, TimeUnit.SECONDS);
+    IPath downloadPath = fileDownloader.download(getUrl(FILE_TO_DOWNLOAD));
+    server.setErrorStatus(HttpURLConnection.HTTP_UNAVAILABLE);
+
+    assertThat(fileDownloader.download(getUrl(FILE_TO_DOWNLOAD)), is(downloadPath));
+    assertThat(readFile(downloadPath), is(FILE_CONTENT));
+  }
+
+  @Test
+  public void testDownload_serverErrorWithoutPreviousFile() throws IOException {
+    server.setErrorStatus(HttpURLConnection.HTTP_UNAVAILABLE);
+    try {
+      new FileDownloader(new Path(temporaryFolder.newFolder().getAbsolutePath()))
+          .download(getUrl(FILE_TO_DOWNLOAD));
+      fail();
+    } catch (IOException ex) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testDownload_resumeRejected() throws IOException {
+    File downloadFolder = temporaryFolder.newFolder();
+    Files.write(new File(downloadFolder, FILE_TO_DOWNLOAD + FileDownloader.PARTIAL_SUFFIX).toPath(),
+        "garbage".getBytes(StandardCharsets.UTF_8));
+    Files.write(new File(downloadFolder, FILE_TO_DOWNLOAD + FileDownloader.METADATA_SUFFIX).toPath(),
+        ("url=" + getUrl(FILE_TO_DOWNLOAD) + "\npartial.validator=\"stale\"\n")
+            .getBytes(StandardCharsets.ISO_8859_1));
+
+    IPath downloadPath = new FileDownloader(new Path(downloadFolder.getAbsolutePath()))
+        .setResume(true)
+        .download(getUrl(FILE_TO_DOWNLOAD));
+    assertThat(readFile(downloadPath), is(FILE_CONTENT));
+  }
+
+  @Test
+  public void testDownload_checksumVerified() throws IOException {
+    IPath downloadPath = new FileDownloader(new Path(temporaryFolder.newFolder().getAbsolutePath()))
+        .setVerifyChecksum(true)
+        .download(getUrl(CHECKED_FILE));
+    assertThat(readFile(downloadPath), is(CHECKED_CONTENT));
+  }
+
+  @Test
+  public void testDownload_noChecksumPublished() throws IOException {
+    IPath downloadPath = new FileDownloader(new Path(temporaryFolder.newFolder().getAbsolutePath()))
+        .setVerifyChecksum(true)
+        .download(getUrl(FILE_TO_DOWNLOAD));
+    assertThat(readFile(downloadPath), is(FILE_CONTENT));
+  }
+
+  @Test
+  public void testDownload_checksumMismatch() throws IOException {
+    File downloadFolder = temporaryFolder.newFolder();
+    try {
+      new FileDownloader(new Path(downloadFolder.getAbsolutePath()))
+          .setVerifyChecksum(true)
+          .download(getUrl(CORRUPT_FILE));
+      fail();
+    } catch (IOException ex) {
+      assertThat(ex.getMessage(), startsWith("Checksum mismatch"));
+    }
+    assertThat(downloadFolder.list().length, is(0));
+  }
+
+  @Test
+  public void testDownload_failedResumableUpdateKeepsPreviousFile() throws IOException {
+    FileDownloader fileDownloader = new FileDownloader(new Path(temporaryFolder.newFolder().getAbsolutePath()))
+        .setMaxAge(0, TimeUnit.SECONDS)
+        .setResume(true)
+        .setVerifyChecksum(true);
+    IPath downloadPath = fileDownloader.download(getUrl(CHECKED_FILE));
+    // no longer matches the published checksum
+    server.setFileContent(CHECKED_FILE, "changed content");
+    try {
+      fileDownloader.download(getUrl(CHECKED_FILE));
+      fail();
+    } catch (IOException ex) {
+      assertThat(ex.getMessage(), startsWith("Checksum mismatch"));
+    }
+
+    server.setErrorStatus(HttpURLConnection.HTTP_UNAVAILABLE);
+    assertThat(fileDownloader.download(getUrl(CHECKED_FILE)), is(downloadPath));
+    assertThat(readFile(downloadPath), is(CHECKED_CONTENT));
+  }
+
+  private URL getUrl(String fileName) throws MalformedURLException {
+    return new URL(server.getAddress() + "/" + fileName);
+  }
+
+  private static String readFile(IPath path) throws IOException {
+    return new String(Files.readAllBytes(path.toFile().toPath()), StandardCharsets.UTF_8);
+  }
 }
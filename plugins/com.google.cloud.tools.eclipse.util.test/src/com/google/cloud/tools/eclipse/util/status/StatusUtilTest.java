@@ -21,6 +21,7 @@ import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.*;
 
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
 import org.junit.Test;
 
 import com.google.cloud.tools.eclipse.util.io.DeleteAllVisitor;
@@ -69,6 +70,15 @@ public class StatusUtilTest {
     assertThat(error.getException(), is(sameInstance(exception)));
   }
 
+  @Test
+  public void testMulti() {
+    MultiStatus multi = StatusUtil.multi(StatusUtil.class, "test error msg");
+    assertTrue(multi.isOK());
+    multi.add(StatusUtil.error(StatusUtil.class, "child error"));
+    verifyStatus(multi);
+    assertThat(multi.getChildren().length, is(1));
+  }
+
   private void verifyStatus(IStatus error) {
     assertThat(error.getSeverity(), is(IStatus.ERROR));
     assertThat(error.getMessage(), is("test error msg"));
@@ -17,29 +17,34 @@
 package com.google.cloud.tools.eclipse.util;
 
 import com.google.cloud.tools.eclipse.util.status.StatusUtil;
-import java.io.IOException;
 import java.io.InputStream;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.Status;
-import org.osgi.framework.FrameworkUtil;
-import org.w3c.dom.DOMException;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
 /**
  * Utilities to obtain information from appengine-web.xml.
+ * <p>
+ * The file is read with a streaming parser that keeps only the few top-level values this class
+ * exposes, and stops reading as soon as it has found all of them.
+ *
+ * @see AppEngineDescriptorCache
  */
 // TODO this class belongs in appengine-plugins-core
 public class AppEngineDescriptor {
 
   private static final String WEB_XML_NS_URI = "http://appengine.google.com/ns/1.0";
-  private Document document;
-  
+  private static final String ROOT_ELEMENT = "appengine-web-app"; //$NON-NLS-1$
+
+  private static final XMLInputFactory inputFactory = createInputFactory();
+
+  private String projectId;
+  private String projectVersion;
+  private String service;
+  private String module;
+
   private AppEngineDescriptor() {
     // force use of parse method
   }
@@ -47,11 +52,14 @@ public class AppEngineDescriptor {
   public static AppEngineDescriptor parse(InputStream appEngineXmlContents) throws CoreException {
     try {
       AppEngineDescriptor instance = new AppEngineDescriptor();
-      DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-      documentBuilderFactory.setNamespaceAware(true);
-      instance.document = documentBuilderFactory.newDocumentBuilder().parse(appEngineXmlContents);
+      XMLStreamReader reader = inputFactory.createXMLStreamReader(appEngineXmlContents);
+      try {
+        instance.read(reader);
+      } finally {
+        reader.close();
+      }
       return instance;
-    } catch (IOException | SAXException | ParserConfigurationException exception) {
+    } catch (XMLStreamException exception) {
       throw new CoreException(
           StatusUtil.error(AppEngineDescriptor.class, "Cannot parse appengine-web.xml", exception));
     }
@@ -63,7 +71,7 @@ public class AppEngineDescriptor {
    * @throws CoreException if parsing the value fails
    */
   public String getProjectId() throws CoreException {
-    return getTopLevelValue(document, "appengine-web-app", "application"); //$NON-NLS-1$ //$NON-NLS-2$
+    return projectId;
   }
 
   /**
@@ -72,7 +80,7 @@ public class AppEngineDescriptor {
    * @throws CoreException if parsing the value fails
    */
   public String getProjectVersion() throws CoreException {
-    return getTopLevelValue(document, "appengine-web-app", "version"); //$NON-NLS-1$ //$NON-NLS-2$
+    return projectVersion;
   }
 
   /**
@@ -81,34 +89,117 @@ public class AppEngineDescriptor {
    * @throws CoreException if parsing the value fails
    */
   public String getServiceId() throws CoreException {
-    String serviceID = getTopLevelValue(document, "appengine-web-app", "service"); //$NON-NLS-1$ //$NON-NLS-2$
-    if (serviceID != null) {
-      return serviceID;
+    if (service != null) {
+      return service;
     }
-    return getTopLevelValue(document, "appengine-web-app", "module"); //$NON-NLS-1$ //$NON-NLS-2$
+    return module;
   }
 
-
-  private String getTopLevelValue(Document doc, String parentTagName, String childTagName)
-      throws CoreException {
-    try {
-      NodeList parentElements = doc.getElementsByTagNameNS(WEB_XML_NS_URI, parentTagName);
-      if (parentElements.getLength() > 0) {
-        Node parent = parentElements.item(0);
-        if (parent.hasChildNodes()) {
-          for (int i = 0; i < parent.getChildNodes().getLength(); ++i) {
-            Node child = parent.getChildNodes().item(i);
-            if (child.getNodeName().equals(childTagName)) {
-              return child.getTextContent();
-            }
+  /**
+   * Reads the text of the children of the first &lt;appengine-web-app&gt; element in the App
+   * Engine namespace. As with the DOM, the text of a child includes that of its descendants and
+   * the first occurrence of an element wins.
+   */
+  private void read(XMLStreamReader reader) throws XMLStreamException {
+    int depth = 0;
+    int rootDepth = -1;
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+        if (rootDepth == -1) {
+          if (ROOT_ELEMENT.equals(reader.getLocalName())
+              && WEB_XML_NS_URI.equals(reader.getNamespaceURI())) {
+            rootDepth = depth;
+          }
+        } else if (depth == rootDepth + 1) {
+          String name = reader.getLocalName();
+          // the element is consumed by readText(), including its end tag
+          depth--;
+          String text = readText(reader);
+          setValue(name, text);
+          if (isComplete()) {
+            return;
           }
         }
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        if (depth == rootDepth) {
+          return;
+        }
+        depth--;
       }
-      return null;
-    } catch (DOMException exception) {
-      throw new CoreException(
-          new Status(IStatus.ERROR, FrameworkUtil.getBundle(getClass()).getSymbolicName(),
-              "Missing appengine-web element: " + childTagName, exception));
     }
   }
+
+  /**
+   * Returns the concatenated text of the current element and its descendants, leaving the reader on
+   * the element's end tag.
+   */
+  private static String readText(XMLStreamReader reader) throws XMLStreamException {
+    StringBuilder text = new StringBuilder();
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      switch (event) {
+        case XMLStreamConstants.START_ELEMENT:
+          depth++;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          depth--;
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          text.append(reader.getText());
+          break;
+        default:
+          break;
+      }
+    }
+    return text.toString();
+  }
+
+  private void setValue(String elementName, String text) {
+    switch (elementName) {
+      case "application": //$NON-NLS-1$
+        if (projectId == null) {
+          projectId = text;
+        }
+        break;
+      case "version": //$NON-NLS-1$
+        if (projectVersion == null) {
+          projectVersion = text;
+        }
+        break;
+      case "service": //$NON-NLS-1$
+        if (service == null) {
+          service = text;
+        }
+        break;
+      case "module": //$NON-NLS-1$
+        if (module == null) {
+          module = text;
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * A &lt;module&gt; is only needed while there is no &lt;service&gt;, which takes precedence.
+   */
+  private boolean isComplete() {
+    return projectId != null && projectVersion != null && service != null;
+  }
+
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    // appengine-web.xml has no use for entities defined elsewhere
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return factory;
+  }
 }
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.google.cloud.tools.eclipse.util;
+
+import com.google.cloud.tools.eclipse.util.status.StatusUtil;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Workspace-wide cache of parsed {@link AppEngineDescriptor}s, so that code that looks at the
+ * <tt>appengine-web.xml</tt> of every module, e.g., each time the modules of a server are
+ * validated, does not parse the same files over and over again.
+ * <p>
+ * A descriptor is reused while the modification stamp of its file is unchanged. Entries of
+ * changed, moved or deleted files are also dropped as soon as the workspace reports the change.
+ */
+public class AppEngineDescriptorCache implements IResourceChangeListener {
+
+  private static final int RELEVANT_CHANGES =
+      IResourceDelta.CONTENT | IResourceDelta.REPLACED | IResourceDelta.MOVED_TO
+      | IResourceDelta.MOVED_FROM | IResourceDelta.SYNC | IResourceDelta.ENCODING;
+
+  private static AppEngineDescriptorCache instance;
+
+  private final Map<IFile, Entry> entries = new ConcurrentHashMap<>();
+
+  private static class Entry {
+    private final long modificationStamp;
+    private final AppEngineDescriptor descriptor;
+
+    private Entry(long modificationStamp, AppEngineDescriptor descriptor) {
+      this.modificationStamp = modificationStamp;
+      this.descriptor = descriptor;
+    }
+  }
+
+  /**
+   * Returns the shared cache, which listens to workspace changes from its first use on.
+   */
+  public static synchronized AppEngineDescriptorCache getInstance() {
+    if (instance == null) {
+      instance = new AppEngineDescriptorCache();
+      ResourcesPlugin.getWorkspace().addResourceChangeListener(instance,
+          IResourceChangeEvent.POST_CHANGE);
+    }
+    return instance;
+  }
+
+  @VisibleForTesting
+  AppEngineDescriptorCache() {
+  }
+
+  /**
+   * Returns the descriptor parsed from {@code file}, parsing it only if it changed since it was
+   * last parsed.
+   *
+   * @throws CoreException if the file cannot be read or parsed
+   */
+  public AppEngineDescriptor getDescriptor(IFile file) throws CoreException {
+    Preconditions.checkNotNull(file, "file is null");
+    long modificationStamp = file.getModificationStamp();
+    Entry entry = entries.get(file);
+    if (entry != null && entry.modificationStamp == modificationStamp) {
+      return entry.descriptor;
+    }
+
+    AppEngineDescriptor descriptor;
+    try (InputStream contents = file.getContents()) {
+      descriptor = AppEngineDescriptor.parse(contents);
+    } catch (IOException ex) {
+      // only thrown when closing the stream, by which time the descriptor has been parsed
+      throw new CoreException(StatusUtil.error(this, "Cannot read " + file.getFullPath(), ex));
+    }
+    if (modificationStamp != IResource.NULL_STAMP) {
+      entries.put(file, new Entry(modificationStamp, descriptor));
+    }
+    return descriptor;
+  }
+
+  /**
+   * Forgets all parsed descriptors.
+   */
+  public void invalidate() {
+    entries.clear();
+  }
+
+  @VisibleForTesting
+  int size() {
+    return entries.size();
+  }
+
+  @Override
+  public void resourceChanged(IResourceChangeEvent event) {
+    IResourceDelta delta = event.getDelta();
+    if (delta == null) {
+      return;
+    }
+    for (Iterator<IFile> iterator = entries.keySet().iterator(); iterator.hasNext();) {
+      if (isAffected(delta, iterator.next())) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Returns true if {@code delta} changes the content of {@code file}, or moves or deletes it,
+   * including by closing or deleting its project, in which case there is no delta for the file.
+   */
+  private static boolean isAffected(IResourceDelta delta, IFile file) {
+    IResourceDelta fileDelta = delta.findMember(file.getFullPath());
+    if (fileDelta != null && (fileDelta.getKind() != IResourceDelta.CHANGED
+        || (fileDelta.getFlags() & RELEVANT_CHANGES) != 0)) {
+      return true;
+    }
+    IResourceDelta projectDelta = delta.findMember(file.getProject().getFullPath());
+    return projectDelta != null && (projectDelta.getKind() != IResourceDelta.CHANGED
+        || (projectDelta.getFlags() & IResourceDelta.OPEN) != 0);
+  }
+}
@@ -17,24 +17,78 @@
 package com.google.cloud.tools.eclipse.util.io;
 
 import com.google.common.base.Preconditions;
+import com.google.common.hash.Hashing;
 import com.google.common.io.ByteStreams;
 import com.google.common.net.HttpHeaders;
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 
 /**
  * Utility class to download files from {@link URL}s.
+ * <p>
+ * Next to each downloaded file, a metadata file records where it came from, the validators
+ * ({@code ETag} and {@code Last-Modified}) the server sent with it and when it was last checked.
+ * A file downloaded from the same URL is reused without contacting the server until it is older
+ * than the maximum age, and is then revalidated with a conditional request, so that it is only
+ * transferred again if it changed on the server. If the server cannot be reached or fails, the
+ * file downloaded before is used.
+ * <p>
+ * Files are downloaded into a temporary file in the same directory, which replaces the previous
+ * file atomically once the transfer is complete and, optionally, verified against the SHA-1
+ * checksum published next to it. An interrupted transfer never leaves a truncated file behind,
+ * and can optionally be resumed from where it stopped.
  */
 public class FileDownloader {
+
+  private static final Logger logger = Logger.getLogger(FileDownloader.class.getName());
+
   private static final int DEFAULT_CONNECT_TIMEOUT_MS = 3000;
   private static final int DEFAULT_READ_TIMEOUT_MS = 3000;
+  private static final long DEFAULT_MAX_AGE_MS = TimeUnit.DAYS.toMillis(1);
+
+  static final String METADATA_SUFFIX = ".download.properties";
+  static final String PARTIAL_SUFFIX = ".part";
+  private static final String CHECKSUM_SUFFIX = ".sha1";
+
+  private static final String URL = "url";
+  private static final String ETAG = "etag";
+  private static final String LAST_MODIFIED = "lastModified";
+  private static final String CHECKED = "checked";
+  private static final String SIZE = "size";
+  private static final String SHA1 = "sha1";
+  /** The validator of the partial file, sent in {@code If-Range} to resume its download. */
+  private static final String PARTIAL_VALIDATOR = "partial.validator";
+
+  // the lock of each resumable download, indexed by the absolute normalized path of its file
+  private static final ConcurrentMap<java.nio.file.Path, Object> resumeLocks =
+      new ConcurrentHashMap<>();
+
   private IPath downloadFolderPath;
+  private long maxAgeMillis = DEFAULT_MAX_AGE_MS;
+  private boolean resume;
+  private boolean verifyChecksum;
 
   /**
    * Creates a new instance which will download the files to the directory defined by <code>downloadFolderPath</code>.
@@ -52,28 +106,298 @@ public class FileDownloader {
   }
 
   /**
-   * Downloads the file pointed to by the <code>url</code>
+   * Sets how long a downloaded file is used without asking the server whether it changed. The
+   * default is one day; zero revalidates on every download.
+   */
+  public FileDownloader setMaxAge(long maxAge, TimeUnit unit) {
+    Preconditions.checkArgument(maxAge >= 0, "maxAge is negative");
+    maxAgeMillis = unit.toMillis(maxAge);
+    return this;
+  }
+
+  /**
+   * If <code>true</code>, an interrupted download is kept and resumed with a range request, as
+   * long as the server supports ranges and the file did not change in the meantime. Worthwhile for
+   * large archives. Disabled by default.
+   */
+  public FileDownloader setResume(boolean resume) {
+    this.resume = resume;
+    return this;
+  }
+
+  /**
+   * If <code>true</code>, a downloaded file is verified against the SHA-1 checksum published next
+   * to it, at its URL with <code>.sha1</code> appended as in Maven repositories. Files without a
+   * published checksum are accepted. Disabled by default.
+   */
+  public FileDownloader setVerifyChecksum(boolean verifyChecksum) {
+    this.verifyChecksum = verifyChecksum;
+    return this;
+  }
+
+  /**
+   * Downloads the file pointed to by the <code>url</code>, unless it was already downloaded and is
+   * still current.
    * <p>
    * The downloaded file's name will be the last segment of the path of the URL.
+   * <p>
+   * If a file downloaded before is due for revalidation but the server cannot be reached or
+   * responds with a server error, the file is returned as is and a warning is logged.
    *
    * @param url location of the file to download, cannot be <code>null</code>
    * @return a path pointing to the downloaded file
-   * @throws IOException if the URL cannot be opened, the output file cannot be written or the transfer of the remote
-   * file fails
+   * @throws IOException if the URL cannot be opened, the output file cannot be written, the transfer of the remote
+   * file fails or the file does not match its checksum
    */
   public IPath download(URL url) throws IOException {
     Preconditions.checkNotNull(url, "url is null");
     ensureDownloadFolderExists();
 
-    File downloadedFile = downloadFolderPath.append(new Path(url.getPath()).lastSegment()).toFile();
+    String fileName = new Path(url.getPath()).lastSegment();
+    java.nio.file.Path downloadedFile = downloadFolderPath.toFile().toPath().resolve(fileName);
+    if (!resume) {
+      return download(url, downloadedFile);
+    }
+    // the partial file of a resumable download has a fixed name, so downloads of a file take turns
+    synchronized (getResumeLock(downloadedFile)) {
+      return download(url, downloadedFile);
+    }
+  }
+
+  private static Object getResumeLock(java.nio.file.Path file) {
+    java.nio.file.Path key = file.toAbsolutePath().normalize();
+    Object lock = resumeLocks.get(key);
+    if (lock == null) {
+      Object newLock = new Object();
+      lock = resumeLocks.putIfAbsent(key, newLock);
+      if (lock == null) {
+        lock = newLock;
+      }
+    }
+    return lock;
+  }
+
+  private IPath download(URL url, java.nio.file.Path downloadedFile) throws IOException {
+    String fileName = downloadedFile.getFileName().toString();
+    java.nio.file.Path downloadFolder = downloadedFile.getParent();
+    java.nio.file.Path partialFile = downloadFolder.resolve(fileName + PARTIAL_SUFFIX);
+    java.nio.file.Path metadataFile = downloadFolder.resolve(fileName + METADATA_SUFFIX);
+    IPath result = new Path(downloadedFile.toAbsolutePath().toString());
+
+    Properties metadata = loadMetadata(metadataFile);
+    boolean present = isDownloaded(downloadedFile, metadata, url);
+    long now = System.currentTimeMillis();
+    if (present && now - getLong(metadata, CHECKED) < maxAgeMillis) {
+      return result;
+    }
+
+    URLConnection connection;
+    int status;
+    long resumeFrom = 0;
+    try {
+      connection = openConnection(url);
+      if (present) {
+        String etag = metadata.getProperty(ETAG);
+        if (etag != null) {
+          connection.setRequestProperty(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        connection.setIfModifiedSince(getLong(metadata, LAST_MODIFIED));
+      } else if (resume && Files.isRegularFile(partialFile)
+          && metadata.getProperty(PARTIAL_VALIDATOR) != null
+          && url.toString().equals(metadata.getProperty(URL))) {
+        resumeFrom = Files.size(partialFile);
+        connection.setRequestProperty(HttpHeaders.RANGE, "bytes=" + resumeFrom + "-");
+        connection.setRequestProperty(HttpHeaders.IF_RANGE,
+            metadata.getProperty(PARTIAL_VALIDATOR));
+      }
+      status = getResponseCode(connection);
+    } catch (IOException ex) {
+      if (!present) {
+        throw ex;
+      }
+      logger.log(Level.WARNING, "Cannot revalidate " + url + ", using " + downloadedFile, ex);
+      return result;
+    }
+
+    if (present && status >= HttpURLConnection.HTTP_INTERNAL_ERROR) {
+      logger.log(Level.WARNING,
+          "Cannot revalidate " + url + ", status " + status + ", using " + downloadedFile);
+      return result;
+    }
+    if (present && status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+      metadata.setProperty(CHECKED, Long.toString(now));
+      storeMetadata(metadataFile, metadata);
+      return result;
+    }
+    boolean append = resumeFrom > 0 && status == HttpURLConnection.HTTP_PARTIAL
+        && isRangeFrom(connection, resumeFrom);
+    if (resumeFrom > 0 && !append && status != HttpURLConnection.HTTP_OK) {
+      // the server cannot send the rest of the partial file, so start over
+      logger.log(Level.FINE, "Cannot resume download of " + url + ", status " + status);
+      Files.deleteIfExists(partialFile);
+      Files.deleteIfExists(metadataFile);
+      return download(url, downloadedFile);
+    }
+
+    Properties newMetadata = new Properties();
+    newMetadata.setProperty(URL, url.toString());
+    String etag = connection.getHeaderField(HttpHeaders.ETAG);
+    if (etag != null) {
+      newMetadata.setProperty(ETAG, etag);
+    }
+    newMetadata.setProperty(LAST_MODIFIED, Long.toString(connection.getLastModified()));
+    // the metadata of a complete file is kept until the file is replaced, so that the file is still
+    // used if this download fails
+    if (resume && !present) {
+      String validator = etag != null ? etag : connection.getHeaderField(HttpHeaders.LAST_MODIFIED);
+      if (validator != null) {
+        Properties partialMetadata = new Properties();
+        partialMetadata.setProperty(URL, url.toString());
+        partialMetadata.setProperty(PARTIAL_VALIDATOR, validator);
+        storeMetadata(metadataFile, partialMetadata);
+      }
+    }
+
+    if (!resume) {
+      // concurrent downloads of the same file must not write to the same partial file
+      partialFile = Files.createTempFile(downloadFolder, fileName, PARTIAL_SUFFIX);
+    }
+    transfer(connection, partialFile, append);
+    try {
+      String sha1 = com.google.common.io.Files.asByteSource(partialFile.toFile())
+          .hash(Hashing.sha1()).toString();
+      if (verifyChecksum) {
+        verifyChecksum(url, sha1);
+      }
+      newMetadata.setProperty(SHA1, sha1);
+    } catch (IOException ex) {
+      Files.deleteIfExists(partialFile);
+      if (!present) {
+        Files.deleteIfExists(metadataFile);
+      }
+      throw ex;
+    }
+    newMetadata.setProperty(SIZE, Long.toString(Files.size(partialFile)));
+    newMetadata.setProperty(CHECKED, Long.toString(now));
+    Files.move(partialFile, downloadedFile, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    storeMetadata(metadataFile, newMetadata);
+    return result;
+  }
+
+  private void transfer(URLConnection connection, java.nio.file.Path partialFile, boolean append)
+      throws IOException {
+    OpenOption[] options = append
+        ? new OpenOption[] {StandardOpenOption.CREATE, StandardOpenOption.APPEND}
+        : new OpenOption[] {StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE};
+    try (InputStream inputStream = connection.getInputStream();
+         OutputStream outputStream = Files.newOutputStream(partialFile, options)) {
+      ByteStreams.copy(inputStream, outputStream);
+    } catch (IOException ex) {
+      if (!resume) {
+        Files.deleteIfExists(partialFile);
+      }
+      throw ex;
+    }
+  }
+
+  /**
+   * @throws IOException if the checksum published for {@code url} does not match {@code sha1}
+   */
+  private static void verifyChecksum(URL url, String sha1) throws IOException {
+    URL checksumUrl = new URL(url, url.getPath() + CHECKSUM_SUFFIX);
+    URLConnection connection = openConnection(checksumUrl);
+    if (getResponseCode(connection) == HttpURLConnection.HTTP_NOT_FOUND) {
+      logger.log(Level.FINE, "No checksum published for " + url);
+      return;
+    }
+    String expected;
+    try (InputStream inputStream = connection.getInputStream()) {
+      // the file may also contain the name of the checksummed file after the checksum
+      String content = new String(ByteStreams.toByteArray(inputStream), StandardCharsets.US_ASCII);
+      expected = content.trim().split("\\s+", 2)[0].toLowerCase(Locale.US);
+    } catch (FileNotFoundException ex) {
+      logger.log(Level.FINE, "No checksum published for " + url);
+      return;
+    }
+    if (!expected.equals(sha1)) {
+      throw new IOException("Checksum mismatch for " + url + ": expected " + expected
+          + " but was " + sha1);
+    }
+  }
+
+  private static URLConnection openConnection(URL url) throws IOException {
     URLConnection connection = url.openConnection();
     connection.setConnectTimeout(DEFAULT_CONNECT_TIMEOUT_MS);
     connection.setReadTimeout(DEFAULT_READ_TIMEOUT_MS);
     connection.setRequestProperty(HttpHeaders.USER_AGENT, "google-cloud-eclipse");
-    try (InputStream inputStream = connection.getInputStream();
-         FileOutputStream outputStream = new FileOutputStream(downloadedFile)) {
-      ByteStreams.copy(inputStream, outputStream);
-      return new Path(downloadedFile.getAbsolutePath());
+    return connection;
+  }
+
+  /**
+   * @return the HTTP status of the response, or 200 for other protocols
+   */
+  private static int getResponseCode(URLConnection connection) throws IOException {
+    if (connection instanceof HttpURLConnection) {
+      return ((HttpURLConnection) connection).getResponseCode();
+    }
+    return HttpURLConnection.HTTP_OK;
+  }
+
+  private static boolean isRangeFrom(URLConnection connection, long offset) {
+    String contentRange = connection.getHeaderField(HttpHeaders.CONTENT_RANGE);
+    return contentRange != null && contentRange.startsWith("bytes " + offset + "-");
+  }
+
+  /**
+   * @return <code>true</code> if {@code file} was completely downloaded from {@code url}
+   */
+  private static boolean isDownloaded(java.nio.file.Path file, Properties metadata, URL url)
+      throws IOException {
+    return url.toString().equals(metadata.getProperty(URL))
+        && metadata.getProperty(SIZE) != null
+        && Files.isRegularFile(file)
+        && Files.size(file) == getLong(metadata, SIZE);
+  }
+
+  private static long getLong(Properties metadata, String key) {
+    try {
+      return Long.parseLong(metadata.getProperty(key, "0"));
+    } catch (NumberFormatException ex) {
+      return 0;
+    }
+  }
+
+  /**
+   * @return the metadata stored in {@code metadataFile}, empty if it does not exist or cannot be
+   *     read
+   */
+  private static Properties loadMetadata(java.nio.file.Path metadataFile) {
+    Properties metadata = new Properties();
+    if (Files.exists(metadataFile)) {
+      try (Reader reader = Files.newBufferedReader(metadataFile, StandardCharsets.UTF_8)) {
+        metadata.load(reader);
+      } catch (IOException | IllegalArgumentException ex) {
+        logger.log(Level.WARNING, "Ignoring unreadable download metadata " + metadataFile, ex);
+        metadata.clear();
+      }
+    }
+    return metadata;
+  }
+
+  private static void storeMetadata(java.nio.file.Path metadataFile, Properties metadata)
+      throws IOException {
+    java.nio.file.Path temporaryFile = Files.createTempFile(metadataFile.getParent(),
+        metadataFile.getFileName().toString(), ".tmp");
+    try {
+      try (Writer writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+        metadata.store(writer, null);
+      }
+      Files.move(temporaryFile, metadataFile, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
     }
   }
 
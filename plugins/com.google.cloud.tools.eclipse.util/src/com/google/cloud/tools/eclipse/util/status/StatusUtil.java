@@ -17,6 +17,7 @@
 package com.google.cloud.tools.eclipse.util.status;
 
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.Status;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.FrameworkUtil;
@@ -53,6 +54,13 @@ public class StatusUtil {
     return new Status(IStatus.INFO, getBundleId(origin), message, error);
   }
 
+  /**
+   * Returns an empty {@link MultiStatus} to which the statuses of several operations can be added.
+   */
+  public static MultiStatus multi(Object origin, String message) {
+    return new MultiStatus(getBundleId(origin), 0, message, null);
+  }
+
   private static String getBundleId(Object origin) {
     Class<?> clazz = null;
     if (origin == null) {
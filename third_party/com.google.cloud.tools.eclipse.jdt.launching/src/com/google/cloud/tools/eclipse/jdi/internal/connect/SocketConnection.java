@@ -8,35 +8,51 @@
  * Contributors:
  *     IBM Corporation - initial API and implementation
  *     Google Inc - add support for accepting multiple connections
+ *     Google Inc - read and write packets through a SocketChannel
  *******************************************************************************/
 package com.google.cloud.tools.eclipse.jdi.internal.connect;
 
 import com.sun.jdi.connect.spi.ClosedConnectionException;
 import com.sun.jdi.connect.spi.Connection;
 
-import java.io.DataInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SocketChannel;
 
 /**
- * A fork of org.eclipse.jdi.internal.connect.SocketConnection that stores the
- * socket, input stream, and output stream.
+ * A fork of org.eclipse.jdi.internal.connect.SocketConnection that reads and
+ * writes JDWP packets directly on a blocking {@link SocketChannel}.
+ * <p>
+ * Incoming data is read into a direct buffer that is reused for the life of the
+ * connection, so that a single read from the socket usually yields several
+ * small packets and no stream is allocated per packet. Outgoing packets are
+ * copied into a reused direct buffer and written with a single call. Reads and
+ * writes are serialized by separate locks, so that the JDI reader and writer
+ * threads do not contend with each other.
  */
 public class SocketConnection extends Connection {
 
-	// for attaching connector
-	private Socket fSocket;
+	/** Size of the pooled read and write buffers. Larger packets are read and written in place. */
+	static final int BUFFER_SIZE = 64 * 1024;
 
-	private InputStream fInput;
+	private static final int HEADER_LENGTH = 11;
 
-	private OutputStream fOutput;
+	private volatile SocketChannel fChannel;
 
-	SocketConnection(Socket socket, InputStream in, OutputStream out) {
-		fSocket = socket;
-		fInput = in;
-		fOutput = out;
+	private final Object fReadLock = new Object();
+
+	private final Object fWriteLock = new Object();
+
+	private final ByteBuffer fReadBuffer;
+
+	private final ByteBuffer fWriteBuffer;
+
+	SocketConnection(SocketChannel channel) {
+		fChannel = channel;
+		fReadBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		fReadBuffer.flip(); // nothing to read yet
+		fWriteBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
 	}
 
 	/*
@@ -46,11 +62,13 @@ public class SocketConnection extends Connection {
 	 */
 	@Override
 	public synchronized void close() throws IOException {
-		if (fSocket == null)
+		SocketChannel channel = fChannel;
+		if (channel == null)
 			return;
 
-		fSocket.close();
-		fSocket = null;
+		fChannel = null;
+		// wakes up threads blocked reading or writing the channel
+		channel.close();
 	}
 
 	/*
@@ -59,8 +77,8 @@ public class SocketConnection extends Connection {
 	 * @see com.sun.jdi.connect.spi.Connection#isOpen()
 	 */
 	@Override
-	public synchronized boolean isOpen() {
-		return fSocket != null;
+	public boolean isOpen() {
+		return fChannel != null;
 	}
 
 	/*
@@ -70,36 +88,59 @@ public class SocketConnection extends Connection {
 	 */
 	@Override
 	public byte[] readPacket() throws IOException {
-		DataInputStream stream;
-		synchronized (this) {
-			if (!isOpen()) {
-				throw new ClosedConnectionException();
-			}
-			stream = new DataInputStream(fInput);
-		}
-		synchronized (stream) {
-			int packetLength = 0;
+		SocketChannel channel = getOpenChannel();
+		synchronized (fReadLock) {
 			try {
-				packetLength = stream.readInt();
+				fill(channel, 4);
 			} catch (IOException e) {
 				throw new ClosedConnectionException();
 			}
-
-			if (packetLength < 11) {
+			int packetLength = fReadBuffer.getInt(fReadBuffer.position());
+			if (packetLength < HEADER_LENGTH) {
 				throw new IOException("JDWP Packet under 11 bytes"); //$NON-NLS-1$
 			}
 
 			byte[] packet = new byte[packetLength];
-			packet[0] = (byte) ((packetLength >>> 24) & 0xFF);
-			packet[1] = (byte) ((packetLength >>> 16) & 0xFF);
-			packet[2] = (byte) ((packetLength >>> 8) & 0xFF);
-			packet[3] = (byte) ((packetLength >>> 0) & 0xFF);
-
-			stream.readFully(packet, 4, packetLength - 4);
+			int buffered = Math.min(packetLength, fReadBuffer.remaining());
+			fReadBuffer.get(packet, 0, buffered);
+			if (buffered < packetLength) {
+				// the rest of the packet is read in place rather than through the buffer
+				ByteBuffer rest = ByteBuffer.wrap(packet, buffered, packetLength - buffered);
+				while (rest.hasRemaining()) {
+					read(channel, rest);
+				}
+			}
 			return packet;
 		}
 	}
 
+	/**
+	 * Reads from the channel until at least {@code count} bytes are buffered.
+	 */
+	private void fill(SocketChannel channel, int count) throws IOException {
+		if (fReadBuffer.remaining() >= count) {
+			return;
+		}
+		fReadBuffer.compact();
+		try {
+			while (fReadBuffer.position() < count) {
+				read(channel, fReadBuffer);
+			}
+		} finally {
+			fReadBuffer.flip();
+		}
+	}
+
+	private static void read(SocketChannel channel, ByteBuffer buffer) throws IOException {
+		try {
+			if (channel.read(buffer) < 0) {
+				throw new ClosedConnectionException();
+			}
+		} catch (ClosedChannelException e) {
+			throw new ClosedConnectionException();
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -107,19 +148,17 @@ public class SocketConnection extends Connection {
 	 */
 	@Override
 	public void writePacket(byte[] packet) throws IOException {
-		if (!isOpen()) {
-			throw new ClosedConnectionException();
-		}
+		getOpenChannel();
 		if (packet == null) {
 			throw new IllegalArgumentException("Invalid JDWP Packet, packet cannot be null"); //$NON-NLS-1$
 		}
-		if (packet.length < 11) {
+		if (packet.length < HEADER_LENGTH) {
 			throw new IllegalArgumentException(
 					"Invalid JDWP Packet, must be at least 11 bytes. PacketSize:" + packet.length); //$NON-NLS-1$
 		}
 
 		int packetSize = getPacketLength(packet);
-		if (packetSize < 11) {
+		if (packetSize < HEADER_LENGTH) {
 			throw new IllegalArgumentException(
 					"Invalid JDWP Packet, must be at least 11 bytes. PacketSize:" + packetSize); //$NON-NLS-1$
 		}
@@ -128,19 +167,35 @@ public class SocketConnection extends Connection {
 			throw new IllegalArgumentException("Invalid JDWP packet: Specified length is greater than actual length"); //$NON-NLS-1$
 		}
 
-		OutputStream stream = null;
-		synchronized (this) {
-			if (!isOpen()) {
+		SocketChannel channel = getOpenChannel();
+		synchronized (fWriteLock) {
+			// packet.length can be > packetSize. Sending too much will cause
+			// errors on the other side
+			ByteBuffer buffer;
+			if (packetSize <= fWriteBuffer.capacity()) {
+				fWriteBuffer.clear();
+				fWriteBuffer.put(packet, 0, packetSize);
+				fWriteBuffer.flip();
+				buffer = fWriteBuffer;
+			} else {
+				buffer = ByteBuffer.wrap(packet, 0, packetSize);
+			}
+			try {
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+			} catch (ClosedChannelException e) {
 				throw new ClosedConnectionException();
 			}
-			stream = fOutput;
 		}
+	}
 
-		synchronized (stream) {
-			// packet.length can be > packetSize. Sending too much will cause
-			// errors on the other side
-			stream.write(packet, 0, packetSize);
+	private SocketChannel getOpenChannel() throws ClosedConnectionException {
+		SocketChannel channel = fChannel;
+		if (channel == null) {
+			throw new ClosedConnectionException();
 		}
+		return channel;
 	}
 
 	private int getPacketLength(byte[] packet) {
@@ -10,6 +10,7 @@
  *     Ivan Popov - Bug 184211: JDI connectors throw NullPointerException if used separately
  *              from Eclipse
  *     Google Inc - add support for accepting multiple connections
+ *     Google Inc - connect through socket channels
  *******************************************************************************/
 package com.google.cloud.tools.eclipse.jdi.internal.connect;
 
@@ -26,9 +27,12 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.Arrays;
 
 /**
@@ -107,7 +111,7 @@ public class SocketTransportService extends TransportService {
 		InputStream input = socket.getInputStream();
 		OutputStream output = socket.getOutputStream();
 		performHandshake(input, output, handshakeTimeout);
-		return new SocketConnection(socket, input, output);
+		return new SocketConnection(socket.getChannel());
 	}
 
 	/*
@@ -145,11 +149,12 @@ public class SocketTransportService extends TransportService {
 			@Override
 			public void run() {
 				try {
-					Socket socket = new Socket(host, port);
+					SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+					Socket socket = channel.socket();
 					InputStream input = socket.getInputStream();
 					OutputStream output = socket.getOutputStream();
 					performHandshake(input, output, handshakeTimeout);
-					result[0] = new SocketConnection(socket, input, output);
+					result[0] = new SocketConnection(channel);
 				} catch (IOException e) {
 					ex[0] = e;
 				}
@@ -293,7 +298,9 @@ public class SocketTransportService extends TransportService {
 			host = "localhost"; //$NON-NLS-1$
 		}
 
-		fServerSocket = new ServerSocket(port);
+		// sockets accepted from a channel can be read and written through their channel
+		fServerSocket = ServerSocketChannel.open().socket();
+		fServerSocket.bind(new InetSocketAddress(port));
 		port = fServerSocket.getLocalPort();
 		ListenKey listenKey = new SocketListenKey(host + ":" + port); //$NON-NLS-1$
 		return listenKey;
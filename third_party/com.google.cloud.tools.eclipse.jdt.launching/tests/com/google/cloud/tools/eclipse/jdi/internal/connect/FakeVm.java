@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.jdi.internal.connect;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+
+/**
+ * A fake debuggee VM that listens for a debugger to attach, performs the JDWP
+ * handshake and answers every command packet with a reply packet of the same
+ * size and id.
+ */
+class FakeVm implements Runnable {
+
+	private static final String HOST = "127.0.0.1"; //$NON-NLS-1$
+
+	private static final byte[] HANDSHAKE = "JDWP-Handshake".getBytes(); //$NON-NLS-1$
+
+	private final ServerSocket serverSocket;
+
+	private final Thread thread;
+
+	private volatile IOException failure;
+
+	FakeVm() throws IOException {
+		serverSocket = new ServerSocket(0, 1, InetAddress.getByName(HOST));
+		thread = new Thread(this, "Fake VM"); //$NON-NLS-1$
+		thread.setDaemon(true);
+	}
+
+	String getAddress() {
+		return HOST + ":" + serverSocket.getLocalPort(); //$NON-NLS-1$
+	}
+
+	void start() {
+		thread.start();
+	}
+
+	@Override
+	public void run() {
+		try (Socket socket = serverSocket.accept()) {
+			// buffered, so that the fake VM is not the bottleneck of a benchmark
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			byte[] handshake = new byte[HANDSHAKE.length];
+			in.readFully(handshake);
+			if (!Arrays.equals(HANDSHAKE, handshake)) {
+				throw new IOException("Invalid handshake"); //$NON-NLS-1$
+			}
+			out.write(HANDSHAKE);
+			out.flush();
+			byte[] packet = new byte[0];
+			while (true) {
+				int length;
+				try {
+					length = in.readInt();
+				} catch (IOException e) {
+					return; // the debugger disconnected
+				}
+				if (packet.length < length) {
+					packet = new byte[length];
+				}
+				in.readFully(packet, 4, length - 4);
+				packet[8] = (byte) 0x80; // reply flag
+				packet[9] = 0; // no error
+				packet[10] = 0;
+				out.writeInt(length);
+				out.write(packet, 4, length - 4);
+				if (in.available() == 0) {
+					out.flush();
+				}
+			}
+		} catch (IOException e) {
+			failure = e;
+		} finally {
+			try {
+				serverSocket.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	void stop() throws IOException, InterruptedException {
+		serverSocket.close();
+		thread.join(5000);
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * @return a command packet of {@code length} bytes with the given id
+	 */
+	static byte[] newCommand(int id, int length) {
+		byte[] packet = new byte[length];
+		packet[0] = (byte) (length >>> 24);
+		packet[1] = (byte) (length >>> 16);
+		packet[2] = (byte) (length >>> 8);
+		packet[3] = (byte) length;
+		packet[4] = (byte) (id >>> 24);
+		packet[5] = (byte) (id >>> 16);
+		packet[6] = (byte) (id >>> 8);
+		packet[7] = (byte) id;
+		packet[9] = 1; // VirtualMachine command set
+		packet[10] = 1; // Version command
+		for (int i = 11; i < length; i++) {
+			packet[i] = (byte) i;
+		}
+		return packet;
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.jdi.internal.connect;
+
+import com.sun.jdi.connect.spi.Connection;
+
+import java.io.IOException;
+
+/**
+ * Measures the throughput of {@link SocketConnection} against a {@link FakeVm}
+ * on the loopback interface. Run as a Java application; the optional arguments
+ * are the number of packets and the packet size in bytes.
+ */
+public class SocketConnectionBenchmark {
+
+	private static final int WARMUP_ROUNDS = 3;
+
+	public static void main(String[] args) throws Exception {
+		int packetCount = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		int packetSize = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+		for (int round = 0; round < WARMUP_ROUNDS; round++) {
+			run(packetCount / 10, packetSize);
+		}
+		long nanos = run(packetCount, packetSize);
+		double seconds = nanos / 1e9;
+		System.out.printf("%d packets of %d bytes in %.3f s: %.0f packets/s, %.1f MB/s%n", //$NON-NLS-1$
+				packetCount, packetSize, seconds, packetCount / seconds,
+				2.0 * packetCount * packetSize / seconds / (1024 * 1024));
+	}
+
+	/**
+	 * Writes {@code packetCount} commands from one thread while reading the
+	 * replies on another, as the JDI reader and writer threads do.
+	 *
+	 * @return the elapsed time in nanoseconds
+	 */
+	private static long run(final int packetCount, int packetSize) throws Exception {
+		FakeVm vm = new FakeVm();
+		vm.start();
+		final Connection connection = new SocketTransportService().attach(vm.getAddress(), 5000, 5000);
+		try {
+			final IOException[] readFailure = new IOException[1];
+			Thread reader = new Thread("Benchmark reader") { //$NON-NLS-1$
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < packetCount; i++) {
+							connection.readPacket();
+						}
+					} catch (IOException e) {
+						readFailure[0] = e;
+					}
+				}
+			};
+			byte[] command = FakeVm.newCommand(1, packetSize);
+			long start = System.nanoTime();
+			reader.start();
+			for (int i = 0; i < packetCount; i++) {
+				connection.writePacket(command);
+			}
+			reader.join();
+			long elapsed = System.nanoTime() - start;
+			if (readFailure[0] != null) {
+				throw readFailure[0];
+			}
+			return elapsed;
+		} finally {
+			connection.close();
+			vm.stop();
+		}
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.tools.eclipse.jdi.internal.connect;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import com.sun.jdi.connect.spi.ClosedConnectionException;
+import com.sun.jdi.connect.spi.Connection;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+public class SocketConnectionTest {
+
+	private FakeVm vm;
+
+	private Connection connection;
+
+	@Before
+	public void setUp() throws IOException {
+		vm = new FakeVm();
+		vm.start();
+		connection = new SocketTransportService().attach(vm.getAddress(), 5000, 5000);
+	}
+
+	@After
+	public void tearDown() throws IOException, InterruptedException {
+		connection.close();
+		vm.stop();
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		byte[] command = FakeVm.newCommand(1, 11);
+		connection.writePacket(command);
+		byte[] reply = connection.readPacket();
+		assertEquals(11, reply.length);
+		assertEquals((byte) 0x80, reply[8]);
+		assertArrayEquals(Arrays.copyOf(command, 8), Arrays.copyOf(reply, 8));
+	}
+
+	@Test
+	public void testManyPackets() throws IOException {
+		for (int id = 0; id < 1000; id++) {
+			connection.writePacket(FakeVm.newCommand(id, 11 + id % 100));
+		}
+		for (int id = 0; id < 1000; id++) {
+			byte[] reply = connection.readPacket();
+			assertEquals(11 + id % 100, reply.length);
+			assertEquals((byte) id, reply[7]);
+		}
+	}
+
+	@Test
+	public void testPacketLargerThanBuffer() throws IOException {
+		int length = SocketConnection.BUFFER_SIZE * 3 + 7;
+		byte[] command = FakeVm.newCommand(2, length);
+		connection.writePacket(command);
+		byte[] reply = connection.readPacket();
+		assertEquals(length, reply.length);
+		assertArrayEquals(Arrays.copyOfRange(command, 11, length),
+				Arrays.copyOfRange(reply, 11, length));
+	}
+
+	@Test
+	public void testWritePacket_sendsOnlySpecifiedLength() throws IOException {
+		byte[] command = Arrays.copyOf(FakeVm.newCommand(3, 20), 30);
+		connection.writePacket(command);
+		connection.writePacket(FakeVm.newCommand(4, 11));
+		assertEquals(20, connection.readPacket().length);
+		assertEquals(4, connection.readPacket()[7]);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWritePacket_tooShort() throws IOException {
+		connection.writePacket(new byte[10]);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWritePacket_lengthGreaterThanPacket() throws IOException {
+		byte[] command = FakeVm.newCommand(5, 20);
+		connection.writePacket(Arrays.copyOf(command, 15));
+	}
+
+	@Test
+	public void testClose() throws IOException {
+		connection.close();
+		assertFalse(connection.isOpen());
+		try {
+			connection.readPacket();
+			fail();
+		} catch (ClosedConnectionException e) {
+			// expected
+		}
+		try {
+			connection.writePacket(FakeVm.newCommand(6, 11));
+			fail();
+		} catch (ClosedConnectionException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testClose_wakesUpReader() throws Exception {
+		Thread closer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(200);
+					connection.close();
+				} catch (Exception e) {
+				}
+			}
+		};
+		closer.start();
+		try {
+			connection.readPacket();
+			fail();
+		} catch (ClosedConnectionException e) {
+			// expected
+		}
+		closer.join();
+	}
+}
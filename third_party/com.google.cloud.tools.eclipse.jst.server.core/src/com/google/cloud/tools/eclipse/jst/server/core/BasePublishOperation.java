@@ -19,16 +19,30 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IAdaptable;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.jst.server.core.IJ2EEModule;
 import org.eclipse.jst.server.core.IWebModule;
 import org.eclipse.wst.server.core.IModule;
 import org.eclipse.wst.server.core.IServer;
+import org.eclipse.wst.server.core.model.IModuleFolder;
 import org.eclipse.wst.server.core.model.IModuleResource;
 import org.eclipse.wst.server.core.model.IModuleResourceDelta;
 import org.eclipse.wst.server.core.model.PublishOperation;
@@ -40,7 +54,13 @@ import org.eclipse.wst.server.core.util.PublishHelper;
  * server adapter's <tt>org.eclipse.jst.server.tomcat.core.internal.PublishOperation2</tt>.
  */
 public abstract class BasePublishOperation extends PublishOperation {
-  private static final String PLUGIN_ID = "com.google.cloud.tools.eclipse.jst.server.core";
+  static final String PLUGIN_ID = "com.google.cloud.tools.eclipse.jst.server.core";
+
+  /** The maximum number of threads used to copy files concurrently. */
+  private static final int MAX_PUBLISH_THREADS = 4;
+
+  /** Shared by all publish operations, so that concurrent publishes do not add threads. */
+  private static final ExecutorService publishExecutor = createPublishExecutor();
 
   protected IModule[] module;
   protected int kind;
@@ -112,13 +132,21 @@ public abstract class BasePublishOperation extends PublishOperation {
    * Initializes this instance.
    */
   protected void initialize() throws CoreException {
+    helper = createPublishHelper();
+  }
+
+  /**
+   * Creates a helper to copy the module resources. A helper is not thread-safe, so each task run
+   * concurrently uses its own.
+   */
+  protected PublishHelper createPublishHelper() {
     IPath base = getRuntimeBaseDirectory();
     if (base != null) {
-      helper = new PublishHelper(base.append("temp").toFile());
+      return new PublishHelper(base.append("temp").toFile());
     } else {
       // We are doomed without a base directory. However, allow the catastrophe
       // to occur elsewhere and hope for a useful error message.
-      helper = new PublishHelper(null);
+      return new PublishHelper(null);
     }
   }
 
@@ -133,31 +161,40 @@ public abstract class BasePublishOperation extends PublishOperation {
     } else {
       // Else a child module
       Properties properties = loadModulePublishLocations();
-
-      // Try to determine the URI for the child module
-      IWebModule webModule = (IWebModule) module[0].loadAdapter(IWebModule.class, monitor);
-      String childURI = null;
-      if (webModule != null) {
-        childURI = webModule.getURI(module[1]);
-      }
-      // Try to determine if child is binary
-      IJ2EEModule childModule = (IJ2EEModule) module[1].loadAdapter(IJ2EEModule.class, monitor);
-      boolean isBinary = false;
-      if (childModule != null) {
-        isBinary = childModule.isBinary();
-      }
-
-      if (isBinary) {
-        publishArchiveModule(childURI, properties, statuses, monitor);
-      } else {
-        publishJar(childURI, properties, statuses, monitor);
-      }
+      publishChildModule(properties, statuses, monitor);
       saveModulePublishLocations(properties);
     }
     throwExceptionOnError(statuses);
     setModulePublishState(module, IServer.PUBLISH_STATE_NONE);
   }
 
+  /**
+   * Publishes a child module into its parent module as a jar or archive. The module publish
+   * locations in {@code properties} may be shared with the operations of sibling modules running
+   * concurrently, as {@link Properties} is synchronized.
+   */
+  protected void publishChildModule(Properties properties, List<IStatus> statuses,
+      IProgressMonitor monitor) throws CoreException {
+    // Try to determine the URI for the child module
+    IWebModule webModule = (IWebModule) module[0].loadAdapter(IWebModule.class, monitor);
+    String childURI = null;
+    if (webModule != null) {
+      childURI = webModule.getURI(module[1]);
+    }
+    // Try to determine if child is binary
+    IJ2EEModule childModule = (IJ2EEModule) module[1].loadAdapter(IJ2EEModule.class, monitor);
+    boolean isBinary = false;
+    if (childModule != null) {
+      isBinary = childModule.isBinary();
+    }
+
+    if (isBinary) {
+      publishArchiveModule(childURI, properties, statuses, monitor);
+    } else {
+      publishJar(childURI, properties, statuses, monitor);
+    }
+  }
+
   protected void publishDir(IModule module2, List<IStatus> statuses, IProgressMonitor monitor)
       throws CoreException {
     IPath path = getModuleDeployDirectory(module2);
@@ -185,12 +222,129 @@ public abstract class BasePublishOperation extends PublishOperation {
     }
 
     IModuleResourceDelta[] delta = getPublishedResourceDelta(module);
+    publishDeltas(delta, path, statuses, monitor);
+  }
 
-    int size = delta.length;
-    for (int i = 0; i < size; i++) {
-      IStatus[] status = helper.publishDelta(delta[i], path, monitor);
+  /**
+   * Publishes {@code deltas} into {@code path}. Removals are applied first and in their original
+   * order, so that a resource removed and re-added under a name that maps to the same file is not
+   * deleted after being copied. The remaining files and added folders do not depend on each other
+   * and are copied concurrently.
+   *
+   * @throws OperationCanceledException if {@code monitor} is canceled before all updates are copied
+   */
+  protected void publishDeltas(IModuleResourceDelta[] deltas, final IPath path,
+      List<IStatus> statuses, final IProgressMonitor monitor) throws CoreException {
+    List<IModuleResourceDelta> removals = new ArrayList<IModuleResourceDelta>();
+    List<IModuleResourceDelta> updates = new ArrayList<IModuleResourceDelta>();
+    splitDeltas(deltas, removals, updates);
+
+    for (IModuleResourceDelta removal : removals) {
+      IStatus[] status = helper.publishDelta(removal, path, monitor);
       addArrayToList(statuses, status);
     }
+
+    List<Callable<IStatus[]>> tasks = new ArrayList<Callable<IStatus[]>>(updates.size());
+    for (final IModuleResourceDelta update : updates) {
+      tasks.add(new Callable<IStatus[]>() {
+        @Override
+        public IStatus[] call() {
+          if (monitor.isCanceled()) {
+            throw new OperationCanceledException();
+          }
+          // progress monitors are not thread-safe
+          return createPublishHelper().publishDelta(update, path, new NullProgressMonitor());
+        }
+      });
+    }
+    runConcurrently(tasks, statuses);
+  }
+
+  /**
+   * Flattens {@code deltas} into the removed resources and the individual files and added folders
+   * to copy. A changed folder has nothing to publish itself, so only its children are kept.
+   */
+  private static void splitDeltas(IModuleResourceDelta[] deltas,
+      List<IModuleResourceDelta> removals, List<IModuleResourceDelta> updates) {
+    if (deltas == null) {
+      return;
+    }
+    for (IModuleResourceDelta delta : deltas) {
+      int deltaKind = delta.getKind();
+      if (deltaKind == IModuleResourceDelta.REMOVED) {
+        removals.add(delta);
+      } else if (deltaKind != IModuleResourceDelta.ADDED
+          && delta.getModuleResource() instanceof IModuleFolder) {
+        splitDeltas(delta.getAffectedChildren(), removals, updates);
+      } else {
+        updates.add(delta);
+      }
+    }
+  }
+
+  /**
+   * Runs {@code tasks} on up to {@link #MAX_PUBLISH_THREADS} threads shared by all operations and
+   * adds the statuses they return to {@code statuses} in task order. A single task is run in the
+   * calling thread. The tasks must not run other tasks with this method, as they could wait for
+   * threads that are all waiting themselves.
+   *
+   * @throws OperationCanceledException if a task was canceled, once all the tasks have finished
+   */
+  static void runConcurrently(List<Callable<IStatus[]>> tasks, List<IStatus> statuses) {
+    List<Future<IStatus[]>> results = new ArrayList<Future<IStatus[]>>(tasks.size());
+    if (tasks.size() == 1) {
+      FutureTask<IStatus[]> result = new FutureTask<IStatus[]>(tasks.get(0));
+      result.run();
+      results.add(result);
+    } else {
+      for (Callable<IStatus[]> task : tasks) {
+        results.add(publishExecutor.submit(task));
+      }
+    }
+
+    boolean canceled = false;
+    try {
+      for (Future<IStatus[]> result : results) {
+        try {
+          addArrayToList(statuses, result.get());
+        } catch (ExecutionException ex) {
+          Throwable cause = ex.getCause();
+          if (cause instanceof OperationCanceledException) {
+            canceled = true;
+          } else if (cause instanceof CoreException) {
+            statuses.add(((CoreException) cause).getStatus());
+          } else {
+            statuses.add(new Status(IStatus.ERROR, PLUGIN_ID, cause.getMessage(), cause));
+          }
+        }
+      }
+    } catch (InterruptedException ex) {
+      for (Future<IStatus[]> result : results) {
+        result.cancel(true);
+      }
+      Thread.currentThread().interrupt();
+      throw new OperationCanceledException();
+    }
+    if (canceled) {
+      throw new OperationCanceledException();
+    }
+  }
+
+  private static ExecutorService createPublishExecutor() {
+    ThreadFactory threadFactory = new ThreadFactory() {
+      private final AtomicInteger count = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "publish-" + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_PUBLISH_THREADS, MAX_PUBLISH_THREADS,
+        30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
   }
 
   protected void publishJar(String jarURI, Properties properties, List<IStatus> statuses,
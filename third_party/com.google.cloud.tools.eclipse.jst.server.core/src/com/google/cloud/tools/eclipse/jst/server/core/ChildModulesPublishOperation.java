@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Google Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Google Inc - Initial API and implementation
+ *******************************************************************************/
+
+package com.google.cloud.tools.eclipse.jst.server.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IAdaptable;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.wst.server.core.IServer;
+import org.eclipse.wst.server.core.model.PublishOperation;
+import org.eclipse.wst.server.core.model.ServerBehaviourDelegate;
+
+/**
+ * Publishes the child modules of web modules concurrently. Each child module is published into
+ * its own jar or archive, so once the removed modules are deleted, which happens first and in
+ * order, the others do not depend on each other. The module publish locations are loaded and saved
+ * once for all of them.
+ */
+public class ChildModulesPublishOperation extends PublishOperation {
+
+  private final List<? extends BasePublishOperation> operations;
+
+  /**
+   * @param operations the operations publishing child modules of modules that are published
+   *     before this operation runs
+   */
+  public ChildModulesPublishOperation(String label, String description,
+      List<? extends BasePublishOperation> operations) {
+    super(label, description);
+    this.operations = operations;
+  }
+
+  public int getOrder() {
+    return 0;
+  }
+
+  public int getKind() {
+    return REQUIRED;
+  }
+
+  public void execute(final IProgressMonitor monitor, IAdaptable info) throws CoreException {
+    if (operations.isEmpty()) {
+      return;
+    }
+    for (BasePublishOperation operation : operations) {
+      operation.initialize();
+    }
+    final Properties properties = operations.get(0).loadModulePublishLocations();
+
+    List<IStatus> statuses = new ArrayList<IStatus>();
+    final List<BasePublishOperation> published = new ArrayList<BasePublishOperation>();
+    List<Callable<IStatus[]>> tasks = new ArrayList<Callable<IStatus[]>>();
+    for (final BasePublishOperation operation : operations) {
+      if (operation.deltaKind == ServerBehaviourDelegate.REMOVED) {
+        List<IStatus> operationStatuses = new ArrayList<IStatus>();
+        operation.publishChildModule(properties, operationStatuses, monitor);
+        if (operationStatuses.isEmpty()) {
+          published.add(operation);
+        }
+        statuses.addAll(operationStatuses);
+      } else {
+        tasks.add(new Callable<IStatus[]>() {
+          @Override
+          public IStatus[] call() throws CoreException {
+            if (monitor.isCanceled()) {
+              throw new OperationCanceledException();
+            }
+            List<IStatus> operationStatuses = new ArrayList<IStatus>();
+            // progress monitors are not thread-safe
+            operation.publishChildModule(properties, operationStatuses, new NullProgressMonitor());
+            if (operationStatuses.isEmpty()) {
+              synchronized (published) {
+                published.add(operation);
+              }
+            }
+            return operationStatuses.toArray(new IStatus[operationStatuses.size()]);
+          }
+        });
+      }
+    }
+    try {
+      BasePublishOperation.runConcurrently(tasks, statuses);
+    } finally {
+      // record the jars published before a cancellation
+      operations.get(0).saveModulePublishLocations(properties);
+    }
+
+    for (BasePublishOperation operation : published) {
+      operation.setModulePublishState(operation.module, IServer.PUBLISH_STATE_NONE);
+    }
+    BasePublishOperation.throwExceptionOnError(statuses);
+  }
+}